@@ -0,0 +1,99 @@
+package source.demo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import source.java.util.HashMap;
+import source.java.util.MembershipFilter;
+
+/**
+ * 重新attach一个容量不足的成员过滤器，检查map的查找结果。
+ *
+ * 过滤器先以足够的容量attach到map上，之后把容量调小，再对同一个过滤器调用attachFilter重建它。
+ * 装载到一半时add返回false，attachFilter抛出IllegalArgumentException；
+ * 这时map不能再挂着这个已清空、只装了一半的过滤器，否则get和containsKey会对存在的键返回null和false。
+ */
+public class FilterReattachDemo {
+
+	/**
+	 * 精确记录hash的过滤器，最多保存capacity个hash，超过时add返回false。
+	 */
+	static final class BoundedFilter implements MembershipFilter {
+		final List<Integer> hashes = new ArrayList<>();
+		int capacity;
+
+		BoundedFilter(int capacity) {
+			this.capacity = capacity;
+		}
+
+		@Override
+		public boolean mightContain(int hash) {
+			return hashes.contains(hash);
+		}
+
+		@Override
+		public boolean add(int hash) {
+			if (hashes.size() >= capacity) {
+				return false;
+			}
+			hashes.add(hash);
+			return true;
+		}
+
+		@Override
+		public boolean remove(int hash) {
+			return hashes.remove((Integer) hash);
+		}
+
+		@Override
+		public boolean supportsRemove() {
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			hashes.clear();
+		}
+
+		@Override
+		public double falsePositiveRate() {
+			return 0.0;
+		}
+
+		@Override
+		public long bitSize() {
+			return 32L * capacity;
+		}
+	}
+
+	public static void main(String[] args) {
+		HashMap<String, Integer> map = new HashMap<>();
+		BoundedFilter filter = new BoundedFilter(1000);
+		map.attachFilter(filter);
+		for (int i = 0; i < 100; i++) {
+			map.put("key" + i, i);
+		}
+		filter.capacity = 50;
+		try {
+			map.attachFilter(filter);
+			throw new AssertionError("attachFilter accepted a filter that is too small");
+		} catch (IllegalArgumentException expected) {
+			System.out.println(expected.getMessage());
+		}
+		if (map.filter() != null) {
+			throw new AssertionError("half-loaded filter is still attached");
+		}
+		for (int i = 0; i < 100; i++) {
+			Integer value = map.get("key" + i);
+			if (value == null || value != i || !map.containsKey("key" + i)) {
+				throw new AssertionError("key" + i + " -> " + value);
+			}
+		}
+		filter.capacity = 1000;
+		map.attachFilter(filter);
+		if (map.filter() != filter || !map.containsKey("key99") || map.containsKey("key100")) {
+			throw new AssertionError("reattach");
+		}
+		System.out.println("OK");
+	}
+}
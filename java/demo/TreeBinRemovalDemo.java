@@ -0,0 +1,94 @@
+package source.demo;
+
+import java.util.Random;
+
+import source.java.util.HashMap;
+
+/**
+ * 从树化的桶中删除键，检查红黑树的不变式。需要加上 -ea 运行：
+ * 树形桶每次增删后moveRootToFront都会断言checkInvariants，根结点是红色时再插入两个子结点就会抛出AssertionError。
+ *
+ * 所有键的hashCode相同，都落在同一个桶中，超过TREEIFY_THRESHOLD后桶被树化；
+ * 键实现了Comparable，树按键的大小排序。随机增删，并与java.util.HashMap的结果对比。
+ * 迭代器删除时不移动结点(movable为false)，树不会因为变小而退化成链表，可以删到只剩根结点和一个子结点，
+ * 这时删除根结点就由子结点接替成为根，之后再插入结点时会检查到根结点的颜色。
+ */
+public class TreeBinRemovalDemo {
+
+	static final class Key implements Comparable<Key> {
+		final int value;
+
+		Key(int value) {
+			this.value = value;
+		}
+
+		@Override
+		public int hashCode() {
+			return 42;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && ((Key) o).value == value;
+		}
+
+		@Override
+		public int compareTo(Key o) {
+			return Integer.compare(value, o.value);
+		}
+	}
+
+	public static void main(String[] args) {
+		boolean assertions = false;
+		assert assertions = true;
+		if (!assertions) {
+			System.out.println("run with -ea");
+			return;
+		}
+		Random random = new Random(1);
+		for (int round = 0; round < 200; round++) {
+			HashMap<Key, Integer> map = new HashMap<>(64);
+			java.util.HashMap<Key, Integer> expected = new java.util.HashMap<>();
+			int range = 8 + random.nextInt(200);
+			for (int op = 0; op < 2000; op++) {
+				Key key = new Key(random.nextInt(range));
+				if (random.nextInt(3) == 0) {
+					check(map.remove(key), expected.remove(key));
+				} else {
+					check(map.put(key, op), expected.put(key, op));
+				}
+				if (map.size() != expected.size()) {
+					throw new AssertionError("size " + map.size() + " != " + expected.size());
+				}
+			}
+			for (Key key : expected.keySet()) {
+				check(map.get(key), expected.get(key));
+			}
+			// 通过迭代器删到只剩几个结点，再继续增删
+			int keep = random.nextInt(4);
+			for (java.util.Iterator<Key> it = map.keySet().iterator(); it.hasNext() && map.size() > keep;) {
+				Key key = it.next();
+				it.remove();
+				expected.remove(key);
+			}
+			for (int op = 0; op < 50; op++) {
+				Key key = new Key(random.nextInt(range));
+				if (random.nextInt(3) == 0) {
+					check(map.remove(key), expected.remove(key));
+				} else {
+					check(map.put(key, op), expected.put(key, op));
+				}
+			}
+			for (Key key : expected.keySet()) {
+				check(map.get(key), expected.get(key));
+			}
+		}
+		System.out.println("OK");
+	}
+
+	static void check(Integer actual, Integer expected) {
+		if (actual == null ? expected != null : !actual.equals(expected)) {
+			throw new AssertionError(actual + " != " + expected);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package source.demo.benchmark;
+
+import java.util.Random;
+
+import source.java.util.HashMap;
+
+/**
+ * HashMap.getAll/putAll(K[], V[])批量访问基准。
+ *
+ * 每批BATCH个随机键(一半命中)，分别在远小于和远大于CPU缓存的map上对比(单位ns/key)：
+ * get loop       逐个get
+ * getAll         先算出所有hash，一起读取所有桶头、沿链找到hash相同的结点，最后再比较键
+ * put loop       对已有的键逐个put(只替换值)
+ * putAll(arrays) 同一批键值一次写入
+ * 大map上每次get都有几次缓存未命中，批量方法让不同键的未命中重叠进行；小map上两者应当相差不大。
+ */
+public class BatchGetBenchmark {
+
+	static final int BATCH = 256;
+
+	static final int ROUNDS = 1 << 13;
+
+	static long sink;
+
+	public static void main(String[] args) {
+		run(1 << 14);
+		run(1 << 22);
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	static void run(int N) {
+		System.out.println("==== " + N + " keys ====");
+		Random random = new Random(11);
+		HashMap<Integer, Integer> map = new HashMap<>();
+		Integer[] keys = new Integer[N];
+		for (int i = 0; i < N; i++) {
+			keys[i] = random.nextInt() << 1;
+			map.put(keys[i], i);
+		}
+		Integer[][] batches = new Integer[ROUNDS][BATCH];
+		Integer[][] hits = new Integer[ROUNDS][BATCH];
+		for (int r = 0; r < ROUNDS; r++) {
+			for (int i = 0; i < BATCH; i++) {
+				// 奇数一定不在map中
+				batches[r][i] = random.nextBoolean() ? keys[random.nextInt(N)] : (random.nextInt() | 1);
+				hits[r][i] = keys[random.nextInt(N)];
+			}
+		}
+		long keyCount = (long) ROUNDS * BATCH;
+
+		for (int warmup = 0; warmup < 4; warmup++) {
+			if (warmup == 3) {
+				System.out.println("---- measured ----");
+			}
+			long start = System.nanoTime();
+			for (Integer[] batch : batches) {
+				for (Integer k : batch) {
+					Integer v = map.get(k);
+					if (v != null) {
+						sink += v;
+					}
+				}
+			}
+			long getLoop = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (Integer[] batch : batches) {
+				map.getAll(batch, (k, v) -> sink += v);
+			}
+			long getAll = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (Integer[] batch : hits) {
+				for (Integer k : batch) {
+					map.put(k, k);
+				}
+			}
+			long putLoop = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (Integer[] batch : hits) {
+				map.putAll(batch, batch);
+			}
+			long putAll = System.nanoTime() - start;
+
+			System.out.printf("get loop %6.1f   getAll %6.1f   put loop %6.1f   putAll(arrays) %6.1f  ns/key%n",
+					(double) getLoop / keyCount, (double) getAll / keyCount,
+					(double) putLoop / keyCount, (double) putAll / keyCount);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package source.demo.benchmark;
+
+import source.java.util.LinkedHashCache;
+import source.java.util.TinyLfuCache;
+
+/**
+ * LRU与W-TinyLFU命中率对比基准(按访问轨迹回放)。
+ *
+ * 轨迹由两部分交替组成：
+ * zipf   从KEYS个热点键中按Zipf(s=0.9)分布抽样，模拟热点数据库行
+ * scan   每隔SCAN_PERIOD次访问做一次全量扫描，访问SCAN_LENGTH个此后不再出现的新键
+ * 两种缓存容量相同，都按"get未命中就put"回放同一条轨迹，输出命中率。
+ * 扫描会把LRU中的热点全部冲掉，而W-TinyLFU只让新键在window中竞争，频率低的扫描键无法被准入主区域。
+ */
+public class CacheHitRatioBenchmark {
+
+	static final int KEYS = 100_000;
+
+	static final int ACCESSES = 4_000_000;
+
+	static final int SCAN_PERIOD = 200_000;
+
+	static final int SCAN_LENGTH = 50_000;
+
+	static final double SKEW = 0.9;
+
+	public static void main(String[] args) {
+		int[] trace = trace();
+		for (int capacity : new int[] { 1_000, 5_000, 20_000 }) {
+			LinkedHashCache<Integer, Integer> lru = new LinkedHashCache<>(capacity);
+			TinyLfuCache<Integer, Integer> tinyLfu = new TinyLfuCache<>(capacity);
+			for (int key : trace) {
+				if (lru.get(key) == null) {
+					lru.put(key, key);
+				}
+				if (tinyLfu.get(key) == null) {
+					tinyLfu.put(key, key);
+				}
+			}
+			System.out.printf("capacity %6d   LRU %5.1f%%   W-TinyLFU %5.1f%%%n",
+					capacity, lru.hitRate() * 100, tinyLfu.hitRate() * 100);
+		}
+	}
+
+	/**
+	 * 生成轨迹：热点键为[0, KEYS)，扫描键从KEYS开始递增，永不重复。
+	 */
+	static int[] trace() {
+		double[] cdf = new double[KEYS];
+		double sum = 0;
+		for (int i = 0; i < KEYS; i++) {
+			sum += 1 / Math.pow(i + 1, SKEW);
+			cdf[i] = sum;
+		}
+		for (int i = 0; i < KEYS; i++) {
+			cdf[i] /= sum;
+		}
+		java.util.Random random = new java.util.Random(17);
+		int[] trace = new int[ACCESSES];
+		int scanKey = KEYS;
+		for (int i = 0; i < ACCESSES;) {
+			if (i % SCAN_PERIOD == SCAN_PERIOD - SCAN_LENGTH) {
+				for (int j = 0; j < SCAN_LENGTH && i < ACCESSES; j++) {
+					trace[i++] = scanKey++;
+				}
+			} else {
+				trace[i++] = zipf(cdf, random.nextDouble());
+			}
+		}
+		return trace;
+	}
+
+	static int zipf(double[] cdf, double u) {
+		int low = 0;
+		int high = cdf.length - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (cdf[mid] < u) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,104 @@
+package source.demo.benchmark;
+
+import java.util.Map;
+
+import source.java.util.CompactHashMap;
+import source.java.util.HashMap;
+
+/**
+ * CompactHashMap与HashMap的内存和延迟对比。
+ *
+ * 内存：两个map共用同一批Integer键和值，只统计map自身结构(桶数组/Node对象或平行数组)的开销，
+ * 用gc前后的已用堆之差除以条目数得到每个条目的字节数。这个数字只是近似值，建议加上
+ * -Xmx2g -XX:+UseSerialGC 运行，使System.gc()的结果更稳定。
+ *
+ * 延迟：对命中的键做get，对已存在的键做put(只替换值)，以及先清空再逐个put的插入，单位ns/op。
+ */
+public class CompactHashMapBenchmark {
+
+	static final int N = 1 << 20;
+
+	static long usedMemory() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	interface MapFactory {
+		Map<Integer, Integer> create();
+	}
+
+	static Map<Integer, Integer> fill(MapFactory factory, Integer[] keys) {
+		Map<Integer, Integer> map = factory.create();
+		for (Integer k : keys) {
+			map.put(k, k);
+		}
+		return map;
+	}
+
+	static void memory(String name, MapFactory factory, Integer[] keys) {
+		long before = usedMemory();
+		Map<Integer, Integer> map = fill(factory, keys);
+		long after = usedMemory();
+		System.out.printf("%-16s %6.1f bytes/entry%s%n", name, (double) (after - before) / keys.length,
+				map.get(keys[0]) == null ? "!" : "");
+	}
+
+	static void latency(String name, MapFactory factory, Integer[] keys, Integer[] probes) {
+		long sink = 0;
+		long start = System.nanoTime();
+		Map<Integer, Integer> map = fill(factory, keys);
+		long insert = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int r = 0; r < 4; r++) {
+			for (Integer p : probes) {
+				sink += map.get(p);
+			}
+		}
+		long get = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (Integer p : probes) {
+			map.put(p, p);
+		}
+		long put = System.nanoTime() - start;
+
+		System.out.printf("%-16s insert %6.1f ns/op   get %6.1f ns/op   put %6.1f ns/op%s%n", name,
+				(double) insert / keys.length, (double) get / (4L * probes.length),
+				(double) put / probes.length, sink == 42 ? "!" : "");
+	}
+
+	public static void main(String[] args) {
+		Integer[] keys = new Integer[N];
+		Integer[] probes = new Integer[N];
+		java.util.Random random = new java.util.Random(42);
+		for (int i = 0; i < N; i++) {
+			keys[i] = random.nextInt();
+		}
+		for (int i = 0; i < N; i++) {
+			probes[i] = keys[random.nextInt(N)];
+		}
+
+		MapFactory hashMap = HashMap::new;
+		MapFactory compact = CompactHashMap::new;
+
+		memory("HashMap", hashMap, keys);
+		memory("CompactHashMap", compact, keys);
+
+		for (int warmup = 0; warmup < 3; warmup++) {
+			if (warmup == 2) {
+				System.out.println("---- measured ----");
+			}
+			latency("HashMap", hashMap, keys, probes);
+			latency("CompactHashMap", compact, keys, probes);
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package source.demo.benchmark;
+
+import java.util.Map;
+
+import source.java.util.CompactLinkedHashMap;
+import source.java.util.LinkedHashMap;
+
+/**
+ * CompactLinkedHashMap与插入顺序的LinkedHashMap的内存、迭代和查找对比。
+ *
+ * 内存：两个map共用同一批Integer键和值，用gc前后的已用堆之差除以条目数得到每个条目的字节数，
+ * 只是近似值，建议加上 -Xmx2g -XX:+UseSerialGC 运行。
+ *
+ * 迭代：按顺序遍历entrySet、遍历forEach，单位ns/entry。LinkedHashMap沿before/after指针访问分散的结点，
+ * CompactLinkedHashMap顺序扫描紧凑数组。
+ * 查找：对命中的键做get，单位ns/op。
+ * 删除后迭代：删除四分之一的键(留下墓碑，不触发压缩)后再遍历，观察墓碑的影响。
+ */
+public class CompactLinkedHashMapBenchmark {
+
+	static final int N = 1 << 20;
+
+	static long sink;
+
+	interface MapFactory {
+		Map<Integer, Integer> create();
+	}
+
+	static Map<Integer, Integer> fill(MapFactory factory, Integer[] keys) {
+		Map<Integer, Integer> map = factory.create();
+		for (Integer k : keys) {
+			map.put(k, k);
+		}
+		return map;
+	}
+
+	static void memory(String name, MapFactory factory, Integer[] keys) {
+		long before = CompactHashMapBenchmark.usedMemory();
+		Map<Integer, Integer> map = fill(factory, keys);
+		long after = CompactHashMapBenchmark.usedMemory();
+		System.out.printf("%-22s %6.1f bytes/entry%s%n", name, (double) (after - before) / keys.length,
+				map.get(keys[0]) == null ? "!" : "");
+	}
+
+	static double iterate(Map<Integer, Integer> map) {
+		long start = System.nanoTime();
+		for (int r = 0; r < 4; r++) {
+			for (Map.Entry<Integer, Integer> e : map.entrySet()) {
+				sink += e.getValue();
+			}
+		}
+		return (double) (System.nanoTime() - start) / (4L * map.size());
+	}
+
+	static double forEach(Map<Integer, Integer> map) {
+		long[] sum = new long[1];
+		long start = System.nanoTime();
+		for (int r = 0; r < 4; r++) {
+			map.forEach((k, v) -> sum[0] += v);
+		}
+		sink += sum[0];
+		return (double) (System.nanoTime() - start) / (4L * map.size());
+	}
+
+	static void run(String name, MapFactory factory, Integer[] keys, Integer[] probes) {
+		Map<Integer, Integer> map = fill(factory, keys);
+		double iterate = iterate(map);
+		double forEach = forEach(map);
+		long start = System.nanoTime();
+		for (Integer p : probes) {
+			sink += map.get(p);
+		}
+		double get = (double) (System.nanoTime() - start) / probes.length;
+		for (int i = 0; i < keys.length; i += 4) {
+			map.remove(keys[i]);
+		}
+		double afterRemove = iterate(map);
+		System.out.printf("%-22s iterate %5.1f ns/entry   forEach %5.1f ns/entry   get %5.1f ns/op   iterate after remove %5.1f ns/entry%n",
+				name, iterate, forEach, get, afterRemove);
+	}
+
+	public static void main(String[] args) {
+		Integer[] keys = new Integer[N];
+		Integer[] probes = new Integer[N];
+		java.util.Random random = new java.util.Random(42);
+		for (int i = 0; i < N; i++) {
+			keys[i] = random.nextInt();
+		}
+		for (int i = 0; i < N; i++) {
+			probes[i] = keys[random.nextInt(N)];
+		}
+
+		MapFactory linked = LinkedHashMap::new;
+		MapFactory compact = CompactLinkedHashMap::new;
+
+		memory("LinkedHashMap", linked, keys);
+		memory("CompactLinkedHashMap", compact, keys);
+
+		for (int warmup = 0; warmup < 3; warmup++) {
+			if (warmup == 2) {
+				System.out.println("---- measured ----");
+			}
+			run("LinkedHashMap", linked, keys, probes);
+			run("CompactLinkedHashMap", compact, keys, probes);
+		}
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+}
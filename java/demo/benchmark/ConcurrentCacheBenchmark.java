@@ -0,0 +1,122 @@
+package source.demo.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import source.java.util.ConcurrentLinkedHashCache;
+import source.java.util.LinkedHashCache;
+
+/**
+ * 读多写少负载下，ConcurrentLinkedHashCache与加锁的LinkedHashCache的吞吐量对比。
+ *
+ * 缓存容量CAPACITY，键空间为其两倍，键按近似Zipf分布抽取(热点集中)；每个线程执行OPS次操作，
+ * 其中95%为get，未命中时put。线程数从1倍增到可用处理器数的两倍，单位为百万次操作/秒。
+ * LinkedHashCache在访问顺序下get也要调整链表，所以必须整体加锁；ConcurrentLinkedHashCache的读不加锁，
+ * 只在每个线程的读缓冲区满时按段重放。处理器数为1时两者的差别主要是锁和缓冲的开销，看不出扩展性。
+ */
+public class ConcurrentCacheBenchmark {
+
+	static final int CAPACITY = 1 << 16;
+
+	static final int OPS = 1 << 21;
+
+	interface Cache {
+		Integer get(Integer key);
+
+		void put(Integer key, Integer value);
+	}
+
+	static Integer[] zipfKeys(long seed) {
+		Random random = new Random(seed);
+		Integer[] keys = new Integer[OPS];
+		for (int i = 0; i < OPS; i++) {
+			// 对均匀分布取平方得到偏向小键的分布
+			double u = random.nextDouble();
+			keys[i] = (int) (u * u * CAPACITY * 2);
+		}
+		return keys;
+	}
+
+	static double run(final Cache cache, int threads, final Integer[][] keys) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		final LongAdder sink = new LongAdder();
+		for (int t = 0; t < threads; t++) {
+			final Integer[] ks = keys[t];
+			new Thread(new Runnable() {
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					long s = 0;
+					for (int i = 0; i < ks.length; i++) {
+						Integer k = ks[i];
+						Integer v = cache.get(k);
+						if (v == null) {
+							if ((i % 20) == 0) {
+								cache.put(k, k);
+							}
+						} else {
+							s += v;
+						}
+					}
+					sink.add(s);
+					done.countDown();
+				}
+			}).start();
+		}
+		long t0 = System.nanoTime();
+		start.countDown();
+		done.await();
+		long elapsed = System.nanoTime() - t0;
+		return (double) threads * OPS / elapsed * 1000.0;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		int cpus = Runtime.getRuntime().availableProcessors();
+		Integer[][] keys = new Integer[cpus * 2][];
+		for (int t = 0; t < keys.length; t++) {
+			keys[t] = zipfKeys(t);
+		}
+
+		final LinkedHashCache<Integer, Integer> locked = new LinkedHashCache<>(CAPACITY);
+		Cache lockedCache = new Cache() {
+			public Integer get(Integer key) {
+				synchronized (locked) {
+					return locked.get(key);
+				}
+			}
+
+			public void put(Integer key, Integer value) {
+				synchronized (locked) {
+					locked.put(key, value);
+				}
+			}
+		};
+		final ConcurrentLinkedHashCache<Integer, Integer> concurrent = new ConcurrentLinkedHashCache<>(CAPACITY);
+		Cache concurrentCache = new Cache() {
+			public Integer get(Integer key) {
+				return concurrent.get(key);
+			}
+
+			public void put(Integer key, Integer value) {
+				concurrent.put(key, value);
+			}
+		};
+
+		for (int warmup = 0; warmup < 2; warmup++) {
+			run(lockedCache, 1, keys);
+			run(concurrentCache, 1, keys);
+		}
+		System.out.println("threads   synchronized LinkedHashCache   ConcurrentLinkedHashCache   (Mops/s)");
+		for (int threads = 1; threads <= cpus * 2; threads <<= 1) {
+			double a = run(lockedCache, threads, keys);
+			double b = run(concurrentCache, threads, keys);
+			System.out.printf("%7d   %28.2f   %25.2f%n", threads, a, b);
+		}
+		System.out.printf("hit rate: synchronized %.3f, concurrent %.3f%n", locked.hitRate(), concurrent.hitRate());
+	}
+}
@@ -0,0 +1,110 @@
+package source.demo.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import source.java.util.ConcurrentHashSet;
+
+/**
+ * 去重负载下，ConcurrentHashSet与Collections.synchronizedSet(new HashSet())的吞吐量对比。
+ *
+ * 1到64个生产者线程同时往同一个集合中加入元素，每个线程加入OPS个从KEYS个不同的Integer中随机抽取的元素，
+ * 线程越多重复的比例越高(1个线程约20%，64个线程超过95%)。每次测量都用一个新的空集合，所以也包括了扩容。
+ * 单位为百万次add/秒。
+ * synchronizedSet的每次add都争用同一把锁；ConcurrentHashSet的重复元素只是一次无锁查找，
+ * 新元素只锁一个桶；addAll一栏是每个线程攒够BATCH个元素后调用一次addAll，先一次性预留容量再逐个加入。
+ * 处理器数为1时线程只是轮流执行，看到的主要是锁本身的开销，看不出扩展性。
+ */
+public class ConcurrentHashSetBenchmark {
+
+	static final int KEYS = 1 << 20;
+
+	static final int OPS = 1 << 19;
+
+	static final int BATCH = 1024;
+
+	static final int MAX_THREADS = 64;
+
+	interface Producer {
+		void produce(Set<Integer> set, Integer[] pool, int[] picks);
+	}
+
+	static final Producer ONE_BY_ONE = new Producer() {
+		public void produce(Set<Integer> set, Integer[] pool, int[] picks) {
+			for (int i = 0; i < picks.length; i++) {
+				set.add(pool[picks[i]]);
+			}
+		}
+	};
+
+	static final Producer BATCHED = new Producer() {
+		public void produce(Set<Integer> set, Integer[] pool, int[] picks) {
+			List<Integer> batch = new ArrayList<>(BATCH);
+			for (int i = 0; i < picks.length; i++) {
+				batch.add(pool[picks[i]]);
+				if (batch.size() == BATCH) {
+					set.addAll(batch);
+					batch.clear();
+				}
+			}
+			set.addAll(batch);
+		}
+	};
+
+	static double run(final Set<Integer> set, final Producer producer, int threads, final Integer[] pool,
+			final int[][] picks) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			final int[] ps = picks[t];
+			new Thread(new Runnable() {
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					producer.produce(set, pool, ps);
+					done.countDown();
+				}
+			}).start();
+		}
+		long t0 = System.nanoTime();
+		start.countDown();
+		done.await();
+		long elapsed = System.nanoTime() - t0;
+		return (double) threads * OPS / elapsed * 1000.0;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		Integer[] pool = new Integer[KEYS];
+		for (int i = 0; i < KEYS; i++) {
+			pool[i] = i;
+		}
+		int[][] picks = new int[MAX_THREADS][OPS];
+		for (int t = 0; t < MAX_THREADS; t++) {
+			Random random = new Random(t);
+			for (int i = 0; i < OPS; i++) {
+				picks[t][i] = random.nextInt(KEYS);
+			}
+		}
+
+		for (int warmup = 0; warmup < 3; warmup++) {
+			run(Collections.synchronizedSet(new java.util.HashSet<Integer>()), ONE_BY_ONE, 2, pool, picks);
+			run(new ConcurrentHashSet<Integer>(), ONE_BY_ONE, 2, pool, picks);
+			run(new ConcurrentHashSet<Integer>(), BATCHED, 2, pool, picks);
+		}
+		System.out.println("threads   synchronizedSet(HashSet)   ConcurrentHashSet.add   ConcurrentHashSet.addAll   (Mops/s)");
+		for (int threads = 1; threads <= MAX_THREADS; threads <<= 1) {
+			double a = run(Collections.synchronizedSet(new java.util.HashSet<Integer>()), ONE_BY_ONE, threads, pool,
+					picks);
+			double b = run(new ConcurrentHashSet<Integer>(), ONE_BY_ONE, threads, pool, picks);
+			double c = run(new ConcurrentHashSet<Integer>(), BATCHED, threads, pool, picks);
+			System.out.printf("%7d   %24.2f   %21.2f   %24.2f%n", threads, a, b, c);
+		}
+	}
+}
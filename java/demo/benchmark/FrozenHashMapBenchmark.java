@@ -0,0 +1,89 @@
+package source.demo.benchmark;
+
+import source.java.util.FrozenHashMap;
+import source.java.util.HashMap;
+
+/**
+ * FrozenHashMap与HashMap的内存和查找延迟对比，模拟启动时构建、之后只读的参考数据表。
+ *
+ * 内存：两个map共用同一批键和值，只统计map自身结构的开销(建议 -Xmx2g -XX:+UseSerialGC)。
+ * 延迟：命中查找和未命中查找，单位ns/get。
+ */
+public class FrozenHashMapBenchmark {
+
+	static final int N = 1 << 20;
+
+	static long sink;
+
+	static long usedMemory() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	static void lookups(String name, java.util.Map<String, Integer> map, String[] hits, String[] misses) {
+		long start = System.nanoTime();
+		for (int r = 0; r < 4; r++) {
+			for (String k : hits) {
+				sink += map.get(k);
+			}
+		}
+		long hit = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int r = 0; r < 4; r++) {
+			for (String k : misses) {
+				if (map.get(k) != null) {
+					sink++;
+				}
+			}
+		}
+		long miss = System.nanoTime() - start;
+		System.out.printf("%-14s hit %6.1f ns/get   miss %6.1f ns/get%n", name,
+				(double) hit / (4L * hits.length), (double) miss / (4L * misses.length));
+	}
+
+	public static void main(String[] args) {
+		String[] keys = new String[N];
+		String[] hits = new String[N];
+		String[] misses = new String[N];
+		Integer[] values = new Integer[N];
+		java.util.Random random = new java.util.Random(11);
+		for (int i = 0; i < N; i++) {
+			keys[i] = "ref:" + i;
+			values[i] = i;
+		}
+		for (int i = 0; i < N; i++) {
+			hits[i] = new String(keys[random.nextInt(N)]); // 不同的对象，查找时需要调用equals
+			misses[i] = "ref:" + (N + random.nextInt(N));
+		}
+
+		long before = usedMemory();
+		HashMap<String, Integer> map = new HashMap<>();
+		for (int i = 0; i < N; i++) {
+			map.put(keys[i], values[i]);
+		}
+		long afterMap = usedMemory();
+		FrozenHashMap<String, Integer> frozen = map.freeze();
+		long afterFrozen = usedMemory();
+		System.out.printf("HashMap        %6.1f bytes/entry%n", (double) (afterMap - before) / N);
+		System.out.printf("FrozenHashMap  %6.1f bytes/entry%n", (double) (afterFrozen - afterMap) / N);
+
+		for (int warmup = 0; warmup < 3; warmup++) {
+			if (warmup == 2) {
+				System.out.println("---- measured ----");
+			}
+			lookups("HashMap", map, hits, misses);
+			lookups("FrozenHashMap", frozen, hits, misses);
+		}
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+}
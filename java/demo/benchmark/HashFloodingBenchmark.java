@@ -0,0 +1,123 @@
+package source.demo.benchmark;
+
+import source.java.util.HashMap;
+
+/**
+ * 哈希碰撞攻击(hash flooding)基准：所有键落在同一个桶里，比较树化桶的查找代价。
+ *
+ * 四组键：
+ * SameBin        hashCode不同但低位相同，全部落入同一个桶 -> 按hash排序，O(log n)
+ * Comparable     hashCode完全相同，implements Comparable<Self> -> comparableClassFor命中，按compareTo排序，O(log n)
+ * RawComparable  hashCode完全相同，implements Comparable<Object> -> comparableClassFor返回null，退化为O(n)
+ * Plain          hashCode完全相同，不可比较 -> find()需要搜索两棵子树，退化为O(n)
+ *
+ * 除了耗时，还统计每次查找调用equals/compareTo的次数，这个数字不受JIT和机器影响，
+ * 可以直接看出查找代价随n的增长是对数还是线性。
+ */
+public class HashFloodingBenchmark {
+
+	static long comparisons;
+
+	/** 高16位与低16位相同：经HashMap.hash()扰动后低16位全为0、高位各不相同，与容量无关地落入同一个桶。 */
+	static final class SameBinKey {
+		final int id;
+		SameBinKey(int id) { this.id = id; }
+		@Override
+		public int hashCode() { return (id << 16) | (id & 0xFFFF); }
+		@Override
+		public boolean equals(Object o) {
+			comparisons++;
+			return o instanceof SameBinKey && ((SameBinKey) o).id == id;
+		}
+	}
+
+	static final class ComparableKey implements Comparable<ComparableKey> {
+		final int id;
+		ComparableKey(int id) { this.id = id; }
+		@Override
+		public int hashCode() { return 0; }
+		@Override
+		public boolean equals(Object o) {
+			comparisons++;
+			return o instanceof ComparableKey && ((ComparableKey) o).id == id;
+		}
+		@Override
+		public int compareTo(ComparableKey o) {
+			comparisons++;
+			return Integer.compare(id, o.id);
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	static final class RawComparableKey implements Comparable {
+		final int id;
+		RawComparableKey(int id) { this.id = id; }
+		@Override
+		public int hashCode() { return 0; }
+		@Override
+		public boolean equals(Object o) {
+			comparisons++;
+			return o instanceof RawComparableKey && ((RawComparableKey) o).id == id;
+		}
+		@Override
+		public int compareTo(Object o) {
+			comparisons++;
+			return Integer.compare(id, ((RawComparableKey) o).id);
+		}
+	}
+
+	static final class PlainKey {
+		final int id;
+		PlainKey(int id) { this.id = id; }
+		@Override
+		public int hashCode() { return 0; }
+		@Override
+		public boolean equals(Object o) {
+			comparisons++;
+			return o instanceof PlainKey && ((PlainKey) o).id == id;
+		}
+	}
+
+	interface KeyFactory {
+		Object create(int id);
+	}
+
+	static void run(String name, KeyFactory factory, int n) {
+		// 查找用的是与插入时equals相等但不是同一个对象的键，避免 == 短路掉equals
+		Object[] probes = new Object[n];
+		HashMap<Object, Integer> map = new HashMap<>();
+		for (int i = 0; i < n; i++) {
+			map.put(factory.create(i), i);
+			probes[i] = factory.create(i);
+		}
+		int rounds = Math.max(1, 2000000 / n / (name.startsWith("Plain") || name.startsWith("Raw") ? n / 64 + 1 : 1));
+		long sink = 0;
+		comparisons = 0;
+		long start = System.nanoTime();
+		for (int r = 0; r < rounds; r++) {
+			for (int i = 0; i < n; i++) {
+				sink += map.get(probes[i]);
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		long lookups = (long) rounds * n;
+		System.out.printf("%-14s n=%6d  %8.1f ns/get  %8.1f comparisons/get  (log2 n = %.1f)%s%n",
+				name, n, (double) elapsed / lookups, (double) comparisons / lookups,
+				Math.log(n) / Math.log(2), sink == 42 ? "!" : "");
+	}
+
+	public static void main(String[] args) {
+		int[] sizes = {1 << 8, 1 << 10, 1 << 12, 1 << 14};
+		for (int warmup = 0; warmup < 2; warmup++) {
+			if (warmup == 1) {
+				System.out.println("---- measured ----");
+			}
+			for (int n : sizes) {
+				run("SameBin", SameBinKey::new, n);
+				run("Comparable", ComparableKey::new, n);
+				run("RawComparable", RawComparableKey::new, n);
+				run("Plain", PlainKey::new, n);
+			}
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package source.demo.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import source.java.util.HashMap;
+import source.java.util.HashMapSnapshot;
+import source.java.util.HashMapSnapshot.Codec;
+
+/**
+ * HashMapSnapshot与Java序列化的保存/恢复耗时对比。
+ *
+ * Java序列化：ObjectOutputStream写出每个键值对象，恢复时readObject重建对象后逐个putVal，
+ * 需要重新计算hashCode并在冲突时调用equals。
+ * HashMapSnapshot：按表的顺序写出保存的hash和编码后的字节，恢复时内存映射文件，
+ * 用保存的hash直接把结点挂到桶的尾部，不调用hashCode/equals，也不扩容。
+ *
+ * 参数：条目数，默认2000000。
+ */
+public class HashMapSnapshotBenchmark {
+
+	public static void main(String[] args) throws IOException, ClassNotFoundException {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+		HashMap<String, Long> map = new HashMap<>();
+		for (int i = 0; i < n; i++) {
+			map.put("session:" + i, (long) i * 31);
+		}
+		Path ser = Files.createTempFile("hashmap", ".ser");
+		Path snap = Files.createTempFile("hashmap", ".snap");
+		try {
+			for (int round = 0; round < 3; round++) {
+				long start = System.nanoTime();
+				try (ObjectOutputStream out = new ObjectOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(ser), 1 << 16))) {
+					out.writeObject(map);
+				}
+				long serWrite = System.nanoTime() - start;
+
+				start = System.nanoTime();
+				Object back;
+				try (ObjectInputStream in = new ObjectInputStream(
+						new BufferedInputStream(Files.newInputStream(ser), 1 << 16))) {
+					back = in.readObject();
+				}
+				long serRead = System.nanoTime() - start;
+
+				start = System.nanoTime();
+				HashMapSnapshot.write(map, snap, Codec.STRING, Codec.LONG);
+				long snapWrite = System.nanoTime() - start;
+
+				start = System.nanoTime();
+				HashMap<String, Long> restored = HashMapSnapshot.read(snap, Codec.STRING, Codec.LONG);
+				long snapRead = System.nanoTime() - start;
+
+				if (!Long.valueOf(31L * (n - 1)).equals(restored.get("session:" + (n - 1))) || back == null) {
+					throw new AssertionError("restore failed");
+				}
+				System.out.printf("round %d  serialization write %6d ms read %6d ms (%4d MB)   snapshot write %6d ms read %6d ms (%4d MB)%n",
+						round, serWrite / 1_000_000, serRead / 1_000_000, Files.size(ser) >> 20,
+						snapWrite / 1_000_000, snapRead / 1_000_000, Files.size(snap) >> 20);
+			}
+		} finally {
+			Files.deleteIfExists(ser);
+			Files.deleteIfExists(snap);
+		}
+	}
+}
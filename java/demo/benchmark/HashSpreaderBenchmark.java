@@ -0,0 +1,99 @@
+package source.demo.benchmark;
+
+import source.java.util.HashMap;
+import source.java.util.HashMapStatistics;
+import source.java.util.HashSpreader;
+
+/**
+ * 不同hash扰动策略(HashSpreader)的链长分布和get/put吞吐量对比。
+ *
+ * 键集合：
+ * SequentialLong  连续的Long ID
+ * Snowflake       时间戳<<22 | 机器号<<12 | 序号 形式的Long ID，低位只有序号在变化
+ * GridPoint       复合键(x, y)，hashCode = 31 * x + y，是最常见的手写hashCode。512x512的网格只产生约16K个不同的
+ *                 hashCode，大量键的hashCode完全相等，任何扰动都无能为力，只能靠树形桶兜底
+ * WholeFloat      值为整数的Float，hashCode的变化全在高位(HashMap注释里提到的已知例子)
+ * String          "user:" + i
+ *
+ * 每组键分别用XOR_SHIFT(默认)、MURMUR3和seeded三种策略建表，借助HashMapStatistics报告
+ * 非空桶比例、平均探测长度(成功查找平均访问的结点数，理想值1.0)和最长链，再测put和get的ns/op。
+ */
+public class HashSpreaderBenchmark {
+
+	static final int N = 1 << 18;
+
+	static final class GridPoint {
+		final int x, y;
+		GridPoint(int x, int y) { this.x = x; this.y = y; }
+		@Override
+		public int hashCode() { return 31 * x + y; }
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof GridPoint && ((GridPoint) o).x == x && ((GridPoint) o).y == y;
+		}
+	}
+
+	interface KeySet {
+		Object key(int i);
+	}
+
+	static final String[] KEY_SET_NAMES = {"SequentialLong", "Snowflake", "GridPoint", "WholeFloat", "String"};
+
+	static final KeySet[] KEY_SETS = {
+		i -> Long.valueOf(1_000_000_000L + i),
+		i -> Long.valueOf((1_700_000_000_000L + i / 64) << 22 | (long) (i % 8) << 12 | (i / 8) % 8),
+		i -> new GridPoint(i >>> 9, i & 511),
+		i -> Float.valueOf(i),
+		i -> "user:" + i,
+	};
+
+	static final String[] SPREADER_NAMES = {"XOR_SHIFT", "MURMUR3", "seeded"};
+
+	static final HashSpreader[] SPREADERS = {HashSpreader.XOR_SHIFT, HashSpreader.MURMUR3, HashSpreader.seeded(12345)};
+
+	static long sink;
+
+	static void run(String keySetName, Object[] keys, String spreaderName, HashSpreader spreader, boolean print) {
+		long start = System.nanoTime();
+		HashMap<Object, Object> map = new HashMap<>(16, 0.75f, spreader);
+		map.enableStatistics();
+		for (Object k : keys) {
+			map.put(k, k);
+		}
+		long put = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int r = 0; r < 4; r++) {
+			for (Object k : keys) {
+				sink += map.get(k).hashCode();
+			}
+		}
+		long get = System.nanoTime() - start;
+
+		if (print) {
+			HashMapStatistics s = map.statistics();
+			System.out.printf("%-15s %-10s occupied %5.1f%%  avgProbe %6.2f  maxChain %5d  trees %5d  put %6.1f ns/op  get %6.1f ns/op%n",
+					keySetName, spreaderName, 100.0 * s.occupiedBins() / Math.min(s.capacity(), keys.length),
+					s.averageProbeLength(), s.maxChainLength(), s.treeifiedBins(),
+					(double) put / keys.length, (double) get / (4L * keys.length));
+		}
+	}
+
+	public static void main(String[] args) {
+		for (int warmup = 0; warmup < 3; warmup++) {
+			boolean print = warmup == 2;
+			for (int k = 0; k < KEY_SETS.length; k++) {
+				Object[] keys = new Object[N];
+				for (int i = 0; i < N; i++) {
+					keys[i] = KEY_SETS[k].key(i);
+				}
+				for (int s = 0; s < SPREADERS.length; s++) {
+					run(KEY_SET_NAMES[k], keys, SPREADER_NAMES[s], SPREADERS[s], print);
+				}
+			}
+		}
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+}
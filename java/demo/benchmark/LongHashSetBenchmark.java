@@ -0,0 +1,84 @@
+package source.demo.benchmark;
+
+import java.util.HashSet;
+
+import source.java.util.LongHashSet;
+
+/**
+ * LongHashSet与HashSet&lt;Long&gt;的去重对比。
+ *
+ * 输入是N个long ID，其中约一半重复(从N/2个不同的ID中抽样)，模拟一批日志中的ID去重。
+ * 内存：逐个add去重后集合的每个元素字节数，HashSet&lt;Long&gt;包含装箱的Long、Node和表引用，
+ *      只是近似值，建议加上 -Xmx2g -XX:+UseSerialGC 运行。addAll按所有元素都不重复预扩容，
+ *      在这种一半重复的输入上表会大一倍，所以不用它来统计内存。
+ * 速度：HashSet逐个add(装箱)、LongHashSet逐个add、LongHashSet.addAll(long[])一次预扩容，单位ns/element。
+ */
+public class LongHashSetBenchmark {
+
+	static final int N = 1 << 22;
+
+	static long sink;
+
+	public static void main(String[] args) {
+		long[] ids = new long[N];
+		java.util.Random random = new java.util.Random(11);
+		long[] distinct = new long[N / 2];
+		for (int i = 0; i < distinct.length; i++) {
+			distinct[i] = random.nextLong() >>> 16;
+		}
+		for (int i = 0; i < N; i++) {
+			ids[i] = distinct[random.nextInt(distinct.length)];
+		}
+
+		long before = CompactHashMapBenchmark.usedMemory();
+		HashSet<Long> boxed = new HashSet<>();
+		for (long id : ids) {
+			boxed.add(id);
+		}
+		long after = CompactHashMapBenchmark.usedMemory();
+		System.out.printf("%-24s %6.1f bytes/element%n", "HashSet<Long>", (double) (after - before) / boxed.size());
+		boxed = null;
+
+		before = CompactHashMapBenchmark.usedMemory();
+		LongHashSet primitive = new LongHashSet();
+		for (long id : ids) {
+			primitive.add(id);
+		}
+		after = CompactHashMapBenchmark.usedMemory();
+		System.out.printf("%-24s %6.1f bytes/element%n", "LongHashSet", (double) (after - before) / primitive.size());
+		primitive = null;
+
+		for (int warmup = 0; warmup < 4; warmup++) {
+			if (warmup == 3) {
+				System.out.println("---- measured ----");
+			}
+			long start = System.nanoTime();
+			HashSet<Long> set = new HashSet<>();
+			for (long id : ids) {
+				set.add(id);
+			}
+			long boxedAdd = System.nanoTime() - start;
+			sink += set.size();
+			set = null;
+
+			start = System.nanoTime();
+			LongHashSet loop = new LongHashSet();
+			for (long id : ids) {
+				loop.add(id);
+			}
+			long primitiveAdd = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			LongHashSet bulk = new LongHashSet();
+			bulk.addAll(ids);
+			long bulkAdd = System.nanoTime() - start;
+			sink += loop.size() + bulk.size();
+
+			System.out.printf("HashSet<Long>.add %6.1f ns/element   LongHashSet.add %6.1f ns/element   LongHashSet.addAll %6.1f ns/element%n",
+					(double) boxedAdd / N, (double) primitiveAdd / N, (double) bulkAdd / N);
+		}
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+}
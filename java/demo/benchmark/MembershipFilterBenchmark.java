@@ -0,0 +1,100 @@
+package source.demo.benchmark;
+
+import source.java.util.BloomFilter;
+import source.java.util.CuckooFilter;
+import source.java.util.HashSet;
+import source.java.util.MembershipFilter;
+
+/**
+ * 未命中为主的查找负载下，HashSet前面挂不挂MembershipFilter的contains速度对比。
+ *
+ * 集合保存N个随机的Integer，查询中不存在的键分别占100%、99%和90%，其余是存在的键。
+ * 查询用的Integer是依次分配的，读键对象本身几乎不会缓存未命中，测到的主要是表和过滤器的访问。
+ * 没有过滤器时，每次未命中都要读表槽，槽不空时还要遍历桶、比较hash；
+ * 挂上过滤器后，大部分未命中只读过滤器的一个缓存行(Bloom)或两个桶(布谷鸟)就返回。
+ * 过滤器按1%的误判率、N个元素创建，同时打印每元素位数和实测误判率。
+ * 命中的查找要先查过滤器再查表，比没有过滤器时更慢，所以命中的比例越高，过滤器的收益越小，甚至变成负的。
+ * 建议加上 -Xmx2g -XX:+UseSerialGC 运行，单位ns/lookup。
+ */
+public class MembershipFilterBenchmark {
+
+	static final int N = 1 << 21;
+
+	static final int QUERIES = 1 << 22;
+
+	static final double FPP = 0.01;
+
+	static final int[] MISS_PERCENTS = { 100, 99, 90 };
+
+	static long sink;
+
+	public static void main(String[] args) {
+		java.util.Random random = new java.util.Random(7);
+		Integer[] keys = new Integer[N];
+		for (int i = 0; i < N; i++) {
+			keys[i] = random.nextInt();
+		}
+		Integer[][] queries = new Integer[MISS_PERCENTS.length][QUERIES];
+		for (int m = 0; m < MISS_PERCENTS.length; m++) {
+			for (int i = 0; i < QUERIES; i++) {
+				queries[m][i] = random.nextInt(100) >= MISS_PERCENTS[m] ? keys[random.nextInt(N)]
+						: Integer.valueOf(random.nextInt());
+			}
+		}
+
+		HashSet<Integer> set = new HashSet<>(N * 2);
+		for (Integer key : keys) {
+			set.add(key);
+		}
+
+		for (int warmup = 0; warmup < 4; warmup++) {
+			if (warmup == 3) {
+				System.out.println("---- measured ----");
+			}
+			MembershipFilter bloom = new BloomFilter(N, FPP);
+			MembershipFilter cuckoo = new CuckooFilter(N, FPP);
+			for (int m = 0; m < MISS_PERCENTS.length; m++) {
+				System.out.println("misses " + MISS_PERCENTS[m] + "%");
+				set.attachFilter(null);
+				run("none", set, null, queries[m]);
+				set.attachFilter(bloom);
+				run("BloomFilter", set, bloom, queries[m]);
+				set.attachFilter(cuckoo);
+				run("CuckooFilter", set, cuckoo, queries[m]);
+			}
+		}
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	static void run(String name, HashSet<Integer> set, MembershipFilter filter, Integer[] queries) {
+		long start = System.nanoTime();
+		int found = 0;
+		for (Integer query : queries) {
+			if (set.contains(query)) {
+				found++;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		sink += found;
+		if (filter == null) {
+			System.out.printf("%-12s %6.1f ns/lookup%n", name, (double) elapsed / queries.length);
+			return;
+		}
+		int falsePositives = 0, misses = 0;
+		for (Integer query : queries) {
+			if (!set.contains(query)) {
+				misses++;
+				// 与HashMap.hash()相同的扰动
+				int h = query.hashCode();
+				if (filter.mightContain(h ^ (h >>> 16))) {
+					falsePositives++;
+				}
+			}
+		}
+		System.out.printf("%-12s %6.1f ns/lookup  %5.1f bits/element  %.4f false positives%n", name,
+				(double) elapsed / queries.length, (double) filter.bitSize() / set.size(),
+				(double) falsePositives / misses);
+	}
+}
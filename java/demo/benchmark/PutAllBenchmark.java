@@ -0,0 +1,63 @@
+package source.demo.benchmark;
+
+import source.java.util.HashMap;
+
+/**
+ * HashMap.putAll批量合并基准。
+ *
+ * 对比三种合并方式(单位ns/entry)：
+ * put loop       逐个put，每次都要重新计算hash、检查阈值，中途可能多次扩容
+ * putAll(empty)  目标map为空：一次预扩容后直接按源桶复制结点，不调用equals
+ * putAll(merge)  目标map已有一半键：预扩容后复用源结点中的hash，逐个走putVal
+ */
+public class PutAllBenchmark {
+
+	static final int N = 1 << 20;
+
+	static long sink;
+
+	public static void main(String[] args) {
+		Integer[] keys = new Integer[N];
+		java.util.Random random = new java.util.Random(7);
+		HashMap<Integer, Integer> source = new HashMap<>();
+		for (int i = 0; i < N; i++) {
+			keys[i] = random.nextInt();
+			source.put(keys[i], i);
+		}
+
+		for (int warmup = 0; warmup < 4; warmup++) {
+			if (warmup == 3) {
+				System.out.println("---- measured ----");
+			}
+			System.gc();
+			long start = System.nanoTime();
+			HashMap<Integer, Integer> loop = new HashMap<>();
+			for (int i = 0; i < N; i++) {
+				loop.put(keys[i], i);
+			}
+			long putLoop = System.nanoTime() - start;
+
+			System.gc();
+			start = System.nanoTime();
+			HashMap<Integer, Integer> empty = new HashMap<>();
+			empty.putAll(source);
+			long putAllEmpty = System.nanoTime() - start;
+
+			HashMap<Integer, Integer> half = new HashMap<>();
+			for (int i = 0; i < N; i += 2) {
+				half.put(keys[i], -i);
+			}
+			System.gc();
+			start = System.nanoTime();
+			half.putAll(source);
+			long putAllMerge = System.nanoTime() - start;
+
+			sink += loop.get(keys[1]) + empty.get(keys[1]) + half.get(keys[1]);
+			System.out.printf("put loop %6.1f ns/entry   putAll(empty) %6.1f ns/entry   putAll(merge) %6.1f ns/entry%n",
+					(double) putLoop / N, (double) putAllEmpty / N, (double) putAllMerge / N);
+		}
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package source.demo.benchmark;
+
+import source.java.util.HashSet;
+
+/**
+ * HashSet集合运算基准。
+ *
+ * 大集合L有N个元素，小集合S有N/10个元素，其中一半也在L中。单位ms。
+ * 每种运算对比：
+ * loop        逐个contains/add，即AbstractCollection.retainAll等默认实现的做法，遍历L并在S中调用contains
+ * sequential  HashSet的静态运算，遍历较小的集合，用保存的hash探测和插入，整体复制时按桶批量复制
+ * parallel    同上，parallelismThreshold为1，探测在公共池中并行执行，插入仍在调用线程中；
+ *             只有一个CPU时它与sequential接近。difference在目标为空时走复制L再删除S的路径，没有可并行的探测
+ */
+public class SetAlgebraBenchmark {
+
+	static final int N = 1 << 21;
+
+	static long sink;
+
+	public static void main(String[] args) {
+		java.util.Random random = new java.util.Random(13);
+		HashSet<Integer> large = new HashSet<>();
+		while (large.size() < N) {
+			large.add(random.nextInt());
+		}
+		HashSet<Integer> small = new HashSet<>();
+		java.util.Iterator<Integer> it = large.iterator();
+		while (small.size() < N / 20) {
+			small.add(it.next());
+		}
+		while (small.size() < N / 10) {
+			small.add(random.nextInt());
+		}
+
+		for (int warmup = 0; warmup < 4; warmup++) {
+			if (warmup == 3) {
+				System.out.println("---- measured ----");
+			}
+			System.gc();
+			long start = System.nanoTime();
+			HashSet<Integer> r = new HashSet<>();
+			for (Integer e : large) {
+				if (small.contains(e)) {
+					r.add(e);
+				}
+			}
+			long loop = System.nanoTime() - start;
+			sink += r.size();
+			start = System.nanoTime();
+			sink += HashSet.intersection(large, small).size();
+			long sequential = System.nanoTime() - start;
+			start = System.nanoTime();
+			sink += HashSet.intersection(large, small, new HashSet<Integer>(), 1L).size();
+			long parallel = System.nanoTime() - start;
+			print("intersection", loop, sequential, parallel);
+
+			System.gc();
+			start = System.nanoTime();
+			r = new HashSet<>();
+			for (Integer e : large) {
+				if (!small.contains(e)) {
+					r.add(e);
+				}
+			}
+			loop = System.nanoTime() - start;
+			sink += r.size();
+			start = System.nanoTime();
+			sink += HashSet.difference(large, small).size();
+			sequential = System.nanoTime() - start;
+			start = System.nanoTime();
+			sink += HashSet.difference(large, small, new HashSet<Integer>(), 1L).size();
+			parallel = System.nanoTime() - start;
+			print("difference", loop, sequential, parallel);
+
+			System.gc();
+			start = System.nanoTime();
+			r = new HashSet<>();
+			for (Integer e : large) {
+				r.add(e);
+			}
+			for (Integer e : small) {
+				r.add(e);
+			}
+			loop = System.nanoTime() - start;
+			sink += r.size();
+			start = System.nanoTime();
+			sink += HashSet.union(large, small).size();
+			sequential = System.nanoTime() - start;
+			print("union", loop, sequential, -1L);
+
+			System.gc();
+			start = System.nanoTime();
+			r = new HashSet<>();
+			for (Integer e : large) {
+				if (!small.contains(e)) {
+					r.add(e);
+				}
+			}
+			for (Integer e : small) {
+				if (!large.contains(e)) {
+					r.add(e);
+				}
+			}
+			loop = System.nanoTime() - start;
+			sink += r.size();
+			start = System.nanoTime();
+			sink += HashSet.symmetricDifference(large, small).size();
+			sequential = System.nanoTime() - start;
+			start = System.nanoTime();
+			sink += HashSet.symmetricDifference(large, small, new HashSet<Integer>(), 1L).size();
+			parallel = System.nanoTime() - start;
+			print("symmetric", loop, sequential, parallel);
+		}
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	static void print(String name, long loop, long sequential, long parallel) {
+		System.out.printf("%-13s loop %7.1f ms   sequential %7.1f ms   parallel %s%n", name,
+				loop / 1e6, sequential / 1e6, parallel < 0 ? "      -" : String.format("%7.1f ms", parallel / 1e6));
+	}
+}
@@ -0,0 +1,108 @@
+package source.demo.benchmark;
+
+import java.util.Map;
+import java.util.Random;
+
+import source.java.util.CompactHashMap;
+import source.java.util.HashMap;
+import source.java.util.SwissHashMap;
+
+/**
+ * 以未命中为主的查找负载下，SwissHashMap与HashMap、CompactHashMap的延迟对比。
+ *
+ * 每个map放入N个键，然后用探测键做get，其中MISS_PERCENT%的探测键不在map中。
+ * 未命中时HashMap要沿链表逐个比较，CompactHashMap要按Robin Hood顺序探测到距离不足为止，
+ * 而SwissHashMap通常只读一个控制字就能确定不存在。分别测试Integer键(equals代价低)
+ * 和String键(equals代价高，且hashCode已缓存)，单位ns/op。
+ */
+public class SwissHashMapBenchmark {
+
+	static final int N = 1 << 20;
+
+	static final int MISS_PERCENT = 90;
+
+	interface MapFactory {
+		<K> Map<K, K> create();
+	}
+
+	static <K> void run(String name, MapFactory factory, K[] keys, K[] probes) {
+		Map<K, K> map = factory.create();
+		long start = System.nanoTime();
+		for (K k : keys) {
+			map.put(k, k);
+		}
+		long insert = System.nanoTime() - start;
+
+		int hits = 0;
+		start = System.nanoTime();
+		for (int r = 0; r < 4; r++) {
+			for (K p : probes) {
+				if (map.get(p) != null) {
+					hits++;
+				}
+			}
+		}
+		long get = System.nanoTime() - start;
+
+		System.out.printf("%-16s insert %6.1f ns/op   get %6.1f ns/op   hit %4.1f%%%n", name,
+				(double) insert / keys.length, (double) get / (4L * probes.length),
+				100.0 * hits / (4L * probes.length));
+	}
+
+	static <K> void compare(String title, K[] keys, K[] probes) {
+		MapFactory hashMap = new MapFactory() {
+			public <T> Map<T, T> create() {
+				return new HashMap<T, T>();
+			}
+		};
+		MapFactory compact = new MapFactory() {
+			public <T> Map<T, T> create() {
+				return new CompactHashMap<T, T>();
+			}
+		};
+		MapFactory swiss = new MapFactory() {
+			public <T> Map<T, T> create() {
+				return new SwissHashMap<T, T>();
+			}
+		};
+		System.out.println("==== " + title + " ====");
+		for (int warmup = 0; warmup < 3; warmup++) {
+			if (warmup == 2) {
+				System.out.println("---- measured ----");
+			}
+			run("HashMap", hashMap, keys, probes);
+			run("CompactHashMap", compact, keys, probes);
+			run("SwissHashMap", swiss, keys, probes);
+		}
+	}
+
+	public static void main(String[] args) {
+		Random random = new Random(42);
+		// 偶数作为键，奇数作为未命中的探测键
+		Integer[] intKeys = new Integer[N];
+		Integer[] intProbes = new Integer[N];
+		String[] strKeys = new String[N];
+		String[] strProbes = new String[N];
+		for (int i = 0; i < N; i++) {
+			int k = random.nextInt() << 1;
+			intKeys[i] = k;
+			strKeys[i] = "key-" + k;
+		}
+		for (int i = 0; i < N; i++) {
+			if (random.nextInt(100) < MISS_PERCENT) {
+				int k = (random.nextInt() << 1) | 1;
+				intProbes[i] = k;
+				strProbes[i] = "key-" + k;
+				strProbes[i].hashCode();
+			} else {
+				int j = random.nextInt(N);
+				intProbes[i] = intKeys[j];
+				strProbes[i] = new String(strKeys[j]);
+				strProbes[i].hashCode();
+			}
+		}
+
+		compare("Integer keys, " + MISS_PERCENT + "% misses", intKeys, intProbes);
+		compare("String keys, " + MISS_PERCENT + "% misses", strKeys, strProbes);
+	}
+}
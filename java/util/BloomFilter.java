@@ -0,0 +1,246 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:BloomFilter.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午11:34:05  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.io.InvalidObjectException;
+
+/**
+ * A blocked Bloom filter: each hash selects one 512-bit block, a cache
+ * line, and sets or tests <tt>k</tt> bits inside it.  A lookup thus
+ * costs a single cache miss whatever <tt>k</tt> is, where a classic
+ * Bloom filter spreads its <tt>k</tt> bits over the whole array.  The
+ * price is a slightly higher false positive rate for the same number
+ * of bits, since blocks fill unevenly; the constructor adds bits until
+ * the blocked rate meets the one asked for.
+ * 分块Bloom过滤器：每个hash选择一个512位的块(一个缓存行)，在块内设置或检查k个位。
+ * 所以不论k是多少，一次查找只有一次缓存未命中，而经典Bloom过滤器把k个位分散在整个数组中。
+ * 代价是同样位数下误判率稍高，因为各块的填充不均匀；构造器会增加位数，直到分块后的误判率达到要求。
+ *
+ * <p>Bits cannot be cleared for one hash, so {@link #remove} is not
+ * supported.  The serialized form is the parameters followed by the
+ * bit array.
+ * 不能为单个hash清除位，所以不支持remove。序列化形式是参数，然后是位数组。
+ *
+ * <p>This class is not synchronized.
+ * 此类不是同步的。
+ *
+ * @see MembershipFilter
+ * @see CuckooFilter
+ */
+public class BloomFilter implements MembershipFilter, java.io.Serializable {
+
+	/**
+	 * serialVersionUID:
+	 */
+	private static final long serialVersionUID = 2683961417853390254L;
+
+    /** Words per block: 8 longs, 512 bits, one cache line. 每块的字数：8个long，512位，一个缓存行。 */
+    static final int BLOCK_WORDS = 8;
+
+    /** The most blocks a filter can have. 过滤器最多的块数。 */
+    static final int MAXIMUM_BLOCKS = Integer.MAX_VALUE / BLOCK_WORDS;
+
+    /**
+     * The odd multiplier that steps the mixed hash to the next bit
+     * position; each position is the top 9 bits.  Double hashing
+     * inside a 512-bit block repeats patterns too often.
+     * 把混合后的hash推进到下一个位位置的奇数乘数；每个位置取最高9位。在512位的块内做双重哈希，模式重复得太频繁。
+     */
+    static final long BIT_STEP = 0xD6E8FEB86659FD93L;
+
+    /** The number of bits set per hash. 每个hash设置的位数。 */
+    final int numHashes;
+
+    final double falsePositiveRate;
+
+    /** The bit array, BLOCK_WORDS words per block. 位数组，每块BLOCK_WORDS个字。 */
+    transient long[] words;
+
+    /** The number of blocks. 块数。 */
+    transient int blocks;
+
+    /**
+     * Creates a filter for the given number of hashes at the given
+     * false positive rate.
+     * 按给定的hash数量和误判率创建过滤器。
+     *
+     * @param expectedInsertions the number of hashes expected
+     * @param falsePositiveRate the false positive rate wanted at that
+     *        number, in (0, 1)
+     * @throws IllegalArgumentException if expectedInsertions is
+     *         negative, the rate is out of range, or the filter would be
+     *         too large
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 0)
+            throw new IllegalArgumentException("Illegal expected insertions: " +
+                                               expectedInsertions);
+        if (!(falsePositiveRate > 0.0 && falsePositiveRate < 1.0))
+            throw new IllegalArgumentException("Illegal false positive rate: " +
+                                               falsePositiveRate);
+        double ln2 = Math.log(2.0);
+        double bitsPerKey = -Math.log(falsePositiveRate) / (ln2 * ln2);
+        int k = Math.max(1, Math.min(16, (int)Math.round(bitsPerKey * ln2)));
+        while (bitsPerKey < 64.0 &&
+               blockedFalsePositiveRate(bitsPerKey, k) > falsePositiveRate)
+            bitsPerKey *= 1.02;
+        this.numHashes = k;
+        this.falsePositiveRate = falsePositiveRate;
+        double bits = Math.max(expectedInsertions, 1) * bitsPerKey;
+        double b = Math.ceil(bits / (BLOCK_WORDS * 64));
+        if (b > MAXIMUM_BLOCKS)
+            throw new IllegalArgumentException("Filter too large: " +
+                                               expectedInsertions);
+        allocate((int)b);
+    }
+
+    /**
+     * Returns the false positive rate of a blocked filter with the given
+     * bits per key and hashes per key.  The number of keys landing in a
+     * block is Poisson distributed, and a crowded block answers
+     * <tt>true</tt> far more often than an average one.
+     * 返回给定每键位数和每键hash数的分块过滤器的误判率。落在一个块中的键数服从泊松分布，
+     * 拥挤的块回答true的概率远高于平均的块。
+     */
+    static double blockedFalsePositiveRate(double bitsPerKey, int k) {
+        double blockBits = BLOCK_WORDS * 64;
+        double lambda = blockBits / bitsPerKey;
+        double p = Math.exp(-lambda), rate = 0.0;
+        int limit = (int)(lambda + 10 * Math.sqrt(lambda)) + 10;
+        for (int i = 0; i <= limit; ++i) {
+            rate += p * Math.pow(1.0 - Math.exp(-(double)k * i / blockBits), k);
+            p *= lambda / (i + 1);
+        }
+        return rate;
+    }
+
+    private void allocate(int blocks) {
+        this.blocks = blocks;
+        this.words = new long[blocks * BLOCK_WORDS];
+    }
+
+    /**
+     * The SplitMix64 finalizer.  Map hashes may vary only in a few bits,
+     * so every input bit must reach the block index and the bit
+     * positions.
+     * SplitMix64的终结函数。map的hash可能只有少数几位不同，所以每个输入位都必须影响块下标和位的位置。
+     */
+    static long mix(int hash) {
+        long z = (hash & 0xffffffffL) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns whether the hash might have been added: all of its bits
+     * in its block are set.
+     * 返回该hash是否可能加入过：它在块中的所有位都已设置。
+     */
+    public boolean mightContain(int hash) {
+        long z = mix(hash);
+        long[] w = words;
+        int base = (int)(((z >>> 32) * blocks) >>> 32) * BLOCK_WORDS;
+        long all = 1L;
+        for (int i = numHashes; i > 0; --i) {
+            z *= BIT_STEP;
+            int b = (int)(z >>> 55);
+            all &= w[base + (b >>> 6)] >>> b;
+        }
+        return all != 0L;
+    }
+
+    /**
+     * Sets the hash's bits.  A Bloom filter never fills up: past the
+     * expected number of hashes it only answers <tt>true</tt> more
+     * often.
+     * 设置该hash的位。Bloom过滤器不会满：超过预期数量后只会更频繁地回答true。
+     *
+     * @return <tt>true</tt>
+     */
+    public boolean add(int hash) {
+        long z = mix(hash);
+        long[] w = words;
+        int base = (int)(((z >>> 32) * blocks) >>> 32) * BLOCK_WORDS;
+        for (int i = numHashes; i > 0; --i) {
+            z *= BIT_STEP;
+            int b = (int)(z >>> 55);
+            w[base + (b >>> 6)] |= 1L << b;
+        }
+        return true;
+    }
+
+    /**
+     * Not supported: a bit may be shared with other hashes.
+     * 不支持：一个位可能被其他hash共享。
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean remove(int hash) {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean supportsRemove() {
+        return false;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(words, 0L);
+    }
+
+    public double falsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    public long bitSize() {
+        return (long)words.length << 6;
+    }
+
+    /**
+     * Returns the number of bits set per hash.
+     * 返回每个hash设置的位数。
+     */
+    public int numHashes() {
+        return numHashes;
+    }
+
+    /**
+     * Save the filter to a stream.
+     *
+     * @serialData the number of blocks (int), then every word of the
+     *             bit array (long), after the default fields
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        s.writeInt(blocks);
+        for (long w : words)
+            s.writeLong(w);
+    }
+
+    /**
+     * Reconstitute the filter from a stream.
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (numHashes < 1 || numHashes > 16)
+            throw new InvalidObjectException("Illegal number of hashes: " +
+                                             numHashes);
+        int blocks = s.readInt();
+        if (blocks < 1 || blocks > MAXIMUM_BLOCKS)
+            throw new InvalidObjectException("Illegal number of blocks: " +
+                                             blocks);
+        allocate(blocks);
+        long[] w = words;
+        for (int i = 0; i < w.length; ++i)
+            w[i] = s.readLong();
+    }
+}
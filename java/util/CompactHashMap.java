@@ -0,0 +1,805 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:CompactHashMap.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日上午11:40:26  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Open-addressing implementation of the <tt>Map</tt> interface that
+ * stores no per-entry node objects.  Stored hashes live in an
+ * <tt>int[]</tt>, and keys and values are interleaved in a single
+ * <tt>Object[]</tt> (key of slot <tt>i</tt> at <tt>2*i</tt>, its value at
+ * <tt>2*i+1</tt>), so an entry costs one <tt>int</tt> and two references
+ * divided by the load factor, instead of a 32-byte <tt>HashMap.Node</tt>
+ * plus a table reference.
+ * 不为每个条目分配结点对象的开放寻址Map实现。hash保存在int[]中，键和值交错保存在同一个Object[]中
+ * (槽i的键在2*i，值在2*i+1)，所以每个条目只占用一个int和两个引用(除以负载因子)，
+ * 而不是一个32字节的HashMap.Node再加一个表引用。
+ *
+ * <p>Collisions are resolved with <i>Robin Hood</i> linear probing: an
+ * entry being inserted takes the slot of any entry that is closer to its
+ * own home slot and carries that entry further, which keeps probe lengths
+ * short and nearly uniform, and lets a lookup for an absent key stop as
+ * soon as it meets an entry closer to home than the probe itself.
+ * Removal shifts the following entries back instead of leaving
+ * tombstones.
+ * 冲突采用Robin Hood线性探测解决：插入的条目会抢占离自己home槽更近的条目的位置，
+ * 并继续为被抢占的条目寻找位置，使探测长度短而均匀；查找不存在的键时，
+ * 一旦遇到比当前探测距离更靠近home的条目就可以停止。删除时把后续条目向前移动，不留墓碑。
+ *
+ * <p>Probe lengths only grow large when many keys share the low bits of
+ * their hash.  If an insertion would have to probe further than about
+ * twice the log of the capacity while the table is still sparse, the
+ * keys are assumed to be adversarial and that entry is stored in a
+ * small chained {@link HashMap} (whose bins treeify) instead; the
+ * overflow map is folded back into the table on the next resize.
+ * 只有大量键的hash低位相同时，探测长度才会变长。如果在表仍然稀疏时，
+ * 一次插入需要探测的距离超过容量对数的约两倍，就认为这些键是恶意构造的，
+ * 把该条目放入一个小的链式HashMap(其桶会树化)中；下次扩容时溢出map会重新合并回表中。
+ *
+ * <p>The hash is {@link HashMap#hash}, the capacity is always a power of
+ * two, the default load factor is 0.75 and <tt>null</tt> keys and values
+ * are permitted, exactly as for <tt>HashMap</tt>.  Iteration order is
+ * unspecified.  Iterators are fail-fast and support <tt>remove</tt>.
+ * <strong>Note that this implementation is not synchronized.</strong>
+ * hash函数、2的幂容量、默认负载因子0.75以及允许null键null值，都与HashMap完全一样。
+ * 迭代顺序不确定。迭代器是快速失败的，并支持remove。注意，这个实现不是同步的。
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see HashMap
+ */
+public class CompactHashMap<K,V> extends AbstractMap<K,V>
+    implements Map<K,V>, Cloneable, Serializable {
+
+	/**
+	 * serialVersionUID:
+	 */
+	private static final long serialVersionUID = -3081596390414625478L;
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     * 默认的初始容量-必须是2的幂。
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 1 << 4;
+
+    /**
+     * The maximum capacity.  The interleaved key/value array is twice
+     * the capacity, so this is one power of two below HashMap's.
+     * 最大容量。键值交错数组的长度是容量的两倍，所以比HashMap的最大容量小一个2的幂。
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * Value representing null keys inside tables, so that a
+     * <tt>null</tt> key slot always means "free".
+     * 表示null键的对象，使键槽为null总是表示空槽。
+     */
+    static final Object NULL_KEY = new Object();
+
+    /* ---------------- Fields -------------- */
+
+    /**
+     * The stored hash of each slot; meaningful only when the slot's key
+     * is non-null.
+     * 每个槽保存的hash，只有当该槽的键不为null时才有意义。
+     */
+    transient int[] hashes;
+
+    /**
+     * Keys and values interleaved: key of slot i at 2*i, value at
+     * 2*i+1.  Length is always twice the capacity.
+     * 键值交错：槽i的键在2*i，值在2*i+1。长度总是容量的两倍。
+     */
+    transient Object[] table;
+
+    /**
+     * Entries that could not be placed within probeLimit of their home
+     * slot, or null if there are none.
+     * 无法在距home槽probeLimit以内放下的条目，没有时为null。
+     */
+    transient HashMap<K,V> overflow;
+
+    /**
+     * The number of key-value mappings contained in this map, including
+     * those in the overflow map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The longest probe distance allowed before an entry is treated as
+     * a collision attack victim (roughly 2 * log2(capacity)).
+     * 条目被视为遭受碰撞攻击之前允许的最长探测距离(约为2 * log2(capacity))。
+     */
+    transient int probeLimit;
+
+    /**
+     * The next size value at which to resize (capacity * load factor).
+     *
+     * @serial
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     * 构造具有指定初始容量和负载因子的空map。
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in (0, 1)
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not in (0, 1)
+     */
+    public CompactHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(capacityFor(initialCapacity));
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * the default load factor (0.75).
+     *
+     * @param  initialCapacity the initial capacity.
+     * @throws IllegalArgumentException if the initial capacity is negative.
+     */
+    public CompactHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16) and
+     * the default load factor (0.75).
+     */
+    public CompactHashMap() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        allocate(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs a new map with the same mappings as the specified
+     * <tt>Map</tt>, sized to hold them without resizing.
+     *
+     * @param   m the map whose mappings are to be placed in this map
+     * @throws  NullPointerException if the specified map is null
+     */
+    public CompactHashMap(Map<? extends K, ? extends V> m) {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        allocate(capacityFor((int)Math.min((long)(m.size() / DEFAULT_LOAD_FACTOR) + 1,
+                                           MAXIMUM_CAPACITY)));
+        putAll(m);
+    }
+
+    private static int capacityFor(int initialCapacity) {
+        return Math.max(2, Math.min(HashMap.tableSizeFor(initialCapacity),
+                                    MAXIMUM_CAPACITY));
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        table = new Object[capacity << 1];
+        threshold = Math.min((int)(capacity * loadFactor), capacity - 1);
+        probeLimit = Math.max(16, 2 * Integer.numberOfTrailingZeros(capacity));
+    }
+
+    static Object maskNull(Object key) {
+        return (key == null ? NULL_KEY : key);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K> K unmaskNull(Object key) {
+        return (key == NULL_KEY ? null : (K) key);
+    }
+
+    /**
+     * Distance of slot i from the home slot of hash h.
+     * 槽i到hash h的home槽的距离。
+     */
+    static int probeDistance(int h, int i, int mask) {
+        return (i - h) & mask;
+    }
+
+    /**
+     * Returns the slot holding the (masked) key, or -1.  The search
+     * stops at the first empty slot or at the first entry that sits
+     * closer to its home slot than the current probe distance, since
+     * Robin Hood insertion would have placed the key before it.
+     * 返回保存该(已掩码的)键的槽，不存在返回-1。
+     * 查找在遇到第一个空槽，或第一个离自身home槽比当前探测距离更近的条目时停止，
+     * 因为Robin Hood插入会把该键放在它之前。
+     */
+    final int indexOf(int h, Object k) {
+        int[] hs = hashes;
+        Object[] tab = table;
+        int mask = hs.length - 1;
+        for (int i = h & mask, d = 0; ; i = (i + 1) & mask, ++d) {
+            Object item = tab[i << 1];
+            if (item == null || probeDistance(hs[i], i, mask) < d)
+                return -1;
+            if (hs[i] == h && (item == k || k.equals(item)))
+                return i;
+        }
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     * 返回指定键映射的值，不存在则返回null。
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int h = HashMap.hash(key);
+        int i = indexOf(h, maskNull(key));
+        if (i >= 0)
+            return (V) table[(i << 1) + 1];
+        HashMap.Node<K,V> e;
+        HashMap<K,V> o = overflow;
+        return (o == null || (e = o.getNode(h, key)) == null) ? null : e.value;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     */
+    public boolean containsKey(Object key) {
+        int h = HashMap.hash(key);
+        if (indexOf(h, maskNull(key)) >= 0)
+            return true;
+        HashMap<K,V> o = overflow;
+        return o != null && o.getNode(h, key) != null;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map maps one or more keys to the
+     * specified value.
+     */
+    public boolean containsValue(Object value) {
+        Object[] tab = table;
+        for (int i = 0; i < tab.length; i += 2) {
+            Object v;
+            if (tab[i] != null &&
+                ((v = tab[i + 1]) == value || (value != null && value.equals(v))))
+                return true;
+        }
+        HashMap<K,V> o = overflow;
+        if (o != null) {
+            for (HashMap.Node<K,V> e : overflowNodes(o)) {
+                Object v;
+                if ((v = e.value) == value || (value != null && value.equals(v)))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     * 将指定的值与指定的键关联，若已存在则替换旧值。
+     *
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        int h = HashMap.hash(key);
+        Object k = maskNull(key);
+        int i = indexOf(h, k);
+        if (i >= 0) {
+            int vi = (i << 1) + 1;
+            V oldValue = (V) table[vi];
+            table[vi] = value;
+            return oldValue;
+        }
+        HashMap.Node<K,V> e;
+        HashMap<K,V> o = overflow;
+        if (o != null && (e = o.getNode(h, key)) != null) {
+            V oldValue = e.value;
+            e.value = value;
+            return oldValue;
+        }
+        if (size - (o == null ? 0 : o.size) >= threshold)
+            resize();
+        ++modCount;
+        ++size;
+        insert(h, k, value, true);
+        return null;
+    }
+
+    /**
+     * Robin Hood insertion of a key known to be absent.  Whenever the
+     * probe passes an entry that is closer to its home slot than the
+     * carried entry, the two are swapped and the displaced entry is
+     * carried on.  If the carried entry drifts beyond probeLimit, the
+     * table is grown when it is reasonably full; otherwise the keys are
+     * clustering abnormally and the carried entry goes to the overflow
+     * map.
+     * 插入一个已知不存在的键(Robin Hood方式)。每当探测经过一个比当前携带条目更靠近home槽的条目时，
+     * 两者交换，继续为被换出的条目寻找位置。如果携带的条目漂移超过probeLimit：
+     * 表比较满时扩容；否则说明键异常聚集，把携带的条目放入溢出map。
+     */
+    @SuppressWarnings("unchecked")
+    private void insert(int h, Object k, Object v, boolean mayResize) {
+        outer: for (;;) {
+            int[] hs = hashes;
+            Object[] tab = table;
+            int mask = hs.length - 1;
+            for (int i = h & mask, d = 0; ; i = (i + 1) & mask, ++d) {
+                if (d > probeLimit) {
+                    if (mayResize && hs.length < MAXIMUM_CAPACITY &&
+                        (size << 1) > threshold) {
+                        resize();
+                        continue outer;
+                    }
+                    HashMap<K,V> o = overflow;
+                    if (o == null)
+                        overflow = o = new HashMap<K,V>();
+                    o.putVal(h, (K) unmaskNull(k), (V) v, false, true);
+                    return;
+                }
+                int ki = i << 1;
+                Object item = tab[ki];
+                if (item == null) {
+                    hs[i] = h;
+                    tab[ki] = k;
+                    tab[ki + 1] = v;
+                    return;
+                }
+                int ed = probeDistance(hs[i], i, mask);
+                if (ed < d) {
+                    // 劫富济贫：占据这个更靠近home的条目的位置，并继续安置它
+                    int th = hs[i];
+                    Object tv = tab[ki + 1];
+                    hs[i] = h;
+                    tab[ki] = k;
+                    tab[ki + 1] = v;
+                    h = th;
+                    k = item;
+                    v = tv;
+                    d = ed;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     * 删除指定键的映射(如果存在)。
+     *
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int h = HashMap.hash(key);
+        int i = indexOf(h, maskNull(key));
+        if (i >= 0) {
+            V oldValue = (V) table[(i << 1) + 1];
+            ++modCount;
+            --size;
+            delete(i);
+            return oldValue;
+        }
+        HashMap.Node<K,V> e;
+        HashMap<K,V> o = overflow;
+        if (o != null && (e = o.removeNode(h, key, null, false, true)) != null) {
+            ++modCount;
+            --size;
+            if (o.size == 0)
+                overflow = null;
+            return e.value;
+        }
+        return null;
+    }
+
+    /**
+     * Backward-shift deletion: empties slot d and moves every following
+     * entry of the cluster one slot closer to its home, stopping at an
+     * empty slot or at an entry that is already home.
+     * 后移删除：清空槽d，并把同一簇中后续的每个条目向home方向移动一格，
+     * 遇到空槽或已经在home槽的条目时停止。
+     */
+    final void delete(int d) {
+        int[] hs = hashes;
+        Object[] tab = table;
+        int mask = hs.length - 1;
+        for (int i = (d + 1) & mask; ; d = i, i = (i + 1) & mask) {
+            int di = d << 1, ii = i << 1;
+            Object item = tab[ii];
+            if (item == null || probeDistance(hs[i], i, mask) == 0) {
+                tab[di] = null;
+                tab[di + 1] = null;
+                return;
+            }
+            hs[d] = hs[i];
+            tab[di] = item;
+            tab[di + 1] = tab[ii + 1];
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        ++modCount;
+        java.util.Arrays.fill(table, null);
+        overflow = null;
+        size = 0;
+    }
+
+    /**
+     * Doubles the capacity, re-inserting every entry of the table and
+     * of the overflow map.
+     * 容量扩大一倍，重新插入表和溢出map中的每个条目。
+     */
+    private void resize() {
+        int[] oldHashes = hashes;
+        Object[] oldTab = table;
+        int oldCap = oldHashes.length;
+        if (oldCap >= MAXIMUM_CAPACITY) {
+            if (size >= MAXIMUM_CAPACITY - 1)
+                throw new IllegalStateException("Capacity exhausted.");
+            return;
+        }
+        HashMap<K,V> o = overflow;
+        overflow = null;
+        allocate(oldCap << 1);
+        ++modCount;
+        for (int j = 0; j < oldCap; ++j) {
+            Object k = oldTab[j << 1];
+            if (k != null)
+                insert(oldHashes[j], k, oldTab[(j << 1) + 1], false);
+        }
+        if (o != null) {
+            for (HashMap.Node<K,V> e : overflowNodes(o))
+                insert(e.hash, maskNull(e.key), e.value, false);
+        }
+    }
+
+    /**
+     * Returns the nodes of an overflow map, walking its bins directly.
+     */
+    @SuppressWarnings("unchecked")
+    static <K,V> HashMap.Node<K,V>[] overflowNodes(HashMap<K,V> o) {
+        HashMap.Node<K,V>[] result = (HashMap.Node<K,V>[])new HashMap.Node<?,?>[o.size];
+        HashMap.Node<K,V>[] tab = o.table;
+        int n = 0;
+        if (tab != null) {
+            for (HashMap.Node<K,V> b : tab) {
+                for (HashMap.Node<K,V> e = b; e != null; e = e.next)
+                    result[n++] = e;
+            }
+        }
+        return result;
+    }
+
+    /* ---------------- Views -------------- */
+
+    /**
+     * Holds cached entrySet().
+     */
+    transient Set<Map.Entry<K,V>> entrySet;
+
+    /**
+     * Returns a {@link Set} view of the keys contained in this map.
+     * The set supports element removal but not addition.
+     */
+    public Set<K> keySet() {
+        Set<K> ks = keySet;
+        if (ks == null) {
+            ks = new AbstractSet<K>() {
+                public Iterator<K> iterator()   { return new KeyIterator(); }
+                public int size()               { return size; }
+                public boolean contains(Object o) { return containsKey(o); }
+                public void clear()             { CompactHashMap.this.clear(); }
+            };
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    /**
+     * Returns a {@link Collection} view of the values contained in this
+     * map.  The collection supports element removal but not addition.
+     */
+    public Collection<V> values() {
+        Collection<V> vs = values;
+        if (vs == null) {
+            vs = new AbstractCollection<V>() {
+                public Iterator<V> iterator()   { return new ValueIterator(); }
+                public int size()               { return size; }
+                public boolean contains(Object o) { return containsValue(o); }
+                public void clear()             { CompactHashMap.this.clear(); }
+            };
+            values = vs;
+        }
+        return vs;
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The entries returned by its iterator are snapshots whose
+     * <tt>setValue</tt> writes through to the map.
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactHashMap.this.clear(); }
+        public final Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey();
+            if (!containsKey(key))
+                return false;
+            Object v = get(key), ev = e.getValue();
+            return v == ev || (v != null && v.equals(ev));
+        }
+        public final boolean remove(Object o) {
+            if (contains(o)) {
+                CompactHashMap.this.remove(((Map.Entry<?,?>) o).getKey());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Base iterator.  Table slots are visited in circular order starting
+     * just after a slot that was empty when the iterator was created:
+     * backward-shift deletion never moves an entry across an empty slot,
+     * so removing through the iterator only ever pulls not-yet-visited
+     * entries into the current slot, which is then examined again.
+     * Overflow entries are visited last, from a snapshot.
+     * 基础迭代器。从创建迭代器时的一个空槽之后开始，按环形顺序访问表中的槽：
+     * 后移删除永远不会把条目移过空槽，所以通过迭代器删除时，只会把尚未访问的条目移到当前槽，
+     * 然后重新检查当前槽即可。溢出条目最后访问，使用快照。
+     */
+    abstract class CompactIterator<T> implements Iterator<T> {
+        final int start;                   // first slot to visit
+        int pos;                           // next position, relative to start
+        int lastIndex = -1;                // slot of last returned table entry
+        HashMap.Node<K,V>[] spill;         // snapshot of overflow nodes
+        int spillPos;
+        HashMap.Node<K,V> lastSpill;       // last returned overflow node
+        int expectedModCount;
+
+        CompactIterator() {
+            expectedModCount = modCount;
+            Object[] tab = table;
+            int mask = hashes.length - 1, s = 0;
+            while (tab[s << 1] != null)    // the table always has a free slot
+                ++s;
+            start = (s + 1) & mask;
+        }
+
+        public final boolean hasNext() {
+            Object[] tab = table;
+            int mask = hashes.length - 1;
+            while (pos <= mask) {
+                if (tab[((start + pos) & mask) << 1] != null)
+                    return true;
+                ++pos;
+            }
+            if (spill == null) {
+                HashMap<K,V> o = overflow;
+                spill = overflowNodes(o == null ? new HashMap<K,V>() : o);
+            }
+            return spillPos < spill.length;
+        }
+
+        /**
+         * Advances and returns the slot of the next table entry, or -1
+         * when the next entry is lastSpill.
+         */
+        final int nextIndex() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            int mask = hashes.length - 1;
+            if (pos <= mask) {
+                lastSpill = null;
+                return lastIndex = (start + pos++) & mask;
+            }
+            lastSpill = spill[spillPos++];
+            return lastIndex = -1;
+        }
+
+        public final void remove() {
+            if (lastIndex < 0 && lastSpill == null)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (lastIndex >= 0) {
+                delete(lastIndex);
+                --pos;                     // re-examine the slot just refilled
+                lastIndex = -1;
+            }
+            else {
+                HashMap<K,V> o = overflow;
+                o.removeNode(lastSpill.hash, lastSpill.key, null, false, false);
+                if (o.size == 0)
+                    overflow = null;
+                lastSpill = null;
+            }
+            --size;
+            expectedModCount = ++modCount;
+        }
+    }
+
+    final class KeyIterator extends CompactIterator<K> {
+        public final K next() {
+            int i = nextIndex();
+            return (i >= 0) ? CompactHashMap.<K>unmaskNull(table[i << 1]) : lastSpill.key;
+        }
+    }
+
+    final class ValueIterator extends CompactIterator<V> {
+        @SuppressWarnings("unchecked")
+        public final V next() {
+            int i = nextIndex();
+            return (i >= 0) ? (V) table[(i << 1) + 1] : lastSpill.value;
+        }
+    }
+
+    final class EntryIterator extends CompactIterator<Map.Entry<K,V>> {
+        @SuppressWarnings("unchecked")
+        public final Map.Entry<K,V> next() {
+            int i = nextIndex();
+            if (i < 0)
+                return lastSpill;
+            return new Entry(CompactHashMap.<K>unmaskNull(table[i << 1]), (V) table[(i << 1) + 1]);
+        }
+    }
+
+    /**
+     * Entry handed out by the entry set iterator.  There are no stored
+     * entry objects, so this is a snapshot whose setValue writes through
+     * with put.
+     */
+    final class Entry extends AbstractMap.SimpleEntry<K,V> {
+        private static final long serialVersionUID = 1L;
+
+        Entry(K key, V value) {
+            super(key, value);
+        }
+
+        public V setValue(V value) {
+            super.setValue(value);
+            return put(getKey(), value);
+        }
+    }
+
+    /* ---------------- Cloning and serialization -------------- */
+
+    /**
+     * Returns a shallow copy of this map: the keys and values
+     * themselves are not cloned.
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        CompactHashMap<K,V> result;
+        try {
+            result = (CompactHashMap<K,V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+        result.hashes = hashes.clone();
+        result.table = table.clone();
+        result.entrySet = null;
+        result.keySet = null;
+        result.values = null;
+        result.modCount = 0;
+        HashMap<K,V> o = overflow;
+        if (o != null) {
+            HashMap<K,V> copy = new HashMap<K,V>();
+            for (HashMap.Node<K,V> e : overflowNodes(o))
+                copy.putVal(e.hash, e.key, e.value, false, true);
+            result.overflow = copy;
+        }
+        return result;
+    }
+
+    /**
+     * Save the state of this map to a stream (that is, serialize it).
+     *
+     * @serialData The <i>capacity</i> (int), followed by the <i>size</i>
+     *             (int), followed by the key (Object) and value (Object)
+     *             for each key-value mapping, in no particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        s.writeInt(hashes.length);
+        s.writeInt(size);
+        for (Map.Entry<K,V> e : entrySet()) {
+            s.writeObject(e.getKey());
+            s.writeObject(e.getValue());
+        }
+    }
+
+    /**
+     * Reconstitute the map from a stream (that is, deserialize it).
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        s.readInt();                // Read and ignore number of buckets
+        int mappings = s.readInt(); // Read number of mappings (size)
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        allocate(capacityFor((int)Math.min((long)(mappings / loadFactor) + 1,
+                                           MAXIMUM_CAPACITY)));
+        for (int i = 0; i < mappings; i++)
+            put((K) s.readObject(), (V) s.readObject());
+    }
+}
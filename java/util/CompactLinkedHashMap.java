@@ -0,0 +1,755 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:CompactLinkedHashMap.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午9:34:08  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Insertion-ordered implementation of the <tt>Map</tt> interface that
+ * keeps its entries in dense append-only arrays, like Python's
+ * <tt>dict</tt>, instead of linking <tt>LinkedHashMap.Entry</tt> nodes.
+ * An entry's position in the arrays is its place in the iteration
+ * order, so no <tt>before</tt>/<tt>after</tt> references are needed.
+ * 插入顺序的Map实现，像Python的dict一样把条目保存在只追加的紧凑数组中，而不是链接
+ * LinkedHashMap.Entry结点。条目在数组中的位置就是它在迭代顺序中的位置，所以不需要before/after引用。
+ *
+ * <p>Two structures make up the map:
+ * <ul>
+ * <li>the <em>entries</em>: stored hashes in an <tt>int[]</tt>, and keys
+ * and values interleaved in an <tt>Object[]</tt> (key of position
+ * <tt>p</tt> at <tt>2*p</tt>, its value at <tt>2*p+1</tt>), filled in
+ * insertion order;
+ * <li>the <em>index</em>: a power-of-two <tt>int[]</tt> hash table with
+ * linear probing, each slot holding an entry position plus one, or 0
+ * when free.
+ * </ul>
+ * An entry costs one <tt>int</tt> and two references in the entries, and
+ * one <tt>int</tt> divided by the load factor in the index, about half
+ * of a <tt>LinkedHashMap</tt> entry with its table reference.
+ * Iteration is a sequential scan of the entry arrays.
+ * map由两部分组成：entries按插入顺序填充，hash保存在int[]中，键和值交错保存在Object[]中
+ * (位置p的键在2*p，值在2*p+1)；index是一个线性探测的2的幂大小的int[]哈希表，每个槽保存条目位置加1，
+ * 空闲时为0。每个条目在entries中占用一个int和两个引用，在index中占用一个int除以负载因子，
+ * 约为LinkedHashMap条目加上表引用的一半。迭代就是顺序扫描entries数组。
+ *
+ * <p>Removing an entry clears its position, leaving a tombstone so that
+ * the order of the others is kept, and removes its slot from the index
+ * by backward shifting.  When tombstones make up more than half of the
+ * used positions, the live entries are slid down over them and the
+ * index is rebuilt; the same compaction happens instead of growing when
+ * the entry arrays fill up while mostly dead.  This suits maps that are
+ * mainly added to; a map with heavy churn pays an O(n) compaction for
+ * every n/2 removals.
+ * 删除条目时清空它的位置，留下墓碑以保持其他条目的顺序，并通过后移把它的槽从index中删除。
+ * 当墓碑超过已使用位置的一半时，把存活的条目向前移动覆盖墓碑并重建index；entries数组已满但
+ * 大部分条目已删除时，也进行同样的压缩而不是扩容。这适合主要做添加的map；频繁增删的map
+ * 每n/2次删除要付出一次O(n)的压缩代价。
+ *
+ * <p>Re-inserting an existing key keeps its position, as in
+ * {@link LinkedHashMap} with insertion order.  The hash is
+ * {@link HashMap#hash} and <tt>null</tt> keys and values are permitted.
+ * Iterators are fail-fast and support <tt>remove</tt>.  <strong>Note
+ * that this implementation is not synchronized.</strong>
+ * 与插入顺序的LinkedHashMap一样，重新插入已存在的键不改变它的位置。hash函数是HashMap.hash，
+ * 允许null键和null值。迭代器是快速失败的，并支持remove。注意，这个实现不是同步的。
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see LinkedHashMap
+ * @see CompactHashMap
+ */
+public class CompactLinkedHashMap<K,V> extends AbstractMap<K,V>
+    implements Map<K,V>, Cloneable, Serializable {
+
+	/**
+	 * serialVersionUID:
+	 */
+	private static final long serialVersionUID = 5412871073612957092L;
+
+    /**
+     * The default initial capacity of the index - MUST be a power of two.
+     * index默认的初始容量-必须是2的幂。
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 1 << 4;
+
+    /**
+     * The maximum capacity of the index.  The interleaved key/value
+     * array is at most twice as long.
+     * index的最大容量。键值交错数组最多是它的两倍长。
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * Compaction on remove is not worth it below this many used
+     * positions.
+     * 已使用位置少于此值时，删除不触发压缩。
+     */
+    static final int MIN_COMPACT_USED = 16;
+
+    /* ---------------- Fields -------------- */
+
+    /**
+     * The hash table: an entry position plus one per slot, 0 if free.
+     * 哈希表：每个槽保存条目位置加1，空闲时为0。
+     */
+    transient int[] index;
+
+    /**
+     * The stored hash of each entry position.
+     * 每个条目位置保存的hash。
+     */
+    transient int[] hashes;
+
+    /**
+     * Keys and values in insertion order, interleaved: key of position
+     * p at 2*p, value at 2*p+1.  A null key marks a removed entry or an
+     * unused position; null keys of the map are masked.
+     * 按插入顺序交错保存的键和值：位置p的键在2*p，值在2*p+1。键为null表示已删除的条目
+     * 或未使用的位置；map中的null键经过掩码处理。
+     */
+    transient Object[] entries;
+
+    /**
+     * The number of positions used, live or removed.  New entries are
+     * appended at this position.
+     * 已使用的位置数，包括存活的和已删除的。新条目追加在这个位置。
+     */
+    transient int used;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The load factor for the index.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     * 构造具有指定初始容量和负载因子的空map。
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in (0, 1)
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not in (0, 1)
+     */
+    public CompactLinkedHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(capacityFor(initialCapacity));
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * the default load factor (0.75).
+     *
+     * @param  initialCapacity the initial capacity.
+     * @throws IllegalArgumentException if the initial capacity is negative.
+     */
+    public CompactLinkedHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16) and
+     * the default load factor (0.75).
+     */
+    public CompactLinkedHashMap() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        allocate(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs a new map with the same mappings, in the same order of
+     * iteration, as the specified <tt>Map</tt>, sized to hold them
+     * without resizing.
+     *
+     * @param   m the map whose mappings are to be placed in this map
+     * @throws  NullPointerException if the specified map is null
+     */
+    public CompactLinkedHashMap(Map<? extends K, ? extends V> m) {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        allocate(capacityFor((int)Math.min((long)(m.size() / DEFAULT_LOAD_FACTOR) + 1,
+                                           MAXIMUM_CAPACITY)));
+        putAll(m);
+    }
+
+    private static int capacityFor(int initialCapacity) {
+        return Math.max(2, Math.min(HashMap.tableSizeFor(initialCapacity),
+                                    MAXIMUM_CAPACITY));
+    }
+
+    /**
+     * Allocates an empty index of the given capacity and entry arrays
+     * for as many entries as the load factor allows.
+     * 分配给定容量的空index，以及负载因子所允许的条目数的entries数组。
+     */
+    private void allocate(int capacity) {
+        int n = Math.max(1, Math.min((int)(capacity * loadFactor), capacity - 1));
+        index = new int[capacity];
+        hashes = new int[n];
+        entries = new Object[n << 1];
+        used = 0;
+    }
+
+    /**
+     * Returns the index slot holding the (masked) key, or -1.
+     * 返回保存该(已掩码的)键的index槽，不存在返回-1。
+     */
+    final int slotOf(int h, Object k) {
+        int[] ix = index;
+        int[] hs = hashes;
+        Object[] es = entries;
+        int mask = ix.length - 1;
+        for (int i = h & mask; ; i = (i + 1) & mask) {
+            int p = ix[i] - 1;
+            if (p < 0)
+                return -1;
+            Object item;
+            if (hs[p] == h && ((item = es[p << 1]) == k || k.equals(item)))
+                return i;
+        }
+    }
+
+    /**
+     * Returns the index slot pointing at position p, which is in use.
+     * 返回指向位置p的index槽，p必须正在使用。
+     */
+    final int slotAt(int p) {
+        int[] ix = index;
+        int mask = ix.length - 1;
+        int i = hashes[p] & mask;
+        while (ix[i] != p + 1)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     * 返回指定键映射的值，不存在则返回null。
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int i = slotOf(HashMap.hash(key), CompactHashMap.maskNull(key));
+        return (i < 0) ? null : (V) entries[(index[i] << 1) - 1];
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     */
+    public boolean containsKey(Object key) {
+        return slotOf(HashMap.hash(key), CompactHashMap.maskNull(key)) >= 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map maps one or more keys to the
+     * specified value.
+     */
+    public boolean containsValue(Object value) {
+        Object[] es = entries;
+        for (int p = 0, n = used << 1; p < n; p += 2) {
+            Object v;
+            if (es[p] != null &&
+                ((v = es[p + 1]) == value || (value != null && value.equals(v))))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced and the entry keeps its position; otherwise the
+     * entry is appended at the end of the order.
+     * 将指定的值与指定的键关联。若已存在则替换旧值，条目保持原来的位置；否则把条目追加到顺序的末尾。
+     *
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        int h = HashMap.hash(key);
+        Object k = CompactHashMap.maskNull(key);
+        int i = slotOf(h, k);
+        if (i >= 0) {
+            int vi = (index[i] << 1) - 1;
+            V oldValue = (V) entries[vi];
+            entries[vi] = value;
+            return oldValue;
+        }
+        if (used == hashes.length)
+            resize();
+        ++modCount;
+        ++size;
+        append(h, k, value);
+        return null;
+    }
+
+    /**
+     * Appends an entry known to be absent at position <tt>used</tt> and
+     * points a free index slot at it.  There must be room.
+     * 把一个已知不存在的条目追加到位置used，并让一个空闲的index槽指向它。必须有空间。
+     */
+    private void append(int h, Object k, Object v) {
+        int p = used++;
+        hashes[p] = h;
+        entries[p << 1] = k;
+        entries[(p << 1) + 1] = v;
+        int[] ix = index;
+        int mask = ix.length - 1;
+        int i = h & mask;
+        while (ix[i] != 0)
+            i = (i + 1) & mask;
+        ix[i] = p + 1;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     * 删除指定键的映射(如果存在)。
+     *
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int i = slotOf(HashMap.hash(key), CompactHashMap.maskNull(key));
+        if (i < 0)
+            return null;
+        int p = index[i] - 1;
+        V oldValue = (V) entries[(p << 1) + 1];
+        delete(i, p);
+        ++modCount;
+        --size;
+        if (used >= MIN_COMPACT_USED && (used - size) > (used >>> 1))
+            compact();
+        return oldValue;
+    }
+
+    /**
+     * Leaves a tombstone at position p and frees index slot i by
+     * backward shifting: each following slot of the cluster whose entry
+     * may sit at i (its home is not cyclically within (i, j]) moves
+     * there, and the slot it left becomes the one to fill.
+     * 在位置p留下墓碑，并通过后移释放index槽i：同一簇中后续的每个槽，如果其条目可以放在i
+     * (它的home不在环形区间(i, j]中)，就移到i，然后它空出的槽成为下一个要填充的槽。
+     */
+    final void delete(int i, int p) {
+        entries[p << 1] = null;
+        entries[(p << 1) + 1] = null;
+        int[] ix = index;
+        int[] hs = hashes;
+        int mask = ix.length - 1;
+        for (int j = (i + 1) & mask; ; j = (j + 1) & mask) {
+            int q = ix[j];
+            if (q == 0)
+                break;
+            if (((j - (hs[q - 1] & mask)) & mask) >= ((j - i) & mask)) {
+                ix[i] = q;
+                i = j;
+            }
+        }
+        ix[i] = 0;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        ++modCount;
+        java.util.Arrays.fill(index, 0);
+        java.util.Arrays.fill(entries, 0, used << 1, null);
+        used = 0;
+        size = 0;
+    }
+
+    /**
+     * Makes room for an append when the entry arrays are full: doubles
+     * the index and the entry arrays if at least half of the positions
+     * are live, otherwise only compacts them.
+     * 当entries数组已满时为追加腾出空间：如果至少一半的位置是存活的，则把index和entries数组
+     * 扩大一倍，否则只压缩它们。
+     */
+    private void resize() {
+        int[] oldHashes = hashes;
+        Object[] oldEntries = entries;
+        int oldUsed = used;
+        int oldCap = index.length;
+        if ((size << 1) < oldUsed) {
+            compact();
+            return;
+        }
+        if (oldCap >= MAXIMUM_CAPACITY)
+            throw new IllegalStateException("Capacity exhausted.");
+        int newCap = oldCap << 1;
+        while (newCap < MAXIMUM_CAPACITY && (int)(newCap * loadFactor) <= size)
+            newCap <<= 1;               // tiny tables at a low load factor
+        allocate(newCap);
+        ++modCount;
+        for (int p = 0; p < oldUsed; ++p) {
+            Object k = oldEntries[p << 1];
+            if (k != null)
+                append(oldHashes[p], k, oldEntries[(p << 1) + 1]);
+        }
+    }
+
+    /**
+     * Slides the live entries down over the tombstones, keeping their
+     * order, and rebuilds the index for their new positions.
+     * 把存活的条目向前移动覆盖墓碑，保持它们的顺序，并按新位置重建index。
+     */
+    final void compact() {
+        int[] hs = hashes;
+        Object[] es = entries;
+        int[] ix = index;
+        int mask = ix.length - 1;
+        java.util.Arrays.fill(ix, 0);
+        int n = 0;
+        for (int p = 0, u = used; p < u; ++p) {
+            Object k = es[p << 1];
+            if (k == null)
+                continue;
+            if (n != p) {
+                hs[n] = hs[p];
+                es[n << 1] = k;
+                es[(n << 1) + 1] = es[(p << 1) + 1];
+            }
+            int i = hs[n] & mask;
+            while (ix[i] != 0)
+                i = (i + 1) & mask;
+            ix[i] = ++n;
+        }
+        java.util.Arrays.fill(es, n << 1, used << 1, null);
+        used = n;
+        ++modCount;
+    }
+
+    /**
+     * Performs the action for each entry, in insertion order.
+     * 按插入顺序对每个条目执行action。
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        Object[] es = entries;
+        int mc = modCount;
+        for (int p = 0, n = used << 1; p < n && modCount == mc; p += 2) {
+            Object k = es[p];
+            if (k != null)
+                action.accept(CompactHashMap.<K>unmaskNull(k), (V) es[p + 1]);
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /* ---------------- Views -------------- */
+
+    /**
+     * Holds cached entrySet().
+     */
+    transient Set<Map.Entry<K,V>> entrySet;
+
+    /**
+     * Returns a {@link Set} view of the keys contained in this map, in
+     * insertion order.  The set supports element removal but not
+     * addition.
+     */
+    public Set<K> keySet() {
+        Set<K> ks = keySet;
+        if (ks == null) {
+            ks = new AbstractSet<K>() {
+                public Iterator<K> iterator()   { return new KeyIterator(); }
+                public int size()               { return size; }
+                public boolean contains(Object o) { return containsKey(o); }
+                public boolean remove(Object o) {
+                    if (!containsKey(o))
+                        return false;
+                    CompactLinkedHashMap.this.remove(o);
+                    return true;
+                }
+                public void clear()             { CompactLinkedHashMap.this.clear(); }
+            };
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    /**
+     * Returns a {@link Collection} view of the values contained in this
+     * map, in insertion order.  The collection supports element removal
+     * but not addition.
+     */
+    public Collection<V> values() {
+        Collection<V> vs = values;
+        if (vs == null) {
+            vs = new AbstractCollection<V>() {
+                public Iterator<V> iterator()   { return new ValueIterator(); }
+                public int size()               { return size; }
+                public boolean contains(Object o) { return containsValue(o); }
+                public void clear()             { CompactLinkedHashMap.this.clear(); }
+            };
+            values = vs;
+        }
+        return vs;
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map,
+     * in insertion order.  The entries returned by its iterator are
+     * snapshots whose <tt>setValue</tt> writes through to the map.
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactLinkedHashMap.this.clear(); }
+        public final Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey();
+            int i = slotOf(HashMap.hash(key), CompactHashMap.maskNull(key));
+            if (i < 0)
+                return false;
+            Object v = entries[(index[i] << 1) - 1], ev = e.getValue();
+            return v == ev || (v != null && v.equals(ev));
+        }
+        public final boolean remove(Object o) {
+            if (contains(o)) {
+                CompactLinkedHashMap.this.remove(((Map.Entry<?,?>) o).getKey());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Base iterator: a scan of the entry positions that skips the
+     * tombstones.  Removing through the iterator leaves a tombstone but
+     * never compacts, so the positions still to be visited stay put.
+     * 基础迭代器：扫描条目位置并跳过墓碑。通过迭代器删除只留下墓碑而不压缩，
+     * 所以尚未访问的位置保持不变。
+     */
+    abstract class CompactIterator<T> implements Iterator<T> {
+        int next;                          // next position to examine
+        int last = -1;                     // position of last returned entry
+        int expectedModCount;
+
+        CompactIterator() {
+            expectedModCount = modCount;
+        }
+
+        public final boolean hasNext() {
+            Object[] es = entries;
+            int u = used;
+            while (next < u && es[next << 1] == null)
+                ++next;
+            return next < u;
+        }
+
+        final int nextPosition() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return last = next++;
+        }
+
+        public final void remove() {
+            int p = last;
+            if (p < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            delete(slotAt(p), p);
+            --size;
+            last = -1;
+            expectedModCount = ++modCount;
+        }
+    }
+
+    final class KeyIterator extends CompactIterator<K> {
+        public final K next() {
+            return CompactHashMap.<K>unmaskNull(entries[nextPosition() << 1]);
+        }
+    }
+
+    final class ValueIterator extends CompactIterator<V> {
+        @SuppressWarnings("unchecked")
+        public final V next() {
+            return (V) entries[(nextPosition() << 1) + 1];
+        }
+    }
+
+    final class EntryIterator extends CompactIterator<Map.Entry<K,V>> {
+        public final Map.Entry<K,V> next() {
+            return new Entry(nextPosition());
+        }
+    }
+
+    /**
+     * Entry handed out by the entry set iterator.  There are no stored
+     * entry objects, so this is a snapshot that remembers its position,
+     * and setValue writes through it while the key is still there.
+     * 由entry set迭代器返回的条目。没有保存的条目对象，所以它是一个记住自己位置的快照，
+     * 在键仍在该位置时setValue通过位置写入map。
+     */
+    final class Entry extends AbstractMap.SimpleEntry<K,V> {
+        private static final long serialVersionUID = 1L;
+
+        final int position;
+
+        @SuppressWarnings("unchecked")
+        Entry(int position) {
+            super(CompactHashMap.<K>unmaskNull(entries[position << 1]),
+                  (V) entries[(position << 1) + 1]);
+            this.position = position;
+        }
+
+        final boolean live() {
+            int p = position;
+            return p < used && entries[p << 1] == CompactHashMap.maskNull(getKey());
+        }
+
+        @SuppressWarnings("unchecked")
+        public V setValue(V value) {
+            if (!live())
+                return super.setValue(value);
+            int vi = (position << 1) + 1;
+            V oldValue = (V) entries[vi];
+            entries[vi] = value;
+            super.setValue(value);
+            return oldValue;
+        }
+    }
+
+    /* ---------------- Cloning and serialization -------------- */
+
+    /**
+     * Returns a shallow copy of this map: the keys and values
+     * themselves are not cloned.
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        CompactLinkedHashMap<K,V> result;
+        try {
+            result = (CompactLinkedHashMap<K,V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+        result.index = index.clone();
+        result.hashes = hashes.clone();
+        result.entries = entries.clone();
+        result.entrySet = null;
+        result.keySet = null;
+        result.values = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    /**
+     * Save the state of this map to a stream (that is, serialize it).
+     *
+     * @serialData The <i>capacity</i> of the index (int), followed by the
+     *             <i>size</i> (int), followed by the key (Object) and
+     *             value (Object) for each key-value mapping, in insertion
+     *             order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        s.writeInt(index.length);
+        s.writeInt(size);
+        Object[] es = entries;
+        for (int p = 0, n = used << 1; p < n; p += 2) {
+            Object k = es[p];
+            if (k != null) {
+                s.writeObject(CompactHashMap.unmaskNull(k));
+                s.writeObject(es[p + 1]);
+            }
+        }
+    }
+
+    /**
+     * Reconstitute the map from a stream (that is, deserialize it).
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        s.readInt();                // Read and ignore index capacity
+        int mappings = s.readInt(); // Read number of mappings (size)
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        allocate(capacityFor((int)Math.min((long)(mappings / loadFactor) + 1,
+                                           MAXIMUM_CAPACITY)));
+        for (int i = 0; i < mappings; i++)
+            put((K) s.readObject(), (V) s.readObject());
+    }
+}
@@ -0,0 +1,1035 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:ConcurrentHashMap.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日上午9:12:40  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A hash table supporting full concurrency of retrievals and high
+ * expected concurrency for updates.  This is the concurrent sibling of
+ * {@link HashMap}: it uses the same power-of-two table of linked
+ * bins, the same bit spreading as {@link HashMap#hash} and the same
+ * lo/hi split of every bin when the table doubles, but
+ * <ul>
+ * <li>retrieval operations (<tt>get</tt>, <tt>containsKey</tt>) take
+ * no locks at all and read bins with volatile semantics;</li>
+ * <li>an insertion into an empty bin is a single CAS of the bin
+ * head;</li>
+ * <li>updates to a non-empty bin lock only the first node of that
+ * bin, so threads touching different bins never contend;</li>
+ * <li>resizing is cooperative: every thread that runs into a bin
+ * being moved claims a stride of bins and helps to transfer them,
+ * instead of waiting for the thread that triggered the resize.</li>
+ * </ul>
+ * 一个支持检索完全并发、更新高并发的哈希表。这是HashMap的并发版本：
+ * 它使用同样的2的幂长度的链表桶数组、同样的hash扰动函数，扩容时同样把每个桶拆分为lo/hi两条链。
+ * 不同的是：读操作完全不加锁；向空桶插入只需一次CAS；向非空桶更新只锁住该桶的头结点；
+ * 扩容时所有遇到正在迁移的桶的线程都会领取一段桶区间协助迁移，而不是等待触发扩容的线程。
+ *
+ * <p>Like {@link java.util.Hashtable} but unlike {@link HashMap}, this
+ * class does <em>not</em> allow <tt>null</tt> to be used as a key or
+ * value: a <tt>null</tt> value is how a lock-free reader recognises
+ * an absent mapping.
+ * 与Hashtable一样、与HashMap不同，该类不允许null键或null值。
+ *
+ * <p>Iterators of the collection views are <i>weakly consistent</i>:
+ * they never throw {@link java.util.ConcurrentModificationException},
+ * they traverse elements as they existed upon construction of the
+ * iterator exactly once, and may (but are not guaranteed to) reflect
+ * any modifications subsequent to construction.
+ * 集合视图的迭代器是弱一致的：不会抛出ConcurrentModificationException。
+ *
+ * <p>Bins are kept as plain linked lists; a bin is only ever locked
+ * while it is updated, so long chains caused by poor hash codes cost
+ * lookup time but never block readers.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see HashMap
+ */
+public class ConcurrentHashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>, Serializable {
+
+	/**
+	 * serialVersionUID:
+	 */
+	private static final long serialVersionUID = 7249069246763182397L;
+
+    /*
+     * Implementation notes.
+     *
+     * The table and bin layout mirrors HashMap: table[(n - 1) & hash]
+     * heads a singly linked list of Nodes, n is always a power of two
+     * and the table doubles when the element count reaches
+     * 0.75 * n.  The differences are all about publication:
+     *
+     * Node.val and Node.next are volatile, and the table is an
+     * AtomicReferenceArray whose slots are read and written through
+     * volatile/CAS accessors (tabAt, casTabAt, setTabAt), so a reader
+     * that never locks still sees a fully constructed node.  sizeCtl
+     * and transferIndex are CASed through field updaters.
+     *
+     * While the table is being resized, each old bin that has been
+     * moved is replaced by a ForwardingNode (hash MOVED) that points
+     * to the next table.  Readers follow it; writers that hit it help
+     * with the transfer first.  The transfer splits a bin into the lo
+     * list (stays at index i) and the hi list (moves to i + n) with
+     * exactly the order-preserving logic of HashMap.resize(), except
+     * that nodes are copied instead of relinked, because concurrent
+     * readers may still be walking the old list.
+     *
+     * sizeCtl controls initialization and resizing:
+     *   -1                 table is being initialized
+     *   < -1 (negative)    a resize is running; the high RESIZE_STAMP_BITS
+     *                      identify the table length being resized and the
+     *                      low bits hold 1 + the number of active resizers
+     *   0                  use the default capacity on first insertion
+     *   > 0                initial capacity before the table exists, or the
+     *                      next resize threshold afterwards
+     *
+     * The element count is kept in a LongAdder so that concurrent
+     * inserts do not all CAS the same field.
+     */
+
+    /* ---------------- Constants -------------- */
+
+    /**
+     * The largest possible table capacity.  Must be a power of two
+     * no larger than 1<<30 because the top two bits of 32bit hash
+     * fields are used for control purposes.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The default initial table capacity.  Must be a power of 2.
+     * 默认的初始容量-必须是2的幂。
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Minimum number of rebinnings per transfer step.  Ranges are
+     * subdivided to allow multiple resizer threads.
+     * 每个迁移线程一次领取的最少桶数。
+     */
+    private static final int MIN_TRANSFER_STRIDE = 16;
+
+    /**
+     * The number of bits used for generation stamp in sizeCtl.
+     */
+    private static final int RESIZE_STAMP_BITS = 16;
+
+    /**
+     * The maximum number of threads that can help resize.
+     */
+    private static final int MAX_RESIZERS = (1 << (32 - RESIZE_STAMP_BITS)) - 1;
+
+    /**
+     * The bit shift for recording size stamp in sizeCtl.
+     */
+    private static final int RESIZE_STAMP_SHIFT = 32 - RESIZE_STAMP_BITS;
+
+    /**
+     * Hash field of forwarding nodes.
+     */
+    static final int MOVED = -1;
+
+    /**
+     * Usable bits of normal node hash.
+     */
+    static final int HASH_BITS = 0x7fffffff;
+
+    /** Number of CPUS, to place bounds on some sizings */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /* ---------------- Nodes -------------- */
+
+    /**
+     * Key-value entry.  Same shape as HashMap.Node, but with volatile
+     * value and next fields so that they can be read without locking.
+     */
+    static class Node<K,V> implements Map.Entry<K,V> {
+        final int hash;
+        final K key;
+        volatile V val;
+        volatile Node<K,V> next;
+
+        Node(int hash, K key, V val, Node<K,V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.val = val;
+            this.next = next;
+        }
+
+        public final K getKey()       { return key; }
+        public final V getValue()     { return val; }
+        public final int hashCode()   { return key.hashCode() ^ val.hashCode(); }
+        public final String toString(){ return key + "=" + val; }
+        public final V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        public final boolean equals(Object o) {
+            Object k, v, u; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    (k == key || k.equals(key)) &&
+                    (v == (u = val) || v.equals(u)));
+        }
+
+        /**
+         * Virtualized support for map.get(); overridden in subclasses.
+         */
+        Node<K,V> find(int h, Object k) {
+            Node<K,V> e = this;
+            if (k != null) {
+                do {
+                    K ek;
+                    if (e.hash == h &&
+                        ((ek = e.key) == k || (ek != null && k.equals(ek))))
+                        return e;
+                } while ((e = e.next) != null);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A node inserted at head of bins during transfer operations.
+     * 迁移过程中放在旧表桶头部的转发结点，指向新表。
+     */
+    static final class ForwardingNode<K,V> extends Node<K,V> {
+        final AtomicReferenceArray<Node<K,V>> nextTable;
+
+        ForwardingNode(AtomicReferenceArray<Node<K,V>> tab) {
+            super(MOVED, null, null, null);
+            this.nextTable = tab;
+        }
+
+        Node<K,V> find(int h, Object k) {
+            // loop to avoid arbitrarily deep recursion on forwarding nodes
+            outer: for (AtomicReferenceArray<Node<K,V>> tab = nextTable;;) {
+                Node<K,V> e; int n;
+                if (k == null || tab == null || (n = tab.length()) == 0 ||
+                    (e = tabAt(tab, (n - 1) & h)) == null)
+                    return null;
+                for (;;) {
+                    int eh; K ek;
+                    if ((eh = e.hash) == h &&
+                        ((ek = e.key) == k || (ek != null && k.equals(ek))))
+                        return e;
+                    if (eh < 0) {
+                        if (e instanceof ForwardingNode) {
+                            tab = ((ForwardingNode<K,V>)e).nextTable;
+                            continue outer;
+                        }
+                        else
+                            return e.find(h, k);
+                    }
+                    if ((e = e.next) == null)
+                        return null;
+                }
+            }
+        }
+    }
+
+    /* ---------------- Static utilities -------------- */
+
+    /**
+     * Same spreading as {@link HashMap#hash}, additionally forcing the
+     * top bit to zero so that normal nodes never collide with the
+     * negative control hash of forwarding nodes.
+     * 与HashMap.hash()相同的扰动，另外把最高位清零，以区分转发结点的负数hash。
+     */
+    static final int spread(int h) {
+        return (h ^ (h >>> 16)) & HASH_BITS;
+    }
+
+    /**
+     * Returns the stamp bits for resizing a table of size n.
+     * Must be negative when shifted left by RESIZE_STAMP_SHIFT.
+     */
+    static final int resizeStamp(int n) {
+        return Integer.numberOfLeadingZeros(n) | (1 << (RESIZE_STAMP_BITS - 1));
+    }
+
+    /*
+     * Volatile access methods are used for table elements as well as
+     * elements of in-progress next table while resizing.  All uses of
+     * the tab arguments must be null checked by callers.
+     */
+
+    static final <K,V> Node<K,V> tabAt(AtomicReferenceArray<Node<K,V>> tab, int i) {
+        return tab.get(i);
+    }
+
+    static final <K,V> boolean casTabAt(AtomicReferenceArray<Node<K,V>> tab, int i,
+                                        Node<K,V> c, Node<K,V> v) {
+        return tab.compareAndSet(i, c, v);
+    }
+
+    static final <K,V> void setTabAt(AtomicReferenceArray<Node<K,V>> tab, int i, Node<K,V> v) {
+        tab.set(i, v);
+    }
+
+    /* ---------------- Fields -------------- */
+
+    /**
+     * The array of bins. Lazily initialized upon first insertion.
+     * Size is always a power of two. Accessed directly by iterators.
+     * 桶数组，第一次插入时延迟初始化，长度总是2的幂。
+     */
+    transient volatile AtomicReferenceArray<Node<K,V>> table;
+
+    /**
+     * The next table to use; non-null only while resizing.
+     * 扩容时使用的新表，只有在扩容时才不为null。
+     */
+    private transient volatile AtomicReferenceArray<Node<K,V>> nextTable;
+
+    /**
+     * Table initialization and resizing control.  See the
+     * implementation notes above for the encoding.
+     */
+    private transient volatile int sizeCtl;
+
+    /**
+     * The next table index (plus one) to split while resizing.
+     * 扩容时下一个待领取的桶下标(加一)。
+     */
+    private transient volatile int transferIndex;
+
+    /**
+     * The number of key-value mappings, striped across cells.
+     */
+    private transient LongAdder counter = new LongAdder();
+
+    /**
+     * Holds cached entrySet().
+     */
+    private transient Set<Map.Entry<K,V>> entrySet;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates a new, empty map with the default initial table size (16).
+     * 构造一个默认初始容量(16)的空map。
+     */
+    public ConcurrentHashMap() {
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size
+     * accommodating the specified number of elements without the need
+     * to dynamically resize.
+     * 构造一个可以容纳指定数量元素而无需扩容的空map。
+     *
+     * @param initialCapacity The implementation performs internal
+     * sizing to accommodate this many elements.
+     * @throws IllegalArgumentException if the initial capacity of
+     * elements is negative
+     */
+    public ConcurrentHashMap(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        this.sizeCtl = ((initialCapacity >= (MAXIMUM_CAPACITY >>> 1)) ?
+                        MAXIMUM_CAPACITY :
+                        HashMap.tableSizeFor(initialCapacity + (initialCapacity >>> 1) + 1));
+    }
+
+    /**
+     * Creates a new map with the same mappings as the given map.
+     *
+     * @param m the map
+     * @throws NullPointerException if the specified map is null
+     */
+    public ConcurrentHashMap(Map<? extends K, ? extends V> m) {
+        this.sizeCtl = DEFAULT_CAPACITY;
+        putAll(m);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int size() {
+        long n = counter.sum();
+        return ((n < 0L) ? 0 :
+                (n > (long)Integer.MAX_VALUE) ? Integer.MAX_VALUE :
+                (int)n);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isEmpty() {
+        return counter.sum() <= 0L; // ignore transient negative values
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     * This method never blocks.
+     * 返回指定键映射的值，不存在则返回null。该方法从不阻塞。
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public V get(Object key) {
+        AtomicReferenceArray<Node<K,V>> tab; Node<K,V> e, p; int n, eh; K ek;
+        int h = spread(key.hashCode());
+        if ((tab = table) != null && (n = tab.length()) > 0 &&
+            (e = tabAt(tab, (n - 1) & h)) != null) {
+            if ((eh = e.hash) == h) {
+                if ((ek = e.key) == key || (ek != null && key.equals(ek)))
+                    return e.val;
+            }
+            else if (eh < 0)
+                // 桶正在迁移，到新表中查找
+                return (p = e.find(h, key)) != null ? p.val : null;
+            while ((e = e.next) != null) {
+                if (e.hash == h &&
+                    ((ek = e.key) == key || (ek != null && key.equals(ek))))
+                    return e.val;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tests if the specified object is a key in this table.
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this table.
+     * Neither the key nor the value can be null.
+     * 将指定的键映射到指定的值，键和值都不能为null。
+     *
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V put(K key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V putIfAbsent(K key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /** Implementation for put and putIfAbsent */
+    final V putVal(K key, V value, boolean onlyIfAbsent) {
+        if (key == null || value == null) throw new NullPointerException();
+        int hash = spread(key.hashCode());
+        int binCount = 0;
+        for (AtomicReferenceArray<Node<K,V>> tab = table;;) {
+            Node<K,V> f; int n, i;
+            if (tab == null || (n = tab.length()) == 0)
+                tab = initTable();
+            else if ((f = tabAt(tab, i = (n - 1) & hash)) == null) {
+                // 空桶：CAS放入新结点，无需加锁
+                if (casTabAt(tab, i, null, new Node<K,V>(hash, key, value, null)))
+                    break;
+            }
+            else if (f.hash == MOVED)
+                // 桶已迁移：先协助扩容，再到新表中重试
+                tab = helpTransfer(tab, f);
+            else {
+                V oldVal = null;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        binCount = 1;
+                        for (Node<K,V> e = f;; ++binCount) {
+                            K ek;
+                            if (e.hash == hash &&
+                                ((ek = e.key) == key ||
+                                 (ek != null && key.equals(ek)))) {
+                                oldVal = e.val;
+                                if (!onlyIfAbsent)
+                                    e.val = value;
+                                break;
+                            }
+                            Node<K,V> pred = e;
+                            if ((e = e.next) == null) {
+                                pred.next = new Node<K,V>(hash, key, value, null);
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) {
+                    if (oldVal != null)
+                        return oldVal;
+                    break;
+                }
+            }
+        }
+        addCount(1L, binCount);
+        return null;
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this one.
+     *
+     * @param m mappings to be stored in this map
+     */
+    public void putAll(Map<? extends K, ? extends V> m) {
+        tryPresize(m.size());
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+            putVal(e.getKey(), e.getValue(), false);
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     * This method does nothing if the key is not in the map.
+     *
+     * @param  key the key that needs to be removed
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key is null
+     */
+    public V remove(Object key) {
+        return replaceNode(key, null, null);
+    }
+
+    /**
+     * Removes the entry for a key only if currently mapped to a given value.
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean remove(Object key, Object value) {
+        if (key == null)
+            throw new NullPointerException();
+        return value != null && replaceNode(key, null, value) != null;
+    }
+
+    /**
+     * Implementation for the four public remove/replace methods:
+     * Replaces node value with v, conditional upon match of cv if
+     * non-null.  If resulting value is null, delete.
+     */
+    final V replaceNode(Object key, V value, Object cv) {
+        int hash = spread(key.hashCode());
+        for (AtomicReferenceArray<Node<K,V>> tab = table;;) {
+            Node<K,V> f; int n, i;
+            if (tab == null || (n = tab.length()) == 0 ||
+                (f = tabAt(tab, i = (n - 1) & hash)) == null)
+                break;
+            else if (f.hash == MOVED)
+                tab = helpTransfer(tab, f);
+            else {
+                V oldVal = null;
+                boolean validated = false;
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        validated = true;
+                        for (Node<K,V> e = f, pred = null;;) {
+                            K ek;
+                            if (e.hash == hash &&
+                                ((ek = e.key) == key ||
+                                 (ek != null && key.equals(ek)))) {
+                                V ev = e.val;
+                                if (cv == null || cv == ev ||
+                                    (ev != null && cv.equals(ev))) {
+                                    oldVal = ev;
+                                    if (value != null)
+                                        e.val = value;
+                                    else if (pred != null)
+                                        pred.next = e.next;
+                                    else
+                                        setTabAt(tab, i, e.next);
+                                }
+                                break;
+                            }
+                            pred = e;
+                            if ((e = e.next) == null)
+                                break;
+                        }
+                    }
+                }
+                if (validated) {
+                    if (oldVal != null) {
+                        if (value == null)
+                            addCount(-1L, -1);
+                        return oldVal;
+                    }
+                    break;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        long delta = 0L; // negative number of deletions
+        int i = 0;
+        AtomicReferenceArray<Node<K,V>> tab = table;
+        while (tab != null && i < tab.length()) {
+            Node<K,V> f = tabAt(tab, i);
+            if (f == null)
+                ++i;
+            else if (f.hash == MOVED) {
+                tab = helpTransfer(tab, f);
+                i = 0; // restart
+            }
+            else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        for (Node<K,V> p = f; p != null; p = p.next)
+                            --delta;
+                        setTabAt(tab, i++, null);
+                    }
+                }
+            }
+        }
+        if (delta != 0L)
+            addCount(delta, -1);
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  The view's iterators are
+     * weakly consistent.
+     *
+     * @return the set view
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) != null ? es : (entrySet = new EntrySet());
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the keys, for
+     * {@link ConcurrentHashSet}.
+     * 返回键的弱一致迭代器，供ConcurrentHashSet使用。
+     */
+    final Iterator<K> keyIterator() {
+        return new KeyIterator();
+    }
+
+    /* ---------------- Table Initialization and Resizing -------------- */
+
+    /**
+     * Initializes table, using the size recorded in sizeCtl.
+     */
+    private final AtomicReferenceArray<Node<K,V>> initTable() {
+        AtomicReferenceArray<Node<K,V>> tab; int sc;
+        while ((tab = table) == null || tab.length() == 0) {
+            if ((sc = sizeCtl) < 0)
+                Thread.yield(); // lost initialization race; just spin
+            else if (SIZECTL.compareAndSet(this, sc, -1)) {
+                try {
+                    if ((tab = table) == null || tab.length() == 0) {
+                        int n = (sc > 0) ? sc : DEFAULT_CAPACITY;
+                        table = tab = new AtomicReferenceArray<Node<K,V>>(n);
+                        sc = n - (n >>> 2);
+                    }
+                } finally {
+                    sizeCtl = sc;
+                }
+                break;
+            }
+        }
+        return tab;
+    }
+
+    /**
+     * Makes the table large enough for the given number of elements
+     * before a bulk insertion: an empty table is allocated at the final
+     * size, an existing one is doubled until it is, so the insertions
+     * that follow do not trigger (and wait for) a resize each time the
+     * count crosses a threshold.
+     * 在批量插入之前把表扩大到能容纳给定数量的元素：空表直接按最终大小分配，已有的表翻倍到足够大为止，
+     * 这样随后的插入就不会在元素数每次越过阈值时都触发(并等待)一次扩容。
+     *
+     * @param size number of elements (doesn't need to be perfectly accurate)
+     */
+    final void tryPresize(int size) {
+        int c = (size >= (MAXIMUM_CAPACITY >>> 1)) ? MAXIMUM_CAPACITY :
+            HashMap.tableSizeFor(size + (size >>> 1) + 1);
+        int sc;
+        while ((sc = sizeCtl) >= 0) {
+            AtomicReferenceArray<Node<K,V>> tab = table; int n;
+            if (tab == null || (n = tab.length()) == 0) {
+                n = (sc > c) ? sc : c;
+                if (SIZECTL.compareAndSet(this, sc, -1)) {
+                    try {
+                        if (table == tab) {
+                            table = new AtomicReferenceArray<Node<K,V>>(n);
+                            sc = n - (n >>> 2);
+                        }
+                    } finally {
+                        sizeCtl = sc;
+                    }
+                }
+            }
+            else if (c <= sc || n >= MAXIMUM_CAPACITY)
+                break;
+            else if (tab == table) {
+                int rs = resizeStamp(n) << RESIZE_STAMP_SHIFT;
+                if (SIZECTL.compareAndSet(this, sc, rs + 2))
+                    transfer(tab, null);
+            }
+        }
+    }
+
+    /**
+     * Adds to count, and if table is too small and not already
+     * resizing, initiates transfer. If already resizing, helps
+     * perform transfer if work is available.  Rechecks occupancy
+     * after a transfer to see if another resize is already needed
+     * because resizings are lagging additions.
+     *
+     * @param x the count to add
+     * @param check if <0, don't check resize
+     */
+    private final void addCount(long x, int check) {
+        counter.add(x);
+        if (check >= 0) {
+            AtomicReferenceArray<Node<K,V>> tab, nt; int n, sc;
+            long s = counter.sum();
+            while (s >= (long)(sc = sizeCtl) && (tab = table) != null &&
+                   (n = tab.length()) < MAXIMUM_CAPACITY) {
+                int rs = resizeStamp(n) << RESIZE_STAMP_SHIFT;
+                if (sc < 0) {
+                    if (sc == rs + MAX_RESIZERS || sc == rs + 1 ||
+                        (nt = nextTable) == null || transferIndex <= 0)
+                        break;
+                    if (SIZECTL.compareAndSet(this, sc, sc + 1))
+                        transfer(tab, nt);
+                }
+                else if (SIZECTL.compareAndSet(this, sc, rs + 2))
+                    transfer(tab, null);
+                s = counter.sum();
+            }
+        }
+    }
+
+    /**
+     * Helps transfer if a resize is in progress.
+     * 如果正在扩容，则协助迁移。
+     */
+    final AtomicReferenceArray<Node<K,V>> helpTransfer(AtomicReferenceArray<Node<K,V>> tab,
+                                                       Node<K,V> f) {
+        AtomicReferenceArray<Node<K,V>> nextTab; int sc;
+        if (tab != null && (f instanceof ForwardingNode) &&
+            (nextTab = ((ForwardingNode<K,V>)f).nextTable) != null) {
+            int rs = resizeStamp(tab.length()) << RESIZE_STAMP_SHIFT;
+            while (nextTab == nextTable && table == tab &&
+                   (sc = sizeCtl) < 0) {
+                if (sc == rs + MAX_RESIZERS || sc == rs + 1 ||
+                    transferIndex <= 0)
+                    break;
+                if (SIZECTL.compareAndSet(this, sc, sc + 1)) {
+                    transfer(tab, nextTab);
+                    break;
+                }
+            }
+            return nextTab;
+        }
+        return table;
+    }
+
+    /**
+     * Moves and/or copies the nodes in each bin to new table.  Threads
+     * claim strides of bins from transferIndex downwards; each claimed
+     * bin is locked, split into lo and hi lists exactly as
+     * HashMap.resize() does, and then replaced by a forwarding node.
+     * 把每个桶中的结点迁移到新表。线程从transferIndex向下领取一段桶区间；
+     * 每个桶加锁后，按照HashMap.resize()的方式拆分成lo和hi两条链，然后用转发结点替换旧桶。
+     */
+    private final void transfer(AtomicReferenceArray<Node<K,V>> tab,
+                                AtomicReferenceArray<Node<K,V>> nextTab) {
+        int n = tab.length(), stride;
+        if ((stride = (NCPU > 1) ? (n >>> 3) / NCPU : n) < MIN_TRANSFER_STRIDE)
+            stride = MIN_TRANSFER_STRIDE; // subdivide range
+        if (nextTab == null) {            // initiating
+            try {
+                nextTab = new AtomicReferenceArray<Node<K,V>>(n << 1);
+            } catch (Throwable ex) {      // try to cope with OOME
+                sizeCtl = Integer.MAX_VALUE;
+                return;
+            }
+            nextTable = nextTab;
+            transferIndex = n;
+        }
+        int nextn = nextTab.length();
+        ForwardingNode<K,V> fwd = new ForwardingNode<K,V>(nextTab);
+        boolean advance = true;
+        boolean finishing = false; // to ensure sweep before committing nextTab
+        for (int i = 0, bound = 0;;) {
+            Node<K,V> f;
+            while (advance) {
+                int nextIndex, nextBound;
+                if (--i >= bound || finishing)
+                    advance = false;
+                else if ((nextIndex = transferIndex) <= 0) {
+                    i = -1;
+                    advance = false;
+                }
+                else if (TRANSFERINDEX.compareAndSet
+                         (this, nextIndex,
+                          nextBound = (nextIndex > stride ?
+                                       nextIndex - stride : 0))) {
+                    bound = nextBound;
+                    i = nextIndex - 1;
+                    advance = false;
+                }
+            }
+            if (i < 0 || i >= n || i + n >= nextn) {
+                int sc;
+                if (finishing) {
+                    nextTable = null;
+                    table = nextTab;
+                    sizeCtl = (n << 1) - (n >>> 1);
+                    return;
+                }
+                if (SIZECTL.compareAndSet(this, sc = sizeCtl, sc - 1)) {
+                    if ((sc - 2) != resizeStamp(n) << RESIZE_STAMP_SHIFT)
+                        return;
+                    finishing = advance = true;
+                    i = n; // recheck before commit
+                }
+            }
+            else if ((f = tabAt(tab, i)) == null)
+                advance = casTabAt(tab, i, null, fwd);
+            else if (f.hash == MOVED)
+                advance = true; // already processed
+            else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        // preserve order, same lo/hi split as HashMap.resize()
+                        Node<K,V> loHead = null, loTail = null;
+                        Node<K,V> hiHead = null, hiTail = null;
+                        for (Node<K,V> e = f; e != null; e = e.next) {
+                            Node<K,V> p = new Node<K,V>(e.hash, e.key, e.val, null);
+                            if ((e.hash & n) == 0) {
+                                if (loTail == null)
+                                    loHead = p;
+                                else
+                                    loTail.next = p;
+                                loTail = p;
+                            }
+                            else {
+                                if (hiTail == null)
+                                    hiHead = p;
+                                else
+                                    hiTail.next = p;
+                                hiTail = p;
+                            }
+                        }
+                        setTabAt(nextTab, i, loHead);
+                        setTabAt(nextTab, i + n, hiHead);
+                        setTabAt(tab, i, fwd);
+                        advance = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /* ---------------- Views and iterators -------------- */
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public final int size()                 { return ConcurrentHashMap.this.size(); }
+        public final void clear()               { ConcurrentHashMap.this.clear(); }
+        public final Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            Object k, v, r; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (r = get(k)) != null &&
+                    (v = e.getValue()) != null &&
+                    (v == r || v.equals(r)));
+        }
+        public final boolean remove(Object o) {
+            Object k, v; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    ConcurrentHashMap.this.remove(k, v));
+        }
+    }
+
+    /**
+     * Weakly consistent iterator.  Snapshots one bin at a time; a bin
+     * that has already been forwarded is read from the next table at
+     * both of the indices (i and i + n) it was split into.
+     * 弱一致迭代器。每次快照一个桶；已迁移的桶到新表的i和i+n两个位置读取。
+     */
+    abstract class BaseIterator {
+        final AtomicReferenceArray<Node<K,V>> tab = table;
+        final ArrayList<Node<K,V>> bin = new ArrayList<Node<K,V>>();
+        int index;             // next bin of tab to snapshot
+        int binPos;            // next position in bin
+        Node<K,V> lastReturned;
+
+        public final boolean hasNext() {
+            while (binPos >= bin.size()) {
+                bin.clear();
+                binPos = 0;
+                if (tab == null || index >= tab.length())
+                    return false;
+                collect(tab, index++, bin);
+            }
+            return true;
+        }
+
+        final Node<K,V> nextNode() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return lastReturned = bin.get(binPos++);
+        }
+
+        public final void remove() {
+            Node<K,V> p;
+            if ((p = lastReturned) == null)
+                throw new IllegalStateException();
+            lastReturned = null;
+            replaceNode(p.key, null, null);
+        }
+    }
+
+    final class EntryIterator extends BaseIterator
+        implements Iterator<Map.Entry<K,V>> {
+        public final Map.Entry<K,V> next() {
+            Node<K,V> e = nextNode();
+            return new MapEntry<K,V>(e.key, e.val, ConcurrentHashMap.this);
+        }
+    }
+
+    final class KeyIterator extends BaseIterator implements Iterator<K> {
+        public final K next() { return nextNode().key; }
+    }
+
+    static <K,V> void collect(AtomicReferenceArray<Node<K,V>> tab, int i,
+                              ArrayList<Node<K,V>> bin) {
+        Node<K,V> f = tabAt(tab, i);
+        if (f instanceof ForwardingNode) {
+            AtomicReferenceArray<Node<K,V>> nt = ((ForwardingNode<K,V>)f).nextTable;
+            collect(nt, i, bin);
+            collect(nt, i + tab.length(), bin);
+        }
+        else {
+            for (Node<K,V> e = f; e != null; e = e.next)
+                bin.add(e);
+        }
+    }
+
+    /**
+     * Exported Entry for iterators; setValue writes through to the map.
+     */
+    static final class MapEntry<K,V> implements Map.Entry<K,V> {
+        final K key; // non-null
+        V val;       // non-null
+        final ConcurrentHashMap<K,V> map;
+
+        MapEntry(K key, V val, ConcurrentHashMap<K,V> map) {
+            this.key = key;
+            this.val = val;
+            this.map = map;
+        }
+        public K getKey()        { return key; }
+        public V getValue()      { return val; }
+        public int hashCode()    { return key.hashCode() ^ val.hashCode(); }
+        public String toString() { return key + "=" + val; }
+
+        public boolean equals(Object o) {
+            Object k, v; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    (k == key || k.equals(key)) &&
+                    (v == val || v.equals(val)));
+        }
+
+        public V setValue(V value) {
+            if (value == null) throw new NullPointerException();
+            V v = val;
+            val = value;
+            map.put(key, value);
+            return v;
+        }
+    }
+
+    /* ---------------- Serialization Support -------------- */
+
+    /**
+     * Saves the state of the {@code ConcurrentHashMap} instance to a
+     * stream (i.e., serializes it).
+     * @serialData
+     * the key (Object) and value (Object)
+     * for each key-value mapping, followed by a null pair.
+     * The key-value mappings are emitted in no particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        for (Map.Entry<K,V> e : entrySet()) {
+            s.writeObject(e.getKey());
+            s.writeObject(e.getValue());
+        }
+        s.writeObject(null);
+        s.writeObject(null);
+    }
+
+    /**
+     * Reconstitutes the instance from a stream (that is, deserializes it).
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        counter = new LongAdder();
+        for (;;) {
+            K k = (K) s.readObject();
+            V v = (V) s.readObject();
+            if (k != null && v != null)
+                putVal(k, v, false);
+            else
+                break;
+        }
+    }
+
+    // Field updaters for the CASed control fields
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ConcurrentHashMap> SIZECTL =
+        AtomicIntegerFieldUpdater.newUpdater(ConcurrentHashMap.class, "sizeCtl");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ConcurrentHashMap> TRANSFERINDEX =
+        AtomicIntegerFieldUpdater.newUpdater(ConcurrentHashMap.class, "transferIndex");
+}
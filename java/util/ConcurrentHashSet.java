@@ -0,0 +1,225 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:ConcurrentHashSet.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午11:58:12  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * A thread-safe <tt>Set</tt> backed by a {@link ConcurrentHashMap}, the
+ * concurrent counterpart of {@link HashSet}.  It replaces
+ * <tt>Collections.synchronizedSet(new HashSet())</tt>, where every
+ * operation of every thread takes the same lock:
+ * <ul>
+ * <li><tt>contains</tt> takes no lock at all;</li>
+ * <li><tt>add</tt> of an element already present is a lock-free lookup,
+ * so deduplicating a stream that mostly repeats itself never blocks;
+ * adding a new element into an empty bin is a single CAS, and into a
+ * non-empty bin locks only that bin;</li>
+ * <li><tt>remove</tt> locks only the bin of the element;</li>
+ * <li>{@link #addAll} reserves capacity for the whole collection once,
+ * instead of resizing each time the count crosses a threshold.</li>
+ * </ul>
+ * 由ConcurrentHashMap支持的线程安全的Set，是HashSet的并发版本。它用来替代
+ * Collections.synchronizedSet(new HashSet())，后者所有线程的所有操作都争用同一把锁：
+ * contains完全不加锁；add已存在的元素只是一次无锁查找，所以对大部分重复的数据流去重时从不阻塞；
+ * 向空桶add新元素只需一次CAS，向非空桶只锁住该桶；remove只锁住元素所在的桶；
+ * addAll为整个集合一次性预留容量，而不是在元素数每次越过阈值时扩容。
+ *
+ * <p>Like <tt>ConcurrentHashMap</tt>, this class does <em>not</em>
+ * permit the <tt>null</tt> element.  <tt>size</tt> is a sum of striped
+ * counters and is only a snapshot while other threads update the set.
+ * 与ConcurrentHashMap一样，此类不允许null元素。size是分段计数器的和，在其他线程更新集合时只是一个快照。
+ *
+ * <p>Iterators are <i>weakly consistent</i>: they never throw
+ * {@link java.util.ConcurrentModificationException}, return each
+ * element present when the iterator was created at most once, and may
+ * or may not reflect later changes.
+ * 迭代器是弱一致的：不会抛出ConcurrentModificationException，迭代器创建时存在的元素最多返回一次，
+ * 之后的修改可能反映也可能不反映出来。
+ *
+ * @param <E> the type of elements maintained by this set
+ *
+ * @see HashSet
+ * @see ConcurrentHashMap
+ */
+public class ConcurrentHashSet<E> extends AbstractSet<E>
+    implements Set<E>, java.io.Serializable {
+
+	/**
+	 * serialVersionUID:
+	 */
+	private static final long serialVersionUID = -3592413860715364198L;
+
+    private transient ConcurrentHashMap<E,Object> map;
+
+    // Dummy value to associate with an Object in the backing Map
+    // 在备份映射中与对象关联的虚拟值。
+    private static final Object PRESENT = new Object();
+
+    /**
+     * Constructs a new, empty set with the default initial table size
+     * (16).
+     * 构造一个默认初始容量(16)的空集合。
+     */
+    public ConcurrentHashSet() {
+        map = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Constructs a new, empty set that can hold the given number of
+     * elements without resizing.
+     * 构造一个可以容纳指定数量元素而无需扩容的空集合。
+     *
+     * @param initialCapacity the number of elements to size for
+     * @throws IllegalArgumentException if the initial capacity is
+     *         negative
+     */
+    public ConcurrentHashSet(int initialCapacity) {
+        map = new ConcurrentHashMap<>(initialCapacity);
+    }
+
+    /**
+     * Constructs a new set containing the elements in the specified
+     * collection.
+     * 构造包含指定集合中元素的新集合。
+     *
+     * @param c the collection whose elements are to be placed into this set
+     * @throws NullPointerException if the specified collection or any of
+     *         its elements is null
+     */
+    public ConcurrentHashSet(Collection<? extends E> c) {
+        map = new ConcurrentHashMap<>(c.size());
+        addAll(c);
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the elements in this
+     * set, in no particular order.
+     * 返回此集合中元素的弱一致迭代器，顺序不确定。
+     *
+     * @return an Iterator over the elements in this set
+     */
+    public Iterator<E> iterator() {
+        return map.keyIterator();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * Returns <tt>true</tt> if this set contains the specified element.
+     * This method never blocks.
+     * 如果此集合包含指定元素，则返回true。该方法从不阻塞。
+     *
+     * @param o element whose presence in this set is to be tested
+     * @return <tt>true</tt> if this set contains the specified element
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean contains(Object o) {
+        return map.containsKey(o);
+    }
+
+    /**
+     * Adds the specified element to this set if it is not already
+     * present.  An element that is already present is found by a
+     * lock-free lookup, without touching the bin lock.
+     * 如果指定元素不存在，则把它加入此集合。已存在的元素通过无锁查找发现，不会去争用桶的锁。
+     *
+     * @param e element to be added to this set
+     * @return <tt>true</tt> if this set did not already contain the
+     *         specified element
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean add(E e) {
+        return map.get(e) == null && map.putIfAbsent(e, PRESENT) == null;
+    }
+
+    /**
+     * Adds all of the elements in the specified collection to this set.
+     * The table is first grown, once, to hold the current elements plus
+     * all of the collection's; then each element is added as by
+     * {@link #add}.  Other threads may add and remove concurrently; the
+     * call is not atomic.
+     * 把指定集合中的所有元素加入此集合。先一次性把表扩大到能容纳当前元素加上该集合的全部元素，
+     * 然后像add那样逐个加入。其他线程可以同时增删元素；此调用不是原子的。
+     *
+     * @param c collection containing elements to be added to this set
+     * @return <tt>true</tt> if this set changed as a result of the call
+     * @throws NullPointerException if the specified collection or any of
+     *         its elements is null
+     */
+    public boolean addAll(Collection<? extends E> c) {
+        long n = (long)map.size() + c.size();
+        map.tryPresize((int)Math.min(n, Integer.MAX_VALUE));
+        boolean modified = false;
+        for (E e : c) {
+            if (add(e))
+                modified = true;
+        }
+        return modified;
+    }
+
+    /**
+     * Removes the specified element from this set if it is present.
+     * 如果指定元素存在，则将其从此集合中删除。
+     *
+     * @param o object to be removed from this set, if present
+     * @return <tt>true</tt> if the set contained the specified element
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean remove(Object o) {
+        return map.remove(o) != null;
+    }
+
+    /**
+     * Removes all of the elements from this set.  Elements added by
+     * other threads during the call may remain.
+     * 删除此集合中的所有元素。调用期间其他线程加入的元素可能会保留。
+     */
+    public void clear() {
+        map.clear();
+    }
+
+    /**
+     * Save the state of this <tt>ConcurrentHashSet</tt> instance to a
+     * stream (that is, serialize it).
+     *
+     * @serialData each element of the set (Object), in no particular
+     *             order, followed by <tt>null</tt>
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        for (E e : this)
+            s.writeObject(e);
+        s.writeObject(null);
+    }
+
+    /**
+     * Reconstitute the <tt>ConcurrentHashSet</tt> instance from a stream
+     * (that is, deserialize it).
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        map = new ConcurrentHashMap<>();
+        for (E e; (e = (E) s.readObject()) != null; )
+            map.putIfAbsent(e, PRESENT);
+    }
+}
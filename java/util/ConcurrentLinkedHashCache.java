@@ -0,0 +1,533 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:ConcurrentLinkedHashCache.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午7:05:48  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A concurrent bounded LRU cache.  Values live in a
+ * {@link ConcurrentHashMap}, so reads never lock; the LRU order and the
+ * bounds are kept by N segments, each an access-ordered
+ * {@link LinkedHashCache} guarded by its own lock and responsible for
+ * the keys whose hash selects it.  Each segment holds at most 1/N of
+ * the maximum size and weight, so eviction is LRU per segment, which
+ * approximates global LRU when keys spread evenly.
+ * 并发的有界LRU缓存。值保存在ConcurrentHashMap中，所以读从不加锁；LRU顺序和限制由N个段维护，
+ * 每个段是一个由自己的锁保护的访问顺序LinkedHashCache，负责hash选中它的那些键。
+ * 每个段最多容纳最大条目数和最大权重的1/N，所以淘汰是按段的LRU，键分布均匀时近似于全局LRU。
+ *
+ * <p>A read cannot relink its entry without the segment lock, so reads
+ * are recorded instead in a small buffer owned by the reading thread.
+ * When the buffer fills up, the thread replays it, one segment at a
+ * time, under the segment lock, moving each entry to the most recently
+ * used end.  Threads therefore do not contend on reads at all, and take
+ * a lock once per {@value #READ_BUFFER_SIZE} reads at most.  If a
+ * segment lock is busy, the reads recorded for it are dropped rather
+ * than waited for: the order is a hint, and losing a few accesses of a
+ * hot entry only slightly affects which entry is evicted.  Reads still
+ * in a buffer have not been applied yet either.
+ * 读操作不持有段锁就无法调整其条目在链表中的位置，所以读被记录在读线程自己的一个小缓冲区中。
+ * 缓冲区满时，线程按段逐个在段锁下重放，把每个条目移到最近使用的一端。因此读之间完全没有竞争，
+ * 每READ_BUFFER_SIZE次读最多加一次锁。如果段锁正忙，为它记录的读会被丢弃而不是等待：
+ * 顺序只是一个提示，丢失热点条目的几次访问对淘汰哪个条目影响很小。仍在缓冲区中的读也尚未生效。
+ *
+ * <p>Writes lock their segment.  Evictions are counted and reported to
+ * the {@link EvictionListener}, which runs under the segment lock and
+ * must not modify the cache.  Like {@link ConcurrentHashMap}, this
+ * cache does not allow <tt>null</tt> keys or values.
+ * 写操作锁住自己的段。淘汰会被计数并通知EvictionListener，监听器在段锁下执行，不能修改缓存。
+ * 与ConcurrentHashMap一样，此缓存不允许null键和null值。
+ *
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ *
+ * @see LinkedHashCache
+ */
+public class ConcurrentLinkedHashCache<K,V> {
+
+    /** Reads buffered per thread before they are replayed. 每个线程在重放之前缓冲的读的次数。 */
+    static final int READ_BUFFER_SIZE = 64;
+
+    /** Segments are not made smaller than this many entries. 每个段的条目数不少于此值。 */
+    static final int MIN_SEGMENT_SIZE = 16;
+
+    /** The maximum number of segments. 最大段数。 */
+    static final int MAX_SEGMENTS = 1 << 16;
+
+    /* ---------------- Fields -------------- */
+
+    /** The values, read without locking. 值，无锁读取。 */
+    final ConcurrentHashMap<K,V> map;
+
+    final Segment<K,V>[] segments;
+
+    /** Shift for selecting a segment from the top bits of a hash. 从hash的高位选择段所用的移位数。 */
+    final int segmentShift;
+
+    final int maximumSize;
+    final long maximumWeight;
+
+    volatile EvictionListener<? super K,? super V> listener;
+
+    final LongAdder hitCount = new LongAdder();
+    final LongAdder missCount = new LongAdder();
+
+    /** Each thread's unreplayed reads. 每个线程尚未重放的读。 */
+    final ThreadLocal<ReadBuffer> readBuffers = ThreadLocal.withInitial(ReadBuffer::new);
+
+    /**
+     * One shard of the LRU order: the access-ordered LinkedHashCache of
+     * the keys mapped to it, and the lock guarding it.
+     * LRU顺序的一个分片：映射到该段的键组成的访问顺序LinkedHashCache，以及保护它的锁。
+     */
+    static final class Segment<K,V> extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        final LinkedHashCache<K,V> order;
+
+        Segment(int maximumSize, long maximumWeight, Weigher<? super K,? super V> weigher) {
+            order = new LinkedHashCache<K,V>(maximumSize, maximumWeight, weigher);
+        }
+    }
+
+    /**
+     * A thread's buffered reads: the key and its HashMap hash.
+     * 一个线程缓冲的读：键及其HashMap hash。
+     */
+    static final class ReadBuffer {
+        final Object[] keys = new Object[READ_BUFFER_SIZE];
+        final int[] hashes = new int[READ_BUFFER_SIZE];
+        int count;
+    }
+
+    /**
+     * Constructs an empty cache holding at most the given number of
+     * entries, with one segment per available processor.
+     * 构造一个最多保存给定数量条目的空缓存，每个可用处理器一个段。
+     *
+     * @param  maximumSize the maximum number of entries
+     * @throws IllegalArgumentException if maximumSize is negative
+     */
+    public ConcurrentLinkedHashCache(int maximumSize) {
+        this(maximumSize, Long.MAX_VALUE, null,
+             Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs an empty cache whose entries weigh at most the given
+     * total, with one segment per available processor.
+     * 构造一个条目总权重不超过给定值的空缓存，每个可用处理器一个段。
+     *
+     * @param  maximumWeight the maximum total weight
+     * @param  weigher the weigher
+     * @throws IllegalArgumentException if maximumWeight is negative
+     * @throws NullPointerException if weigher is null
+     */
+    public ConcurrentLinkedHashCache(long maximumWeight, Weigher<? super K,? super V> weigher) {
+        this(Integer.MAX_VALUE, maximumWeight, weigher,
+             Runtime.getRuntime().availableProcessors());
+        if (weigher == null)
+            throw new NullPointerException();
+    }
+
+    /**
+     * Constructs an empty cache bounded both by entry count and by
+     * total weight.  The number of segments is the smallest power of
+     * two not less than <tt>concurrencyLevel</tt>, reduced if needed so
+     * that a segment holds at least {@value #MIN_SEGMENT_SIZE} entries.
+     * 构造一个同时按条目数和总权重限制的空缓存。段数是不小于concurrencyLevel的最小的2的幂，
+     * 必要时会减少，使每个段至少容纳MIN_SEGMENT_SIZE个条目。
+     *
+     * @param  maximumSize the maximum number of entries
+     * @param  maximumWeight the maximum total weight
+     * @param  weigher the weigher, or null to weigh every entry as 1
+     * @param  concurrencyLevel the estimated number of concurrently
+     *         updating threads
+     * @throws IllegalArgumentException if maximumSize or maximumWeight
+     *         is negative, or concurrencyLevel is not positive
+     */
+    @SuppressWarnings({"rawtypes","unchecked"})
+    public ConcurrentLinkedHashCache(int maximumSize, long maximumWeight,
+                                     Weigher<? super K,? super V> weigher,
+                                     int concurrencyLevel) {
+        if (maximumSize < 0)
+            throw new IllegalArgumentException("Illegal maximum size: " +
+                                               maximumSize);
+        if (maximumWeight < 0)
+            throw new IllegalArgumentException("Illegal maximum weight: " +
+                                               maximumWeight);
+        if (concurrencyLevel <= 0)
+            throw new IllegalArgumentException("Illegal concurrency level: " +
+                                               concurrencyLevel);
+        int n = HashMap.tableSizeFor(Math.min(concurrencyLevel, MAX_SEGMENTS));
+        while (n > 1 && maximumSize / n < MIN_SEGMENT_SIZE)
+            n >>>= 1;
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(n);
+        this.map = new ConcurrentHashMap<K,V>();
+        Segment<K,V>[] segs = (Segment<K,V>[])new Segment[n];
+        // 向上取整，保证各段的限制之和不小于总限制
+        int segmentSize = (maximumSize == Integer.MAX_VALUE) ? Integer.MAX_VALUE :
+            (int)(((long)maximumSize + n - 1) / n);
+        long segmentWeight = (maximumWeight == Long.MAX_VALUE) ? Long.MAX_VALUE :
+            maximumWeight / n + ((maximumWeight % n == 0) ? 0 : 1);
+        for (int i = 0; i < n; ++i) {
+            Segment<K,V> s = new Segment<K,V>(segmentSize, segmentWeight, weigher);
+            s.order.setEvictionListener(this::onEviction);
+            segs[i] = s;
+        }
+        this.segments = segs;
+    }
+
+    /**
+     * Sets the listener notified of evictions, or null for none.
+     * 设置淘汰时通知的监听器，为null时不通知。
+     *
+     * @param listener the listener
+     */
+    public void setEvictionListener(EvictionListener<? super K,? super V> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Called under the segment lock when a segment evicts an entry.
+     * 段淘汰条目时在段锁下调用。
+     */
+    final void onEviction(K key, V value) {
+        map.remove(key);
+        EvictionListener<? super K,? super V> l;
+        if ((l = listener) != null)
+            l.onEviction(key, value);
+    }
+
+    /**
+     * Returns the segment for a HashMap hash.  The top bits are used,
+     * since the low bits select the bin inside the segment's table.
+     * 返回HashMap hash对应的段。使用高位，因为低位用于在段的表中选择桶。
+     */
+    final Segment<K,V> segmentFor(int h) {
+        // 乘以黄金分割常数使高位也受低位影响
+        return segments[(int)(((h * 0x9E3779B9L) & 0xFFFFFFFFL) >>> segmentShift)];
+    }
+
+    /* ---------------- Reads -------------- */
+
+    /**
+     * Returns the value to which the key is mapped, or null, counting
+     * a hit or a miss.  Does not lock; a hit is recorded in the calling
+     * thread's read buffer.
+     * 返回键映射的值，不存在时返回null，并统计一次命中或未命中。不加锁；命中记录在调用线程的读缓冲区中。
+     *
+     * @throws NullPointerException if the key is null
+     */
+    public V get(Object key) {
+        V v = map.get(key);
+        if (v == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        recordRead(key);
+        return v;
+    }
+
+    /**
+     * Returns the value to which the key is mapped, or the default
+     * value, counting a hit or a miss.
+     * 返回键映射的值，不存在时返回默认值，并统计一次命中或未命中。
+     *
+     * @throws NullPointerException if the key is null
+     */
+    public V getOrDefault(Object key, V defaultValue) {
+        V v;
+        return ((v = get(key)) == null) ? defaultValue : v;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the cache holds the key, without
+     * counting or recording an access.
+     * 如果缓存中有该键则返回true，不统计也不记录访问。
+     */
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    final void recordRead(Object key) {
+        ReadBuffer b = readBuffers.get();
+        int c = b.count;
+        b.keys[c] = key;
+        b.hashes[c] = HashMap.hash(key);
+        if ((b.count = c + 1) == READ_BUFFER_SIZE)
+            drain(b);
+    }
+
+    /**
+     * Replays a full read buffer, taking each segment lock once.  Reads
+     * for a segment whose lock is busy are dropped.
+     * 重放满的读缓冲区，每个段锁只获取一次。段锁正忙时，属于该段的读被丢弃。
+     */
+    final void drain(ReadBuffer b) {
+        Object[] keys = b.keys;
+        int[] hashes = b.hashes;
+        int n = b.count;
+        for (int i = 0; i < n; ++i) {
+            Object key = keys[i];
+            if (key == null)
+                continue;
+            Segment<K,V> s = segmentFor(hashes[i]);
+            boolean locked = s.tryLock();
+            try {
+                // 一次处理缓冲区中属于同一个段的所有读
+                for (int j = i; j < n; ++j) {
+                    Object k = keys[j];
+                    if (k != null && segmentFor(hashes[j]) == s) {
+                        if (locked)
+                            s.order.touch(hashes[j], k);
+                        keys[j] = null;
+                    }
+                }
+            } finally {
+                if (locked)
+                    s.unlock();
+            }
+        }
+        b.count = 0;
+    }
+
+    /* ---------------- Writes -------------- */
+
+    /**
+     * Associates the value with the key, making it the most recently
+     * used entry of its segment, and evicts if the segment is over its
+     * bounds.
+     * 把值与键关联，使其成为所在段中最近使用的条目，如果段超出限制则淘汰。
+     *
+     * @return the previous value, or null
+     * @throws NullPointerException if the key or value is null
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        Segment<K,V> s = segmentFor(HashMap.hash(key));
+        s.lock();
+        try {
+            V old = map.put(key, value);
+            s.order.put(key, value);
+            return old;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * Associates the value with the key unless the key is already
+     * present.
+     * 如果键不存在，则把值与键关联。
+     *
+     * @return the present value, or null if the value was put
+     * @throws NullPointerException if the key or value is null
+     */
+    public V putIfAbsent(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        Segment<K,V> s = segmentFor(HashMap.hash(key));
+        s.lock();
+        try {
+            V old = map.get(key);
+            if (old == null) {
+                map.put(key, value);
+                s.order.put(key, value);
+            }
+            return old;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * Returns the value for the key, computing and caching it under
+     * the segment lock if absent, so that it is computed at most once
+     * at a time per key.  A present value counts as a hit, a computed
+     * one as a miss.  If the function returns null nothing is cached.
+     * 返回键对应的值，不存在时在段锁下计算并缓存，所以同一个键同时最多只计算一次。
+     * 已存在的值计为命中，计算出的值计为未命中。函数返回null时不缓存任何东西。
+     *
+     * @throws NullPointerException if the key or function is null
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (key == null || mappingFunction == null)
+            throw new NullPointerException();
+        V v;
+        if ((v = map.get(key)) != null) {
+            hitCount.increment();
+            recordRead(key);
+            return v;
+        }
+        int h = HashMap.hash(key);
+        Segment<K,V> s = segmentFor(h);
+        s.lock();
+        try {
+            if ((v = map.get(key)) != null) {
+                hitCount.increment();
+                s.order.touch(h, key);
+                return v;
+            }
+            missCount.increment();
+            if ((v = mappingFunction.apply(key)) != null) {
+                map.put(key, v);
+                s.order.put(key, v);
+            }
+            return v;
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * Removes the mapping for the key, if present.  Explicit removals
+     * are not reported to the eviction listener.
+     * 删除键的映射(如果存在)。显式删除不会通知淘汰监听器。
+     *
+     * @return the removed value, or null
+     * @throws NullPointerException if the key is null
+     */
+    public V remove(Object key) {
+        Segment<K,V> s = segmentFor(HashMap.hash(key));
+        s.lock();
+        try {
+            s.order.remove(key);
+            return map.remove(key);
+        } finally {
+            s.unlock();
+        }
+    }
+
+    /**
+     * Removes all of the mappings, one segment at a time.
+     * 逐段删除所有映射。
+     */
+    public void clear() {
+        for (Segment<K,V> s : segments) {
+            s.lock();
+            try {
+                for (LinkedHashMap.Entry<K,V> e = s.order.head; e != null; e = e.after)
+                    map.remove(e.key);
+                s.order.clear();
+            } finally {
+                s.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries.
+     * 返回条目数。
+     */
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /* ---------------- Statistics -------------- */
+
+    /** Returns the maximum number of entries. 返回最大条目数。 */
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /** Returns the maximum total weight. 返回最大总权重。 */
+    public long maximumWeight() {
+        return maximumWeight;
+    }
+
+    /** Returns the number of segments. 返回段数。 */
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Returns the total weight of the entries, locking each segment
+     * in turn.
+     * 返回所有条目的总权重，依次锁住每个段。
+     */
+    public long weight() {
+        long w = 0L;
+        for (Segment<K,V> s : segments) {
+            s.lock();
+            try {
+                w += s.order.weight();
+            } finally {
+                s.unlock();
+            }
+        }
+        return w;
+    }
+
+    /** Returns the number of lookups that found an entry. 返回命中的查找次数。 */
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    /** Returns the number of lookups that found no entry. 返回未命中的查找次数。 */
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the ratio of hits to lookups, or 1.0 if there have been
+     * no lookups.
+     * 返回命中次数与查找次数之比，没有查找时返回1.0。
+     */
+    public double hitRate() {
+        long hits = hitCount.sum(), lookups = hits + missCount.sum();
+        return (lookups == 0L) ? 1.0 : (double)hits / lookups;
+    }
+
+    /**
+     * Returns the number of entries evicted, locking each segment in
+     * turn.
+     * 返回被淘汰的条目数，依次锁住每个段。
+     */
+    public long evictionCount() {
+        long n = 0L;
+        for (Segment<K,V> s : segments) {
+            s.lock();
+            try {
+                n += s.order.evictionCount();
+            } finally {
+                s.unlock();
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Resets the hit, miss and eviction counters to zero.
+     * 把命中、未命中和淘汰计数器清零。
+     */
+    public void resetStatistics() {
+        hitCount.reset();
+        missCount.reset();
+        for (Segment<K,V> s : segments) {
+            s.lock();
+            try {
+                s.order.resetStatistics();
+            } finally {
+                s.unlock();
+            }
+        }
+    }
+}
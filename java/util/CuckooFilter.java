@@ -0,0 +1,358 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:CuckooFilter.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午11:41:52  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.io.InvalidObjectException;
+
+/**
+ * A cuckoo filter: a cuckoo hash table of short fingerprints, four per
+ * bucket, with partial-key cuckoo hashing.  A hash may live in bucket
+ * <tt>i1</tt> or in <tt>i2 = (g(fingerprint) - i1) mod n</tt>, so the
+ * other bucket of a fingerprint being evicted can be computed from the
+ * fingerprint alone, and <tt>n</tt> need not be a power of two.  A
+ * lookup reads two buckets.  Unlike a Bloom filter it supports
+ * {@link #remove}, but one bucket pair holds at most eight copies of a
+ * fingerprint, so at most eight equal hashes fit.
+ * 布谷鸟过滤器：存放短指纹的布谷鸟哈希表，每个桶4个指纹，使用部分键布谷鸟哈希。
+ * 一个hash可以放在桶i1或桶i2 = (g(指纹) - i1) mod n中，所以被踢出的指纹的另一个桶只凭指纹就能算出，n也不必是2的幂。
+ * 查找读取两个桶。与Bloom过滤器不同，它支持remove，但一对桶最多保存同一指纹的8个副本，所以最多容纳8个相同的hash。
+ *
+ * <p>With <tt>f</tt>-bit fingerprints the false positive rate is at
+ * most <tt>8 / 2<sup>f</sup></tt>, so the constructor picks the
+ * smallest <tt>f</tt> meeting the requested rate.  Fingerprints are
+ * packed back to back into a <tt>long[]</tt>, which is also the
+ * serialized form.  The table is sized for a load of 95%.  When an
+ * insertion still fails after {@value #MAX_KICKS} evictions the last
+ * evicted fingerprint is kept aside, so nothing is lost, and every
+ * later <tt>add</tt> fails until a removal makes room.
+ * 使用f位指纹时误判率最多为8 / 2^f，所以构造器选择满足所需误判率的最小f。
+ * 指纹首尾相接地打包在long[]中，这也是序列化形式。表按95%的负载确定大小。
+ * 当一次插入在MAX_KICKS次踢出后仍然失败时，把最后被踢出的指纹放在一边，所以不会丢失任何记录，
+ * 之后所有的add都会失败，直到删除腾出空间。
+ *
+ * <p>This class is not synchronized.
+ * 此类不是同步的。
+ *
+ * @see MembershipFilter
+ * @see BloomFilter
+ */
+public class CuckooFilter implements MembershipFilter, java.io.Serializable {
+
+	/**
+	 * serialVersionUID:
+	 */
+	private static final long serialVersionUID = -3260477431860945839L;
+
+    /** Fingerprints per bucket. 每个桶的指纹数。 */
+    static final int SLOTS = 4;
+
+    /** Evictions tried before an insertion gives up. 插入放弃之前尝试的踢出次数。 */
+    static final int MAX_KICKS = 500;
+
+    /** The maximum number of buckets. 最大桶数。 */
+    static final int MAXIMUM_BUCKETS = 1 << 30;
+
+    /** The load the table is sized for. 表按此负载确定大小。 */
+    static final double LOAD = 0.95;
+
+    /** Fingerprint width in bits, 2 to 32. 指纹的位宽，2到32。 */
+    final int fingerprintBits;
+
+    final double falsePositiveRate;
+
+    /** The number of buckets. 桶数。 */
+    final int buckets;
+
+    /** The packed fingerprints; zero marks an empty slot. 打包的指纹；0表示空槽。 */
+    transient long[] table;
+
+    transient int count;
+
+    /** A fingerprint that found no slot, and its bucket, if hasVictim. 没有找到槽的指纹及其桶(hasVictim时有效)。 */
+    transient boolean hasVictim;
+    transient int victimBucket;
+    transient int victimFingerprint;
+
+    /** State of the xorshift generator choosing eviction slots. 选择踢出槽的xorshift生成器的状态。 */
+    transient int seed;
+
+    /**
+     * Creates a filter for the given number of hashes at the given
+     * false positive rate.
+     * 按给定的hash数量和误判率创建过滤器。
+     *
+     * @param expectedInsertions the number of hashes expected
+     * @param falsePositiveRate the false positive rate wanted, in (0, 1)
+     * @throws IllegalArgumentException if expectedInsertions is
+     *         negative, the rate is out of range, or the filter would be
+     *         too large
+     */
+    public CuckooFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 0)
+            throw new IllegalArgumentException("Illegal expected insertions: " +
+                                               expectedInsertions);
+        if (!(falsePositiveRate > 0.0 && falsePositiveRate < 1.0))
+            throw new IllegalArgumentException("Illegal false positive rate: " +
+                                               falsePositiveRate);
+        double f = Math.ceil(Math.log(2.0 * SLOTS / falsePositiveRate) / Math.log(2.0));
+        this.fingerprintBits = (int)Math.max(2.0, Math.min(32.0, f));
+        this.falsePositiveRate = falsePositiveRate;
+        double n = Math.ceil(Math.max(expectedInsertions, 1) / (SLOTS * LOAD));
+        if (n > MAXIMUM_BUCKETS ||
+            ((long)n * SLOTS * fingerprintBits + 63) >>> 6 > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Filter too large: " +
+                                               expectedInsertions);
+        this.buckets = Math.max(2, (int)n);
+        allocate();
+    }
+
+    private void allocate() {
+        long bits = (long)buckets * SLOTS * fingerprintBits;
+        table = new long[(int)((bits + 63) >>> 6)];
+        seed = 0x2545F491;
+    }
+
+    /** Returns the fingerprint of a mixed hash: its top bits, never zero. 返回混合后hash的指纹：其高位，从不为0。 */
+    private int fingerprint(long z) {
+        int fp = (int)(z >>> (64 - fingerprintBits));
+        return (fp == 0) ? 1 : fp;
+    }
+
+    /** Maps 32 hash bits onto [0, buckets). 把32位hash映射到[0, buckets)。 */
+    private int reduce(int h) {
+        return (int)(((h & 0xffffffffL) * buckets) >>> 32);
+    }
+
+    /**
+     * Returns the other bucket of a fingerprint; applying it twice
+     * gives back the first bucket.
+     * 返回指纹的另一个桶；应用两次得到原来的桶。
+     */
+    private int altBucket(int bucket, int fp) {
+        int i = reduce(fp * 0x5BD1E995) - bucket;
+        return (i < 0) ? i + buckets : i;
+    }
+
+    /** Returns the bit position of a slot. 返回槽的位位置。 */
+    private long position(int bucket, int slot) {
+        return ((long)bucket * SLOTS + slot) * fingerprintBits;
+    }
+
+    private int get(long pos) {
+        long[] t = table;
+        int w = (int)(pos >>> 6), b = (int)pos & 63, f = fingerprintBits;
+        long v = t[w] >>> b;
+        if (b + f > 64)
+            v |= t[w + 1] << (64 - b);
+        return (int)(v & ((1L << f) - 1));
+    }
+
+    private void set(long pos, int fp) {
+        long[] t = table;
+        int w = (int)(pos >>> 6), b = (int)pos & 63, f = fingerprintBits;
+        long mask = (1L << f) - 1, v = fp & mask;
+        t[w] = (t[w] & ~(mask << b)) | (v << b);
+        if (b + f > 64) {
+            int r = 64 - b;
+            t[w + 1] = (t[w + 1] & ~(mask >>> r)) | (v >>> r);
+        }
+    }
+
+    /** Returns the slot of bucket holding fp, or -1. 返回桶中保存fp的槽，没有时返回-1。 */
+    private int find(int bucket, int fp) {
+        for (int s = 0; s < SLOTS; ++s) {
+            if (get(position(bucket, s)) == fp)
+                return s;
+        }
+        return -1;
+    }
+
+    /** Puts fp into a free slot of bucket, if it has one. 如果桶中有空槽，就把fp放进去。 */
+    private boolean insert(int bucket, int fp) {
+        for (int s = 0; s < SLOTS; ++s) {
+            long pos = position(bucket, s);
+            if (get(pos) == 0) {
+                set(pos, fp);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int nextRandom() {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        return seed = x;
+    }
+
+    public boolean mightContain(int hash) {
+        long z = BloomFilter.mix(hash);
+        int fp = fingerprint(z);
+        int i1 = reduce((int)z), i2 = altBucket(i1, fp);
+        if (find(i1, fp) >= 0 || find(i2, fp) >= 0)
+            return true;
+        return hasVictim && victimFingerprint == fp &&
+            (victimBucket == i1 || victimBucket == i2);
+    }
+
+    /**
+     * Records the hash, evicting fingerprints to their other bucket if
+     * both of its buckets are full.
+     * 记录该hash；如果它的两个桶都满了，就把其他指纹踢到它们的另一个桶。
+     *
+     * @return <tt>false</tt> if the filter is full
+     */
+    public boolean add(int hash) {
+        if (hasVictim)
+            return false;
+        long z = BloomFilter.mix(hash);
+        int fp = fingerprint(z);
+        int i1 = reduce((int)z), i2 = altBucket(i1, fp);
+        if (insert(i1, fp) || insert(i2, fp)) {
+            ++count;
+            return true;
+        }
+        int i = ((nextRandom() & 1) == 0) ? i1 : i2;
+        for (int n = 0; n < MAX_KICKS; ++n) {
+            long pos = position(i, nextRandom() & (SLOTS - 1));
+            int evicted = get(pos);
+            set(pos, fp);
+            fp = evicted;
+            i = altBucket(i, fp);
+            if (insert(i, fp)) {
+                ++count;
+                return true;
+            }
+        }
+        // 表已经太满：把最后被踢出的指纹放在一边，不丢失任何记录
+        hasVictim = true;
+        victimBucket = i;
+        victimFingerprint = fp;
+        ++count;
+        return true;
+    }
+
+    /**
+     * Removes one copy of the hash's fingerprint.  If a fingerprint was
+     * kept aside it is put back into the table if it now fits.
+     * 删除该hash指纹的一个副本。如果有被放在一边的指纹，在表中有空位时把它放回去。
+     */
+    public boolean remove(int hash) {
+        long z = BloomFilter.mix(hash);
+        int fp = fingerprint(z);
+        int i1 = reduce((int)z), i2 = altBucket(i1, fp);
+        int s;
+        if ((s = find(i1, fp)) >= 0)
+            set(position(i1, s), 0);
+        else if ((s = find(i2, fp)) >= 0)
+            set(position(i2, s), 0);
+        else if (hasVictim && victimFingerprint == fp &&
+                 (victimBucket == i1 || victimBucket == i2)) {
+            hasVictim = false;
+            --count;
+            return true;
+        }
+        else
+            return false;
+        --count;
+        if (hasVictim) {
+            int vb = victimBucket, vfp = victimFingerprint;
+            if (insert(vb, vfp) || insert(altBucket(vb, vfp), vfp))
+                hasVictim = false;
+        }
+        return true;
+    }
+
+    public boolean supportsRemove() {
+        return true;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(table, 0L);
+        count = 0;
+        hasVictim = false;
+    }
+
+    public double falsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    public long bitSize() {
+        return (long)table.length << 6;
+    }
+
+    /**
+     * Returns the number of hashes recorded.
+     * 返回记录的hash数。
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the fingerprint width in bits.
+     * 返回指纹的位宽。
+     */
+    public int fingerprintBits() {
+        return fingerprintBits;
+    }
+
+    /**
+     * Save the filter to a stream.
+     *
+     * @serialData the count (int), whether a fingerprint was kept aside
+     *             (boolean) and if so its bucket and fingerprint (ints),
+     *             then every word of the packed table (long), after the
+     *             default fields
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        s.writeInt(count);
+        s.writeBoolean(hasVictim);
+        if (hasVictim) {
+            s.writeInt(victimBucket);
+            s.writeInt(victimFingerprint);
+        }
+        for (long w : table)
+            s.writeLong(w);
+    }
+
+    /**
+     * Reconstitute the filter from a stream.
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (fingerprintBits < 2 || fingerprintBits > 32)
+            throw new InvalidObjectException("Illegal fingerprint bits: " +
+                                             fingerprintBits);
+        if (buckets < 2 || buckets > MAXIMUM_BUCKETS ||
+            ((long)buckets * SLOTS * fingerprintBits + 63) >>> 6 >
+            Integer.MAX_VALUE - 8)
+            throw new InvalidObjectException("Illegal number of buckets: " +
+                                             buckets);
+        allocate();
+        count = s.readInt();
+        hasVictim = s.readBoolean();
+        if (hasVictim) {
+            victimBucket = s.readInt();
+            if (victimBucket < 0 || victimBucket >= buckets)
+                throw new InvalidObjectException("Illegal bucket: " +
+                                                 victimBucket);
+            victimFingerprint = s.readInt();
+        }
+        long[] t = table;
+        for (int i = 0; i < t.length; ++i)
+            t[i] = s.readLong();
+    }
+}
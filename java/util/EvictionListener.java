@@ -0,0 +1,36 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:EvictionListener.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午6:13:05  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+/**
+ * Notified when a cache evicts an entry to stay within its bounds.
+ * Explicit removals and replaced values are not reported.
+ * 缓存为了不超出限制而淘汰条目时得到通知。显式删除和被替换的值不会通知。
+ *
+ * <p>The listener runs synchronously, inside the operation that caused
+ * the eviction, and must not modify the cache.
+ * 监听器在引起淘汰的操作中同步执行，不能修改缓存。
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ *
+ * @see LinkedHashCache
+ */
+public interface EvictionListener<K,V> {
+
+    /**
+     * Called after the entry has been removed from the cache.
+     * 在条目从缓存中删除之后调用。
+     *
+     * @param key the evicted key
+     * @param value the evicted value
+     */
+    void onEviction(K key, V value);
+}
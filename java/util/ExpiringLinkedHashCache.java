@@ -0,0 +1,669 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:ExpiringLinkedHashCache.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午8:55:40  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.util.IdentityHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * A {@link LinkedHashCache} whose entries also expire a fixed time
+ * after they were last written, after they were last read, or both.
+ * 一个LinkedHashCache，其条目还会在最后一次写入之后、最后一次读取之后或两者中较早的固定时间之后过期。
+ *
+ * <p>Each entry carries its deadline and sits in a bucket of a
+ * hierarchical timer wheel: 64 buckets of about one second, 64 of about
+ * one minute, 32 of about an hour, 4 of about a day and one bucket for
+ * everything later.  Advancing the wheel visits only the buckets whose
+ * time has passed, expiring their entries and moving the rest down to
+ * finer buckets, so cleanup never scans the whole before/after list.
+ * Scheduling and rescheduling an entry cost O(1).
+ * 每个条目带有自己的截止时间，并位于分层时间轮的某个桶中：64个约1秒的桶、64个约1分钟的桶、
+ * 32个约1小时的桶、4个约1天的桶，以及一个存放更晚条目的桶。推进时间轮时只访问时间已过的桶，
+ * 淘汰其中到期的条目，把其余条目移到更细的桶中，所以清理永远不会扫描整个before/after链表。
+ * 调度和重新调度一个条目的代价都是O(1)。
+ *
+ * <p>The wheel is advanced by <tt>get</tt>, <tt>getOrDefault</tt>,
+ * <tt>containsKey</tt> and <tt>put</tt>, so the cleanup is paid in small
+ * steps by the callers; {@link #cleanUp} advances it explicitly and
+ * {@link #scheduleCleanUp} does so periodically from another thread.
+ * Those four methods also check the exact deadline of the entry they
+ * find, and treat an expired entry as absent.  Other methods, the views
+ * and {@link #size} may still see expired entries until the wheel has
+ * passed them, which happens within about a second of their deadline
+ * as long as the cache is used.
+ * get、getOrDefault、containsKey和put会推进时间轮，所以清理工作由调用者分成小步完成；
+ * cleanUp显式推进时间轮，scheduleCleanUp则从另一个线程定期推进。这四个方法还会检查找到的条目
+ * 的精确截止时间，并把已过期的条目当作不存在。其他方法、视图以及size在时间轮经过之前仍可能看到
+ * 已过期的条目，只要缓存在被使用，这会在截止时间之后约一秒内发生。
+ *
+ * <p>Expired entries are counted by {@link #expirationCount} and
+ * reported to the {@link EvictionListener} like evictions.  Time comes
+ * from a {@link Ticker}, {@link Ticker#SYSTEM} unless another is given.
+ * 过期的条目由expirationCount计数，并像淘汰一样通知EvictionListener。时间来自Ticker，
+ * 默认是Ticker.SYSTEM。
+ *
+ * <p>Ticker readings are not portable between JVMs, so a deserialized
+ * cache uses {@link Ticker#SYSTEM} and restarts the clock of every
+ * entry as if it had just been written.
+ * Ticker的读数不能在JVM之间移植，所以反序列化的缓存使用Ticker.SYSTEM，
+ * 并把每个条目的时间重新开始计算，就像它们刚被写入一样。
+ *
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ *
+ * @see Ticker
+ */
+public class ExpiringLinkedHashCache<K,V> extends LinkedHashCache<K,V> {
+
+	/**
+	 * serialVersionUID:
+	 */
+	private static final long serialVersionUID = 4307519834072951637L;
+
+    /*
+     * Implementation notes.
+     *
+     * Plain entries are TimedEntry nodes, which carry the deadline and
+     * the links of their wheel bucket themselves.  TreeNode is final and
+     * cannot carry them, so each TreeNode gets a side TimedEntry, held
+     * in treeTimers, that stands in the wheel for it.  When a bin is
+     * treeified the replaced TimedEntry becomes that side entry, and
+     * when it is untreeified the side entry is put back into the bin,
+     * so an entry keeps its place in the wheel across both.  The wheel
+     * always removes an entry through its hash and key, which are the
+     * same on both.
+     * 实现说明：普通条目是TimedEntry结点，自己保存截止时间和所在时间轮桶的链接。TreeNode是final的，
+     * 无法保存这些字段，所以每个TreeNode在treeTimers中有一个代替它留在时间轮中的TimedEntry。
+     * 树化时被替换的TimedEntry就成为这个代替结点，反树化时再把它放回桶中，所以条目在这两种转换中
+     * 都保持它在时间轮中的位置。时间轮总是通过hash和键删除条目，而两者上的hash和键是相同的。
+     */
+
+    /** The number of buckets at each level of the wheel. 时间轮每一层的桶数。 */
+    static final int[] BUCKETS = { 64, 64, 32, 4, 1 };
+
+    /**
+     * The span of one bucket at each level, in nanoseconds, about 1.07s,
+     * 1.14m, 1.22h, 1.63d and 6.5d; the last entry closes the table.
+     * Each level spans a power of two so a bucket index is a shift.
+     * 每一层一个桶跨越的纳秒数，约为1.07秒、1.14分、1.22小时、1.63天和6.5天；最后一项用于结束表。
+     * 每层的跨度都是2的幂，所以桶的下标只需一次移位。
+     */
+    static final long[] SPANS = {
+        1L << 30, 1L << 36, 1L << 42, 1L << 47, 1L << 49, 1L << 49
+    };
+
+    static final int[] SHIFT = { 30, 36, 42, 47, 49 };
+
+    /** No limit; also the cap on a duration. 不限制；也是时长的上限。 */
+    static final long NEVER = Long.MAX_VALUE;
+
+    /**
+     * Entry for an expiring cache: a LinkedHashMap.Entry that is also a
+     * node of a timer wheel bucket.
+     * 会过期的缓存的条目：一个同时也是时间轮桶结点的LinkedHashMap.Entry。
+     */
+    static final class TimedEntry<K,V> extends LinkedHashMap.Entry<K,V> {
+        long writeTime;
+        long time;                  // the deadline
+        TimedEntry<K,V> prevInWheel, nextInWheel;
+        TimedEntry(int hash, K key, V value, Node<K,V> next) {
+            super(hash, key, value, next);
+        }
+    }
+
+    /* ---------------- Fields -------------- */
+
+    /** The nanoseconds an entry lives after a write, or NEVER. 写入之后条目存活的纳秒数，或NEVER。 */
+    final long expireAfterWriteNanos;
+
+    /** The nanoseconds an entry lives after a read, or NEVER. 读取之后条目存活的纳秒数，或NEVER。 */
+    final long expireAfterAccessNanos;
+
+    transient Ticker ticker;
+
+    /** The bucket sentinels, by level. 按层排列的桶的哨兵结点。 */
+    transient TimedEntry<K,V>[][] wheel;
+
+    /** The time the wheel has been advanced to. 时间轮已推进到的时间。 */
+    transient long nanos;
+
+    /** The wheel entries standing in for tree bin nodes. 代替树形桶结点留在时间轮中的条目。 */
+    transient IdentityHashMap<Node<K,V>,TimedEntry<K,V>> treeTimers;
+
+    transient long expirationCount;
+
+    /**
+     * Constructs an empty cache with the given bounds, using
+     * {@link Ticker#SYSTEM}.
+     * 构造一个具有给定限制的空缓存，使用Ticker.SYSTEM。
+     *
+     * @param  maximumSize the maximum number of entries
+     * @param  expireAfterWrite how long an entry lives after it is
+     *         written, or a negative value for no limit
+     * @param  expireAfterAccess how long an entry lives after it is read
+     *         or written, or a negative value for no limit
+     * @param  unit the unit of both durations
+     * @throws IllegalArgumentException if maximumSize is negative
+     */
+    public ExpiringLinkedHashCache(int maximumSize, long expireAfterWrite,
+                                   long expireAfterAccess, TimeUnit unit) {
+        this(maximumSize, expireAfterWrite, expireAfterAccess, unit, Ticker.SYSTEM);
+    }
+
+    /**
+     * Constructs an empty cache with the given bounds and ticker.
+     * 构造一个具有给定限制和ticker的空缓存。
+     *
+     * @param  maximumSize the maximum number of entries
+     * @param  expireAfterWrite how long an entry lives after it is
+     *         written, or a negative value for no limit
+     * @param  expireAfterAccess how long an entry lives after it is read
+     *         or written, or a negative value for no limit
+     * @param  unit the unit of both durations
+     * @param  ticker the time source
+     * @throws IllegalArgumentException if maximumSize is negative
+     * @throws NullPointerException if unit or ticker is null
+     */
+    public ExpiringLinkedHashCache(int maximumSize, long expireAfterWrite,
+                                   long expireAfterAccess, TimeUnit unit,
+                                   Ticker ticker) {
+        super(maximumSize, Long.MAX_VALUE, null);
+        if (unit == null || ticker == null)
+            throw new NullPointerException();
+        this.expireAfterWriteNanos = toNanos(expireAfterWrite, unit);
+        this.expireAfterAccessNanos = toNanos(expireAfterAccess, unit);
+        this.ticker = ticker;
+        initWheel();
+    }
+
+    /**
+     * Converts a duration, capping it at NEVER so that a deadline
+     * compares correctly with a time after adding the duration overflows.
+     * 转换时长，并以NEVER为上限，使截止时间在加上时长溢出后仍能与时间正确比较。
+     */
+    static long toNanos(long duration, TimeUnit unit) {
+        if (duration < 0L)
+            return NEVER;
+        long n = unit.toNanos(duration);
+        return (n >= (NEVER >>> 1)) ? NEVER : n;
+    }
+
+    @SuppressWarnings({"rawtypes","unchecked"})
+    final void initWheel() {
+        TimedEntry<K,V>[][] w = (TimedEntry<K,V>[][])new TimedEntry[BUCKETS.length][];
+        for (int i = 0; i < w.length; ++i) {
+            w[i] = (TimedEntry<K,V>[])new TimedEntry[BUCKETS[i]];
+            for (int j = 0; j < w[i].length; ++j) {
+                TimedEntry<K,V> s = new TimedEntry<K,V>(0, null, null, null);
+                s.prevInWheel = s.nextInWheel = s;
+                w[i][j] = s;
+            }
+        }
+        wheel = w;
+        nanos = ticker.read();
+    }
+
+    /* ---------------- Deadlines -------------- */
+
+    final boolean expires() {
+        return expireAfterWriteNanos != NEVER || expireAfterAccessNanos != NEVER;
+    }
+
+    /**
+     * Returns the deadline of an entry written at writeTime and last
+     * used at now, for a cache that expires entries.
+     * 对会过期条目的缓存，返回在writeTime写入、在now最后一次使用的条目的截止时间。
+     */
+    final long deadline(long writeTime, long now) {
+        long w = expireAfterWriteNanos, a = expireAfterAccessNanos;
+        if (w == NEVER)
+            return now + a;
+        if (a == NEVER)
+            return writeTime + w;
+        long d = writeTime + w, e = now + a;
+        return (d - e < 0L) ? d : e;
+    }
+
+    /**
+     * Returns the wheel entry of a node of this map, or null for a tree
+     * node that has none yet.
+     * 返回该map中一个结点在时间轮中的条目，对还没有条目的树结点返回null。
+     */
+    final TimedEntry<K,V> timerOf(Node<K,V> e) {
+        if (e instanceof TreeNode)
+            return (treeTimers == null) ? null : treeTimers.get(e);
+        return (TimedEntry<K,V>)e;
+    }
+
+    final boolean hasExpired(Node<K,V> e, long now) {
+        TimedEntry<K,V> t;
+        return expires() && (t = timerOf(e)) != null && t.time - now <= 0L;
+    }
+
+    /**
+     * Sets the write time of an entry and schedules it.
+     * 设置条目的写入时间并调度它。
+     */
+    final void written(Node<K,V> e, long now) {
+        TimedEntry<K,V> t;
+        if (expires() && (t = timerOf(e)) != null) {
+            t.writeTime = now;
+            t.time = deadline(now, now);
+            unlink(t);
+            schedule(t);
+        }
+    }
+
+    /**
+     * Reschedules an entry that has just been read, if entries expire
+     * after access.
+     * 如果条目在访问之后过期，则重新调度刚被读取的条目。
+     */
+    final void accessed(Node<K,V> e, long now) {
+        TimedEntry<K,V> t;
+        if (expireAfterAccessNanos != NEVER && (t = timerOf(e)) != null) {
+            t.time = deadline(t.writeTime, now);
+            unlink(t);
+            schedule(t);
+        }
+    }
+
+    /* ---------------- Timer wheel -------------- */
+
+    /**
+     * Links the entry into the bucket covering its deadline: the finest
+     * level whose whole span still reaches the deadline from now.
+     * An entry already due goes to the current bucket, which the next
+     * tick visits.
+     * 把条目链接到覆盖其截止时间的桶中：选择从现在起整个跨度仍能到达截止时间的最细的一层。
+     * 已经到期的条目放入当前的桶，下一个刻度就会访问它。
+     */
+    final void schedule(TimedEntry<K,V> t) {
+        long time = t.time;
+        long duration = time - nanos;
+        if (duration < 0L) {
+            time = nanos;
+            duration = 0L;
+        }
+        TimedEntry<K,V> s = null;
+        for (int i = 0, n = wheel.length - 1; i < n; ++i) {
+            if (duration < SPANS[i + 1]) {
+                TimedEntry<K,V>[] buckets = wheel[i];
+                s = buckets[(int)(time >> SHIFT[i]) & (buckets.length - 1)];
+                break;
+            }
+        }
+        if (s == null)
+            s = wheel[wheel.length - 1][0];
+        TimedEntry<K,V> last = s.prevInWheel;
+        t.prevInWheel = last;
+        t.nextInWheel = s;
+        last.nextInWheel = t;
+        s.prevInWheel = t;
+    }
+
+    final void unlink(TimedEntry<K,V> t) {
+        TimedEntry<K,V> p, n;
+        if ((p = t.prevInWheel) != null) {
+            n = t.nextInWheel;
+            p.nextInWheel = n;
+            n.prevInWheel = p;
+            t.prevInWheel = t.nextInWheel = null;
+        }
+    }
+
+    /**
+     * Advances the wheel to now.  At each level the buckets between the
+     * previous and the current tick are emptied; their entries are
+     * expired if due and rescheduled otherwise, which moves them to a
+     * finer level as their deadline approaches.  A level is only
+     * visited if its tick changed, so most calls touch no bucket.
+     * Ticks use a signed shift: only differences of ticker readings are
+     * meaningful, and readings may cross zero.
+     * 把时间轮推进到now。在每一层中清空上一次和这一次刻度之间的桶；其中到期的条目被淘汰，其余的
+     * 被重新调度，随着截止时间临近，它们会移到更细的一层。只有刻度发生变化的层才会被访问，
+     * 所以大多数调用不会访问任何桶。刻度用有符号移位计算：只有计时器读数之差有意义，读数可能跨越零。
+     */
+    final void expireEntries(long now) {
+        long previous = nanos;
+        nanos = now;
+        for (int i = 0; i < SHIFT.length; ++i) {
+            long previousTicks = previous >> SHIFT[i];
+            long delta = (now >> SHIFT[i]) - previousTicks;
+            if (delta <= 0L)
+                break;
+            TimedEntry<K,V>[] buckets = wheel[i];
+            int mask = buckets.length - 1;
+            int start = (int)previousTicks & mask;
+            int end = start + (int)Math.min(delta + 1L, buckets.length);
+            for (int j = start; j < end; ++j) {
+                TimedEntry<K,V> s = buckets[j & mask];
+                TimedEntry<K,V> t = s.nextInWheel, next;
+                s.prevInWheel = s.nextInWheel = s;
+                for (; t != s; t = next) {
+                    next = t.nextInWheel;
+                    t.prevInWheel = t.nextInWheel = null;
+                    if (t.time - now > 0L)
+                        schedule(t);
+                    else
+                        expire(t);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes an expired entry through its hash and key, counting and
+     * reporting it.
+     * 通过hash和键删除一个已过期的条目，并计数和通知。
+     */
+    final void expire(TimedEntry<K,V> t) {
+        Node<K,V> e;
+        if ((e = removeNode(t.hash, t.key, null, false, true)) != null) {
+            ++expirationCount;
+            EvictionListener<? super K,? super V> l;
+            if ((l = listener) != null)
+                l.onEviction(e.key, e.value);
+        }
+    }
+
+    /**
+     * Expires the entries whose deadline has passed, as far as the
+     * wheel's one-second resolution allows.
+     * 淘汰截止时间已过的条目，精度受时间轮一秒的分辨率限制。
+     */
+    public void cleanUp() {
+        expireEntries(ticker.read());
+    }
+
+    /**
+     * Runs {@link #cleanUp} on the executor every <tt>period</tt>, so that
+     * an idle cache still releases its expired entries.  The task
+     * synchronizes on this cache; as the cache is not synchronized,
+     * every other use of it must then synchronize on it too.
+     * 在executor上每隔period运行一次cleanUp，使空闲的缓存也能释放已过期的条目。
+     * 该任务在此缓存上同步；由于缓存本身不是同步的，其他所有使用也必须在缓存上同步。
+     *
+     * @param  executor the executor to run the cleanup on
+     * @param  period the delay between the end of one cleanup and the
+     *         start of the next
+     * @param  unit the unit of period
+     * @return the future of the task, to cancel it
+     */
+    public ScheduledFuture<?> scheduleCleanUp(ScheduledExecutorService executor,
+                                              long period, TimeUnit unit) {
+        return executor.scheduleWithFixedDelay(() -> {
+            synchronized (this) {
+                cleanUp();
+            }
+        }, period, period, unit);
+    }
+
+    // overrides of LinkedHashMap hook methods
+    // 覆盖LinkedHashMap的钩子方法，维护时间轮
+
+    Node<K,V> newNode(int hash, K key, V value, Node<K,V> e) {
+        TimedEntry<K,V> p = new TimedEntry<K,V>(hash, key, value, e);
+        linkNodeLast(p);
+        return p;
+    }
+
+    // p is a tree node: its wheel entry takes its place in the bin
+    Node<K,V> replacementNode(Node<K,V> p, Node<K,V> next) {
+        LinkedHashMap.Entry<K,V> q = (LinkedHashMap.Entry<K,V>)p;
+        TimedEntry<K,V> t = (p instanceof TreeNode && treeTimers != null) ?
+            treeTimers.remove(p) : null;
+        if (t == null) {
+            TimedEntry<K,V> old = timerOf(p);
+            t = new TimedEntry<K,V>(q.hash, q.key, q.value, next);
+            if (old != null) {
+                t.writeTime = old.writeTime;
+                t.time = old.time;
+                if (old.prevInWheel != null) {
+                    unlink(old);
+                    schedule(t);
+                }
+            }
+        }
+        else {
+            t.value = q.value;
+            t.next = next;
+        }
+        transferLinks(q, t);
+        return t;
+    }
+
+    TreeNode<K,V> newTreeNode(int hash, K key, V value, Node<K,V> next) {
+        TreeNode<K,V> p = super.newTreeNode(hash, key, value, next);
+        treeTimers().put(p, new TimedEntry<K,V>(hash, key, null, null));
+        return p;
+    }
+
+    // p stays in the wheel for the tree node; its next link is still
+    // being followed by the caller, so only the others are cleared
+    TreeNode<K,V> replacementTreeNode(Node<K,V> p, Node<K,V> next) {
+        TreeNode<K,V> t = super.replacementTreeNode(p, next);
+        TimedEntry<K,V> q = (TimedEntry<K,V>)p;
+        q.value = null;
+        q.before = q.after = null;
+        treeTimers().put(t, q);
+        return t;
+    }
+
+    final IdentityHashMap<Node<K,V>,TimedEntry<K,V>> treeTimers() {
+        IdentityHashMap<Node<K,V>,TimedEntry<K,V>> m;
+        if ((m = treeTimers) == null)
+            treeTimers = m = new IdentityHashMap<Node<K,V>,TimedEntry<K,V>>();
+        return m;
+    }
+
+    void afterNodeRemoval(Node<K,V> e) {
+        super.afterNodeRemoval(e);
+        TimedEntry<K,V> t = (e instanceof TreeNode) ?
+            ((treeTimers == null) ? null : treeTimers.remove(e)) :
+            (TimedEntry<K,V>)e;
+        if (t != null)
+            unlink(t);
+    }
+
+    // the new node is always the tail; the ticker is not yet set while
+    // HashMap reads the entries of a serialized cache
+    void afterNodeInsertion(boolean evict) {
+        if (ticker != null)
+            written(tail, ticker.read());
+        super.afterNodeInsertion(evict);
+    }
+
+    void afterNodeAccess(Node<K,V> e) {
+        super.afterNodeAccess(e);
+        if (ticker != null)
+            accessed(e, ticker.read());
+    }
+
+    /* ---------------- Map operations -------------- */
+
+    /**
+     * Returns the value to which the specified key is mapped, or null
+     * if there is none or it has expired, counting a hit or a miss.
+     * 返回指定键映射的值，不存在或已过期时返回null，并统计一次命中或未命中。
+     */
+    public V get(Object key) {
+        Node<K,V> e;
+        if ((e = getLive(key)) == null) {
+            ++missCount;
+            return null;
+        }
+        ++hitCount;
+        return e.value;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 已过期的条目视为不存在，统计一次命中或未命中。
+     */
+    public V getOrDefault(Object key, V defaultValue) {
+        Node<K,V> e;
+        if ((e = getLive(key)) == null) {
+            ++missCount;
+            return defaultValue;
+        }
+        ++hitCount;
+        return e.value;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the cache holds an entry for the key that
+     * has not expired.  Does not count as a read.
+     * 如果缓存中有该键未过期的条目则返回true。不算作一次读取。
+     */
+    public boolean containsKey(Object key) {
+        long now = ticker.read();
+        expireEntries(now);
+        Node<K,V> e;
+        if ((e = getNode(spread(key), key)) == null)
+            return false;
+        if (hasExpired(e, now)) {
+            expire(timerOf(e));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Advances the wheel, then finds the entry for the key and records
+     * a read of it, or expires it and returns null if it is past its
+     * deadline.
+     * 推进时间轮，然后查找该键的条目并记录一次读取；如果它已过截止时间则淘汰它并返回null。
+     */
+    final Node<K,V> getLive(Object key) {
+        long now = ticker.read();
+        expireEntries(now);
+        Node<K,V> e;
+        if ((e = getNode(spread(key), key)) == null)
+            return null;
+        if (hasExpired(e, now)) {
+            expire(timerOf(e));
+            return null;
+        }
+        super.afterNodeAccess(e);
+        accessed(e, now);
+        return e;
+    }
+
+    /**
+     * Associates the value with the key and restarts the entry's clock.
+     * An expired entry for the key is expired first, so the new value
+     * is inserted as a new entry.
+     * 把值与键关联并重新开始条目的计时。该键已过期的条目会先被淘汰，所以新值作为新条目插入。
+     */
+    public V put(K key, V value) {
+        long now = ticker.read();
+        expireEntries(now);
+        int hash = spread(key);
+        Node<K,V> e;
+        if ((e = getNode(hash, key)) != null && hasExpired(e, now)) {
+            expire(timerOf(e));
+            e = null;
+        }
+        if (e == null)
+            return putVal(hash, key, value, false, true);
+        V oldValue = e.value;
+        e.value = value;
+        int w = reweigh(e, weightOf(e));
+        super.afterNodeAccess(e);
+        written(e, now);
+        evictEntries(e, w);
+        return oldValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 被替换值的条目重新开始计时。
+     */
+    V setEntryValue(Node<K,V> e, V value) {
+        written(e, ticker.read());
+        return super.setEntryValue(e, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 被替换值的条目重新开始计时。
+     */
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        super.replaceAll(function);
+        long now = ticker.read();
+        for (LinkedHashMap.Entry<K,V> e = head; e != null; e = e.after)
+            written(e, now);
+    }
+
+    public void clear() {
+        super.clear();
+        for (TimedEntry<K,V>[] buckets : wheel) {
+            for (TimedEntry<K,V> s : buckets)
+                s.prevInWheel = s.nextInWheel = s;
+        }
+        treeTimers = null;
+    }
+
+    /**
+     * Gives a clone its own wheel; the copied entries start new write
+     * and access clocks, as after deserialization.
+     * 给克隆出的对象分配自己的时间轮；复制的条目重新开始写入和访问计时，与反序列化之后相同。
+     */
+    void reinitialize() {
+        super.reinitialize();
+        initWheel();
+        treeTimers = null;
+        expirationCount = 0L;
+    }
+
+    /* ---------------- Statistics -------------- */
+
+    /** Returns the write expiry in nanoseconds, or -1 for none. 返回写入后过期的纳秒数，没有时返回-1。 */
+    public long expireAfterWriteNanos() {
+        return (expireAfterWriteNanos == NEVER) ? -1L : expireAfterWriteNanos;
+    }
+
+    /** Returns the access expiry in nanoseconds, or -1 for none. 返回访问后过期的纳秒数，没有时返回-1。 */
+    public long expireAfterAccessNanos() {
+        return (expireAfterAccessNanos == NEVER) ? -1L : expireAfterAccessNanos;
+    }
+
+    /** Returns the number of entries that expired. 返回已过期的条目数。 */
+    public long expirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Resets the hit, miss, eviction and expiration counters to zero.
+     * 把命中、未命中、淘汰和过期计数器清零。
+     */
+    public void resetStatistics() {
+        super.resetStatistics();
+        expirationCount = 0L;
+    }
+
+    /**
+     * Reconstitutes the cache from a stream, on the system ticker, with
+     * every entry's clock restarted.
+     * 从流中重建缓存，使用系统ticker，并重新开始每个条目的计时。
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        ticker = Ticker.SYSTEM;
+        initWheel();
+        for (LinkedHashMap.Entry<K,V> e = head; e != null; e = e.after)
+            written(e, nanos);
+    }
+}
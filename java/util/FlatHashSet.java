@@ -0,0 +1,532 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:FlatHashSet.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午10:48:15  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.io.InvalidObjectException;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A hash set that stores its elements directly, instead of as the keys
+ * of a backing {@link HashMap} as {@link HashSet} does.  Stored hashes
+ * live in an <tt>int[]</tt> and elements in a parallel
+ * <tt>Object[]</tt>, probed linearly, so an element costs one
+ * <tt>int</tt> and one reference divided by the load factor: no
+ * <tt>HashMap.Node</tt>, no <tt>next</tt> link and no value reference
+ * pointing at a dummy.
+ * 直接保存元素的哈希集合，而不是像HashSet那样把元素作为底层HashMap的键。hash保存在int[]中，
+ * 元素保存在平行的Object[]中，采用线性探测，所以每个元素只占用一个int和一个引用(除以负载因子)：
+ * 没有HashMap.Node，没有next链接，也没有指向虚拟值的value引用。
+ *
+ * <p>The public API, the accepted constructor arguments and the
+ * serialized form (capacity, load factor, size, then the elements) are
+ * those of <tt>HashSet</tt>.  The hash is {@link HashMap#hash} and
+ * <tt>null</tt> is permitted.  Iteration order is unspecified; iterators
+ * are fail-fast and support <tt>remove</tt>.
+ * 公共API、接受的构造参数以及序列化形式(容量、负载因子、大小，然后是各元素)都与HashSet相同。
+ * hash函数是HashMap.hash，允许null元素。迭代顺序不确定；迭代器是快速失败的，并支持remove。
+ *
+ * <p>A removed element leaves a tombstone unless the next slot is free,
+ * so removal never moves other elements and an iterator can remove
+ * safely.  Tombstones count towards the load, and a table that fills up
+ * mostly with tombstones is rebuilt at the same capacity instead of
+ * being doubled.  An open-addressed table cannot hold more elements
+ * than slots, so load factors above 7/8 are treated as 7/8.
+ * 删除的元素会留下墓碑(除非下一个槽是空闲的)，所以删除永远不会移动其他元素，迭代器可以安全地删除。
+ * 墓碑计入负载，如果表主要被墓碑填满，则以相同容量重建而不是扩大一倍。
+ * 开放寻址的表不能容纳比槽更多的元素，所以大于7/8的负载因子按7/8处理。
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * 注意，这个实现不是同步的。
+ *
+ * @param <E> the type of elements maintained by this set
+ *
+ * @see HashSet
+ * @see CompactHashMap
+ */
+public class FlatHashSet<E>
+    extends AbstractSet<E>
+    implements Set<E>, Cloneable, java.io.Serializable
+{
+
+	/**
+	 * serialVersionUID:
+	 */
+	private static final long serialVersionUID = -5024744406713321676L;
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     * 默认的初始容量-必须是2的幂。
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 1 << 4;
+
+    /**
+     * The maximum capacity.  MUST be a power of two <= 1<<30.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * The highest load factor actually used.
+     * 实际使用的最大负载因子。
+     */
+    static final float MAX_LOAD_FACTOR = 0.875f;
+
+    /**
+     * Marks the slot of a removed element.  Lookups probe past it,
+     * insertions may reuse it.
+     * 标记被删除元素的槽。查找时越过它继续探测，插入时可以重用它。
+     */
+    static final Object TOMBSTONE = new Object();
+
+    /* ---------------- Fields -------------- */
+
+    /**
+     * The stored hash of each slot; meaningful only for slots holding
+     * an element.
+     * 每个槽保存的hash，只对保存元素的槽有意义。
+     */
+    private transient int[] hashes;
+
+    /**
+     * The elements, masked with CompactHashMap.maskNull; null marks a
+     * free slot and TOMBSTONE a removed one.
+     * 元素，经过CompactHashMap.maskNull掩码；null表示空闲槽，TOMBSTONE表示已删除的槽。
+     */
+    private transient Object[] table;
+
+    private transient int size;
+
+    /** The number of tombstones. 墓碑数。 */
+    private transient int deleted;
+
+    private transient int modCount;
+
+    /**
+     * The number of elements plus tombstones above which the table is
+     * rebuilt.
+     * 元素数加墓碑数超过此值时重建表。
+     */
+    private transient int threshold;
+
+    private transient float loadFactor;
+
+    /** 32 minus log2 of the capacity. 32减去容量的log2。 */
+    private transient int shift;
+
+    /**
+     * Constructs a new, empty set with the default initial capacity
+     * (16) and load factor (0.75).
+     */
+    public FlatHashSet() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        allocate(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs a new set containing the elements in the specified
+     * collection, sized as <tt>HashSet</tt> would size it.
+     *
+     * @param c the collection whose elements are to be placed into this set
+     * @throws NullPointerException if the specified collection is null
+     */
+    public FlatHashSet(Collection<? extends E> c) {
+        this(Math.max((int) (c.size()/.75f) + 1, 16));
+        addAll(c);
+    }
+
+    /**
+     * Constructs a new, empty set with the specified initial capacity
+     * and load factor.
+     *
+     * @param      initialCapacity   the initial capacity of the hash table
+     * @param      loadFactor        the load factor of the hash table
+     * @throws     IllegalArgumentException if the initial capacity is less
+     *             than zero, or if the load factor is nonpositive
+     */
+    public FlatHashSet(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (loadFactor <= 0 || Float.isNaN(loadFactor))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(capacityFor(initialCapacity));
+    }
+
+    /**
+     * Constructs a new, empty set with the specified initial capacity
+     * and the default load factor (0.75).
+     *
+     * @param      initialCapacity   the initial capacity of the hash table
+     * @throws     IllegalArgumentException if the initial capacity is less
+     *             than zero
+     */
+    public FlatHashSet(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int initialCapacity) {
+        return Math.max(2, Math.min(HashMap.tableSizeFor(initialCapacity),
+                                    MAXIMUM_CAPACITY));
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        table = new Object[capacity];
+        deleted = 0;
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        float lf = Math.min(loadFactor, MAX_LOAD_FACTOR);
+        threshold = Math.min((int)(capacity * lf), capacity - 1);
+    }
+
+    /**
+     * Returns the home slot of a stored hash: its Fibonacci product's
+     * top bits.  <tt>HashMap.hash</tt> leaves runs of nearby hash codes
+     * (such as those of strings differing only in the last character)
+     * in nearby slots, which linear probing turns into long clusters.
+     * 返回保存的hash的起始槽：取其乘以黄金分割常数后的高位。HashMap.hash会把相邻的hashCode
+     * (例如只有最后一个字符不同的字符串)留在相邻的槽中，线性探测会把它们变成很长的聚集。
+     */
+    private int home(int h) {
+        return (h * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * Returns the slot holding the (masked) element, or -1.
+     * 返回保存该(已掩码的)元素的槽，不存在返回-1。
+     */
+    private int indexOf(int h, Object k) {
+        int[] hs = hashes;
+        Object[] tab = table;
+        int mask = tab.length - 1;
+        for (int i = home(h); ; i = (i + 1) & mask) {
+            Object item = tab[i];
+            if (item == null)
+                return -1;
+            if (hs[i] == h && item != TOMBSTONE && (item == k || k.equals(item)))
+                return i;
+        }
+    }
+
+    /**
+     * Returns an iterator over the elements in this set.  The elements
+     * are returned in no particular order.
+     *
+     * @return an Iterator over the elements in this set
+     */
+    public Iterator<E> iterator() {
+        return new FlatIterator();
+    }
+
+    /**
+     * Returns the number of elements in this set (its cardinality).
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this set contains no elements.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this set contains the specified element.
+     * 如果集合包含指定元素则返回true。
+     */
+    public boolean contains(Object o) {
+        return indexOf(HashMap.hash(o), CompactHashMap.maskNull(o)) >= 0;
+    }
+
+    /**
+     * Adds the specified element to this set if it is not already
+     * present.  The element takes the first tombstone passed on the
+     * way, if any.
+     * 如果元素不存在则添加它。元素占用探测途中遇到的第一个墓碑(如果有)。
+     *
+     * @param e element to be added to this set
+     * @return <tt>true</tt> if this set did not already contain the specified
+     * element
+     */
+    public boolean add(E e) {
+        int h = HashMap.hash(e);
+        Object k = CompactHashMap.maskNull(e);
+        int[] hs = hashes;
+        Object[] tab = table;
+        int mask = tab.length - 1;
+        int free = -1;
+        int i = home(h);
+        for (Object item; (item = tab[i]) != null; i = (i + 1) & mask) {
+            if (item == TOMBSTONE) {
+                if (free < 0)
+                    free = i;
+            }
+            else if (hs[i] == h && (item == k || k.equals(item)))
+                return false;
+        }
+        if (free >= 0) {
+            i = free;
+            --deleted;
+        }
+        hs[i] = h;
+        tab[i] = k;
+        ++modCount;
+        if (++size + deleted > threshold)
+            rehash();
+        return true;
+    }
+
+    /**
+     * Removes the specified element from this set if it is present.
+     * 如果元素存在则删除它。
+     *
+     * @param o object to be removed from this set, if present
+     * @return <tt>true</tt> if the set contained the specified element
+     */
+    public boolean remove(Object o) {
+        int i = indexOf(HashMap.hash(o), CompactHashMap.maskNull(o));
+        if (i < 0)
+            return false;
+        delete(i);
+        ++modCount;
+        return true;
+    }
+
+    /**
+     * Empties slot i.  No probe runs past a free slot, so if the next
+     * slot is free this one becomes free too, along with the tombstones
+     * directly before it; otherwise it becomes a tombstone.
+     * 清空槽i。探测不会越过空闲槽，所以如果下一个槽是空闲的，这个槽以及紧挨在它前面的墓碑都直接变为空闲；
+     * 否则留下墓碑。
+     */
+    private void delete(int i) {
+        Object[] tab = table;
+        int mask = tab.length - 1;
+        if (tab[(i + 1) & mask] == null) {
+            tab[i] = null;
+            for (int j = (i - 1) & mask; tab[j] == TOMBSTONE; j = (j - 1) & mask) {
+                tab[j] = null;
+                --deleted;
+            }
+        }
+        else {
+            tab[i] = TOMBSTONE;
+            ++deleted;
+        }
+        --size;
+    }
+
+    /**
+     * Removes all of the elements from this set.
+     */
+    public void clear() {
+        ++modCount;
+        java.util.Arrays.fill(table, null);
+        size = 0;
+        deleted = 0;
+    }
+
+    /**
+     * Rebuilds the table without tombstones: doubled if the elements
+     * alone fill more than half of the threshold, otherwise at the same
+     * capacity.
+     * 重建不含墓碑的表：如果仅元素就超过阈值的一半则容量扩大一倍，否则保持相同容量。
+     */
+    private void rehash() {
+        int[] oldHashes = hashes;
+        Object[] oldTab = table;
+        int oldCap = oldTab.length;
+        int newCap = oldCap;
+        if (size > (threshold >>> 1)) {
+            if (oldCap >= MAXIMUM_CAPACITY) {
+                if (size >= MAXIMUM_CAPACITY - 1)
+                    throw new IllegalStateException("Capacity exhausted.");
+            }
+            else
+                newCap = oldCap << 1;
+        }
+        allocate(newCap);
+        int[] hs = hashes;
+        Object[] tab = table;
+        int mask = newCap - 1;
+        for (int j = 0; j < oldCap; ++j) {
+            Object k = oldTab[j];
+            if (k != null && k != TOMBSTONE) {
+                int h = oldHashes[j];
+                int i = home(h);
+                while (tab[i] != null)
+                    i = (i + 1) & mask;
+                hs[i] = h;
+                tab[i] = k;
+            }
+        }
+    }
+
+    public void forEach(Consumer<? super E> action) {
+        if (action == null)
+            throw new NullPointerException();
+        Object[] tab = table;
+        int mc = modCount;
+        for (int i = 0; i < tab.length && modCount == mc; ++i) {
+            Object k = tab[i];
+            if (k != null && k != TOMBSTONE)
+                action.accept(CompactHashMap.<E>unmaskNull(k));
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Iterator over the table slots.  Removal only ever turns slots
+     * into tombstones or free slots, so no element moves under the
+     * iterator.
+     * 按表中的槽迭代。删除只会把槽变成墓碑或空闲槽，所以迭代器下的元素不会移动。
+     */
+    final class FlatIterator implements Iterator<E> {
+        int next;                          // next slot to examine
+        int last = -1;                     // slot of last returned element
+        int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            Object[] tab = table;
+            while (next < tab.length) {
+                Object k = tab[next];
+                if (k != null && k != TOMBSTONE)
+                    return true;
+                ++next;
+            }
+            return false;
+        }
+
+        public E next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            last = next++;
+            return CompactHashMap.<E>unmaskNull(table[last]);
+        }
+
+        public void remove() {
+            if (last < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            delete(last);
+            last = -1;
+            expectedModCount = ++modCount;
+        }
+    }
+
+    /**
+     * Returns a shallow copy of this <tt>FlatHashSet</tt> instance: the
+     * elements themselves are not cloned.
+     *
+     * @return a shallow copy of this set
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        try {
+            FlatHashSet<E> newSet = (FlatHashSet<E>) super.clone();
+            newSet.hashes = hashes.clone();
+            newSet.table = table.clone();
+            newSet.modCount = 0;
+            return newSet;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Save the state of this <tt>FlatHashSet</tt> instance to a stream
+     * (that is, serialize it), in the form <tt>HashSet</tt> uses.
+     *
+     * @serialData The capacity of the table (int), and its load factor
+     *             (float) are emitted, followed by the size of the set
+     *             (the number of elements it contains) (int), followed
+     *             by all of its elements (each an Object) in no
+     *             particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        // Write out any hidden serialization magic
+        s.defaultWriteObject();
+
+        // Write out table capacity and load factor
+        s.writeInt(table.length);
+        s.writeFloat(loadFactor);
+
+        // Write out size
+        s.writeInt(size);
+
+        // Write out all elements in the proper order.
+        for (Object k : table) {
+            if (k != null && k != TOMBSTONE)
+                s.writeObject(CompactHashMap.unmaskNull(k));
+        }
+    }
+
+    /**
+     * Reconstitute the <tt>FlatHashSet</tt> instance from a stream (that
+     * is, deserialize it).
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        // Read in any hidden serialization magic
+        s.defaultReadObject();
+
+        // Read capacity and verify non-negative.
+        int capacity = s.readInt();
+        if (capacity < 0) {
+            throw new InvalidObjectException("Illegal capacity: " +
+                                             capacity);
+        }
+
+        // Read load factor and verify positive and non NaN.
+        float loadFactor = s.readFloat();
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        }
+
+        // Read size and verify non-negative.
+        int size = s.readInt();
+        if (size < 0) {
+            throw new InvalidObjectException("Illegal size: " +
+                                             size);
+        }
+
+        // Size the table for the elements at the effective load factor,
+        // clamping to maximum capacity.
+        this.loadFactor = loadFactor;
+        float lf = Math.min(loadFactor, MAX_LOAD_FACTOR);
+        allocate(capacityFor((int)Math.min(size / lf + 1.0f, MAXIMUM_CAPACITY)));
+
+        // Read in all elements.
+        for (int i=0; i<size; i++) {
+            @SuppressWarnings("unchecked")
+                E e = (E) s.readObject();
+            add(e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:FrequencySketch.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午7:48:21  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+/**
+ * A count-min sketch estimating how often each element has been seen
+ * recently, for cache admission (TinyLFU).  Counters are 4 bits wide,
+ * sixteen to a <tt>long</tt>, and saturate at 15: the policy only needs
+ * to tell hot elements from cold ones, not count exactly.  Each element
+ * has four counters in four different words, and its estimate is the
+ * smallest of them, so collisions can only inflate it.
+ * 估计每个元素最近出现频率的count-min sketch，用于缓存准入(TinyLFU)。计数器为4位宽，
+ * 每个long存16个，最大饱和于15：策略只需要区分冷热元素，不需要精确计数。
+ * 每个元素在四个不同的字中各有一个计数器，估计值取其中的最小值，所以冲突只会使估计偏大。
+ *
+ * <p>To follow changes in popularity the sketch ages: after
+ * <tt>10 * maximumSize</tt> increments every counter is halved, so old
+ * accesses count for less and less.
+ * 为了跟上流行度的变化，sketch会老化：每累计10 * maximumSize次增加后把所有计数器减半，
+ * 使旧的访问所占的分量越来越小。
+ *
+ * <p>This class is not synchronized.
+ * 此类不是同步的。
+ *
+ * @param <E> the type of elements counted
+ *
+ * @see TinyLfuCache
+ */
+public final class FrequencySketch<E> {
+
+    /** Multipliers for the four hash functions. 四个hash函数的乘数。 */
+    static final long[] SEED = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+        0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+    /** Mask to halve sixteen 4-bit counters at once. 一次把16个4位计数器减半的掩码。 */
+    static final long RESET_MASK = 0x7777777777777777L;
+
+    final long[] table;
+    final int tableMask;
+
+    /** Increments between agings. 两次老化之间的增加次数。 */
+    final int sampleSize;
+
+    /** Increments since the last aging. 上次老化以来的增加次数。 */
+    int size;
+
+    /**
+     * Creates a sketch for a cache holding at most the given number of
+     * entries.
+     * 为最多保存给定数量条目的缓存创建sketch。
+     *
+     * @param maximumSize the cache's maximum size
+     * @throws IllegalArgumentException if maximumSize is negative
+     */
+    public FrequencySketch(int maximumSize) {
+        if (maximumSize < 0)
+            throw new IllegalArgumentException("Illegal maximum size: " +
+                                               maximumSize);
+        int n = HashMap.tableSizeFor(Math.max(maximumSize, 16));
+        table = new long[n];
+        tableMask = n - 1;
+        sampleSize = (int)Math.min(10L * Math.max(maximumSize, 1), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the estimated number of recent occurrences of the element,
+     * at most 15.
+     * 返回该元素最近出现次数的估计值，最大为15。
+     */
+    public int frequency(E e) {
+        int h = spread(e.hashCode());
+        int start = (h & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(h, i);
+            int count = (int)((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Counts an occurrence of the element, aging the sketch when the
+     * sample is complete.
+     * 记录该元素出现一次，样本满时使sketch老化。
+     */
+    public void increment(E e) {
+        int h = spread(e.hashCode());
+        int start = (h & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++)
+            added |= incrementAt(indexOf(h, i), start + i);
+        if (added && ++size == sampleSize)
+            reset();
+    }
+
+    /**
+     * Increments the j-th counter of table[i] unless it is saturated.
+     * 除非已饱和，否则把table[i]中的第j个计数器加一。
+     */
+    boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = (0xfL << offset);
+        if ((table[i] & mask) != mask) {
+            table[i] += (1L << offset);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Halves every counter.
+     * 把所有计数器减半。
+     */
+    void reset() {
+        long[] t = table;
+        for (int i = 0; i < t.length; i++)
+            t[i] = (t[i] >>> 1) & RESET_MASK;
+        size >>>= 1;
+    }
+
+    /**
+     * Returns the table index of the i-th counter of a hash.
+     * 返回hash的第i个计数器在表中的下标。
+     */
+    int indexOf(int h, int i) {
+        long hash = (h + SEED[i]) * SEED[i];
+        hash += (hash >>> 32);
+        return ((int)hash) & tableMask;
+    }
+
+    /**
+     * Applies a supplemental hash so that hash codes differing only in
+     * high bits spread over the table.
+     * 附加一次hash，使只在高位不同的hashCode也能分散到整个表中。
+     */
+    static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,337 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:FrozenHashMap.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午4:21:45  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable map laid out flat for fast, allocation-free reads.  The
+ * mappings are sorted by bin (the low bits of the hash, as in {@link
+ * HashMap}) into three parallel structures: the stored hashes in an
+ * <tt>int[]</tt>, keys and values interleaved in one <tt>Object[]</tt>,
+ * and an <tt>int[]</tt> index giving the first mapping of every bin.
+ * There are no nodes, no spare slots and no load factor: the table has
+ * one bin per mapping (rounded up to a power of two), and an entry costs
+ * one <tt>int</tt>, two references and about one index <tt>int</tt>.
+ * 一个为快速、无分配的读取而平铺布局的不可变map。映射按桶(hash的低位，与HashMap相同)排序后放入三个平行的结构：
+ * int[]中保存的hash，交错保存键和值的Object[]，以及给出每个桶第一个映射位置的int[]索引。
+ * 没有结点，没有空闲槽，也没有负载因子：每个映射对应一个桶(向上取整到2的幂)，
+ * 每个条目只占用一个int、两个引用和大约一个索引int。
+ *
+ * <p>A lookup reads the two index entries of its bin and scans the
+ * hashes between them, touching a key only when the hash matches.  Bins
+ * longer than eight mappings are kept sorted by hash and binary
+ * searched, so keys whose hash codes differ only in high bits cost
+ * O(log n); keys with <em>equal</em> hash codes are still compared one
+ * by one.
+ * 查找读取桶的两个索引项，扫描它们之间的hash，只有hash匹配时才访问键。
+ * 超过8个映射的桶按hash排序并用二分查找，所以hashCode仅在高位不同的键代价为O(log n)；
+ * hashCode完全相等的键仍然需要逐个比较。
+ *
+ * <p>All fields are final and never change after construction, so a
+ * frozen map can be shared between threads without synchronization once
+ * it has been published, and there is no modCount to check.  Every
+ * mutator throws <tt>UnsupportedOperationException</tt>.
+ * 所有字段都是final的，构造之后不再改变，所以发布之后可以在线程之间无同步地共享，也没有modCount需要检查。
+ * 所有修改方法都抛出UnsupportedOperationException。
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see HashMap#freeze()
+ */
+public final class FrozenHashMap<K,V> extends AbstractMap<K,V>
+    implements Map<K,V>, Serializable {
+
+	/**
+	 * serialVersionUID:
+	 */
+	private static final long serialVersionUID = 4213397610253380712L;
+
+    /**
+     * Bins longer than this are sorted by hash and binary searched.
+     * 长度超过这个值的桶按hash排序并使用二分查找。
+     */
+    static final int LINEAR_SCAN = 8;
+
+    /** Stored hashes, grouped by bin. 保存的hash，按桶分组。 */
+    final transient int[] hashes;
+
+    /** Key of mapping i at 2*i, its value at 2*i+1. 映射i的键在2*i，值在2*i+1。 */
+    final transient Object[] table;
+
+    /** Mappings of bin b are at [index[b], index[b+1]). 桶b的映射位于[index[b], index[b+1])。 */
+    final transient int[] index;
+
+    final transient int mask;
+
+    /** Spreader of the map this was frozen from, or null. 被冻结的map的spreader，或null。 */
+    final transient HashSpreader spreader;
+
+    /**
+     * Builds the flat arrays from unordered mappings with known hashes:
+     * a counting sort by bin, then a sort by hash inside long bins.
+     * 从hash已知的无序映射构建平铺数组：先按桶计数排序，再对较长的桶按hash排序。
+     */
+    FrozenHashMap(int[] hs, Object[] kvs, int n, HashSpreader spreader) {
+        int m = HashMap.tableSizeFor(Math.max(n, 1));
+        int mask = m - 1;
+        int[] index = new int[m + 1];
+        for (int i = 0; i < n; ++i)
+            ++index[(hs[i] & mask) + 1];
+        for (int b = 0; b < m; ++b)
+            index[b + 1] += index[b];
+        int[] pos = Arrays.copyOf(index, m);
+        int[] hashes = new int[n];
+        Object[] table = new Object[n << 1];
+        for (int i = 0; i < n; ++i) {
+            int h = hs[i], j = pos[h & mask]++;
+            hashes[j] = h;
+            table[j << 1] = kvs[i << 1];
+            table[(j << 1) + 1] = kvs[(i << 1) + 1];
+        }
+        for (int b = 0; b < m; ++b) {
+            if (index[b + 1] - index[b] > LINEAR_SCAN)
+                sortByHash(hashes, table, index[b], index[b + 1]);
+        }
+        this.hashes = hashes;
+        this.table = table;
+        this.index = index;
+        this.mask = mask;
+        this.spreader = spreader;
+    }
+
+    /**
+     * Sorts the mappings in [lo, hi) by hash, through packed
+     * (hash, position) longs.
+     * 通过打包的(hash, 位置)long值，把[lo, hi)中的映射按hash排序。
+     */
+    private static void sortByHash(int[] hashes, Object[] table, int lo, int hi) {
+        int len = hi - lo;
+        long[] order = new long[len];
+        for (int i = 0; i < len; ++i)
+            order[i] = ((long)hashes[lo + i] << 32) | i;
+        Arrays.sort(order);
+        Object[] kvs = Arrays.copyOfRange(table, lo << 1, hi << 1);
+        for (int i = 0; i < len; ++i) {
+            int from = (int)order[i];
+            hashes[lo + i] = (int)(order[i] >> 32);
+            table[(lo + i) << 1] = kvs[from << 1];
+            table[((lo + i) << 1) + 1] = kvs[(from << 1) + 1];
+        }
+    }
+
+    /**
+     * Returns an immutable copy of the map.  A {@link HashMap} is frozen
+     * with its stored hashes and spreader, see {@link HashMap#freeze()};
+     * any other map is hashed with {@link HashMap#hash}.
+     * 返回给定map的不可变副本。HashMap使用其保存的hash和spreader冻结，见HashMap.freeze()；
+     * 其他map使用HashMap.hash计算hash。
+     *
+     * @param m the map to copy
+     * @return a frozen copy
+     * @throws NullPointerException if the map is null
+     */
+    @SuppressWarnings("unchecked")
+    public static <K,V> FrozenHashMap<K,V> copyOf(Map<? extends K, ? extends V> m) {
+        if (m instanceof FrozenHashMap)
+            return (FrozenHashMap<K,V>)m;
+        if (m instanceof HashMap)
+            return ((HashMap<K,V>)m).freeze();
+        int n = m.size(), i = 0;
+        int[] hs = new int[n];
+        Object[] kvs = new Object[n << 1];
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+            if (i == n)
+                throw new java.util.ConcurrentModificationException();
+            K k = e.getKey();
+            hs[i] = HashMap.hash(k);
+            kvs[i << 1] = k;
+            kvs[(i << 1) + 1] = e.getValue();
+            ++i;
+        }
+        if (i != n)
+            throw new java.util.ConcurrentModificationException();
+        return new FrozenHashMap<K,V>(hs, kvs, n, null);
+    }
+
+    final int spread(Object key) {
+        HashSpreader s = spreader;
+        return (s == null) ? HashMap.hash(key) : (key == null) ? 0 : s.spread(key.hashCode());
+    }
+
+    /**
+     * Returns the position of the mapping for the key, or -1.
+     * 返回键对应映射的位置，不存在返回-1。
+     */
+    final int indexOf(Object key) {
+        int h = spread(key);
+        int[] hs = hashes;
+        int b = h & mask, lo = index[b], hi = index[b + 1];
+        if (hi - lo > LINEAR_SCAN) {
+            // 有序的长桶：二分查找第一个hash >= h的位置
+            int l = lo, r = hi;
+            while (l < r) {
+                int mid = (l + r) >>> 1;
+                if (hs[mid] < h)
+                    l = mid + 1;
+                else
+                    r = mid;
+            }
+            for (int i = l; i < hi && hs[i] == h; ++i) {
+                Object k = table[i << 1];
+                if (k == key || (key != null && key.equals(k)))
+                    return i;
+            }
+            return -1;
+        }
+        for (int i = lo; i < hi; ++i) {
+            Object k;
+            if (hs[i] == h &&
+                ((k = table[i << 1]) == key || (key != null && key.equals(k))))
+                return i;
+        }
+        return -1;
+    }
+
+    public int size() {
+        return hashes.length;
+    }
+
+    public boolean isEmpty() {
+        return hashes.length == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int i = indexOf(key);
+        return (i < 0) ? null : (V)table[(i << 1) + 1];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        int i = indexOf(key);
+        return (i < 0) ? defaultValue : (V)table[(i << 1) + 1];
+    }
+
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    public boolean containsValue(Object value) {
+        Object[] tab = table;
+        for (int i = 1; i < tab.length; i += 2) {
+            Object v = tab[i];
+            if (v == value || (value != null && value.equals(v)))
+                return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Object[] tab = table;
+        for (int i = 0; i < tab.length; i += 2)
+            action.accept((K)tab[i], (V)tab[i + 1]);
+    }
+
+    public V put(K key, V value)                      { throw uoe(); }
+    public V remove(Object key)                       { throw uoe(); }
+    public void putAll(Map<? extends K, ? extends V> m) { throw uoe(); }
+    public void clear()                               { throw uoe(); }
+    public V putIfAbsent(K key, V value)              { throw uoe(); }
+
+    static UnsupportedOperationException uoe() {
+        return new UnsupportedOperationException("FrozenHashMap is immutable");
+    }
+
+    transient Set<Map.Entry<K,V>> entrySet;
+
+    /**
+     * Returns an unmodifiable {@link Set} view of the mappings, in bin
+     * order.
+     * 返回映射的不可修改Set视图，按桶的顺序排列。
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public int size() { return hashes.length; }
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            int i = indexOf(e.getKey());
+            Object v = (i < 0) ? null : table[(i << 1) + 1], ev = e.getValue();
+            return i >= 0 && (v == ev || (v != null && v.equals(ev)));
+        }
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return new Iterator<Map.Entry<K,V>>() {
+                int next;
+                public boolean hasNext() { return next < hashes.length; }
+                @SuppressWarnings("unchecked")
+                public Map.Entry<K,V> next() {
+                    int i = next;
+                    if (i >= hashes.length)
+                        throw new NoSuchElementException();
+                    next = i + 1;
+                    return new AbstractMap.SimpleImmutableEntry<K,V>(
+                        (K)table[i << 1], (V)table[(i << 1) + 1]);
+                }
+            };
+        }
+    }
+
+    /* ---------------- Serialization -------------- */
+
+    /**
+     * Serializes as a {@link SerializationProxy} holding the keys and
+     * values; the reader rebuilds the arrays with the default hash.
+     * 序列化为保存键和值的SerializationProxy；反序列化时使用默认的hash重建数组。
+     */
+    private Object writeReplace() {
+        return new SerializationProxy(table);
+    }
+
+    private void readObject(ObjectInputStream s) throws InvalidObjectException {
+        throw new InvalidObjectException("Proxy required");
+    }
+
+    private static final class SerializationProxy implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /** Keys and values, interleaved. @serial */
+        private final Object[] keysAndValues;
+
+        SerializationProxy(Object[] keysAndValues) {
+            this.keysAndValues = keysAndValues;
+        }
+
+        private Object readResolve() {
+            Object[] kvs = keysAndValues;
+            int n = kvs.length >>> 1;
+            int[] hs = new int[n];
+            for (int i = 0; i < n; ++i)
+                hs[i] = HashMap.hash(kvs[i << 1]);
+            return new FrozenHashMap<Object,Object>(hs, kvs.clone(), n, null);
+        }
+    }
+}
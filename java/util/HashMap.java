@@ -9,18 +9,32 @@
   
 package source.java.util;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.Serializable;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Hashtable;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 /**
  * Hash table based implementation of the <tt>Map</tt> interface.  This
@@ -109,6 +123,14 @@ import java.util.TreeMap;
  *synchronizedMap方法。这在创建时是最好的，以防止意外的不同步的对映射的访问：
  *Map m = Collections.synchronizedMap(new HashMap(...));
  *
+ * <p>A map created in incremental resize mode (see
+ * {@link #HashMap(int, float, boolean)}) moves bins between its tables
+ * only while adding or removing a mapping, which is a structural
+ * modification anyway.  Lookups, iteration and the other read-only
+ * operations walk both tables as they are and never change the map.
+ * 增量扩容模式(见HashMap(int, float, boolean))下创建的map只在添加或删除映射时在两张表之间迁移桶，
+ * 这本来就是结构修改。查找、迭代和其他只读操作按原样遍历两张表，从不修改map。
+ *
  * <p>The iterators returned by all of this class's "collection view methods"
  * are <i>fail-fast</i>: if the map is structurally modified at any time after
  * the iterator is created, in any way except through the iterator's own
@@ -315,7 +337,21 @@ public class HashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>,Cloneable
      * 
      */
     static final int MIN_TREEIFY_CAPACITY = 64;
-    
+
+    /**
+     * The least number of old-table bins visited by each insertion or
+     * removal while an incremental resize is in progress (in addition
+     * to the bin the operation itself needs).  The new table has room
+     * for about loadFactor * oldCap more insertions before it must grow
+     * again, so for load factors below 1 / RESIZE_MIGRATE_BINS the step
+     * is raised to about 1 / loadFactor (see migrateStep) to finish the
+     * migration in time.
+     * 增量扩容进行中时，每次插入或删除最少额外迁移的旧表桶数(另外还会迁移操作本身需要的桶)。
+     * 新表在再次扩容前还能容纳约 loadFactor * oldCap 次插入，所以负载因子小于 1 / RESIZE_MIGRATE_BINS 时，
+     * 步长会提高到约 1 / loadFactor(见migrateStep)，以便及时完成迁移。
+     */
+    static final int RESIZE_MIGRATE_BINS = 16;
+
     /**
      * Basic hash bin node, used for most entries.  (See below for
      * TreeNode subclass, and in LinkedHashMap for its Entry subclass.)
@@ -346,6 +382,10 @@ public class HashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>,Cloneable
 			return key + "=" + value;
 		}
 
+		public final int hashCode() {
+			return Objects.hashCode(key) ^ Objects.hashCode(value);
+		}
+
 		@Override
 		public V setValue(V newValue) {
 			  
@@ -389,6 +429,16 @@ public class HashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>,Cloneable
         int h;
         return (key == null) ? 0 : (h = key.hashCode()) ^ (h >>> 16);
     }
+
+    /**
+     * Computes the hash of a key for this map: {@link #hash} unless a
+     * spreader was given at construction.
+     * 计算键在此map中的hash：构造时没有指定spreader则使用hash()。
+     */
+    final int spread(Object key) {
+        HashSpreader s = spreader;
+        return (s == null) ? hash(key) : (key == null) ? 0 : s.spread(key.hashCode());
+    }
     
     static Class<?> comparableClassFor(Object x) {
         if (x instanceof Comparable) {
@@ -493,7 +543,122 @@ public class HashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>,Cloneable
      * @serial
      */
     final float loadFactor;
-    
+
+    /**
+     * Whether the table grows incrementally: when set, crossing the
+     * threshold installs a new table and leaves the old bins to be
+     * moved a few at a time by later operations, instead of rehashing
+     * everything in one resize() call.
+     * 是否增量扩容：开启后，超过阈值时只分配新表，旧表中的桶由后续操作每次迁移少量，
+     * 而不是在一次resize()调用中重新散列全部元素。
+     */
+    transient boolean incrementalResize;
+
+    /**
+     * The table being drained by an incremental resize, or null when
+     * no incremental resize is in progress.  Bins that have already
+     * been migrated are null.
+     * 增量扩容中正在被迁移的旧表，没有增量扩容时为null。已经迁移过的桶为null。
+     */
+    transient Node<K,V>[] oldTable;
+
+    /**
+     * The next bin of oldTable to be migrated in index order.
+     * 旧表中下一个按顺序迁移的桶下标。
+     */
+    transient int migrateIndex;
+
+    /**
+     * The number of old bins each step of the current incremental
+     * resize visits, set when it starts so that the old table is empty
+     * by the time the new one reaches its threshold.
+     * 当前增量扩容每一步访问的旧桶数，在扩容开始时设置，使新表达到阈值时旧表已经迁移完。
+     */
+    transient int migrateStep;
+
+    /**
+     * Resize counters, or null while statistics are disabled (the
+     * default), so a disabled map pays one null check per resize.
+     * 扩容计数器，禁用统计时(默认)为null，所以未启用的map每次扩容只多一次null检查。
+     */
+    transient HashMapStatistics.Recorder stats;
+
+    /**
+     * The hash spreading function, or null for the default XOR-shift
+     * of hash(Object).  Fixed at construction.
+     * hash扰动函数，为null时使用hash(Object)的默认异或移位。在构造时确定。
+     */
+    transient HashSpreader spreader;
+
+    /**
+     * The low-water mark for automatic shrinking, as a fraction of the
+     * threshold, or zero (the default) if the table never shrinks on
+     * removal.
+     * 自动收缩的低水位线，以阈值的比例表示；为0(默认)时删除不会收缩表。
+     */
+    transient float shrinkFactor;
+
+    /**
+     * The filter answering lookups of absent keys before the table is
+     * touched, or null (the default).  It holds the stored hash of
+     * every key.
+     * 在访问表之前回答对不存在的键的查找的过滤器，默认为null。它保存每个键的hash。
+     */
+    transient MembershipFilter filter;
+
+    /**
+     * Constructs an empty <tt>HashMap</tt> with the specified initial
+     * capacity, load factor and resize mode.  In incremental resize
+     * mode no single operation rehashes the whole table: when the size
+     * exceeds the threshold a table of twice the capacity is installed
+     * and every subsequent insertion or removal of a mapping moves the
+     * bin it needs plus a few further bins from the old table, enough to
+     * empty it before the new table fills up, so the cost of growing is
+     * spread over many operations.  Lookups, iteration and the other
+     * read-only operations look in both tables and never modify the
+     * map, so it can be shared read-only between threads at any time.
+     * 构造具有指定初始容量、负载因子和扩容模式的空HashMap。
+     * 在增量扩容模式下，没有任何一次操作需要重新散列整个表：
+     * 当size超过阈值时，分配一个两倍容量的新表，之后每次插入或删除映射时
+     * 迁移自己需要的桶以及旧表中的若干其他桶(足以在新表填满之前迁移完旧表)，从而把扩容成本分摊到多次操作中。
+     * 查找、迭代和其他只读操作在两张表中查找，从不修改map，所以任何时候都可以在线程间只读地共享。
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor
+     * @param  incrementalResize <tt>true</tt> to spread each resize over
+     *         subsequent operations, <tt>false</tt> for the default
+     *         all-at-once resize
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is nonpositive
+     */
+    public HashMap(int initialCapacity, float loadFactor, boolean incrementalResize) {
+        this(initialCapacity, loadFactor);
+        this.incrementalResize = incrementalResize;
+    }
+
+    /**
+     * Constructs an empty <tt>HashMap</tt> with the specified initial
+     * capacity, load factor and hash spreading function.  Key hash
+     * codes are passed through <tt>spreader</tt> instead of the default
+     * XOR of the high half into the low half; see {@link HashSpreader}
+     * for the choices.
+     * 构造具有指定初始容量、负载因子和hash扰动函数的空HashMap。
+     * 键的hashCode经过spreader处理，而不是默认的把高半部分异或到低半部分；可选的策略见HashSpreader。
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor
+     * @param  spreader        the hash spreading function
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is nonpositive
+     * @throws NullPointerException if the spreader is null
+     */
+    public HashMap(int initialCapacity, float loadFactor, HashSpreader spreader) {
+        this(initialCapacity, loadFactor);
+        if (spreader == null)
+            throw new NullPointerException();
+        this.spreader = spreader;
+    }
+
     /**
      * Constructs an empty <tt>HashMap</tt> with the specified initial
      * capacity and load factor.
@@ -577,27 +742,255 @@ public class HashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>,Cloneable
      * @param evict false when initially constructing this map, else
      * true (relayed to method afterNodeInsertion).
      */
+    @SuppressWarnings("unchecked")
     final void putMapEntries(Map<? extends K, ? extends V> m, boolean evict) {
+        // 两边都是LinkedHashMap时按源的链表顺序逐个插入，以保持顺序
+        if (m instanceof HashMap &&
+            !(m instanceof LinkedHashMap && this instanceof LinkedHashMap)) {
+            putHashMapEntries((HashMap<K,V>)m, evict);
+            return;
+        }
         int s = m.size();
         if (s > 0) {
-            if (table == null) { // pre-size
-                float ft = ((float)s / loadFactor) + 1.0F;
-                int t = ((ft < (float)MAXIMUM_CAPACITY) ?
-                         (int)ft : MAXIMUM_CAPACITY);
-                if (t > threshold)
-                    threshold = tableSizeFor(t);
-            } else if (s > threshold) {
-            	resize();
-            }
-                
+            presize((int)Math.min((long)size + s, Integer.MAX_VALUE));
             for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
                 K key = e.getKey();
                 V value = e.getValue();
-                putVal(hash(key), key, value, false, evict);
+                putVal(spread(key), key, value, false, evict);
+            }
+        }
+    }
+
+    /**
+     * Sizes the table, once, so that s mappings fit without a resize.
+     * An unallocated table just records the capacity in threshold; an
+     * allocated one is doubled until it is large enough.
+     * 一次性调整表的大小，使s个映射放入时不需要再扩容。表还未分配时只把容量记录在threshold中；
+     * 已分配的表则倍增到足够大。
+     */
+    final void presize(int s) {
+        if (table == null) {
+            float ft = ((float)s / loadFactor) + 1.0F;
+            int t = ((ft < (float)MAXIMUM_CAPACITY) ?
+                     (int)ft : MAXIMUM_CAPACITY);
+            if (t > threshold)
+                threshold = tableSizeFor(t);
+        }
+        else {
+            while (s > threshold && table.length < MAXIMUM_CAPACITY)
+                resize();
+        }
+    }
+
+    /**
+     * Bulk copy from another HashMap.  The source bins are walked
+     * directly, so no entry set or iterator is created and the stored
+     * Node.hash is reused instead of calling hash(key) again, provided
+     * both maps spread hashes the same way.
+     * 从另一个HashMap批量复制。直接遍历源map的桶，不创建entrySet和迭代器，
+     * 并在两个map的hash扰动方式相同时复用结点中保存的hash，而不是重新调用hash(key)。
+     *
+     * <p>When this map is empty and its table is at least as large as
+     * the source's, every node of source bin j lands in a bin whose
+     * index is congruent to j modulo the source capacity, so no two
+     * source bins feed the same target bin and no key can already be
+     * present.  Nodes are then pushed onto the front of their target bin
+     * without any equals() calls or threshold checks.  Target bins that
+     * end up as long as putVal would treeify are then passed to
+     * treeifyBin, which resizes instead while the table is small.
+     * Shrinking is suspended meanwhile: an eviction by
+     * afterNodeInsertion must not replace the table being filled.
+     * Otherwise each node goes through putVal.
+     * 当此map为空且表不小于源表时，源桶j中的每个结点都落入下标与j模源容量同余的桶，
+     * 所以不会有两个源桶写入同一个目标桶，键也不可能已经存在。这时直接把结点插到目标桶的头部，
+     * 不调用equals()，也不检查阈值。之后长度达到putVal树化标准的目标桶交给treeifyBin，表较小时它会改为扩容。
+     * 期间暂停收缩：afterNodeInsertion淘汰结点时不能替换正在填充的表。否则每个结点都走putVal。
+     */
+    final void putHashMapEntries(HashMap<K,V> m, boolean evict) {
+        int s = m.size;
+        if (s == 0 || m == this)
+            return;
+        presize((int)Math.min((long)size + s, Integer.MAX_VALUE));
+        if (oldTable != null)
+            finishIncrementalResize();
+        Node<K,V>[] tab = (table == null) ? resize() : table;
+        // 源map可能正处于增量扩容中，两张表中的结点合起来才是全部映射
+        Node<K,V>[] src = m.table, srcOld = m.oldTable;
+        boolean sameHash = (m.spreader == spreader);
+        if (sameHash && size == 0 && tab.length >= src.length) {
+            int n = tab.length;
+            // afterNodeInsertion可能淘汰结点，removeNode收缩时会替换table，
+            // 之后的结点就会写进旧表丢失，所以批量插入期间不收缩
+            float sf = shrinkFactor;
+            shrinkFactor = 0.0f;
+            try {
+                if (srcOld != null) {
+                    for (int j = m.migrateIndex; j < srcOld.length; ++j)
+                        pushBin(tab, n, srcOld[j], evict);
+                }
+                for (Node<K,V> b : src)
+                    pushBin(tab, n, b, evict);
+                treeifyLongBins();
+            } finally {
+                shrinkFactor = sf;
+            }
+            ++modCount;
+        }
+        else {
+            if (srcOld != null) {
+                for (int j = m.migrateIndex; j < srcOld.length; ++j) {
+                    for (Node<K,V> e = srcOld[j]; e != null; e = e.next)
+                        putVal(sameHash ? e.hash : spread(e.key), e.key, e.value,
+                               false, evict);
+                }
+            }
+            for (Node<K,V> b : src) {
+                for (Node<K,V> e = b; e != null; e = e.next)
+                    putVal(sameHash ? e.hash : spread(e.key), e.key, e.value,
+                           false, evict);
+            }
+        }
+    }
+
+    /**
+     * Pushes copies of the nodes of one source bin onto the front of
+     * their target bins; see putHashMapEntries.
+     */
+    private void pushBin(Node<K,V>[] tab, int n, Node<K,V> b, boolean evict) {
+        if (b == null)
+            return;
+        for (Node<K,V> e = b; e != null; e = e.next) {
+            int i = e.hash & (n - 1);
+            tab[i] = newNode(e.hash, e.key, e.value, tab[i]);
+            MembershipFilter f;
+            if ((f = filter) != null && !f.add(e.hash))
+                filter = null;
+            ++size;
+            afterNodeInsertion(evict);
+        }
+    }
+
+    /**
+     * Passes every linked bin of at least TREEIFY_THRESHOLD nodes to
+     * treeifyBin, as putVal would have done had the nodes been put one
+     * by one.  When treeifyBin resizes a small table instead, the scan
+     * starts over on the new table.
+     * 把每个至少有TREEIFY_THRESHOLD个结点的链表桶交给treeifyBin，就像逐个put时putVal会做的那样。
+     * 当treeifyBin因表较小而改为扩容时，在新表上重新扫描。
+     */
+    private void treeifyLongBins() {
+        Node<K,V>[] tab = table;
+        for (int i = 0; i < tab.length; ) {
+            Node<K,V> p = tab[i];
+            if (p == null || p instanceof TreeNode) {
+                ++i;
+                continue;
+            }
+            int binCount = 0;
+            for (Node<K,V> e = p; e != null && binCount < TREEIFY_THRESHOLD; e = e.next)
+                ++binCount;
+            if (binCount < TREEIFY_THRESHOLD)
+                ++i;
+            else {
+                treeifyBin(tab, p.hash);
+                if (table != tab) {  // 扩容了，从头扫描新表
+                    tab = table;
+                    i = 0;
+                }
             }
         }
     }
     
+    /**
+     * Returns the number of key-value mappings in this map.
+     * 返回此映射中键值映射的数量。
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     * 如果此映射不包含键值映射，则返回true。
+     *
+     * @return <tt>true</tt> if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     * 返回指定键映射的值，如果该映射不包含键的映射，则返回null。
+     *
+     * <p>More formally, if this map contains a mapping from a key
+     * {@code k} to a value {@code v} such that {@code (key==null ? k==null :
+     * key.equals(k))}, then this method returns {@code v}; otherwise
+     * it returns {@code null}.  (There can be at most one such mapping.)
+     *
+     * <p>A return value of {@code null} does not <i>necessarily</i>
+     * indicate that the map contains no mapping for the key; it's also
+     * possible that the map explicitly maps the key to {@code null}.
+     * The {@link #containsKey containsKey} operation may be used to
+     * distinguish these two cases.
+     * 返回null并不一定表示map不包含该键，也可能是该键显式映射为null，可用containsKey区分。
+     *
+     * @see #put(Object, Object)
+     */
+    public V get(Object key) {
+        Node<K,V> e;
+        return (e = getNode(spread(key), key)) == null ? null : e.value;
+    }
+
+    /**
+     * Implements Map.get and related methods
+     *
+     * @param hash hash for key
+     * @param key the key
+     * @return the node, or null if none
+     */
+    final Node<K,V> getNode(int hash, Object key) {
+        Node<K,V>[] tab; Node<K,V> first, e; int n; K k;
+        MembershipFilter f;
+        if ((f = filter) != null && !f.mightContain(hash))
+            return null;
+        // 增量扩容中：key所在的旧桶还没迁移时在旧表中查找，读操作不修改表
+        if (((tab = oldTable) != null &&
+             (first = tab[(tab.length - 1) & hash]) != null) ||
+            ((tab = table) != null && (n = tab.length) > 0 &&
+             (first = tab[(n - 1) & hash]) != null)) {
+            if (first.hash == hash && // always check first node
+                ((k = first.key) == key || (key != null && key.equals(k))))
+                return first;
+            if ((e = first.next) != null) {
+                if (first instanceof TreeNode)
+                    return ((TreeNode<K,V>)first).getTreeNode(hash, key);
+                do {
+                    if (e.hash == hash &&
+                        ((k = e.key) == key || (key != null && key.equals(k))))
+                        return e;
+                } while ((e = e.next) != null);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     * 如果该映射包含指定键的映射，则返回true。
+     *
+     * @param   key   The key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the specified
+     * key.
+     */
+    public boolean containsKey(Object key) {
+        return getNode(spread(key), key) != null;
+    }
+
     /**
      * Associates the specified value with the specified key in this map.
      * If the map previously contained a mapping for the key, the old
@@ -613,7 +1006,7 @@ public class HashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>,Cloneable
      *         previously associated <tt>null</tt> with <tt>key</tt>.)
      */
     public V put(K key, V value) {
-        return putVal(hash(key), key, value, false, true);
+        return putVal(spread(key), key, value, false, true);
     }
     
     /**
@@ -631,8 +1024,21 @@ public class HashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>,Cloneable
     final V putVal(int hash, K key, V value, boolean onlyIfAbsent,
                    boolean evict) {
         Node<K,V>[] tab;
-        Node<K,V> p; 
+        Node<K,V> p;
         int n, i;
+        if (oldTable != null) {
+            // 增量扩容中：键已存在时只替换值，不是结构修改，不能移动迭代器正在遍历的结点
+            Node<K,V> e;
+            if ((e = getNode(hash, key)) != null) {
+                V oldValue = e.value;
+                if (!onlyIfAbsent || oldValue == null)
+                    e.value = value;
+                afterNodeAccess(e);
+                return oldValue;
+            }
+            // 要插入新结点：先把key所在的旧桶及若干其他桶迁移到新表
+            migrateBins(hash);
+        }
         // 步骤①：tab为空则创建
         if ((tab = table) == null || (n = tab.length) == 0) {
         	 n = (tab = resize()).length;
@@ -675,11 +1081,17 @@ public class HashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>,Cloneable
                 return oldValue;
             }
         }
+        MembershipFilter f;
+        if ((f = filter) != null && !f.add(hash))
+            filter = null; // 过滤器已满，可能出现假阴性，只能摘除
         ++modCount;
         // 步骤⑥：超过最大容量 就扩容
         if (++size > threshold) {
-        	  resize();
-        }         
+            if (incrementalResize && tab.length >= DEFAULT_INITIAL_CAPACITY)
+                startIncrementalResize();
+            else
+                resize();
+        }
         afterNodeInsertion(evict);
         return null;
     }
@@ -697,6 +1109,10 @@ public class HashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>,Cloneable
      * @return the table
      */
     final Node<K,V>[] resize() {
+        if (oldTable != null)
+            finishIncrementalResize();
+        HashMapStatistics.Recorder r = stats;
+        long start = (r != null) ? System.nanoTime() : 0L;
         Node<K,V>[] oldTab = table;
         int oldCap = (oldTab == null) ? 0 : oldTab.length;
         int oldThr = threshold;
@@ -726,48 +1142,137 @@ public class HashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>,Cloneable
             Node<K,V>[] newTab = (Node<K,V>[])new Node[newCap];
         table = newTab;
         if (oldTab != null) {
-            for (int j = 0; j < oldCap; ++j) {
-                Node<K,V> e;
-                if ((e = oldTab[j]) != null) {
-                    oldTab[j] = null;
-                    if (e.next == null)
-                        newTab[e.hash & (newCap - 1)] = e;
-                    else if (e instanceof TreeNode)
-                        ((TreeNode<K,V>)e).split(this, newTab, j, oldCap);
-                    else { // preserve order
-                        Node<K,V> loHead = null, loTail = null;
-                        Node<K,V> hiHead = null, hiTail = null;
-                        Node<K,V> next;
-                        do {
-                            next = e.next;
-                            if ((e.hash & oldCap) == 0) {
-                                if (loTail == null)
-                                    loHead = e;
-                                else
-                                    loTail.next = e;
-                                loTail = e;
-                            }
-                            else {
-                                if (hiTail == null)
-                                    hiHead = e;
-                                else
-                                    hiTail.next = e;
-                                hiTail = e;
-                            }
-                        } while ((e = next) != null);
-                        if (loTail != null) {
-                            loTail.next = null;
-                            newTab[j] = loHead;
-                        }
-                        if (hiTail != null) {
-                            hiTail.next = null;
-                            newTab[j + oldCap] = hiHead;
-                        }
+            for (int j = 0; j < oldCap; ++j)
+                splitBin(oldTab, j, newTab);
+            if (r != null)
+                r.recordResize(System.nanoTime() - start);
+        }
+        return newTab;
+    }
+
+    /**
+     * Moves bin j of oldTab into newTab, whose length is twice that of
+     * oldTab.  Because we are using power-of-two expansion, each node
+     * either stays at index j or moves to j + oldCap, so the bin is
+     * split into a lo and a hi list preserving relative order.  Both
+     * target bins must be empty.
+     * 把oldTab的第j个桶迁移到长度为其两倍的newTab。由于使用2的幂扩展，
+     * 每个结点要么留在下标j，要么移动到j + oldCap，所以把桶拆分成lo和hi两条链并保持相对顺序。
+     * 两个目标桶必须为空。
+     */
+    final void splitBin(Node<K,V>[] oldTab, int j, Node<K,V>[] newTab) {
+        Node<K,V> e;
+        if ((e = oldTab[j]) != null) {
+            int oldCap = oldTab.length;
+            oldTab[j] = null;
+            if (e.next == null)
+                newTab[e.hash & (newTab.length - 1)] = e;
+            else if (e instanceof TreeNode)
+                ((TreeNode<K,V>)e).split(this, newTab, j, oldCap);
+            else { // preserve order
+                Node<K,V> loHead = null, loTail = null;
+                Node<K,V> hiHead = null, hiTail = null;
+                Node<K,V> next;
+                do {
+                    next = e.next;
+                    if ((e.hash & oldCap) == 0) {
+                        if (loTail == null)
+                            loHead = e;
+                        else
+                            loTail.next = e;
+                        loTail = e;
+                    }
+                    else {
+                        if (hiTail == null)
+                            hiHead = e;
+                        else
+                            hiTail.next = e;
+                        hiTail = e;
                     }
+                } while ((e = next) != null);
+                if (loTail != null) {
+                    loTail.next = null;
+                    newTab[j] = loHead;
+                }
+                if (hiTail != null) {
+                    hiTail.next = null;
+                    newTab[j + oldCap] = hiHead;
                 }
             }
         }
-        return newTab;
+    }
+
+    /**
+     * Starts an incremental resize: installs a table of twice the
+     * capacity and keeps the current one as oldTable, to be drained by
+     * migrateBins.  Called instead of resize() when the size exceeds
+     * the threshold in incremental resize mode.
+     * 开始一次增量扩容：分配两倍容量的新表，并把当前表保留为oldTable，由migrateBins逐步迁移。
+     */
+    final void startIncrementalResize() {
+        if (oldTable != null) // still draining the previous resize
+            finishIncrementalResize();
+        HashMapStatistics.Recorder r = stats;
+        long start = (r != null) ? System.nanoTime() : 0L;
+        Node<K,V>[] oldTab = table;
+        int oldCap = oldTab.length;
+        if (oldCap >= MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+        int newCap = oldCap << 1;
+        float ft = (float)newCap * loadFactor;
+        threshold = (newCap < MAXIMUM_CAPACITY && ft < (float)MAXIMUM_CAPACITY ?
+                     (int)ft : Integer.MAX_VALUE);
+        @SuppressWarnings({"rawtypes","unchecked"})
+            Node<K,V>[] newTab = (Node<K,V>[])new Node[newCap];
+        // 新表达到阈值之前至少还有 threshold - size 次插入，每次插入要分担 oldCap / (threshold - size) 个旧桶
+        long room = Math.max((long)threshold - size, 1L);
+        migrateStep = (int)Math.max(RESIZE_MIGRATE_BINS, (oldCap + room - 1) / room);
+        oldTable = oldTab;
+        migrateIndex = 0;
+        table = newTab;
+        if (r != null)
+            r.recordResize(System.nanoTime() - start);
+    }
+
+    /**
+     * Performs a bounded step of an incremental resize: moves the old
+     * bin that the given hash maps to (so that the caller only needs to
+     * look in the new table), then visits up to migrateStep further old
+     * bins in index order.  Called only by operations that add or
+     * remove a mapping, so that reads never move nodes.
+     * 执行一步有界的增量迁移：先迁移给定hash所在的旧桶(这样调用者只需要在新表中查找)，
+     * 然后按下标顺序最多再访问migrateStep个旧桶。只由添加或删除映射的操作调用，所以读操作从不移动结点。
+     */
+    final void migrateBins(int hash) {
+        Node<K,V>[] oldTab = oldTable, newTab = table;
+        int oldCap = oldTab.length;
+        splitBin(oldTab, hash & (oldCap - 1), newTab);
+        int j = migrateIndex;
+        int bound = (int)Math.min((long)j + migrateStep, oldCap);
+        for (; j < bound; ++j)
+            splitBin(oldTab, j, newTab);
+        migrateIndex = j;
+        if (j >= oldCap)
+            oldTable = null;
+    }
+
+    /**
+     * Moves every bin still left in oldTable, completing an
+     * incremental resize.
+     * 迁移oldTable中剩余的所有桶，完成增量扩容。
+     */
+    final void finishIncrementalResize() {
+        HashMapStatistics.Recorder r = stats;
+        long start = (r != null) ? System.nanoTime() : 0L;
+        Node<K,V>[] oldTab = oldTable, newTab = table;
+        for (int j = migrateIndex; j < oldTab.length; ++j)
+            splitBin(oldTab, j, newTab);
+        migrateIndex = oldTab.length;
+        oldTable = null;
+        if (r != null)
+            r.recordResizeTime(System.nanoTime() - start);
     }
     
     /**
@@ -806,7 +1311,7 @@ public class HashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>,Cloneable
      */
     public V remove(Object key) {
         Node<K,V> e;
-        return (e = removeNode(hash(key), key, null, false, true)) == null ?
+        return (e = removeNode(spread(key), key, null, false, true)) == null ?
             null : e.value;
     }
     
@@ -822,8 +1327,13 @@ public class HashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>,Cloneable
      */
     final Node<K,V> removeNode(int hash, Object key, Object value,
                                boolean matchValue, boolean movable) {
-        Node<K,V>[] tab; Node<K,V> p; int n, index;
-        if ((tab = table) != null && (n = tab.length) > 0 &&
+        Node<K,V>[] tab, old; Node<K,V> p; int n, index;
+        // 增量扩容中：key所在的旧桶还没迁移时在旧表中删除，找到并删除了结点之后才迁移
+        if ((old = oldTable) == null || old[(old.length - 1) & hash] == null)
+            tab = table;
+        else
+            tab = old;
+        if (tab != null && (n = tab.length) > 0 &&
             (p = tab[index = (n - 1) & hash]) != null) {
             Node<K,V> node = null, e; K k; V v;
             if (p.hash == hash &&
@@ -852,41 +1362,2043 @@ public class HashMap<K,V> extends AbstractMap<K,V> implements Map<K,V>,Cloneable
                     tab[index] = node.next;
                 else
                     p.next = node.next;
+                MembershipFilter f;
+                if ((f = filter) != null && f.supportsRemove())
+                    f.remove(hash);
                 ++modCount;
                 --size;
+                // 迭代器删除时(movable为false)不迁移，迭代器正在遍历两张表
+                if (movable && oldTable != null)
+                    migrateBins(hash);
                 afterNodeRemoval(node);
+                if (movable && shrinkFactor > 0.0f &&
+                    size < (int)(threshold * shrinkFactor) &&
+                    (tab = table).length > DEFAULT_INITIAL_CAPACITY)
+                    shrink(tab.length >>> 1);
                 return node;
             }
         }
         return null;
     }
-    
+
+    /**
+     * Removes all of the mappings from this map.
+     * The map will be empty after this call returns.
+     * 删除此映射中的所有映射。调用返回后映射为空。
+     */
+    public void clear() {
+        Node<K,V>[] tab;
+        modCount++;
+        oldTable = null;
+        migrateIndex = 0;
+        if (filter != null)
+            filter.clear();
+        if ((tab = table) != null && size > 0) {
+            size = 0;
+            for (int i = 0; i < tab.length; ++i)
+                tab[i] = null;
+        }
+    }
+
+    /**
+     * Returns a {@link Set} view of the keys contained in this map.
+     * The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  If the map is modified
+     * while an iteration over the set is in progress (except through
+     * the iterator's own <tt>remove</tt> operation), the results of
+     * the iteration are undefined.  The set supports element removal,
+     * which removes the corresponding mapping from the map, via the
+     * <tt>Iterator.remove</tt>, <tt>Set.remove</tt>,
+     * <tt>removeAll</tt>, <tt>retainAll</tt>, and <tt>clear</tt>
+     * operations.  It does not support the <tt>add</tt> or <tt>addAll</tt>
+     * operations.
+     * 返回此映射中包含的键的Set视图。该集合由映射支持，对映射的更改会反映在集合中，反之亦然。
+     * 支持删除元素，但不支持add和addAll操作。
+     *
+     * @return a set view of the keys contained in this map
+     */
+    public Set<K> keySet() {
+        Set<K> ks = keySet;
+        if (ks == null) {
+            ks = new KeySet();
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public final int size()                 { return size; }
+        public final void clear()               { HashMap.this.clear(); }
+        public final Iterator<K> iterator()     { return new KeyIterator(); }
+        public final boolean contains(Object o) { return containsKey(o); }
+        public final boolean remove(Object key) {
+            return removeNode(spread(key), key, null, false, true) != null;
+        }
+        public final Spliterator<K> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.SIZED |
+                                            Spliterator.DISTINCT);
+        }
+        public final void forEach(Consumer<? super K> action) {
+            Node<K,V>[] tab;
+            if (action == null)
+                throw new NullPointerException();
+            if (size > 0 && (tab = table) != null) {
+                Node<K,V>[] old = oldTable;
+                int mc = modCount;
+                for (int i = 0, n = binSpan(tab, old); i < n; ++i) {
+                    for (Node<K,V> e = binAt(tab, old, i); e != null; e = e.next)
+                        action.accept(e.key);
+                }
+                if (modCount != mc)
+                    throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Returns a {@link Collection} view of the values contained in this map.
+     * The collection is backed by the map, so changes to the map are
+     * reflected in the collection, and vice-versa.  It supports element
+     * removal but not the <tt>add</tt> or <tt>addAll</tt> operations.
+     * 返回此映射中包含的值的Collection视图。该集合由映射支持，支持删除元素，但不支持add和addAll操作。
+     *
+     * @return a view of the values contained in this map
+     */
+    public Collection<V> values() {
+        Collection<V> vs = values;
+        if (vs == null) {
+            vs = new Values();
+            values = vs;
+        }
+        return vs;
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public final int size()                 { return size; }
+        public final void clear()               { HashMap.this.clear(); }
+        public final Iterator<V> iterator()     { return new ValueIterator(); }
+        public final boolean contains(Object o) { return containsValue(o); }
+        public final Spliterator<V> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.SIZED);
+        }
+        public final void forEach(Consumer<? super V> action) {
+            Node<K,V>[] tab;
+            if (action == null)
+                throw new NullPointerException();
+            if (size > 0 && (tab = table) != null) {
+                Node<K,V>[] old = oldTable;
+                int mc = modCount;
+                for (int i = 0, n = binSpan(tab, old); i < n; ++i) {
+                    for (Node<K,V> e = binAt(tab, old, i); e != null; e = e.next)
+                        action.accept(e.value);
+                }
+                if (modCount != mc)
+                    throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  If the map is modified
+     * while an iteration over the set is in progress (except through
+     * the iterator's own <tt>remove</tt> operation, or through the
+     * <tt>setValue</tt> operation on a map entry returned by the
+     * iterator) the results of the iteration are undefined.  It
+     * supports element removal but not the <tt>add</tt> or
+     * <tt>addAll</tt> operations.
+     * 返回此映射中包含的映射的Set视图。该集合由映射支持，支持删除元素，但不支持add和addAll操作。
+     *
+     * @return a set view of the mappings contained in this map
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public final int size()                 { return size; }
+        public final void clear()               { HashMap.this.clear(); }
+        public final Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey();
+            Node<K,V> candidate = getNode(spread(key), key);
+            return candidate != null && candidate.equals(e);
+        }
+        public final boolean remove(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+                Object key = e.getKey();
+                Object value = e.getValue();
+                return removeNode(spread(key), key, value, true, true) != null;
+            }
+            return false;
+        }
+        public final Spliterator<Map.Entry<K,V>> spliterator() {
+            return entrySpliterator();
+        }
+        public final void forEach(Consumer<? super Map.Entry<K,V>> action) {
+            Node<K,V>[] tab;
+            if (action == null)
+                throw new NullPointerException();
+            if (size > 0 && (tab = table) != null) {
+                Node<K,V>[] old = oldTable;
+                int mc = modCount;
+                for (int i = 0, n = binSpan(tab, old); i < n; ++i) {
+                    for (Node<K,V> e = binAt(tab, old, i); e != null; e = e.next)
+                        action.accept(e);
+                }
+                if (modCount != mc)
+                    throw new ConcurrentModificationException();
+            }
+        }
+    }
+
     /* ------------------------------------------------------------ */
-    // LinkedHashMap support
+    // Cloning support
 
+    /**
+     * Returns a shallow copy of this <tt>HashMap</tt> instance: the keys and
+     * values themselves are not cloned.  The copy keeps the spreader,
+     * resize mode and shrink factor, and starts with statistics
+     * disabled.
+     * 返回此HashMap实例的浅拷贝：键和值本身不会被克隆。副本保留spreader、扩容模式和收缩比例，统计默认关闭。
+     *
+     * @return a shallow copy of this map
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object clone() {
+        HashMap<K,V> result;
+        try {
+            result = (HashMap<K,V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        result.reinitialize();
+        result.putMapEntries(this, false);
+        return result;
+    }
 
-    /*
-     * The following package-protected methods are designed to be
-     * overridden by LinkedHashMap, but not by any other subclass.
-     * Nearly all other internal methods are also package-protected
-     * but are declared final, so can be used by LinkedHashMap, view
-     * classes, and HashSet.
+    // These methods are also used when serializing HashSets
+    // HashSet序列化时也使用这两个方法
+    final float loadFactor() { return loadFactor; }
+    final int capacity() {
+        return (table != null) ? table.length :
+            (threshold > 0) ? threshold :
+            DEFAULT_INITIAL_CAPACITY;
+    }
+
+    /**
+     * Reset to initial default state.  Called by clone; subclasses
+     * extend it to reset their own state.
+     * 重置为初始的默认状态。由clone调用，子类覆盖它以清除自己的状态。
      */
+    void reinitialize() {
+        table = null;
+        oldTable = null;
+        migrateIndex = 0;
+        entrySet = null;
+        keySet = null;
+        values = null;
+        stats = null;
+        filter = null;
+        modCount = 0;
+        threshold = 0;
+        size = 0;
+    }
 
-    // Create a regular (non-tree) node
-    Node<K,V> newNode(int hash, K key, V value, Node<K,V> next) {
-        return new Node<>(hash, key, value, next);
+    /* ------------------------------------------------------------ */
+    // iterators
+
+    abstract class HashIterator {
+        Node<K,V> next;        // next entry to return
+        Node<K,V> current;     // current entry
+        int expectedModCount;  // for fast-fail
+        int index;             // current slot
+        Node<K,V>[] tab, old;  // 增量扩容中先遍历新表，再遍历旧表中还没迁移的桶
+
+        HashIterator() {
+            Node<K,V>[] t = (size > 0) ? table : null;
+            expectedModCount = modCount;
+            current = next = null;
+            index = 0;
+            if ((tab = t) != null) { // advance to first entry
+                old = oldTable;
+                int n = binSpan(t, old);
+                do {} while (index < n && (next = binAt(t, old, index++)) == null);
+            }
+        }
+
+        public final boolean hasNext() {
+            return next != null;
+        }
+
+        final Node<K,V> nextNode() {
+            Node<K,V>[] t;
+            Node<K,V> e = next;
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (e == null)
+                throw new NoSuchElementException();
+            if ((next = (current = e).next) == null && (t = tab) != null) {
+                Node<K,V>[] o = old;
+                int n = binSpan(t, o);
+                do {} while (index < n && (next = binAt(t, o, index++)) == null);
+            }
+            return e;
+        }
+
+        public final void remove() {
+            Node<K,V> p = current;
+            if (p == null)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            current = null;
+            K key = p.key;
+            removeNode(p.hash, key, null, false, false);
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends HashIterator
+        implements Iterator<K> {
+        public final K next() { return nextNode().key; }
+    }
+
+    final class ValueIterator extends HashIterator
+        implements Iterator<V> {
+        public final V next() { return nextNode().value; }
+    }
+
+    final class EntryIterator extends HashIterator
+        implements Iterator<Map.Entry<K,V>> {
+        public final Map.Entry<K,V> next() { return nextNode(); }
     }
     
-    
-    static final class TreeNode<K,V> extends LinkedHashMap.Entry<K,V> {
-        TreeNode<K,V> parent;  // red-black tree links
-        TreeNode<K,V> left;
-        TreeNode<K,V> right;
+    /* ------------------------------------------------------------ */
+    // Shrinking
+
+    /**
+     * Sets the low-water mark at which removals shrink the table, as a
+     * fraction of the threshold: once a remove leaves fewer than
+     * <tt>threshold * shrinkFactor</tt> mappings, the table is halved,
+     * down to the default capacity.  Zero, the default, disables
+     * automatic shrinking, so a table only ever grows.  The factor must
+     * stay below one half, so that the halved table is not immediately
+     * over its own threshold and growing and shrinking cannot alternate.
+     * Removals through an iterator never shrink the table.
+     * 设置删除时收缩表的低水位线，以阈值的比例表示：一次删除之后映射数少于
+     * threshold * shrinkFactor时，把表减半，最小到默认容量。默认值0表示不自动收缩，表只会增长。
+     * 该比例必须小于二分之一，这样减半后的表不会立刻超过自己的阈值，也就不会交替扩容和收缩。
+     * 通过迭代器删除时从不收缩表。
+     *
+     * @param shrinkFactor the low-water mark, in [0, 0.5)
+     * @throws IllegalArgumentException if shrinkFactor is negative, NaN
+     *         or not less than 0.5
+     */
+    public void setShrinkFactor(float shrinkFactor) {
+        if (!(shrinkFactor >= 0.0f && shrinkFactor < 0.5f))
+            throw new IllegalArgumentException("Illegal shrink factor: " +
+                                               shrinkFactor);
+        this.shrinkFactor = shrinkFactor;
+    }
+
+    /**
+     * Shrinks the table to the smallest power-of-two capacity that
+     * holds the current mappings within the load factor, releasing it
+     * altogether when the map is empty (a later put allocates a table
+     * of the default capacity).  Useful after a burst of insertions
+     * has been removed again, since the table does not otherwise
+     * shrink, and iteration time is proportional to its capacity.
+     * 把表收缩到能在负载因子内容纳当前映射的最小的2的幂容量，map为空时直接释放表
+     * (之后的put会分配默认容量的表)。适用于一批插入的元素又被删除之后，因为表本身不会收缩，
+     * 而迭代时间与容量成正比。
+     */
+    public void trimToSize() {
+        Node<K,V>[] tab = bulkTable();
+        if (tab == null)
+            return;
+        if (size == 0) {
+            ++modCount;
+            table = null;
+            threshold = 0;
+            return;
+        }
+        float ft = ((float)size / loadFactor) + 1.0F;
+        int cap = tableSizeFor((ft < (float)MAXIMUM_CAPACITY) ?
+                               (int)ft : MAXIMUM_CAPACITY);
+        if (cap < tab.length)
+            shrink(cap);
+    }
+
+    /**
+     * Replaces the table by one of the given smaller power-of-two
+     * capacity, merging bins with mergeBins.
+     * 用给定的更小的2的幂容量的表替换当前表，用mergeBins合并桶。
+     */
+    final void shrink(int newCap) {
+        if (oldTable != null)
+            finishIncrementalResize();
+        HashMapStatistics.Recorder r = stats;
+        long start = (r != null) ? System.nanoTime() : 0L;
+        Node<K,V>[] oldTab = table;
+        @SuppressWarnings({"rawtypes","unchecked"})
+            Node<K,V>[] newTab = (Node<K,V>[])new Node[newCap];
+        for (int j = 0; j < newCap; ++j)
+            mergeBins(oldTab, j, newTab);
+        float ft = (float)newCap * loadFactor;
+        threshold = (newCap < MAXIMUM_CAPACITY && ft < (float)MAXIMUM_CAPACITY ?
+                     (int)ft : Integer.MAX_VALUE);
+        table = newTab;
+        ++modCount;
+        if (r != null)
+            r.recordShrink(System.nanoTime() - start);
+    }
+
+    /**
+     * Moves the bins j, j + newCap, j + 2*newCap, ... of oldTab into bin
+     * j of newTab, whose length newCap divides that of oldTab: the
+     * reverse of splitBin.  The lists are concatenated in index order,
+     * preserving relative order.  The merged bin is a tree bin if it
+     * reaches TREEIFY_THRESHOLD nodes, or if any of its parts was a
+     * tree bin and it has more than UNTREEIFY_THRESHOLD nodes, provided
+     * newTab is at least MIN_TREEIFY_CAPACITY long; otherwise it is a
+     * plain list.
+     * 把oldTab的第j、j + newCap、j + 2*newCap……个桶移到newTab的第j个桶，newTab的长度newCap
+     * 整除oldTab的长度：这是splitBin的逆操作。各链表按下标顺序拼接，保持相对顺序。
+     * 合并后的桶在结点数达到TREEIFY_THRESHOLD，或者其中某一部分原本是树桶且结点数超过
+     * UNTREEIFY_THRESHOLD时成为树桶，前提是newTab的长度不小于MIN_TREEIFY_CAPACITY；否则是普通链表。
+     */
+    final void mergeBins(Node<K,V>[] oldTab, int j, Node<K,V>[] newTab) {
+        int newCap = newTab.length, count = 0;
+        boolean wasTree = false;
+        for (int i = j; i < oldTab.length; i += newCap) {
+            Node<K,V> b = oldTab[i];
+            if (b instanceof TreeNode)
+                wasTree = true;
+            for (; b != null; b = b.next)
+                ++count;
+        }
+        if (count == 0)
+            return;
+        boolean toTree = newCap >= MIN_TREEIFY_CAPACITY &&
+            (count >= TREEIFY_THRESHOLD ||
+             (wasTree && count > UNTREEIFY_THRESHOLD));
+        Node<K,V> hd = null, tl = null;
+        for (int i = j; i < oldTab.length; i += newCap) {
+            Node<K,V> e = oldTab[i], next;
+            oldTab[i] = null;
+            for (; e != null; e = next) {
+                next = e.next;
+                Node<K,V> p;
+                if (toTree) {
+                    TreeNode<K,V> t = (e instanceof TreeNode) ?
+                        (TreeNode<K,V>)e : replacementTreeNode(e, null);
+                    t.prev = (TreeNode<K,V>)tl;
+                    p = t;
+                }
+                else
+                    p = (e instanceof TreeNode) ? replacementNode(e, null) : e;
+                p.next = null;
+                if (tl == null)
+                    hd = p;
+                else
+                    tl.next = p;
+                tl = p;
+            }
+        }
+        newTab[j] = hd;
+        if (toTree)
+            ((TreeNode<K,V>)hd).treeify(newTab);
+    }
+
+    /* ------------------------------------------------------------ */
+    // Batched get and put
+
+    /**
+     * Walks the bins of a batch of hashes in two passes: the first loads
+     * every bin head, the second follows each chain to the first node
+     * whose stored hash matches.  Within a pass the loads for different
+     * keys do not depend on each other, so the processor can overlap
+     * their cache misses, which a loop of get() calls, each a chain of
+     * dependent loads, cannot do.  This is as close as Java gets to
+     * prefetching.  Tree bins are left at their first node.  During an
+     * incremental resize a bin not yet moved out of old is walked
+     * there instead.
+     * 分两遍遍历一批hash的桶：第一遍读取每个桶的头结点，第二遍沿每条链找到第一个保存的hash相同的结点。
+     * 同一遍中不同键的读取互不依赖，处理器可以让它们的缓存未命中重叠进行，而循环调用get()时
+     * 每次都是一串相互依赖的读取，做不到这一点。这是Java中最接近预取的做法。树桶停在其第一个结点。
+     * 增量扩容中还没有从old迁移出来的桶在old中遍历。
+     *
+     * @return for each hash, the first node of its bin with that hash,
+     *         the first node of its tree bin, or null
+     */
+    final Node<K,V>[] prefetchBins(Node<K,V>[] tab, Node<K,V>[] old, int[] hashes) {
+        int k = hashes.length, n = tab.length;
+        @SuppressWarnings({"rawtypes","unchecked"})
+        Node<K,V>[] heads = (Node<K,V>[])new Node[k];
+        for (int i = 0; i < k; ++i)
+            heads[i] = tab[(n - 1) & hashes[i]];
+        if (old != null) {
+            for (int i = 0, m = old.length; i < k; ++i) {
+                Node<K,V> o = old[(m - 1) & hashes[i]];
+                if (o != null)
+                    heads[i] = o;
+            }
+        }
+        for (int i = 0; i < k; ++i) {
+            Node<K,V> e = heads[i];
+            if (e != null && !(e instanceof TreeNode)) {
+                int h = hashes[i];
+                while (e != null && e.hash != h)
+                    e = e.next;
+                heads[i] = e;
+            }
+        }
+        return heads;
+    }
+
+    /**
+     * Sorts a batch of hashes in place by their bin in a table of length
+     * n, keeping argument order within a bin, so that the batch walks
+     * the table from front to back instead of jumping around it.
+     * 把一批hash按在长度为n的表中所在的桶原地排序，同一个桶内保持参数顺序，
+     * 使这批操作从前往后依次访问表，而不是在表中来回跳跃。
+     *
+     * @return for each sorted position, the argument position of the
+     *         hash now there
+     */
+    static int[] sortByBin(int[] hashes, int n) {
+        int k = hashes.length;
+        long[] keyed = new long[k];
+        for (int i = 0; i < k; ++i)   // 高32位是桶下标，低32位是参数位置
+            keyed[i] = ((long)(hashes[i] & (n - 1)) << 32) | i;
+        Arrays.sort(keyed);
+        int[] order = new int[k];
+        int[] h = hashes.clone();
+        for (int i = 0; i < k; ++i)
+            hashes[i] = h[order[i] = (int)keyed[i]];
+        return order;
+    }
+
+    /**
+     * Finishes a lookup started by prefetchBins from the node it left
+     * for the key: searches the tree if it is a tree bin, else compares
+     * keys along the rest of the chain.
+     * 从prefetchBins为该键留下的结点开始完成查找：如果是树桶则在树中查找，否则沿链表的剩余部分比较键。
+     */
+    final Node<K,V> findNode(Node<K,V> e, int h, Object key) {
+        if (e instanceof TreeNode)
+            return ((TreeNode<K,V>)e).getTreeNode(h, key);
+        K k;
+        do {
+            if (e.hash == h &&
+                ((k = e.key) == key || (key != null && key.equals(k))))
+                return e;
+        } while ((e = e.next) != null);
+        return null;
+    }
+
+    /**
+     * Looks up a batch of keys and passes each key that has a mapping,
+     * along with its value, to the given action.  All hashes are
+     * computed first, the keys are ordered by bin (see sortByBin), and
+     * the bins are walked for all keys together (see prefetchBins)
+     * before any key is compared, so for a table much larger than the
+     * CPU caches this is considerably faster than calling get for each
+     * key.  The action therefore sees the keys in bin order, not in
+     * argument order.  No Map.Entry objects are created.
+     * 批量查找一组键，把每个存在映射的键及其值传给给定的动作。先计算所有hash，把键按桶排序(见sortByBin)，
+     * 在比较任何键之前一起遍历所有键的桶(见prefetchBins)，所以当表远大于CPU缓存时，
+     * 比对每个键调用get快得多。因此动作按桶的顺序而不是参数顺序得到键。不创建Map.Entry对象。
+     *
+     * <p>The action is not called for keys without a mapping, and must
+     * not modify this map.
+     * 对没有映射的键不会调用动作，动作也不能修改此map。
+     *
+     * @param keys the keys to look up
+     * @param action the action to perform for each key found
+     * @return the number of keys found
+     * @throws NullPointerException if keys or action is null
+     * @throws ConcurrentModificationException if the map was
+     *         structurally modified by the action
+     */
+    public int getAll(K[] keys, BiConsumer<? super K,? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        int k = keys.length;
+        Node<K,V>[] tab;
+        if (size == 0 || (tab = table) == null)
+            return 0;
+        int[] hashes = new int[k];
+        for (int i = 0; i < k; ++i)
+            hashes[i] = spread(keys[i]);
+        int[] order = sortByBin(hashes, tab.length);
+        Node<K,V>[] heads = prefetchBins(tab, oldTable, hashes);
+        int found = 0, mc = modCount;
+        for (int i = 0; i < k; ++i) {
+            Node<K,V> e; K key = keys[order[i]];
+            if ((e = heads[i]) != null &&
+                (e = findNode(e, hashes[i], key)) != null) {
+                action.accept(key, e.value);
+                ++found;
+            }
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+        return found;
+    }
+
+    /**
+     * Associates each of the given keys with the value at the same
+     * position.  The table is sized once up front as if every key were
+     * new, the keys are ordered by bin (see sortByBin), and the bins are
+     * walked for all keys together (see prefetchBins) before the
+     * entries are put.  Equal keys share a bin, where argument order is
+     * kept, so when a key occurs more than once its last value wins, as
+     * with a loop over put.
+     * 把给定的每个键与相同位置的值关联。先按所有键都是新键一次性调整表的大小，把键按桶排序(见sortByBin)，
+     * 并在放入之前一起遍历所有键的桶(见prefetchBins)。相等的键在同一个桶中，桶内保持参数顺序，
+     * 所以同一个键出现多次时，与循环调用put一样，最后一个值生效。
+     *
+     * @param keys the keys
+     * @param values the values, one per key
+     * @throws NullPointerException if keys or values is null
+     * @throws IllegalArgumentException if keys and values differ in length
+     */
+    public void putAll(K[] keys, V[] values) {
+        int k = keys.length;
+        if (values.length != k)
+            throw new IllegalArgumentException("Keys and values differ in length: " +
+                                               k + " != " + values.length);
+        if (k == 0)
+            return;
+        int[] hashes = new int[k];
+        for (int i = 0; i < k; ++i)
+            hashes[i] = spread(keys[i]);
+        presize((int)Math.min((long)size + k, Integer.MAX_VALUE));
+        Node<K,V>[] tab = bulkTable();
+        int[] order = (tab == null) ? null : sortByBin(hashes, tab.length);
+        Node<K,V>[] heads = (tab == null || size == 0) ? null :
+            prefetchBins(tab, null, hashes);
+        // 预先找到的结点只在本批次还没有插入时可信：插入可能树化桶，LinkedHashMap还可能淘汰结点。
+        // 不能比较modCount，访问顺序的LinkedHashMap在afterNodeAccess中也会增加它
+        boolean inserted = false;
+        for (int i = 0; i < k; ++i) {
+            int j = (order == null) ? i : order[i];
+            Node<K,V> e;
+            if (heads != null && !inserted && (e = heads[i]) != null &&
+                (e = findNode(e, hashes[i], keys[j])) != null) {
+                e.value = values[j];
+                afterNodeAccess(e);
+            }
+            else {
+                putVal(hashes[i], keys[j], values[j], false, true);
+                inserted = true;
+            }
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // Serialization
+
+    /**
+     * Save the state of the <tt>HashMap</tt> instance to a stream (i.e.,
+     * serialize it).
+     * 把HashMap实例的状态保存到流中(即序列化)。
+     *
+     * @serialData The <i>capacity</i> of the HashMap (the length of the
+     *             bucket array) is emitted (int), followed by the
+     *             <i>size</i> (an int, the number of key-value
+     *             mappings), followed by the key (Object) and value (Object)
+     *             for each key-value mapping.  The key-value mappings are
+     *             emitted in no particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        Node<K,V>[] tab = table;
+        int buckets = (tab != null) ? tab.length :
+            (threshold > 0) ? threshold : DEFAULT_INITIAL_CAPACITY;
+        s.defaultWriteObject();
+        s.writeInt(buckets);
+        s.writeInt(size);
+        internalWriteEntries(s);
+    }
+
+    /**
+     * Reconstitute the {@code HashMap} instance from a stream (i.e.,
+     * deserialize it).  Keys are rehashed with the default
+     * {@link #hash}: the resize mode, spreader and statistics are not
+     * part of the serial form.
+     * 从流中重建HashMap实例(即反序列化)。键使用默认的hash()重新散列：扩容模式、spreader和统计都不属于序列化形式。
+     */
+    @SuppressWarnings({"rawtypes","unchecked"})
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        // Read in the threshold (ignored), loadfactor, and any hidden stuff
+        s.defaultReadObject();
+        if (loadFactor <= 0 || Float.isNaN(loadFactor))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        s.readInt();                // Read and ignore number of buckets
+        int mappings = s.readInt(); // Read number of mappings (size)
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        else if (mappings > 0) { // (if zero, use defaults)
+            // Size the table using given load factor only if within
+            // range of 0.25...4.0
+            float lf = Math.min(Math.max(0.25f, loadFactor), 4.0f);
+            float fc = (float)mappings / lf + 1.0f;
+            int cap = ((fc < DEFAULT_INITIAL_CAPACITY) ?
+                       DEFAULT_INITIAL_CAPACITY :
+                       (fc >= MAXIMUM_CAPACITY) ?
+                       MAXIMUM_CAPACITY :
+                       tableSizeFor((int)fc));
+            float ft = (float)cap * lf;
+            threshold = ((cap < MAXIMUM_CAPACITY && ft < MAXIMUM_CAPACITY) ?
+                         (int)ft : Integer.MAX_VALUE);
+            Node<K,V>[] tab = (Node<K,V>[])new Node[cap];
+            table = tab;
+
+            // Read the keys and values, and put the mappings in the HashMap
+            for (int i = 0; i < mappings; i++) {
+                K key = (K) s.readObject();
+                V value = (V) s.readObject();
+                putVal(hash(key), key, value, false, false);
+            }
+        }
+        else
+            threshold = 0;
+    }
+
+    /* ------------------------------------------------------------ */
+    // Freezing
+
+    /**
+     * Returns an immutable, read-optimized copy of this map.  The stored
+     * hashes and the spreader are reused, so no key is hashed again; the
+     * mappings are counting-sorted by bin into flat arrays with one bin
+     * per mapping.  This map is not changed.
+     * 返回此map的一个不可变、为读取优化的副本。复用保存的hash和spreader，所以不会重新计算任何键的hash；
+     * 映射按桶计数排序到平铺数组中，每个映射一个桶。此map不会被改变。
+     *
+     * @return a frozen copy of this map
+     * @see FrozenHashMap
+     */
+    public FrozenHashMap<K,V> freeze() {
+        Node<K,V>[] tab = table, old = oldTable;
+        int n = size, i = 0;
+        int[] hs = new int[n];
+        Object[] kvs = new Object[n << 1];
+        if (tab != null) {
+            for (int j = 0, span = binSpan(tab, old); j < span; ++j) {
+                for (Node<K,V> e = binAt(tab, old, j); e != null; e = e.next) {
+                    hs[i] = e.hash;
+                    kvs[i << 1] = e.key;
+                    kvs[(i << 1) + 1] = e.value;
+                    ++i;
+                }
+            }
+        }
+        return new FrozenHashMap<K,V>(hs, kvs, n, spreader);
+    }
+
+    /* ------------------------------------------------------------ */
+    // Membership filter
+
+    /**
+     * Puts a membership filter in front of this map, or removes it if
+     * <tt>filter</tt> is null.  The filter is cleared and loaded with
+     * the stored hash of every key, then kept up to date by every
+     * insertion and, if it supports removal, every removal.  A lookup
+     * (<tt>get</tt>, <tt>containsKey</tt> and the like) whose hash the
+     * filter rules out returns at once without touching the table, so
+     * a map that mostly answers "absent" saves a bin walk and its cache
+     * misses on most calls.  The filter never causes a wrong answer: a
+     * false positive just falls through to the table, and a filter that
+     * reports itself full is dropped.  Removed keys linger in a filter
+     * without removal, raising its false positive rate; attaching it
+     * again rebuilds it.  Clones start without a filter.
+     * 在此map前面放置一个成员过滤器，filter为null时移除。过滤器会被清空，并载入每个键保存的hash，
+     * 之后每次插入都会更新它，如果它支持删除，每次删除也会更新它。过滤器排除了其hash的查找(get、containsKey等)
+     * 立即返回，不访问表，所以对于大多数回答都是"不存在"的map，大部分调用都省去了一次桶遍历及其缓存未命中。
+     * 过滤器不会导致错误的结果：误判只会继续去查表，报告已满的过滤器会被摘除。
+     * 不支持删除的过滤器中会残留已删除的键，使误判率升高；重新attach会重建它。克隆出的map没有过滤器。
+     *
+     * @param filter the filter, sized for the keys this map will hold,
+     *        or null
+     * @throws IllegalArgumentException if the filter cannot hold the
+     *         current keys: it is too small or, for a {@link CuckooFilter},
+     *         more than eight keys share one hash; the map is then
+     *         left without a filter
+     * @see MembershipFilter
+     */
+    public void attachFilter(MembershipFilter filter) {
+        // 装载完成之前不挂上过滤器：重新attach当前的过滤器时，清空后未装满的过滤器会产生假阴性
+        this.filter = null;
+        if (filter != null) {
+            filter.clear();
+            Node<K,V>[] tab = table, old = oldTable;
+            if (tab != null && size > 0) {
+                for (int i = 0, n = binSpan(tab, old); i < n; ++i) {
+                    for (Node<K,V> e = binAt(tab, old, i); e != null; e = e.next) {
+                        if (!filter.add(e.hash))
+                            throw new IllegalArgumentException("Filter too small for " +
+                                                               size + " keys");
+                    }
+                }
+            }
+        }
+        this.filter = filter;
+    }
+
+    /**
+     * Returns the attached membership filter, or null if there is none,
+     * including when a full filter has been dropped.
+     * 返回附加的成员过滤器，没有时返回null(包括已满的过滤器被摘除之后)。
+     *
+     * @return the filter, or null
+     */
+    public MembershipFilter filter() {
+        return filter;
+    }
+
+    /* ------------------------------------------------------------ */
+    // Statistics
+
+    /**
+     * Starts recording resize counts and times for this map.  Has no
+     * effect if statistics are already enabled.
+     * 开始记录此map的扩容次数和耗时。已经启用时没有效果。
+     *
+     * @see HashMapStatistics
+     */
+    public void enableStatistics() {
+        if (stats == null)
+            stats = new HashMapStatistics.Recorder();
+    }
+
+    /**
+     * Enables statistics and registers this map under the given name, so
+     * that {@link HashMapStatistics#snapshotAll()} reports it for as long
+     * as the map is reachable.
+     * 启用统计并以给定名字注册此map，只要map仍可达，HashMapStatistics.snapshotAll()就会报告它。
+     *
+     * @param name the name to report this map under
+     * @throws NullPointerException if the name is null
+     */
+    public void enableStatistics(String name) {
+        enableStatistics();
+        HashMapStatistics.register(name, this);
+    }
+
+    /**
+     * Stops recording and discards the resize counters.
+     * 停止记录并丢弃扩容计数器。
+     */
+    public void disableStatistics() {
+        stats = null;
+    }
+
+    /**
+     * Returns a snapshot of the shape of this map, computed by walking
+     * the table, or null if statistics are not enabled.
+     * 返回此map形态的快照(通过遍历表计算)，未启用统计时返回null。
+     *
+     * @return the statistics, or null
+     */
+    public HashMapStatistics statistics() {
+        HashMapStatistics.Recorder r = stats;
+        return (r == null) ? null : HashMapStatistics.of(this, r);
+    }
+
+    /* ------------------------------------------------------------ */
+    // Spliterators
+
+    /**
+     * Returns a {@link Spliterator} over the mappings in this map.  It
+     * splits by halving the range of table bins it still has to visit,
+     * and reports {@link Spliterator#SIZED} only until the first split.
+     * It is <em>fail-fast</em>: a structural modification of the map
+     * after traversal starts causes a
+     * {@link ConcurrentModificationException}.
+     * 返回此map中映射的Spliterator。它通过把尚未访问的桶区间一分为二来拆分，
+     * 只有在第一次拆分之前才报告SIZED。它是快速失败的：开始遍历后map发生结构修改，会抛出ConcurrentModificationException。
+     *
+     * @return a spliterator over the mappings in this map
+     */
+    public Spliterator<Map.Entry<K,V>> entrySpliterator() {
+        return new EntrySpliterator<>(this, 0, -1, 0, 0);
+    }
+
+    static class HashMapSpliterator<K,V> {
+        final HashMap<K,V> map;
+        Node<K,V> current;          // current node
+        int index;                  // current index, modified on advance/split
+        int fence;                  // one past last index
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+
+        HashMapSpliterator(HashMap<K,V> m, int origin,
+                           int fence, int est,
+                           int expectedModCount) {
+            this.map = m;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                HashMap<K,V> m = map;
+                est = m.size;
+                expectedModCount = m.modCount;
+                // 增量扩容中的结点可能还在旧表里：桶区间覆盖新表之后接着旧表(见binAt)
+                hi = fence = binSpan(m.table, m.oldTable);
+            }
+            return hi;
+        }
+
+        public final long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+    }
+
+    static final class EntrySpliterator<K,V>
+        extends HashMapSpliterator<K,V>
+        implements Spliterator<Map.Entry<K,V>> {
+        EntrySpliterator(HashMap<K,V> m, int origin, int fence, int est,
+                         int expectedModCount) {
+            super(m, origin, fence, est, expectedModCount);
+        }
+
+        public EntrySpliterator<K,V> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid || current != null) ? null :
+                new EntrySpliterator<>(map, lo, index = mid, est >>>= 1,
+                                       expectedModCount);
+        }
+
+        public void forEachRemaining(Consumer<? super Map.Entry<K,V>> action) {
+            int i, hi, mc;
+            if (action == null)
+                throw new NullPointerException();
+            HashMap<K,V> m = map;
+            hi = getFence();
+            mc = expectedModCount;
+            Node<K,V>[] tab = m.table, old = m.oldTable;
+            if (tab != null && binSpan(tab, old) >= hi &&
+                (i = index) >= 0 && (i < (index = hi) || current != null)) {
+                Node<K,V> p = current;
+                current = null;
+                do {
+                    if (p == null)
+                        p = binAt(tab, old, i++);
+                    else {
+                        action.accept(p);
+                        p = p.next;
+                    }
+                } while (p != null || i < hi);
+                if (m.modCount != mc)
+                    throw new ConcurrentModificationException();
+            }
+        }
+
+        public boolean tryAdvance(Consumer<? super Map.Entry<K,V>> action) {
+            int hi;
+            if (action == null)
+                throw new NullPointerException();
+            hi = getFence();
+            Node<K,V>[] tab = map.table, old = map.oldTable;
+            if (tab != null && binSpan(tab, old) >= hi && index >= 0) {
+                while (current != null || index < hi) {
+                    if (current == null)
+                        current = binAt(tab, old, index++);
+                    else {
+                        Node<K,V> e = current;
+                        current = current.next;
+                        action.accept(e);
+                        if (map.modCount != expectedModCount)
+                            throw new ConcurrentModificationException();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ? Spliterator.SIZED : 0) |
+                Spliterator.DISTINCT;
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // Parallel bulk operations
+
+    /*
+     * The bulk operations below take a parallelismThreshold argument.
+     * If the map has fewer mappings than the threshold they run
+     * sequentially in the calling thread, so Long.MAX_VALUE suppresses
+     * all parallelism and 1 gives the most.  Otherwise the table is cut
+     * into ranges of bins that are processed as ForkJoinTasks in the
+     * common pool; a range is halved until the batch count, derived
+     * like ConcurrentHashMap's from the threshold and the pool's
+     * parallelism, is used up.  Bins are disjoint, so the tasks share no
+     * state except the result of search.
+     * 下面的批量操作都接受一个parallelismThreshold参数。map中映射数少于该阈值时，在调用线程中顺序执行，
+     * 所以Long.MAX_VALUE会禁止并行，1则获得最大并行度。否则把表切成若干桶区间，
+     * 作为ForkJoinTask在公共池中执行；区间不断对半拆分，直到用完批次数(与ConcurrentHashMap一样由阈值和池的并行度算出)。
+     * 各个桶互不相交，所以除了search的结果之外，任务之间不共享状态。
+     *
+     * This map is not thread-safe: the functions must not modify it,
+     * and no other thread may modify it while an operation runs.  A
+     * change to modCount seen at the end is reported as a
+     * ConcurrentModificationException, on a best-effort basis.
+     * 此map不是线程安全的：传入的函数不能修改它，执行期间其他线程也不能修改它。
+     * 结束时若发现modCount发生变化，会尽力抛出ConcurrentModificationException。
+     */
+
+    /**
+     * Computes initial batch value for bulk tasks. The returned value
+     * is approximately exp2 of the number of times (minus one) to
+     * split task by two before executing leaf action.
+     * 计算批量任务的初始批次值。返回值约为执行叶子动作之前将任务一分为二的次数(减一)的2的幂。
+     */
+    final int batchFor(long b) {
+        long n;
+        if (b == Long.MAX_VALUE || (n = size) <= 1L || n < b)
+            return 0;
+        int sp = ForkJoinPool.getCommonPoolParallelism() << 2; // slack of 4
+        return (b <= 0L || (n /= b) >= sp) ? sp : (int)n;
+    }
+
+    /**
+     * Returns the table for a write that needs every node in it, first
+     * finishing any incremental resize.  Reads use binSpan and binAt
+     * instead, so that they do not change the map.
+     * 返回需要所有结点都在同一张表中的写操作要使用的表，先完成正在进行的增量扩容。
+     * 读操作改用binSpan和binAt，这样不会修改map。
+     */
+    final Node<K,V>[] bulkTable() {
+        if (oldTable != null)
+            finishIncrementalResize();
+        return table;
+    }
+
+    /**
+     * Returns the number of bins a whole-table read walks through binAt:
+     * those of tab followed, during an incremental resize, by those of
+     * the old table.  Every node is in exactly one of them.
+     * 返回整表读操作通过binAt遍历的桶数：tab的桶，增量扩容中再加上旧表的桶。每个结点恰好在其中一个桶中。
+     */
+    static int binSpan(Node<?,?>[] tab, Node<?,?>[] old) {
+        return (tab == null) ? 0 :
+            (old == null) ? tab.length : tab.length + old.length;
+    }
+
+    /**
+     * Returns bin i of tab followed by old, for i below binSpan.
+     * 返回tab之后接着old组成的序列中的第i个桶，i小于binSpan。
+     */
+    static <N extends Node<?,?>> N binAt(N[] tab, N[] old, int i) {
+        int n = tab.length;
+        return (i < n) ? tab[i] : old[i - n];
+    }
+
+    /**
+     * Performs the given action for each (key, value).
+     * 对每个(key, value)执行给定的动作。
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param action the action
+     * @throws ConcurrentModificationException if the map was
+     *         structurally modified during the operation
+     */
+    public void forEach(long parallelismThreshold,
+                        BiConsumer<? super K,? super V> action) {
+        if (action == null) throw new NullPointerException();
+        Node<K,V>[] tab = table, old = oldTable;
+        if (tab == null || size == 0)
+            return;
+        int mc = modCount;
+        new ForEachTask<K,V>(tab, old, 0, binSpan(tab, old),
+                             batchFor(parallelismThreshold),
+                             action).invokeBulk();
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Returns the result of accumulating all non-null values using the
+     * given reducer to combine values, or null if there are none.  The
+     * reducer must be associative; the order in which values are
+     * combined is unspecified.
+     * 用给定的reducer合并所有非null的值并返回结果，没有这样的值时返回null。
+     * reducer必须满足结合律；合并的顺序不确定。
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param reducer a commutative associative combining function
+     * @return the result of accumulating all values
+     * @throws ConcurrentModificationException if the map was
+     *         structurally modified during the operation
+     */
+    public V reduceValues(long parallelismThreshold,
+                          BiFunction<? super V, ? super V, ? extends V> reducer) {
+        if (reducer == null) throw new NullPointerException();
+        Node<K,V>[] tab = table, old = oldTable;
+        if (tab == null || size == 0)
+            return null;
+        int mc = modCount;
+        V r = new ReduceValuesTask<K,V>(tab, old, 0, binSpan(tab, old),
+                                        batchFor(parallelismThreshold),
+                                        reducer).invokeBulk();
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+        return r;
+    }
+
+    /**
+     * Returns a non-null result from applying the given search
+     * function on each (key, value), or null if none.  Upon success,
+     * further element processing is suppressed and the results of any
+     * other parallel invocations of the search function are ignored.
+     * 对每个(key, value)应用给定的搜索函数，返回一个非null的结果，都没有时返回null。
+     * 一旦成功，后续的元素处理就会停止，其他并行调用的搜索函数的结果也会被忽略。
+     *
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for this operation to be executed in parallel
+     * @param searchFunction a function returning a non-null
+     * result on success, else null
+     * @param <U> the return type of the search function
+     * @return a non-null result from applying the given search
+     * function on each (key, value), or null if none
+     * @throws ConcurrentModificationException if the map was
+     *         structurally modified during the operation
+     */
+    public <U> U search(long parallelismThreshold,
+                        BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        if (searchFunction == null) throw new NullPointerException();
+        Node<K,V>[] tab = table, old = oldTable;
+        if (tab == null || size == 0)
+            return null;
+        int mc = modCount;
+        AtomicReference<U> result = new AtomicReference<U>();
+        new SearchTask<K,V,U>(tab, old, 0, binSpan(tab, old),
+                              batchFor(parallelismThreshold),
+                              searchFunction, result).invokeBulk();
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+        return result.get();
+    }
+
+    /**
+     * Returns copies of the nodes of this map whose key is a key of
+     * other (if present is true) or is not (if false), with keys, values
+     * and stored hashes but no tree links, chained through next.  The
+     * probing runs as a bulk task over this map's bins, so it is split
+     * across the common pool once this map holds at least
+     * parallelismThreshold mappings.  The stored hash is used to probe
+     * other when both maps spread hashes the same way.  Neither map may
+     * be modified meanwhile.
+     * 返回此map中键存在于other中(present为true)或不存在于other中(present为false)的结点的副本，
+     * 带有键、值和保存的hash，但没有树链接，通过next串成链表。探测作为对此map各个桶的批量任务执行，
+     * 所以此map的映射数不少于parallelismThreshold时会拆分到公共池中并行执行。
+     * 两个map的hash扰动方式相同时用保存的hash在other中探测。期间两个map都不能被修改。
+     *
+     * @return the first copied node, or null if none
+     * @throws ConcurrentModificationException if either map was
+     *         structurally modified during the operation
+     */
+    final Node<K,V> matchNodes(HashMap<?,?> other, boolean present,
+                               long parallelismThreshold) {
+        Node<K,V>[] tab = table, old = oldTable;
+        if (tab == null || size == 0)
+            return null;
+        int mc = modCount, omc = other.modCount;
+        Node<K,V>[] r = new MatchTask<K,V>(tab, old, 0, binSpan(tab, old),
+                                           batchFor(parallelismThreshold),
+                                           other, spreader == other.spreader,
+                                           present).invokeBulk();
+        if (modCount != mc || other.modCount != omc)
+            throw new ConcurrentModificationException();
+        return (r == null) ? null : r[0];
+    }
+
+    /**
+     * Base class for bulk tasks over the bin range [lo, hi) of a table
+     * followed by the old table of an incremental resize (see binAt).
+     * While batch is positive the range is halved, the left half forked
+     * and the right half computed in place; leaves walk their bins and
+     * results are combined on the way back.
+     * 对表(增量扩容中接着旧表，见binAt)中[lo, hi)桶区间执行的批量任务的基类。batch为正时把区间对半拆分，
+     * fork左半部分，右半部分在当前线程计算；叶子任务遍历各自的桶，结果在返回时合并。
+     */
+    @SuppressWarnings("serial")
+    abstract static class BulkTask<K,V,R> extends RecursiveTask<R> {
+        final Node<K,V>[] tab, old;
+        final int lo, hi;
+        final int batch;
+
+        BulkTask(Node<K,V>[] tab, Node<K,V>[] old, int lo, int hi, int batch) {
+            this.tab = tab; this.old = old;
+            this.lo = lo; this.hi = hi; this.batch = batch;
+        }
+
+        /** Creates the task for a sub-range */
+        abstract BulkTask<K,V,R> subTask(int lo, int hi, int batch);
+
+        /** Processes the bins of [lo, hi) sequentially */
+        abstract R leaf(int lo, int hi);
+
+        /** Combines the results of two halves; either may be null */
+        R combine(R a, R b) { return a; }
+
+        /** Runs in the common pool, or in the caller if sequential */
+        final R invokeBulk() {
+            return (batch > 0) ? ForkJoinPool.commonPool().invoke(this) :
+                leaf(lo, hi);
+        }
+
+        protected final R compute() {
+            int l = lo, h = hi, b = batch;
+            if (b <= 0 || h - l <= 1)
+                return leaf(l, h);
+            int mid = (l + h) >>> 1;
+            b >>>= 1;
+            BulkTask<K,V,R> left = subTask(l, mid, b);
+            left.fork();
+            R r = subTask(mid, h, b).compute();
+            return combine(left.join(), r);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ForEachTask<K,V> extends BulkTask<K,V,Void> {
+        final BiConsumer<? super K, ? super V> action;
+        ForEachTask(Node<K,V>[] tab, Node<K,V>[] old, int lo, int hi, int batch,
+                    BiConsumer<? super K, ? super V> action) {
+            super(tab, old, lo, hi, batch);
+            this.action = action;
+        }
+        BulkTask<K,V,Void> subTask(int lo, int hi, int batch) {
+            return new ForEachTask<K,V>(tab, old, lo, hi, batch, action);
+        }
+        Void leaf(int lo, int hi) {
+            for (int i = lo; i < hi; ++i) {
+                for (Node<K,V> e = binAt(tab, old, i); e != null; e = e.next)
+                    action.accept(e.key, e.value);
+            }
+            return null;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ReduceValuesTask<K,V> extends BulkTask<K,V,V> {
+        final BiFunction<? super V, ? super V, ? extends V> reducer;
+        ReduceValuesTask(Node<K,V>[] tab, Node<K,V>[] old, int lo, int hi, int batch,
+                         BiFunction<? super V, ? super V, ? extends V> reducer) {
+            super(tab, old, lo, hi, batch);
+            this.reducer = reducer;
+        }
+        BulkTask<K,V,V> subTask(int lo, int hi, int batch) {
+            return new ReduceValuesTask<K,V>(tab, old, lo, hi, batch, reducer);
+        }
+        V leaf(int lo, int hi) {
+            V r = null;
+            for (int i = lo; i < hi; ++i) {
+                for (Node<K,V> e = binAt(tab, old, i); e != null; e = e.next) {
+                    V v = e.value;
+                    if (v != null)
+                        r = (r == null) ? v : reducer.apply(r, v);
+                }
+            }
+            return r;
+        }
+        V combine(V a, V b) {
+            return (a == null) ? b : (b == null) ? a : reducer.apply(a, b);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class SearchTask<K,V,U> extends BulkTask<K,V,Void> {
+        final BiFunction<? super K, ? super V, ? extends U> searchFunction;
+        final AtomicReference<U> result;
+        SearchTask(Node<K,V>[] tab, Node<K,V>[] old, int lo, int hi, int batch,
+                   BiFunction<? super K, ? super V, ? extends U> searchFunction,
+                   AtomicReference<U> result) {
+            super(tab, old, lo, hi, batch);
+            this.searchFunction = searchFunction;
+            this.result = result;
+        }
+        BulkTask<K,V,Void> subTask(int lo, int hi, int batch) {
+            return new SearchTask<K,V,U>(tab, old, lo, hi, batch, searchFunction,
+                                         result);
+        }
+        Void leaf(int lo, int hi) {
+            for (int i = lo; i < hi && result.get() == null; ++i) {
+                for (Node<K,V> e = binAt(tab, old, i); e != null; e = e.next) {
+                    U u = searchFunction.apply(e.key, e.value);
+                    if (u != null) {
+                        result.compareAndSet(null, u);
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Collects copies of the nodes whose presence in another map is as
+     * wanted.  Each leaf returns the head and tail of its own chain, so
+     * combining two halves is a single link.
+     * 收集在另一个map中是否存在符合要求的结点副本。每个叶子任务返回自己链表的头和尾，所以合并两半只需要链接一次。
+     */
+    @SuppressWarnings("serial")
+    static final class MatchTask<K,V> extends BulkTask<K,V,Node<K,V>[]> {
+        final HashMap<?,?> other;
+        final boolean sameHash, present;
+        MatchTask(Node<K,V>[] tab, Node<K,V>[] old, int lo, int hi, int batch,
+                  HashMap<?,?> other, boolean sameHash, boolean present) {
+            super(tab, old, lo, hi, batch);
+            this.other = other;
+            this.sameHash = sameHash;
+            this.present = present;
+        }
+        BulkTask<K,V,Node<K,V>[]> subTask(int lo, int hi, int batch) {
+            return new MatchTask<K,V>(tab, old, lo, hi, batch, other, sameHash,
+                                      present);
+        }
+        Node<K,V>[] leaf(int lo, int hi) {
+            HashMap<?,?> m = other;
+            Node<K,V> head = null, tail = null;
+            for (int i = lo; i < hi; ++i) {
+                for (Node<K,V> e = binAt(tab, old, i); e != null; e = e.next) {
+                    int h = sameHash ? e.hash : m.spread(e.key);
+                    if ((m.getNode(h, e.key) != null) == present) {
+                        Node<K,V> c = new Node<>(e.hash, e.key, e.value, null);
+                        if (tail == null)
+                            head = c;
+                        else
+                            tail.next = c;
+                        tail = c;
+                    }
+                }
+            }
+            if (head == null)
+                return null;
+            @SuppressWarnings({"rawtypes","unchecked"})
+                Node<K,V>[] r = (Node<K,V>[])new Node[] { head, tail };
+            return r;
+        }
+        Node<K,V>[] combine(Node<K,V>[] a, Node<K,V>[] b) {
+            if (a == null)
+                return b;
+            if (b != null) {
+                a[1].next = b[0];
+                a[1] = b[1];
+            }
+            return a;
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // LinkedHashMap support
+
+
+    /*
+     * The following package-protected methods are designed to be
+     * overridden by LinkedHashMap, but not by any other subclass.
+     * Nearly all other internal methods are also package-protected
+     * but are declared final, so can be used by LinkedHashMap, view
+     * classes, and HashSet.
+     */
+
+    // Create a regular (non-tree) node
+    Node<K,V> newNode(int hash, K key, V value, Node<K,V> next) {
+        return new Node<>(hash, key, value, next);
+    }
+
+    // For conversion from TreeNodes to plain nodes
+    Node<K,V> replacementNode(Node<K,V> p, Node<K,V> next) {
+        return new Node<>(p.hash, p.key, p.value, next);
+    }
+
+    // Create a tree bin node
+    TreeNode<K,V> newTreeNode(int hash, K key, V value, Node<K,V> next) {
+        return new TreeNode<>(hash, key, value, next);
+    }
+
+    // For treeifyBin
+    TreeNode<K,V> replacementTreeNode(Node<K,V> p, Node<K,V> next) {
+        return new TreeNode<>(p.hash, p.key, p.value, next);
+    }
+
+    // Callbacks to allow LinkedHashMap post-actions
+    // 允许LinkedHashMap在访问、插入、删除结点之后执行后续动作的回调
+    void afterNodeAccess(Node<K,V> p) { }
+    void afterNodeInsertion(boolean evict) { }
+    void afterNodeRemoval(Node<K,V> p) { }
+
+    // Called only from writeObject, to ensure compatible ordering.
+    // 只在writeObject中调用，LinkedHashMap覆盖它以按链表顺序写出
+    void internalWriteEntries(java.io.ObjectOutputStream s) throws IOException {
+        Node<K,V>[] tab;
+        if (size > 0 && (tab = table) != null) {
+            Node<K,V>[] old = oldTable;
+            for (int i = 0, n = binSpan(tab, old); i < n; ++i) {
+                for (Node<K,V> e = binAt(tab, old, i); e != null; e = e.next) {
+                    s.writeObject(e.key);
+                    s.writeObject(e.value);
+                }
+            }
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // Tree bins
+
+    /**
+     * Entry for Tree bins. Extends LinkedHashMap.Entry (which in turn
+     * extends Node) so can be used as extension of either regular or
+     * linked node.
+     * 树形桶的结点。继承LinkedHashMap.Entry(它又继承自Node)，所以既可以作为普通结点也可以作为链接结点的扩展。
+     *
+     * <p>A tree bin is a red-black tree ordered by hash, then (for keys
+     * of the same "class C implements Comparable&lt;C&gt;") by compareTo,
+     * then by class name and identity hash code as a tie breaker.  The
+     * next/prev links keep the bin's original traversal order so that
+     * split and untreeify can walk it like a plain list.  Lookups cost
+     * O(log n) when colliding keys have distinct hashes or are mutually
+     * Comparable; keys with identical hashes that cannot be compared
+     * force find() to search both subtrees.
+     * 树形桶是一棵红黑树，首先按hash排序，hash相同时(若键是"class C implements Comparable<C>")按compareTo排序，
+     * 最后以类名和identityHashCode作为决胜规则。next/prev链接保持桶原有的遍历顺序，
+     * 使split和untreeify可以像普通链表一样遍历。当冲突的键hash不同或可以相互比较时，查找代价为O(log n)；
+     * hash完全相同又不可比较的键会迫使find()搜索左右两棵子树。
+     */
+    static final class TreeNode<K,V> extends LinkedHashMap.Entry<K,V> {
+        TreeNode<K,V> parent;  // red-black tree links
+        TreeNode<K,V> left;
+        TreeNode<K,V> right;
         TreeNode<K,V> prev;    // needed to unlink next upon deletion
         boolean red;
-        
-        
+        TreeNode(int hash, K key, V val, Node<K,V> next) {
+            super(hash, key, val, next);
+        }
+
+        /**
+         * Returns root of tree containing this node.
+         * 返回包含该结点的树的根结点。
+         */
+        final TreeNode<K,V> root() {
+            for (TreeNode<K,V> r = this, p;;) {
+                if ((p = r.parent) == null)
+                    return r;
+                r = p;
+            }
+        }
+
+        /**
+         * Ensures that the given root is the first node of its bin.
+         * 确保给定的根结点是所在桶的第一个结点。
+         */
+        static <K,V> void moveRootToFront(Node<K,V>[] tab, TreeNode<K,V> root) {
+            int n;
+            if (root != null && tab != null && (n = tab.length) > 0) {
+                int index = (n - 1) & root.hash;
+                TreeNode<K,V> first = (TreeNode<K,V>)tab[index];
+                if (root != first) {
+                    Node<K,V> rn;
+                    tab[index] = root;
+                    TreeNode<K,V> rp = root.prev;
+                    if ((rn = root.next) != null)
+                        ((TreeNode<K,V>)rn).prev = rp;
+                    if (rp != null)
+                        rp.next = rn;
+                    if (first != null)
+                        first.prev = root;
+                    root.next = first;
+                    root.prev = null;
+                }
+                assert checkInvariants(root);
+            }
+        }
+
+        /**
+         * Finds the node starting at root p with the given hash and key.
+         * The kc argument caches comparableClassFor(key) upon first use
+         * comparing keys.
+         * 从根结点p开始查找具有给定hash和key的结点。
+         * kc参数缓存第一次比较键时comparableClassFor(key)的结果。
+         */
+        final TreeNode<K,V> find(int h, Object k, Class<?> kc) {
+            TreeNode<K,V> p = this;
+            do {
+                int ph, dir; K pk;
+                TreeNode<K,V> pl = p.left, pr = p.right, q;
+                if ((ph = p.hash) > h)
+                    p = pl;
+                else if (ph < h)
+                    p = pr;
+                else if ((pk = p.key) == k || (k != null && k.equals(pk)))
+                    return p;
+                else if (pl == null)
+                    p = pr;
+                else if (pr == null)
+                    p = pl;
+                else if ((kc != null ||
+                          (kc = comparableClassFor(k)) != null) &&
+                         (dir = compareComparables(kc, k, pk)) != 0)
+                    p = (dir < 0) ? pl : pr;
+                else if ((q = pr.find(h, k, kc)) != null)
+                    // hash相同且无法比较，只能两棵子树都搜索
+                    return q;
+                else
+                    p = pl;
+            } while (p != null);
+            return null;
+        }
+
+        /**
+         * Calls find for root node.
+         */
+        final TreeNode<K,V> getTreeNode(int h, Object k) {
+            return ((parent != null) ? root() : this).find(h, k, null);
+        }
+
+        /**
+         * Tie-breaking utility for ordering insertions when equal
+         * hashCodes and non-comparable. We don't require a total
+         * order, just a consistent insertion rule to maintain
+         * equivalence across rebalancings. Tie-breaking further than
+         * necessary simplifies testing a bit.
+         * hash相同且不可比较时用于决定插入顺序的工具方法。
+         * 不需要全序，只需要一个一致的插入规则，以便在重新平衡时保持等价性。
+         */
+        static int tieBreakOrder(Object a, Object b) {
+            int d;
+            if (a == null || b == null ||
+                (d = a.getClass().getName().
+                 compareTo(b.getClass().getName())) == 0)
+                d = (System.identityHashCode(a) <= System.identityHashCode(b) ?
+                     -1 : 1);
+            return d;
+        }
+
+        /**
+         * Forms tree of the nodes linked from this node.
+         * 把从该结点开始链接的所有结点构造成红黑树。
+         */
+        final void treeify(Node<K,V>[] tab) {
+            TreeNode<K,V> root = null;
+            for (TreeNode<K,V> x = this, next; x != null; x = next) {
+                next = (TreeNode<K,V>)x.next;
+                x.left = x.right = null;
+                if (root == null) {
+                    x.parent = null;
+                    x.red = false;
+                    root = x;
+                }
+                else {
+                    K k = x.key;
+                    int h = x.hash;
+                    Class<?> kc = null;
+                    for (TreeNode<K,V> p = root;;) {
+                        int dir, ph;
+                        K pk = p.key;
+                        if ((ph = p.hash) > h)
+                            dir = -1;
+                        else if (ph < h)
+                            dir = 1;
+                        else if ((kc == null &&
+                                  (kc = comparableClassFor(k)) == null) ||
+                                 (dir = compareComparables(kc, k, pk)) == 0)
+                            dir = tieBreakOrder(k, pk);
+
+                        TreeNode<K,V> xp = p;
+                        if ((p = (dir <= 0) ? p.left : p.right) == null) {
+                            x.parent = xp;
+                            if (dir <= 0)
+                                xp.left = x;
+                            else
+                                xp.right = x;
+                            root = balanceInsertion(root, x);
+                            break;
+                        }
+                    }
+                }
+            }
+            moveRootToFront(tab, root);
+        }
+
+        /**
+         * Returns a list of non-TreeNodes replacing those linked from
+         * this node.
+         * 返回一个由普通结点组成的链表，替换从该结点开始链接的树结点。
+         */
+        final Node<K,V> untreeify(HashMap<K,V> map) {
+            Node<K,V> hd = null, tl = null;
+            for (Node<K,V> q = this; q != null; q = q.next) {
+                Node<K,V> p = map.replacementNode(q, null);
+                if (tl == null)
+                    hd = p;
+                else
+                    tl.next = p;
+                tl = p;
+            }
+            return hd;
+        }
+
+        /**
+         * Tree version of putVal.
+         * putVal的树版本。
+         */
+        final TreeNode<K,V> putTreeVal(HashMap<K,V> map, Node<K,V>[] tab,
+                                       int h, K k, V v) {
+            Class<?> kc = null;
+            boolean searched = false;
+            TreeNode<K,V> root = (parent != null) ? root() : this;
+            for (TreeNode<K,V> p = root;;) {
+                int dir, ph; K pk;
+                if ((ph = p.hash) > h)
+                    dir = -1;
+                else if (ph < h)
+                    dir = 1;
+                else if ((pk = p.key) == k || (k != null && k.equals(pk)))
+                    return p;
+                else if ((kc == null &&
+                          (kc = comparableClassFor(k)) == null) ||
+                         (dir = compareComparables(kc, k, pk)) == 0) {
+                    if (!searched) {
+                        TreeNode<K,V> q, ch;
+                        searched = true;
+                        if (((ch = p.left) != null &&
+                             (q = ch.find(h, k, kc)) != null) ||
+                            ((ch = p.right) != null &&
+                             (q = ch.find(h, k, kc)) != null))
+                            return q;
+                    }
+                    dir = tieBreakOrder(k, pk);
+                }
+
+                TreeNode<K,V> xp = p;
+                if ((p = (dir <= 0) ? p.left : p.right) == null) {
+                    Node<K,V> xpn = xp.next;
+                    TreeNode<K,V> x = map.newTreeNode(h, k, v, xpn);
+                    if (dir <= 0)
+                        xp.left = x;
+                    else
+                        xp.right = x;
+                    xp.next = x;
+                    x.parent = x.prev = xp;
+                    if (xpn != null)
+                        ((TreeNode<K,V>)xpn).prev = x;
+                    moveRootToFront(tab, balanceInsertion(root, x));
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * Removes the given node, that must be present before this call.
+         * This is messier than typical red-black deletion code because we
+         * cannot swap the contents of an interior node with a leaf
+         * successor that is pinned by "next" pointers that are accessible
+         * independently during traversal. So instead we swap the tree
+         * linkages. If the current tree appears to have too few nodes,
+         * the bin is converted back to a plain bin. (The test triggers
+         * somewhere between 2 and 6 nodes, depending on tree structure).
+         * 删除给定的结点(调用前该结点必须存在)。
+         * 这比通常的红黑树删除代码复杂，因为不能把内部结点的内容与后继叶子结点交换——
+         * 后继结点被遍历时独立可见的next指针固定住了，所以改为交换树的链接。
+         * 如果当前树的结点太少，则把桶转换回普通链表(根据树的结构，在2到6个结点之间触发)。
+         */
+        final void removeTreeNode(HashMap<K,V> map, Node<K,V>[] tab,
+                                  boolean movable) {
+            int n;
+            if (tab == null || (n = tab.length) == 0)
+                return;
+            int index = (n - 1) & hash;
+            TreeNode<K,V> first = (TreeNode<K,V>)tab[index], root = first, rl;
+            TreeNode<K,V> succ = (TreeNode<K,V>)next, pred = prev;
+            if (pred == null)
+                tab[index] = first = succ;
+            else
+                pred.next = succ;
+            if (succ != null)
+                succ.prev = pred;
+            if (first == null)
+                return;
+            if (root.parent != null)
+                root = root.root();
+            if (root == null
+                || (movable
+                    && (root.right == null
+                        || (rl = root.left) == null
+                        || rl.left == null))) {
+                tab[index] = first.untreeify(map);  // too small
+                return;
+            }
+            TreeNode<K,V> p = this, pl = left, pr = right, replacement;
+            if (pl != null && pr != null) {
+                TreeNode<K,V> s = pr, sl;
+                while ((sl = s.left) != null) // find successor
+                    s = sl;
+                boolean c = s.red; s.red = p.red; p.red = c; // swap colors
+                TreeNode<K,V> sr = s.right;
+                TreeNode<K,V> pp = p.parent;
+                if (s == pr) { // p was s's direct parent
+                    p.parent = s;
+                    s.right = p;
+                }
+                else {
+                    TreeNode<K,V> sp = s.parent;
+                    if ((p.parent = sp) != null) {
+                        if (s == sp.left)
+                            sp.left = p;
+                        else
+                            sp.right = p;
+                    }
+                    if ((s.right = pr) != null)
+                        pr.parent = s;
+                }
+                p.left = null;
+                if ((p.right = sr) != null)
+                    sr.parent = p;
+                if ((s.left = pl) != null)
+                    pl.parent = s;
+                if ((s.parent = pp) == null)
+                    root = s;
+                else if (p == pp.left)
+                    pp.left = s;
+                else
+                    pp.right = s;
+                if (sr != null)
+                    replacement = sr;
+                else
+                    replacement = p;
+            }
+            else if (pl != null)
+                replacement = pl;
+            else if (pr != null)
+                replacement = pr;
+            else
+                replacement = p;
+            if (replacement != p) {
+                TreeNode<K,V> pp = replacement.parent = p.parent;
+                if (pp == null)
+                    (root = replacement).red = false;
+                else if (p == pp.left)
+                    pp.left = replacement;
+                else
+                    pp.right = replacement;
+                p.left = p.right = p.parent = null;
+            }
+
+            TreeNode<K,V> r = p.red ? root : balanceDeletion(root, replacement);
+
+            if (replacement == p) {  // detach
+                TreeNode<K,V> pp = p.parent;
+                p.parent = null;
+                if (pp != null) {
+                    if (p == pp.left)
+                        pp.left = null;
+                    else if (p == pp.right)
+                        pp.right = null;
+                }
+            }
+            if (movable)
+                moveRootToFront(tab, r);
+        }
+
+        /**
+         * Splits nodes in a tree bin into lower and upper tree bins,
+         * or untreeifies if now too small. Called only from resize;
+         * see above discussion about split bits and indices.
+         * 把树形桶中的结点拆分成低位和高位两个树形桶，如果拆分后太小则转换回链表。
+         * 只在扩容时调用。
+         *
+         * @param map the map
+         * @param tab the table for recording bin heads
+         * @param index the index of the table being split
+         * @param bit the bit of hash to split on
+         */
+        final void split(HashMap<K,V> map, Node<K,V>[] tab, int index, int bit) {
+            TreeNode<K,V> b = this;
+            // Relink into lo and hi lists, preserving order
+            TreeNode<K,V> loHead = null, loTail = null;
+            TreeNode<K,V> hiHead = null, hiTail = null;
+            int lc = 0, hc = 0;
+            for (TreeNode<K,V> e = b, next; e != null; e = next) {
+                next = (TreeNode<K,V>)e.next;
+                e.next = null;
+                if ((e.hash & bit) == 0) {
+                    if ((e.prev = loTail) == null)
+                        loHead = e;
+                    else
+                        loTail.next = e;
+                    loTail = e;
+                    ++lc;
+                }
+                else {
+                    if ((e.prev = hiTail) == null)
+                        hiHead = e;
+                    else
+                        hiTail.next = e;
+                    hiTail = e;
+                    ++hc;
+                }
+            }
+
+            if (loHead != null) {
+                if (lc <= UNTREEIFY_THRESHOLD)
+                    tab[index] = loHead.untreeify(map);
+                else {
+                    tab[index] = loHead;
+                    if (hiHead != null) // (else is already treeified)
+                        loHead.treeify(tab);
+                }
+            }
+            if (hiHead != null) {
+                if (hc <= UNTREEIFY_THRESHOLD)
+                    tab[index + bit] = hiHead.untreeify(map);
+                else {
+                    tab[index + bit] = hiHead;
+                    if (loHead != null)
+                        hiHead.treeify(tab);
+                }
+            }
+        }
+
+        /* ------------------------------------------------------------ */
+        // Red-black tree methods, all adapted from CLR
+        // 红黑树方法，均改编自《算法导论》(CLR)
+
+        static <K,V> TreeNode<K,V> rotateLeft(TreeNode<K,V> root,
+                                              TreeNode<K,V> p) {
+            TreeNode<K,V> r, pp, rl;
+            if (p != null && (r = p.right) != null) {
+                if ((rl = p.right = r.left) != null)
+                    rl.parent = p;
+                if ((pp = r.parent = p.parent) == null)
+                    (root = r).red = false;
+                else if (pp.left == p)
+                    pp.left = r;
+                else
+                    pp.right = r;
+                r.left = p;
+                p.parent = r;
+            }
+            return root;
+        }
+
+        static <K,V> TreeNode<K,V> rotateRight(TreeNode<K,V> root,
+                                               TreeNode<K,V> p) {
+            TreeNode<K,V> l, pp, lr;
+            if (p != null && (l = p.left) != null) {
+                if ((lr = p.left = l.right) != null)
+                    lr.parent = p;
+                if ((pp = l.parent = p.parent) == null)
+                    (root = l).red = false;
+                else if (pp.right == p)
+                    pp.right = l;
+                else
+                    pp.left = l;
+                l.right = p;
+                p.parent = l;
+            }
+            return root;
+        }
+
+        static <K,V> TreeNode<K,V> balanceInsertion(TreeNode<K,V> root,
+                                                    TreeNode<K,V> x) {
+            x.red = true;
+            for (TreeNode<K,V> xp, xpp, xppl, xppr;;) {
+                if ((xp = x.parent) == null) {
+                    x.red = false;
+                    return x;
+                }
+                else if (!xp.red || (xpp = xp.parent) == null)
+                    return root;
+                if (xp == (xppl = xpp.left)) {
+                    if ((xppr = xpp.right) != null && xppr.red) {
+                        xppr.red = false;
+                        xp.red = false;
+                        xpp.red = true;
+                        x = xpp;
+                    }
+                    else {
+                        if (x == xp.right) {
+                            root = rotateLeft(root, x = xp);
+                            xpp = (xp = x.parent) == null ? null : xp.parent;
+                        }
+                        if (xp != null) {
+                            xp.red = false;
+                            if (xpp != null) {
+                                xpp.red = true;
+                                root = rotateRight(root, xpp);
+                            }
+                        }
+                    }
+                }
+                else {
+                    if (xppl != null && xppl.red) {
+                        xppl.red = false;
+                        xp.red = false;
+                        xpp.red = true;
+                        x = xpp;
+                    }
+                    else {
+                        if (x == xp.left) {
+                            root = rotateRight(root, x = xp);
+                            xpp = (xp = x.parent) == null ? null : xp.parent;
+                        }
+                        if (xp != null) {
+                            xp.red = false;
+                            if (xpp != null) {
+                                xpp.red = true;
+                                root = rotateLeft(root, xpp);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        static <K,V> TreeNode<K,V> balanceDeletion(TreeNode<K,V> root,
+                                                   TreeNode<K,V> x) {
+            for (TreeNode<K,V> xp, xpl, xpr;;) {
+                if (x == null || x == root)
+                    return root;
+                else if ((xp = x.parent) == null) {
+                    x.red = false;
+                    return x;
+                }
+                else if (x.red) {
+                    x.red = false;
+                    return root;
+                }
+                else if ((xpl = xp.left) == x) {
+                    if ((xpr = xp.right) != null && xpr.red) {
+                        xpr.red = false;
+                        xp.red = true;
+                        root = rotateLeft(root, xp);
+                        xpr = (xp = x.parent) == null ? null : xp.right;
+                    }
+                    if (xpr == null)
+                        x = xp;
+                    else {
+                        TreeNode<K,V> sl = xpr.left, sr = xpr.right;
+                        if ((sr == null || !sr.red) &&
+                            (sl == null || !sl.red)) {
+                            xpr.red = true;
+                            x = xp;
+                        }
+                        else {
+                            if (sr == null || !sr.red) {
+                                if (sl != null)
+                                    sl.red = false;
+                                xpr.red = true;
+                                root = rotateRight(root, xpr);
+                                xpr = (xp = x.parent) == null ?
+                                    null : xp.right;
+                            }
+                            if (xpr != null) {
+                                xpr.red = (xp == null) ? false : xp.red;
+                                if ((sr = xpr.right) != null)
+                                    sr.red = false;
+                            }
+                            if (xp != null) {
+                                xp.red = false;
+                                root = rotateLeft(root, xp);
+                            }
+                            x = root;
+                        }
+                    }
+                }
+                else { // symmetric
+                    if (xpl != null && xpl.red) {
+                        xpl.red = false;
+                        xp.red = true;
+                        root = rotateRight(root, xp);
+                        xpl = (xp = x.parent) == null ? null : xp.left;
+                    }
+                    if (xpl == null)
+                        x = xp;
+                    else {
+                        TreeNode<K,V> sl = xpl.left, sr = xpl.right;
+                        if ((sl == null || !sl.red) &&
+                            (sr == null || !sr.red)) {
+                            xpl.red = true;
+                            x = xp;
+                        }
+                        else {
+                            if (sl == null || !sl.red) {
+                                if (sr != null)
+                                    sr.red = false;
+                                xpl.red = true;
+                                root = rotateLeft(root, xpl);
+                                xpl = (xp = x.parent) == null ?
+                                    null : xp.left;
+                            }
+                            if (xpl != null) {
+                                xpl.red = (xp == null) ? false : xp.red;
+                                if ((sl = xpl.left) != null)
+                                    sl.red = false;
+                            }
+                            if (xp != null) {
+                                xp.red = false;
+                                root = rotateRight(root, xp);
+                            }
+                            x = root;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Recursive invariant check
+         * 递归检查不变式
+         */
+        static <K,V> boolean checkInvariants(TreeNode<K,V> t) {
+            TreeNode<K,V> tp = t.parent, tl = t.left, tr = t.right,
+                tb = t.prev, tn = (TreeNode<K,V>)t.next;
+            if (tb != null && tb.next != t)
+                return false;
+            if (tn != null && tn.prev != t)
+                return false;
+            if (tp != null && t != tp.left && t != tp.right)
+                return false;
+            if (tl != null && (tl.parent != t || tl.hash > t.hash))
+                return false;
+            if (tr != null && (tr.parent != t || tr.hash < t.hash))
+                return false;
+            if (t.red && tl != null && tl.red && tr != null && tr.red)
+                return false;
+            if (tl != null && !checkInvariants(tl))
+                return false;
+            if (tr != null && !checkInvariants(tr))
+                return false;
+            return true;
+        }
     }
 }
   
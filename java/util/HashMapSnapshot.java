@@ -0,0 +1,461 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:HashMapSnapshot.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午3:38:02  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a {@link HashMap} to a file in table order and maps the file
+ * back into a map without rehashing.  Each record carries the stored
+ * <tt>Node.hash</tt>, and the file keeps the table capacity, so on
+ * restore every node's bin index is <tt>hash &amp; (capacity - 1)</tt>
+ * again and nodes arrive grouped by bin: they are linked at the tail of
+ * their bin with no <tt>hashCode()</tt> or <tt>equals()</tt> call and no
+ * resize.  Only the codecs touch the key and value bytes.
+ * 把HashMap按表的顺序写入文件，再把文件映射回map而不重新散列。每条记录都带有保存的Node.hash，
+ * 文件中还保存了表的容量，所以恢复时每个结点的桶下标仍然是hash & (capacity - 1)，而且结点按桶分组到达：
+ * 直接链接到桶的尾部，不调用hashCode()和equals()，也不扩容。只有编解码器会处理键和值的字节。
+ *
+ * <p>File layout, big-endian:
+ * 文件布局(大端)：
+ *
+ * <pre>
+ *   header (32 bytes):
+ *     magic:long  version:int  flags:int  capacity:int  size:int  loadFactor:float  reserved:int
+ *   size records, in bin order:
+ *     hash:int  keyLength:int  valueLength:int  key bytes  value bytes
+ * </pre>
+ *
+ * A length of -1 stands for a <tt>null</tt> key or value.  The file is
+ * read through read-only memory mappings of at most 1GB each, so files
+ * larger than 2GB are fine as long as no single record exceeds 1GB.
+ * 长度为-1表示null键或null值。文件通过每个最多1GB的只读内存映射来读取，
+ * 所以只要单条记录不超过1GB，超过2GB的文件也没有问题。
+ *
+ * <p>Stored hashes are only valid for a map that spreads hashes the
+ * same way.  A snapshot of a map built with a {@link HashSpreader} is
+ * flagged.  When the flag and the presence of a spreader passed to
+ * {@link #read(Path, Codec, Codec, HashSpreader) read} disagree, every
+ * key is rehashed instead of trusting the stored hashes.
+ * 保存的hash只对扰动方式相同的map有效。使用HashSpreader构建的map的快照带有标记。
+ * 当这个标记与传给read的spreader是否存在不一致时，会重新计算每个键的hash，而不是信任保存的hash。
+ *
+ * @see HashMap
+ */
+public final class HashMapSnapshot {
+
+    private HashMapSnapshot() {}
+
+    /**
+     * Converts keys or values to and from bytes.
+     * 在键或值与字节之间相互转换。
+     *
+     * @param <T> the type converted
+     */
+    public interface Codec<T> {
+
+        /**
+         * Returns the number of bytes <tt>encode</tt> will write for the
+         * (non-null) value.
+         * 返回encode为给定(非null)值写入的字节数。
+         */
+        int encodedSize(T value);
+
+        /**
+         * Writes exactly <tt>encodedSize(value)</tt> bytes at the
+         * buffer's position, advancing it.
+         * 在缓冲区的position处恰好写入encodedSize(value)个字节，并前移position。
+         */
+        void encode(T value, ByteBuffer out);
+
+        /**
+         * Reads a value from the <tt>length</tt> bytes at the buffer's
+         * position.  The position afterwards does not matter.  The buffer
+         * may be a file mapping that is unmapped after the restore, so
+         * the value must not keep a view of it.
+         * 从缓冲区position处的length个字节中读取一个值。读取之后的position无关紧要。
+         * 缓冲区可能是恢复结束后就会解除的文件映射，所以返回的值不能持有它的视图。
+         */
+        T decode(ByteBuffer in, int length);
+
+        /**
+         * UTF-8 strings.  A string with an unpaired surrogate cannot be
+         * encoded and is rejected with an
+         * <tt>IllegalArgumentException</tt>.
+         * UTF-8字符串。含有不成对代理字符的字符串无法编码，会抛出IllegalArgumentException。
+         */
+        Codec<String> STRING = new Codec<String>() {
+            public int encodedSize(String value) {
+                int n = 0;
+                for (int i = 0, len = value.length(); i < len; ++i) {
+                    char c = value.charAt(i);
+                    if (c < 0x80)
+                        n += 1;
+                    else if (c < 0x800)
+                        n += 2;
+                    else if (Character.isHighSurrogate(c) && i + 1 < len &&
+                             Character.isLowSurrogate(value.charAt(i + 1))) {
+                        n += 4;
+                        ++i;
+                    }
+                    else if (Character.isSurrogate(c))
+                        throw new IllegalArgumentException("Unpaired surrogate at index " + i);
+                    else
+                        n += 3;
+                }
+                return n;
+            }
+            public void encode(String value, ByteBuffer out) {
+                // 严格的编码器：String.getBytes会把不成对的代理字符替换成'?'，与encodedSize不符
+                CoderResult cr = StandardCharsets.UTF_8.newEncoder()
+                    .encode(CharBuffer.wrap(value), out, true);
+                if (cr.isError())
+                    throw new IllegalArgumentException("Unpaired surrogate in string");
+                if (cr.isOverflow())
+                    throw new BufferOverflowException();
+            }
+            public String decode(ByteBuffer in, int length) {
+                if (in.hasArray())
+                    return new String(in.array(), in.arrayOffset() + in.position(),
+                                      length, StandardCharsets.UTF_8);
+                byte[] b = new byte[length];
+                in.get(b);
+                return new String(b, StandardCharsets.UTF_8);
+            }
+        };
+
+        /** Integers, 4 bytes. 整数，4个字节。 */
+        Codec<Integer> INTEGER = new Codec<Integer>() {
+            public int encodedSize(Integer value)             { return 4; }
+            public void encode(Integer value, ByteBuffer out) { out.putInt(value); }
+            public Integer decode(ByteBuffer in, int length)  { return in.getInt(); }
+        };
+
+        /** Longs, 8 bytes. 长整数，8个字节。 */
+        Codec<Long> LONG = new Codec<Long>() {
+            public int encodedSize(Long value)             { return 8; }
+            public void encode(Long value, ByteBuffer out) { out.putLong(value); }
+            public Long decode(ByteBuffer in, int length)  { return in.getLong(); }
+        };
+
+        /** Byte arrays, copied as they are. 字节数组，原样复制。 */
+        Codec<byte[]> BYTES = new Codec<byte[]>() {
+            public int encodedSize(byte[] value)             { return value.length; }
+            public void encode(byte[] value, ByteBuffer out) { out.put(value); }
+            public byte[] decode(ByteBuffer in, int length) {
+                byte[] b = new byte[length];
+                in.get(b);
+                return b;
+            }
+        };
+    }
+
+    static final long MAGIC = 0x484d534e41503031L; // "HMSNAP01"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_HEADER = 12;
+
+    /** Set when the map had a spreader. 快照的map带有spreader时设置。 */
+    static final int FLAG_SPREADER = 1;
+
+    /** Largest memory mapping used while reading. 读取时使用的最大内存映射。 */
+    static final int MAP_WINDOW = 1 << 30;
+
+    /** Size of the write staging buffer. 写入暂存缓冲区的大小。 */
+    static final int WRITE_BUFFER = 1 << 20;
+
+    /**
+     * Writes the map to the file, replacing it.  The map is not
+     * changed: during an incremental resize the nodes still in the old
+     * table are written with the bin of the new table they belong to.
+     * Every key and value must encode to exactly the number of bytes its
+     * codec's <tt>encodedSize</tt> reported; otherwise the write stops
+     * with an <tt>IOException</tt> rather than leave a corrupt file
+     * behind, and the file's contents are unspecified.
+     * 把map写入文件(替换已有文件)。不会修改map：增量扩容中还在旧表里的结点与它们在新表中所属的桶一起写出。
+     * 每个键和值编码后的字节数必须恰好等于编解码器的encodedSize给出的值，否则写入以IOException终止，
+     * 而不是留下一个损坏的快照，这时文件的内容不确定。
+     *
+     * @param map        the map
+     * @param file       the file to write
+     * @param keyCodec   encodes the keys
+     * @param valueCodec encodes the values
+     * @throws IOException if writing fails or a codec wrote a different
+     *         number of bytes than it reported
+     */
+    public static <K,V> void write(HashMap<K,V> map, Path file,
+                                   Codec<? super K> keyCodec,
+                                   Codec<? super V> valueCodec) throws IOException {
+        HashMap.Node<K,V>[] tab = map.table, old = map.oldTable;
+        int capacity = (tab == null) ? 0 : tab.length;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(WRITE_BUFFER);
+            buf.putLong(MAGIC)
+               .putInt(VERSION)
+               .putInt(map.spreader != null ? FLAG_SPREADER : 0)
+               .putInt(capacity)
+               .putInt(map.size)
+               .putFloat(map.loadFactor)
+               .putInt(0);
+            int mc = map.modCount;
+            for (int i = 0; i < capacity; ++i) {
+                for (HashMap.Node<K,V> e = tab[i]; e != null; e = e.next)
+                    buf = writeRecord(ch, buf, e, keyCodec, valueCodec);
+                if (old != null) {
+                    // 增量扩容中：旧表中对应的桶还没迁移时，其中一部分结点属于新表的第i个桶
+                    HashMap.Node<K,V> e = old[i & (old.length - 1)];
+                    for (; e != null; e = e.next) {
+                        if ((e.hash & (capacity - 1)) == i)
+                            buf = writeRecord(ch, buf, e, keyCodec, valueCodec);
+                    }
+                }
+            }
+            drain(ch, buf);
+            if (map.modCount != mc)
+                throw new java.util.ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Appends the record of a node to buf, first draining it to the
+     * channel if the record does not fit.
+     * 把结点的记录追加到buf中，放不下时先把buf写入通道。
+     *
+     * @return the buffer to continue with, larger than buf if the
+     *         record did not fit in buf even when empty
+     */
+    private static <K,V> ByteBuffer writeRecord(FileChannel ch, ByteBuffer buf,
+                                                HashMap.Node<K,V> e,
+                                                Codec<? super K> keyCodec,
+                                                Codec<? super V> valueCodec)
+        throws IOException {
+        K k = e.key;
+        V v = e.value;
+        int klen = (k == null) ? -1 : keyCodec.encodedSize(k);
+        int vlen = (v == null) ? -1 : valueCodec.encodedSize(v);
+        long need = (long)RECORD_HEADER + Math.max(klen, 0) + Math.max(vlen, 0);
+        if (need > MAP_WINDOW)
+            throw new IOException("Record of " + need + " bytes is too large");
+        if (buf.remaining() < need) {
+            drain(ch, buf);
+            if (buf.capacity() < need)
+                buf = ByteBuffer.allocateDirect((int)need);
+        }
+        buf.putInt(e.hash).putInt(klen).putInt(vlen);
+        if (k != null)
+            encode(keyCodec, k, klen, buf);
+        if (v != null)
+            encode(valueCodec, v, vlen, buf);
+        return buf;
+    }
+
+    /**
+     * Encodes a key or value, checking that the codec wrote exactly the
+     * <tt>length</tt> bytes the record header claims.
+     * 编码一个键或值，并检查编解码器写入的字节数恰好是记录头中声明的length。
+     */
+    private static <T> void encode(Codec<? super T> codec, T value, int length,
+                                   ByteBuffer buf) throws IOException {
+        int start = buf.position();
+        try {
+            codec.encode(value, buf);
+        } catch (BufferOverflowException ex) {
+            throw new IOException("Codec wrote more than the " + length +
+                                  " bytes it reported", ex);
+        }
+        int written = buf.position() - start;
+        if (written != length)
+            throw new IOException("Codec wrote " + written + " bytes but reported " +
+                                  length);
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining())
+            ch.write(buf);
+        buf.clear();
+    }
+
+    /**
+     * Restores a map written by {@link #write} from a map that used the
+     * default hash.  If the snapshot came from a map with a spreader,
+     * the keys are rehashed.
+     * 恢复由write写出的、使用默认hash的map。如果快照来自带有spreader的map，则重新散列所有的键。
+     *
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static <K,V> HashMap<K,V> read(Path file,
+                                          Codec<? extends K> keyCodec,
+                                          Codec<? extends V> valueCodec) throws IOException {
+        return read(file, keyCodec, valueCodec, null);
+    }
+
+    /**
+     * Restores a map written by {@link #write}.  The restored map uses
+     * the given spreader, or the default hash if it is null.  If the
+     * written map had a spreader too, the given one must compute the same
+     * hashes (for a seeded spreader: the same seed), since the stored
+     * hashes are trusted; otherwise the keys are rehashed.
+     * 恢复由write写出的map。恢复出的map使用给定的spreader，为null时使用默认的hash。
+     * 如果被写出的map也有spreader，给定的spreader必须计算出相同的hash(对于带种子的spreader：种子相同)，
+     * 因为会直接信任保存的hash；否则重新散列所有的键。
+     *
+     * @param file       the snapshot
+     * @param keyCodec   decodes the keys
+     * @param valueCodec decodes the values
+     * @param spreader   the spreader of the written map, or null
+     * @return the restored map
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    @SuppressWarnings({"rawtypes","unchecked"})
+    public static <K,V> HashMap<K,V> read(Path file,
+                                          Codec<? extends K> keyCodec,
+                                          Codec<? extends V> valueCodec,
+                                          HashSpreader spreader) throws IOException {
+        Window w = null;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            w = new Window(ch);
+            ByteBuffer in = w.require(HEADER_SIZE);
+            if (in.getLong() != MAGIC || in.getInt() != VERSION)
+                throw new StreamCorruptedException("Not a HashMap snapshot: " + file);
+            int flags = in.getInt();
+            int capacity = in.getInt();
+            int size = in.getInt();
+            float loadFactor = in.getFloat();
+            in.getInt();
+            if (size < 0 || capacity < 0 || (capacity & (capacity - 1)) != 0 ||
+                capacity > HashMap.MAXIMUM_CAPACITY || (size > 0 && capacity == 0) ||
+                !(loadFactor > 0))
+                throw new StreamCorruptedException("Bad snapshot header");
+            HashMap<K,V> map = (spreader == null) ?
+                new HashMap<K,V>(capacity, loadFactor) :
+                new HashMap<K,V>(capacity, loadFactor, spreader);
+            boolean trustHashes = ((flags & FLAG_SPREADER) != 0) == (spreader != null);
+            if (size == 0)
+                return map;
+            if (!trustHashes) {
+                // 快照的hash由未知的spreader计算：按键重新散列
+                for (int i = 0; i < size; ++i) {
+                    in = w.require(RECORD_HEADER);
+                    in.getInt();
+                    int klen = in.getInt(), vlen = in.getInt();
+                    K k = decode(w, keyCodec, klen);
+                    V v = decode(w, valueCodec, vlen);
+                    map.put(k, v);
+                }
+                return map;
+            }
+            HashMap.Node<K,V>[] tab = (HashMap.Node<K,V>[])new HashMap.Node[capacity];
+            map.table = tab;
+            float ft = (float)capacity * loadFactor;
+            map.threshold = (capacity < HashMap.MAXIMUM_CAPACITY && ft < (float)HashMap.MAXIMUM_CAPACITY ?
+                             (int)ft : Integer.MAX_VALUE);
+            int mask = capacity - 1, lastBin = -1, binCount = 0;
+            HashMap.Node<K,V> tail = null;
+            for (int i = 0; i < size; ++i) {
+                in = w.require(RECORD_HEADER);
+                int hash = in.getInt(), klen = in.getInt(), vlen = in.getInt();
+                K k = decode(w, keyCodec, klen);
+                V v = decode(w, valueCodec, vlen);
+                int bin = hash & mask;
+                HashMap.Node<K,V> p = map.newNode(hash, k, v, null);
+                if (bin == lastBin) {
+                    tail.next = p;
+                    ++binCount;
+                }
+                else {
+                    if (bin < lastBin)
+                        throw new StreamCorruptedException("Records out of bin order");
+                    treeifyIfLong(map, tab, lastBin, binCount);
+                    tab[bin] = p;
+                    lastBin = bin;
+                    binCount = 1;
+                }
+                tail = p;
+            }
+            treeifyIfLong(map, tab, lastBin, binCount);
+            map.size = size;
+            return map;
+        } finally {
+            if (w != null)
+                w.close();
+        }
+    }
+
+    /**
+     * Rebuilds a tree bin from a bin that was restored as a long list.
+     */
+    private static <K,V> void treeifyIfLong(HashMap<K,V> map, HashMap.Node<K,V>[] tab,
+                                            int bin, int binCount) {
+        if (bin >= 0 && binCount >= HashMap.TREEIFY_THRESHOLD &&
+            tab.length >= HashMap.MIN_TREEIFY_CAPACITY)
+            map.treeifyBin(tab, tab[bin].hash);
+    }
+
+    private static <T> T decode(Window w, Codec<? extends T> codec, int length)
+        throws IOException {
+        if (length < 0)
+            return null;
+        ByteBuffer in = w.require(length);
+        int end = in.position() + length;
+        T t = codec.decode(in, length);
+        in.position(end);
+        return t;
+    }
+
+    /**
+     * A sliding read-only mapping over the file.  require(n) returns the
+     * current mapping positioned at the next unread byte, remapping from
+     * that byte first if fewer than n bytes are left in the mapping.
+     * 文件上的一个滑动只读映射。require(n)返回定位在下一个未读字节处的当前映射；
+     * 如果映射中剩余不足n个字节，先从该字节开始重新映射。
+     */
+    static final class Window {
+        final FileChannel ch;
+        final long fileSize;
+        MappedByteBuffer map;
+        long base;                 // file offset of map's byte 0
+
+        Window(FileChannel ch) throws IOException {
+            this.ch = ch;
+            this.fileSize = ch.size();
+        }
+
+        ByteBuffer require(int n) throws IOException {
+            if (map == null || map.remaining() < n) {
+                long pos = (map == null) ? 0L : base + map.position();
+                if (pos + n > fileSize)
+                    throw new StreamCorruptedException("Truncated snapshot");
+                long len = Math.min((long)MAP_WINDOW, fileSize - pos);
+                OffHeapHashMap.freeBuffer(map);
+                map = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                base = pos;
+            }
+            return map;
+        }
+
+        void close() {
+            OffHeapHashMap.freeBuffer(map);
+            map = null;
+        }
+    }
+}
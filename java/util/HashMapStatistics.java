@@ -0,0 +1,379 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:HashMapStatistics.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午1:12:08  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A point-in-time view of the shape of a {@link HashMap}: how its
+ * mappings are spread over the bins, how long the chains are, how many
+ * bins have been treeified, and how often and for how long the map has
+ * resized.  Long chains with a low threshold utilization point at a
+ * poor <tt>hashCode</tt>; frequent resizes point at an undersized
+ * initial capacity.
+ * HashMap形态的时间点快照：映射在桶中的分布、链的长度、已树化的桶数，以及扩容的次数和耗时。
+ * 链很长而阈值利用率很低，说明hashCode不好；频繁扩容说明初始容量太小。
+ *
+ * <p>Statistics are opt-in: {@link HashMap#enableStatistics()} attaches
+ * the resize counters, and until then the map pays only a null check
+ * per resize.  The bin figures are computed on demand by walking the
+ * table when {@link HashMap#statistics()} is called, so they cost
+ * nothing between snapshots.
+ * 统计是可选的：HashMap.enableStatistics()挂上扩容计数器，在此之前map每次扩容只多一次null检查。
+ * 桶相关的数字在调用HashMap.statistics()时遍历表按需计算，两次快照之间没有任何开销。
+ *
+ * <p>Maps enabled with a name are kept in a registry, weakly, so that a
+ * metrics exporter can call {@link #snapshotAll()} periodically without
+ * keeping dead maps reachable.  A snapshot taken from another thread
+ * while the map is being modified is approximate.
+ * 带名字启用的map保存在一个注册表中(弱引用)，指标导出程序可以定期调用snapshotAll()，
+ * 而不会让已经不用的map无法回收。在map被修改时从其他线程获取的快照只是近似值。
+ *
+ * @see HashMap#enableStatistics(String)
+ */
+public final class HashMapStatistics {
+
+    /**
+     * Resize counters attached to a map while statistics are enabled.
+     * Growing and shrinking the table are counted separately.  Only the
+     * thread that modifies the map writes them.
+     * 启用统计期间挂在map上的扩容计数器。扩容和收缩分别计数。只有修改map的线程会写它们。
+     */
+    static final class Recorder {
+        volatile long resizeCount;
+        volatile long resizeNanos;
+        volatile long shrinkCount;
+        volatile long shrinkNanos;
+
+        void recordResize(long nanos) {
+            resizeCount++;
+            resizeNanos += nanos;
+        }
+
+        void recordResizeTime(long nanos) {
+            resizeNanos += nanos;
+        }
+
+        void recordShrink(long nanos) {
+            shrinkCount++;
+            shrinkNanos += nanos;
+        }
+    }
+
+    /**
+     * Named maps, held weakly.
+     * 按名字注册的map，使用弱引用。
+     */
+    private static final ConcurrentHashMap<String, WeakReference<HashMap<?,?>>> registry =
+        new ConcurrentHashMap<>();
+
+    private final int capacity;
+    private final int size;
+    private final int threshold;
+    private final int[] chainLengthHistogram;
+    private final int maxChainLength;
+    private final int treeifiedBins;
+    private final long totalProbes;
+    private final long resizeCount;
+    private final long resizeNanos;
+    private final long shrinkCount;
+    private final long shrinkNanos;
+
+    private HashMapStatistics(int capacity, int size, int threshold,
+                              int[] chainLengthHistogram, int maxChainLength,
+                              int treeifiedBins, long totalProbes,
+                              long resizeCount, long resizeNanos,
+                              long shrinkCount, long shrinkNanos) {
+        this.capacity = capacity;
+        this.size = size;
+        this.threshold = threshold;
+        this.chainLengthHistogram = chainLengthHistogram;
+        this.maxChainLength = maxChainLength;
+        this.treeifiedBins = treeifiedBins;
+        this.totalProbes = totalProbes;
+        this.resizeCount = resizeCount;
+        this.resizeNanos = resizeNanos;
+        this.shrinkCount = shrinkCount;
+        this.shrinkNanos = shrinkNanos;
+    }
+
+    /**
+     * Walks the bins of the map, including those an incremental resize
+     * has not migrated yet.  Each of the capacity bins is counted once:
+     * while old bin j has not been migrated, new bins j and j + oldCap
+     * are empty and their nodes are the lo and hi halves of old bin j,
+     * which a lookup still searches as a whole.
+     * 遍历map的桶，包括增量扩容尚未迁移的桶。capacity个桶每个只统计一次：旧桶j迁移之前，
+     * 新桶j和j + oldCap是空的，它们的结点是旧桶j的lo和hi两部分，而查找仍然在整个旧桶中进行。
+     */
+    static HashMapStatistics of(HashMap<?,?> m, Recorder r) {
+        int[] histogram = new int[HashMap.TREEIFY_THRESHOLD + 1];
+        int[] acc = new int[2];             // max chain length, treeified bins
+        long probes = 0L;
+        HashMap.Node<?,?>[] tab = m.table, oldTab = m.oldTable;
+        int n = (tab == null) ? 0 : tab.length;
+        int oldCap = (oldTab == null) ? 0 : oldTab.length;
+        for (int i = 0; i < n; ++i) {
+            if (oldCap > 0 && oldTab[i & (oldCap - 1)] != null)
+                continue;                   // 由下面的旧桶统计
+            HashMap.Node<?,?> b = tab[i];
+            int len = 0;
+            for (HashMap.Node<?,?> e = b; e != null; e = e.next)
+                ++len;
+            count(len, histogram, acc);
+            probes += probes(b, len, acc);
+        }
+        for (int j = m.migrateIndex; j < oldCap; ++j) {
+            HashMap.Node<?,?> b = oldTab[j];
+            if (b == null)
+                continue;
+            int lo = 0, hi = 0;
+            for (HashMap.Node<?,?> e = b; e != null; e = e.next) {
+                if ((e.hash & oldCap) == 0)
+                    ++lo;
+                else
+                    ++hi;
+            }
+            count(lo, histogram, acc);
+            count(hi, histogram, acc);
+            probes += probes(b, lo + hi, acc);
+        }
+        return new HashMapStatistics(n, m.size, m.threshold, histogram,
+                                     acc[0], acc[1], probes,
+                                     r.resizeCount, r.resizeNanos,
+                                     r.shrinkCount, r.shrinkNanos);
+    }
+
+    private static void count(int len, int[] histogram, int[] acc) {
+        ++histogram[Math.min(len, histogram.length - 1)];
+        if (len > acc[0])
+            acc[0] = len;
+    }
+
+    /**
+     * Returns the number of nodes successful lookups of every key of the
+     * bin visit in total, counting a tree bin in acc[1].
+     * 返回对桶中每个键查找成功时访问的结点数之和，树形桶计入acc[1]。
+     */
+    private static long probes(HashMap.Node<?,?> b, int len, int[] acc) {
+        if (b instanceof HashMap.TreeNode) {
+            ++acc[1];
+            return depthSum((HashMap.TreeNode<?,?>)b, 1);
+        }
+        return (long)len * (len + 1) >>> 1;  // 第k个结点需要比较k次
+    }
+
+    /**
+     * Sum of node depths (root = 1) of a tree bin, i.e. the number of
+     * nodes a successful lookup visits, summed over all keys.
+     * 树形桶中所有结点深度(根为1)之和，即每个键查找成功时访问的结点数之和。
+     */
+    private static long depthSum(HashMap.TreeNode<?,?> p, int depth) {
+        long sum = 0L;
+        for (; p != null; p = p.right, ++depth)
+            sum += depth + depthSum(p.left, depth + 1);
+        return sum;
+    }
+
+    /* ---------------- Registry -------------- */
+
+    /**
+     * Registers the map under the given name, replacing any map
+     * registered under that name before.
+     */
+    static void register(String name, HashMap<?,?> map) {
+        if (name == null)
+            throw new NullPointerException();
+        registry.put(name, new WeakReference<HashMap<?,?>>(map));
+    }
+
+    /**
+     * Removes the map registered under the given name, if any.
+     * 删除以给定名字注册的map(如果有)。
+     *
+     * @param name the name the map was registered under
+     */
+    public static void unregister(String name) {
+        registry.remove(name);
+    }
+
+    /**
+     * Returns the current statistics of the map registered under the
+     * given name, or null if there is none, it has been garbage
+     * collected or its statistics were disabled.
+     * 返回以给定名字注册的map的当前统计，如果不存在、已被回收或已禁用统计，则返回null。
+     *
+     * @param name the name the map was registered under
+     * @return a snapshot, or null
+     */
+    public static HashMapStatistics snapshot(String name) {
+        WeakReference<HashMap<?,?>> ref = registry.get(name);
+        HashMap<?,?> m = (ref == null) ? null : ref.get();
+        return (m == null) ? null : m.statistics();
+    }
+
+    /**
+     * Returns a snapshot of every registered map that is still alive
+     * and has statistics enabled, sorted by name.  Entries whose map
+     * has been garbage collected are dropped from the registry.
+     * 返回所有仍存活且启用了统计的已注册map的快照，按名字排序。对应map已被回收的条目会从注册表中删除。
+     *
+     * @return the snapshots by name
+     */
+    public static Map<String, HashMapStatistics> snapshotAll() {
+        Map<String, HashMapStatistics> result = new TreeMap<>();
+        Iterator<Map.Entry<String, WeakReference<HashMap<?,?>>>> it =
+            registry.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, WeakReference<HashMap<?,?>>> e = it.next();
+            HashMap<?,?> m = e.getValue().get();
+            if (m == null) {
+                registry.remove(e.getKey(), e.getValue());
+                continue;
+            }
+            HashMapStatistics s = m.statistics();
+            if (s != null)
+                result.put(e.getKey(), s);
+        }
+        return result;
+    }
+
+    /* ---------------- Accessors -------------- */
+
+    /** Returns the table length. 返回表的长度。 */
+    public int capacity() {
+        return capacity;
+    }
+
+    /** Returns the number of mappings. 返回映射数。 */
+    public int size() {
+        return size;
+    }
+
+    /** Returns the size at which the map will next resize. 返回下次扩容时的大小。 */
+    public int threshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns size / threshold: how close the map is to its next
+     * resize.
+     * 返回size / threshold，即离下次扩容还有多远。
+     */
+    public double thresholdUtilization() {
+        return (threshold <= 0) ? 0.0 : (double)size / threshold;
+    }
+
+    /**
+     * Returns the number of bins holding each chain length.  Element i
+     * counts bins with exactly i nodes, except the last element, which
+     * counts bins with TREEIFY_THRESHOLD (8) or more nodes.
+     * 返回每种链长的桶的数量。第i个元素是恰好有i个结点的桶数，
+     * 最后一个元素除外，它统计结点数不少于TREEIFY_THRESHOLD(8)的桶数。
+     */
+    public int[] chainLengthHistogram() {
+        return chainLengthHistogram.clone();
+    }
+
+    /** Returns the number of non-empty bins. 返回非空桶的数量。 */
+    public int occupiedBins() {
+        int n = 0;
+        for (int i = 1; i < chainLengthHistogram.length; ++i)
+            n += chainLengthHistogram[i];
+        return n;
+    }
+
+    /**
+     * Returns the average number of nodes in a non-empty bin.
+     * 返回非空桶中结点的平均数。
+     */
+    public double averageChainLength() {
+        int occupied = occupiedBins();
+        return (occupied == 0) ? 0.0 : (double)size / occupied;
+    }
+
+    /** Returns the number of nodes in the longest bin. 返回最长的桶中的结点数。 */
+    public int maxChainLength() {
+        return maxChainLength;
+    }
+
+    /**
+     * Returns the average number of nodes a successful get visits:
+     * the position in the chain for list bins, the depth in the tree for
+     * tree bins.  1.0 is ideal.
+     * 返回一次成功的get平均访问的结点数：链表桶中是在链中的位置，树形桶中是在树中的深度。理想值是1.0。
+     */
+    public double averageProbeLength() {
+        return (size == 0) ? 0.0 : (double)totalProbes / size;
+    }
+
+    /** Returns the number of treeified bins. 返回已树化的桶的数量。 */
+    public int treeifiedBins() {
+        return treeifiedBins;
+    }
+
+    /**
+     * Returns the number of times the table has grown since statistics
+     * were enabled.  Shrinks are counted by {@link #shrinkCount}.
+     * 返回启用统计以来表扩容的次数。收缩由shrinkCount统计。
+     */
+    public long resizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * Returns the total time spent growing the table, in nanoseconds,
+     * since statistics were enabled.  The bin moves an incremental
+     * resize spreads over later operations are not included.
+     * 返回启用统计以来扩容花费的总时间(纳秒)。增量扩容分摊到后续操作中的桶迁移不计算在内。
+     */
+    public long resizeNanos() {
+        return resizeNanos;
+    }
+
+    /**
+     * Returns the number of times the table has shrunk since statistics
+     * were enabled.
+     * 返回启用统计以来表收缩的次数。
+     */
+    public long shrinkCount() {
+        return shrinkCount;
+    }
+
+    /**
+     * Returns the total time spent shrinking the table, in nanoseconds,
+     * since statistics were enabled.
+     * 返回启用统计以来收缩表花费的总时间(纳秒)。
+     */
+    public long shrinkNanos() {
+        return shrinkNanos;
+    }
+
+    public String toString() {
+        return "HashMapStatistics{capacity=" + capacity +
+            ", size=" + size +
+            ", threshold=" + threshold +
+            ", utilization=" + String.format("%.3f", thresholdUtilization()) +
+            ", occupiedBins=" + occupiedBins() +
+            ", avgChain=" + String.format("%.3f", averageChainLength()) +
+            ", maxChain=" + maxChainLength +
+            ", avgProbe=" + String.format("%.3f", averageProbeLength()) +
+            ", treeifiedBins=" + treeifiedBins +
+            ", histogram=" + Arrays.toString(chainLengthHistogram) +
+            ", resizes=" + resizeCount +
+            ", resizeNanos=" + resizeNanos +
+            ", shrinks=" + shrinkCount +
+            ", shrinkNanos=" + shrinkNanos + "}";
+    }
+}
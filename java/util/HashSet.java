@@ -14,10 +14,8 @@ import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -268,6 +266,428 @@ public class HashSet<E>
     public void clear() {
         map.clear();
     }
+
+    /**
+     * Puts a membership filter in front of this set, or removes it if
+     * <tt>filter</tt> is null, so that <tt>contains</tt> calls for most
+     * absent elements are answered without touching the hash table.
+     * See {@link HashMap#attachFilter}.
+     * 在此集合前面放置一个成员过滤器(filter为null时移除)，使大部分对不存在元素的contains调用不必访问哈希表。
+     *
+     * @param filter the filter, sized for the elements this set will
+     *        hold, or null
+     * @throws IllegalArgumentException if the filter is too small to
+     *         hold the current elements
+     */
+    public void attachFilter(MembershipFilter filter) {
+        map.attachFilter(filter);
+    }
+
+    /**
+     * Removes from this set all of its elements that are contained in
+     * the specified collection.  When the collection is a
+     * <tt>HashSet</tt> the smaller of the two is iterated and elements
+     * are looked up with their stored hashes, so no
+     * <tt>hashCode()</tt> is called.
+     * 从此集合中删除包含在指定集合中的所有元素。指定集合是HashSet时遍历两者中较小的一个，
+     * 并用保存的hash查找元素，所以不会调用hashCode()。
+     *
+     * @param c collection containing elements to be removed from this set
+     * @return <tt>true</tt> if this set changed as a result of the call
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean removeAll(Collection<?> c) {
+        HashMap<?,Object> cm = mapOf(c);
+        if (cm == null)
+            return super.removeAll(c);
+        int s = map.size();
+        if (c == this)
+            clear();
+        else if (s > cm.size) {
+            HashMap.Node<?,Object>[] tab = cm.table, old = cm.oldTable;
+            for (int i = 0, n = HashMap.binSpan(tab, old); i < n; ++i) {
+                for (HashMap.Node<?,Object> e = HashMap.binAt(tab, old, i);
+                     e != null; e = e.next)
+                    removeNode(cm, e);
+            }
+        }
+        else
+            removeMatching(cm, true);
+        return map.size() != s;
+    }
+
+    /**
+     * Retains only the elements in this set that are contained in the
+     * specified collection.  When the collection is a <tt>HashSet</tt>
+     * the elements are looked up in it with their stored hashes.
+     * 只保留此集合中包含在指定集合中的元素。指定集合是HashSet时用保存的hash在其中查找元素。
+     *
+     * @param c collection containing elements to be retained in this set
+     * @return <tt>true</tt> if this set changed as a result of the call
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean retainAll(Collection<?> c) {
+        HashMap<?,Object> cm = mapOf(c);
+        if (cm == null)
+            return super.retainAll(c);
+        int s = map.size();
+        if (c != this)
+            removeMatching(cm, false);
+        return map.size() != s;
+    }
+
+    /* ---------------- Set algebra -------------- */
+
+    /*
+     * The static operations below never call contains() on a set they
+     * could iterate instead: each walks the smaller argument wherever
+     * the result allows it.  When the arguments are HashSets the backing
+     * bins are walked directly and every element is probed and inserted
+     * with the hash stored in its node, so no hashCode() is called and
+     * no iterator is created; a whole argument that ends up in the
+     * result is bulk-copied bin by bin (HashMap.putHashMapEntries).
+     * 下面的静态操作从不在可以直接遍历的集合上调用contains()：只要结果允许，都遍历较小的参数。
+     * 参数是HashSet时直接遍历底层的桶，每个元素都用结点中保存的hash来探测和插入，
+     * 所以不调用hashCode()，也不创建迭代器；整体进入结果的参数逐桶批量复制(HashMap.putHashMapEntries)。
+     *
+     * The forms taking a target add the result to it, after presizing
+     * it once for the largest possible result, and return it; the
+     * target must not be one of the arguments.  Their
+     * parallelismThreshold works as in HashMap's bulk operations: once
+     * the iterated HashSet holds that many elements, the probing is
+     * split over the common pool (HashMap.matchNodes) and only the
+     * insertions into the target run in the calling thread.
+     * Long.MAX_VALUE keeps everything sequential.  None of the sets may
+     * be modified while an operation runs.
+     * 带target的形式把结果加入target(先按最大可能的结果一次性预扩容)并返回它；target不能是参数之一。
+     * 它们的parallelismThreshold与HashMap的批量操作相同：被遍历的HashSet的元素数达到该值时，
+     * 探测拆分到公共池中并行执行(HashMap.matchNodes)，只有插入target在调用线程中执行。
+     * Long.MAX_VALUE表示全部顺序执行。操作期间所有集合都不能被修改。
+     */
+
+    /**
+     * Returns a new set holding the elements of either set.
+     * 返回一个包含两个集合中所有元素的新集合。
+     *
+     * @param a a set
+     * @param b another set
+     * @param <E> the type of the result's elements
+     * @return the union of a and b
+     * @throws NullPointerException if a or b is null
+     */
+    public static <E> HashSet<E> union(Set<? extends E> a, Set<? extends E> b) {
+        return union(a, b, new HashSet<E>());
+    }
+
+    /**
+     * Adds the elements of either set to the target: the larger set is
+     * copied in bulk, then the smaller one is added to it.
+     * 把两个集合中的元素加入target：先批量复制较大的集合，再把较小的集合加入。
+     *
+     * @param a a set
+     * @param b another set
+     * @param target the set receiving the union
+     * @param <E> the type of the target's elements
+     * @return target
+     * @throws NullPointerException if any argument is null
+     * @throws IllegalArgumentException if target is a or b
+     */
+    public static <E> HashSet<E> union(Set<? extends E> a, Set<? extends E> b,
+                                       HashSet<E> target) {
+        checkTarget(a, b, target);
+        Set<? extends E> large = (a.size() >= b.size()) ? a : b;
+        Set<? extends E> small = (large == a) ? b : a;
+        target.presize((long)target.size() + a.size() + b.size());
+        target.addAllFrom(large);
+        target.addAllFrom(small);
+        return target;
+    }
+
+    /**
+     * Returns a new set holding the elements contained in both sets.
+     * 返回一个包含同时存在于两个集合中的元素的新集合。
+     *
+     * @param a a set
+     * @param b another set
+     * @param <E> the type of the result's elements
+     * @return the intersection of a and b
+     * @throws NullPointerException if a or b is null
+     */
+    public static <E> HashSet<E> intersection(Set<? extends E> a, Set<? extends E> b) {
+        return intersection(a, b, new HashSet<E>(), Long.MAX_VALUE);
+    }
+
+    /**
+     * Adds the elements contained in both sets to the target.  The
+     * smaller set is iterated and probed against the larger one; the
+     * elements added are the smaller set's.
+     * 把同时存在于两个集合中的元素加入target。遍历较小的集合并在较大的集合中探测；加入的是较小集合中的元素。
+     *
+     * @param a a set
+     * @param b another set
+     * @param target the set receiving the intersection
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for the probing to be executed in parallel
+     * @param <E> the type of the target's elements
+     * @return target
+     * @throws NullPointerException if any argument is null
+     * @throws IllegalArgumentException if target is a or b
+     */
+    public static <E> HashSet<E> intersection(Set<? extends E> a, Set<? extends E> b,
+                                              HashSet<E> target,
+                                              long parallelismThreshold) {
+        checkTarget(a, b, target);
+        Set<? extends E> small = (a.size() <= b.size()) ? a : b;
+        Set<? extends E> large = (small == a) ? b : a;
+        target.presize((long)target.size() + small.size());
+        HashMap<?,Object> sm = mapOf(small), lm = mapOf(large);
+        if (sm != null && lm != null)
+            target.transferMatching(sm, lm, true, false, parallelismThreshold);
+        else {
+            for (E e : small) {
+                if (large.contains(e))
+                    target.add(e);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Returns a new set holding the elements of a that are not
+     * contained in b.
+     * 返回一个包含a中不属于b的元素的新集合。
+     *
+     * @param a the set to subtract from
+     * @param b the set to subtract
+     * @param <E> the type of the result's elements
+     * @return a minus b
+     * @throws NullPointerException if a or b is null
+     */
+    public static <E> HashSet<E> difference(Set<? extends E> a, Set<?> b) {
+        return difference(a, b, new HashSet<E>(), Long.MAX_VALUE);
+    }
+
+    /**
+     * Adds the elements of a that are not contained in b to the
+     * target.  If the target is empty, both are HashSets and b is the
+     * smaller, a is copied in bulk and b's elements are removed again,
+     * so only b is iterated; otherwise a is iterated and probed against
+     * b.
+     * 把a中不属于b的元素加入target。如果target为空、两者都是HashSet且b较小，
+     * 就批量复制a再删除b中的元素，所以只遍历b；否则遍历a并在b中探测。
+     *
+     * @param a the set to subtract from
+     * @param b the set to subtract
+     * @param target the set receiving the difference
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for the probing to be executed in parallel
+     * @param <E> the type of the target's elements
+     * @return target
+     * @throws NullPointerException if any argument is null
+     * @throws IllegalArgumentException if target is a or b
+     */
+    public static <E> HashSet<E> difference(Set<? extends E> a, Set<?> b,
+                                            HashSet<E> target,
+                                            long parallelismThreshold) {
+        checkTarget(a, b, target);
+        HashMap<?,Object> am = mapOf(a), bm = mapOf(b);
+        if (am != null && bm != null) {
+            if (target.isEmpty() && bm.size < am.size) {
+                target.addAllFrom(a);
+                target.removeAll(b);
+            }
+            else {
+                target.presize((long)target.size() + am.size);
+                target.transferMatching(am, bm, false, false,
+                                        parallelismThreshold);
+            }
+        }
+        else {
+            target.presize((long)target.size() + a.size());
+            for (E e : a) {
+                if (!b.contains(e))
+                    target.add(e);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Returns a new set holding the elements contained in exactly one
+     * of the two sets.
+     * 返回一个包含只存在于两个集合之一中的元素的新集合。
+     *
+     * @param a a set
+     * @param b another set
+     * @param <E> the type of the result's elements
+     * @return the symmetric difference of a and b
+     * @throws NullPointerException if a or b is null
+     */
+    public static <E> HashSet<E> symmetricDifference(Set<? extends E> a,
+                                                     Set<? extends E> b) {
+        return symmetricDifference(a, b, new HashSet<E>(), Long.MAX_VALUE);
+    }
+
+    /**
+     * Adds the elements contained in exactly one of the two sets to the
+     * target.  If the target is empty and both are HashSets, the larger
+     * set is copied in bulk and only the smaller one is iterated: its
+     * elements found in the larger set are removed again, the others
+     * added.  Otherwise each set is iterated and probed against the
+     * other.
+     * 把只存在于两个集合之一中的元素加入target。如果target为空且两者都是HashSet，
+     * 就批量复制较大的集合，只遍历较小的集合：在较大集合中找到的元素再删除，其余的加入。否则分别遍历两个集合并在另一个中探测。
+     *
+     * @param a a set
+     * @param b another set
+     * @param target the set receiving the symmetric difference
+     * @param parallelismThreshold the (estimated) number of elements
+     * needed for the probing to be executed in parallel
+     * @param <E> the type of the target's elements
+     * @return target
+     * @throws NullPointerException if any argument is null
+     * @throws IllegalArgumentException if target is a or b
+     */
+    public static <E> HashSet<E> symmetricDifference(Set<? extends E> a,
+                                                     Set<? extends E> b,
+                                                     HashSet<E> target,
+                                                     long parallelismThreshold) {
+        checkTarget(a, b, target);
+        Set<? extends E> large = (a.size() >= b.size()) ? a : b;
+        Set<? extends E> small = (large == a) ? b : a;
+        target.presize((long)target.size() + a.size() + b.size());
+        HashMap<?,Object> sm = mapOf(small), lm = mapOf(large);
+        if (sm != null && lm != null) {
+            if (target.isEmpty()) {
+                target.addAllFrom(large);
+                target.transferMatching(sm, lm, true, true, parallelismThreshold);
+            }
+            else
+                target.transferMatching(lm, sm, false, false, parallelismThreshold);
+            target.transferMatching(sm, lm, false, false, parallelismThreshold);
+        }
+        else {
+            for (E e : a) {
+                if (!b.contains(e))
+                    target.add(e);
+            }
+            for (E e : b) {
+                if (!a.contains(e))
+                    target.add(e);
+            }
+        }
+        return target;
+    }
+
+    private static void checkTarget(Set<?> a, Set<?> b, HashSet<?> target) {
+        if (target == a || target == b)
+            throw new IllegalArgumentException("target is an operand");
+    }
+
+    /** Returns the backing map of c if it is a HashSet, else null. */
+    private static HashMap<?,Object> mapOf(Collection<?> c) {
+        if (c == null)
+            throw new NullPointerException();
+        return (c instanceof HashSet) ? ((HashSet<?>)c).map : null;
+    }
+
+    /** Sizes the backing map once for n elements. */
+    private void presize(long n) {
+        map.presize((int)Math.min(n, HashMap.MAXIMUM_CAPACITY));
+    }
+
+    /**
+     * Adds all elements of s, copying the bins of its backing map when
+     * it is a HashSet.
+     * 加入s中的所有元素，s是HashSet时直接复制其底层map的桶。
+     */
+    @SuppressWarnings("unchecked")
+    private void addAllFrom(Set<? extends E> s) {
+        HashMap<?,Object> sm = mapOf(s);
+        if (sm != null)
+            map.putHashMapEntries((HashMap<E,Object>)sm, true);
+        else
+            addAll(s);
+    }
+
+    /** Adds the key of a node of src, reusing its hash if possible. */
+    @SuppressWarnings("unchecked")
+    private void addNode(HashMap<?,Object> src, HashMap.Node<?,Object> e) {
+        HashMap<E,Object> m = map;
+        E key = (E)e.key;
+        m.putVal((src.spreader == m.spreader) ? e.hash : m.spread(key),
+                 key, PRESENT, false, true);
+    }
+
+    /** Removes the key of a node of src, reusing its hash if possible. */
+    private void removeNode(HashMap<?,Object> src, HashMap.Node<?,Object> e) {
+        HashMap<E,Object> m = map;
+        Object key = e.key;
+        m.removeNode((src.spreader == m.spreader) ? e.hash : m.spread(key),
+                     key, null, false, true);
+    }
+
+    /**
+     * Adds to this set, or removes from it if remove is true, each
+     * element of src whose presence in other is as given.  Sequential
+     * below the threshold, else the probing runs as a parallel bulk
+     * task over the bins of src.
+     * 把src中在other里存在与否符合present的每个元素加入此集合(remove为true时从此集合中删除)。
+     * 低于阈值时顺序执行，否则探测作为对src各个桶的并行批量任务执行。
+     */
+    private void transferMatching(HashMap<?,Object> src, HashMap<?,Object> other,
+                                  boolean present, boolean remove,
+                                  long parallelismThreshold) {
+        if (src.batchFor(parallelismThreshold) > 0) {
+            for (HashMap.Node<?,Object> e = src.matchNodes(other, present,
+                                                         parallelismThreshold);
+                 e != null; e = e.next) {
+                if (remove)
+                    removeNode(src, e);
+                else
+                    addNode(src, e);
+            }
+            return;
+        }
+        HashMap.Node<?,Object>[] tab = src.table, old = src.oldTable;
+        if (tab == null)
+            return;
+        boolean sameHash = (src.spreader == other.spreader);
+        int mc = src.modCount;
+        for (int i = 0, n = HashMap.binSpan(tab, old); i < n; ++i) {
+            for (HashMap.Node<?,Object> e = HashMap.binAt(tab, old, i);
+                 e != null; e = e.next) {
+                Object key = e.key;
+                int h = sameHash ? e.hash : other.spread(key);
+                if ((other.getNode(h, key) != null) == present) {
+                    if (remove)
+                        removeNode(src, e);
+                    else
+                        addNode(src, e);
+                }
+            }
+        }
+        if (src.modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Removes the elements of this set whose presence in other is as
+     * given, walking this set's nodes with an iterator so that their
+     * stored hashes can probe other.
+     * 删除此集合中在other里存在与否符合present的元素，用迭代器遍历此集合的结点，以便用保存的hash在other中探测。
+     */
+    private void removeMatching(HashMap<?,Object> other, boolean present) {
+        HashMap<E,Object> m = map;
+        boolean sameHash = (m.spreader == other.spreader);
+        for (Iterator<Map.Entry<E,Object>> it = m.entrySet().iterator(); it.hasNext();) {
+            HashMap.Node<E,Object> e = (HashMap.Node<E,Object>)it.next();
+            E key = e.key;
+            int h = sameHash ? e.hash : other.spread(key);
+            if ((other.getNode(h, key) != null) == present)
+                it.remove();
+        }
+    }
     
     /**
      * Returns a shallow copy of this <tt>HashSet</tt> instance: the elements
@@ -348,10 +768,9 @@ public class HashSet<E>
         capacity = (int) Math.min(size * Math.min(1 / loadFactor, 4.0f),
                 HashMap.MAXIMUM_CAPACITY);
 
-        // Create backing HashMap
-        map = (((HashSet<?>)this) instanceof LinkedHashSet ?
-               new LinkedHashMap<E,Object>(capacity, loadFactor) :
-               new HashMap<E,Object>(capacity, loadFactor));
+        // Create backing HashMap (this package has no LinkedHashSet, the
+        // only user of the LinkedHashMap-backed constructor)
+        map = new HashMap<E,Object>(capacity, loadFactor);
 
         // Read in all elements in the proper order.
         for (int i=0; i<size; i++) {
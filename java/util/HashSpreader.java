@@ -0,0 +1,93 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:HashSpreader.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午2:03:51  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Turns a key's <tt>hashCode()</tt> into the hash a {@link HashMap}
+ * stores and masks with <tt>(n - 1)</tt> to pick a bin.  The table only
+ * looks at the low bits, so the spreader decides how much the high bits
+ * of a <tt>hashCode</tt> matter.
+ * 把键的hashCode()转换成HashMap保存并用(n - 1)掩码来选桶的hash。表只看低位，
+ * 所以由spreader决定hashCode的高位有多大影响。
+ *
+ * <p>A map uses one spreader for its whole life, because stored hashes
+ * are reused on resize and tree bins are ordered by hash.  Keys whose
+ * <tt>hashCode</tt> values are equal collide under every spreader;
+ * spreading only helps keys that differ in bits the mask drops.
+ * 一个map在整个生命周期中只使用一个spreader，因为扩容时会复用保存的hash，树形桶也按hash排序。
+ * hashCode相等的键在任何spreader下都会冲突；spreader只对那些在被掩码丢弃的位上不同的键有帮助。
+ *
+ * @see HashMap#HashMap(int, float, HashSpreader)
+ */
+public interface HashSpreader {
+
+    /**
+     * Spreads a non-null key's hash code.
+     * 扰动一个非null键的hashCode。
+     *
+     * @param h the key's <tt>hashCode()</tt>
+     * @return the hash to store
+     */
+    int spread(int h);
+
+    /**
+     * The default: XOR the high 16 bits into the low 16 bits, as
+     * {@link HashMap#hash}.  Cheapest, and enough for most key sets.
+     * 默认策略：把高16位异或到低16位，与HashMap.hash相同。代价最低，对大多数键集合已经足够。
+     */
+    HashSpreader XOR_SHIFT = h -> h ^ (h >>> 16);
+
+    /**
+     * The MurmurHash3 32-bit finalizer (fmix32): every input bit
+     * affects every output bit, so sequential and strided hash codes
+     * spread evenly.  A few multiplies more than XOR_SHIFT.
+     * MurmurHash3的32位收尾函数(fmix32)：每个输入位都影响每个输出位，
+     * 所以连续的或等步长的hashCode都能均匀分布。比XOR_SHIFT多几次乘法。
+     */
+    HashSpreader MURMUR3 = h -> {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    };
+
+    /**
+     * Returns a spreader that mixes a random per-instance seed into
+     * the hash before the MurmurHash3 finalizer.  An attacker who can
+     * choose keys but not see the seed cannot predict which keys share
+     * a bin, which defeats flooding with hash codes that differ only in
+     * high bits.  Keys with equal <tt>hashCode</tt> values still share a
+     * bin and are left to tree bins.
+     * 返回一个在MurmurHash3收尾函数之前混入随机种子的spreader，每个实例的种子不同。
+     * 攻击者可以选择键却看不到种子，就无法预测哪些键落入同一个桶，从而挫败仅高位不同的hashCode发起的碰撞攻击。
+     * hashCode相等的键仍然会落入同一个桶，交给树形桶处理。
+     *
+     * @return a new randomly seeded spreader
+     */
+    static HashSpreader seeded() {
+        return seeded(ThreadLocalRandom.current().nextInt());
+    }
+
+    /**
+     * Returns a spreader seeded with the given value, for reproducible
+     * tests and benchmarks.
+     * 返回使用给定种子的spreader，用于可重现的测试和基准。
+     *
+     * @param seed the seed
+     * @return a seeded spreader
+     */
+    static HashSpreader seeded(int seed) {
+        final int s = seed * 0x9e3779b9 | 1;
+        return h -> MURMUR3.spread(h ^ s);
+    }
+}
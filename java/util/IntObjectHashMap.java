@@ -0,0 +1,468 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:IntObjectHashMap.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日上午10:25:12  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash table mapping primitive <tt>int</tt> keys to object values.  Keys
+ * are kept in an <tt>int[]</tt> and values in a parallel
+ * <tt>Object[]</tt>, and collisions are resolved by linear probing, so
+ * neither <tt>put</tt> nor <tt>get</tt> boxes the key or allocates a
+ * node once the table has reached its steady-state size.
+ * 以int为键的哈希表。键保存在int[]中，值保存在平行的Object[]中，
+ * 冲突采用线性探测解决，因此在表容量稳定后put和get既不会装箱键，也不会分配结点。
+ *
+ * <p>The slot index is computed with the same spreading function as
+ * {@link HashMap#hash} applied to the key itself (which is what
+ * <tt>Integer.hashCode()</tt> returns), and the table length is always
+ * a power of two obtained from {@link HashMap#tableSizeFor}.
+ * 下标计算使用与HashMap.hash()相同的扰动函数，表长度同样由HashMap.tableSizeFor()取2的幂。
+ *
+ * <p>Each mapping costs one <tt>int</tt> and one reference slot divided
+ * by the load factor, compared with a <tt>HashMap.Node</tt>, a boxed
+ * <tt>Integer</tt> and a table reference for <tt>HashMap</tt>.
+ * 每个映射只占用一个int和一个引用槽(除以负载因子)，
+ * 而HashMap需要一个Node对象、一个装箱的Integer以及一个表引用。
+ *
+ * <p>Every <tt>int</tt> value is a legal key and <tt>null</tt> values
+ * are permitted.  <strong>Note that this implementation is not
+ * synchronized.</strong>
+ *
+ * @param <V> the type of mapped values
+ *
+ * @see HashMap
+ */
+public class IntObjectHashMap<V> implements Cloneable, java.io.Serializable {
+
+	/**
+	 * serialVersionUID:
+	 */
+	private static final long serialVersionUID = 3601542932150876437L;
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     * 默认的初始容量-必须是2的幂。
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 1 << 4;
+
+    /**
+     * The maximum capacity.  MUST be a power of two <= 1<<30.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.  Lower
+     * than HashMap's 0.75 because linear probing clusters quickly
+     * above one half.
+     * 构造时未指定时使用的负载因子。线性探测在超过一半后聚集明显，所以比HashMap的0.75低。
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * Value stored in place of <tt>null</tt>, so that a <tt>null</tt>
+     * slot in {@link #values} always means "free".
+     * 用于代替null值存储，使values中的null总是表示空槽。
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    /**
+     * The keys; <tt>keys[i]</tt> is meaningful only when
+     * <tt>values[i] != null</tt>.
+     */
+    transient int[] keys;
+
+    /**
+     * The values, masked with {@link #NULL_VALUE}; a <tt>null</tt> entry
+     * marks a free slot.
+     */
+    transient Object[] values;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The next size value at which to resize (capacity * load factor).
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     * 构造具有指定初始容量和负载因子的空map。
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in (0, 1)
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not in (0, 1)
+     */
+    public IntObjectHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (initialCapacity > MAXIMUM_CAPACITY)
+            initialCapacity = MAXIMUM_CAPACITY;
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        int cap = HashMap.tableSizeFor((int)Math.min((long)(initialCapacity / loadFactor) + 1,
+                                                     MAXIMUM_CAPACITY));
+        allocate(Math.max(cap, 2));
+    }
+
+    /**
+     * Constructs an empty map able to hold <tt>initialCapacity</tt>
+     * mappings without resizing, using the default load factor (0.5).
+     *
+     * @param  initialCapacity the expected number of mappings
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public IntObjectHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16)
+     * and the default load factor (0.5).
+     */
+    public IntObjectHashMap() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        allocate(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Spreads the key the same way {@link HashMap#hash} spreads
+     * <tt>Integer.hashCode()</tt>.
+     */
+    static int hash(int key) {
+        return key ^ (key >>> 16);
+    }
+
+    private static Object maskNull(Object value) {
+        return (value == null ? NULL_VALUE : value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V unmaskNull(Object value) {
+        return (value == NULL_VALUE ? null : (V) value);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        threshold = (capacity >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY - 1 :
+            Math.min((int)(capacity * loadFactor), capacity - 1);
+    }
+
+    /**
+     * Returns the slot holding <tt>key</tt>, or the bitwise complement
+     * of the free slot where it would be inserted.
+     * 返回key所在的槽位；若不存在，返回应插入的空槽下标的按位取反值。
+     */
+    private int indexOf(int key) {
+        int[] ks = keys;
+        Object[] vs = values;
+        int mask = ks.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (vs[i] == null)
+                return ~i;
+            if (ks[i] == key)
+                return i;
+        }
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * <tt>null</tt> if this map contains no mapping for the key.
+     * 返回指定键映射的值，不存在返回null。
+     */
+    public V get(int key) {
+        int i = indexOf(key);
+        return (i < 0) ? null : IntObjectHashMap.<V>unmaskNull(values[i]);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * <tt>defaultValue</tt> if this map contains no mapping for the key.
+     */
+    public V getOrDefault(int key, V defaultValue) {
+        int i = indexOf(key);
+        return (i < 0) ? defaultValue : IntObjectHashMap.<V>unmaskNull(values[i]);
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     */
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     * 将指定的值与指定的键关联，若已存在则替换旧值。
+     *
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     */
+    public V put(int key, V value) {
+        int i = indexOf(key);
+        Object v = maskNull(value);
+        if (i >= 0) {
+            V oldValue = unmaskNull(values[i]);
+            values[i] = v;
+            return oldValue;
+        }
+        i = ~i;
+        keys[i] = key;
+        values[i] = v;
+        if (++size > threshold)
+            resize();
+        return null;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     * 删除指定键的映射(如果存在)。
+     *
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     */
+    public V remove(int key) {
+        int i = indexOf(key);
+        if (i < 0)
+            return null;
+        V oldValue = unmaskNull(values[i]);
+        --size;
+        closeDeletion(i);
+        return oldValue;
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The table keeps its
+     * current capacity.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Performs the given action for each mapping in this map, in table
+     * order, without allocating entry objects.
+     * 按表顺序对每个映射执行给定操作，不会分配Entry对象。
+     *
+     * @param action the action to be performed for each mapping
+     */
+    public void forEach(EntryConsumer<? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        int[] ks = keys;
+        Object[] vs = values;
+        for (int i = 0; i < vs.length; ++i) {
+            Object v = vs[i];
+            if (v != null)
+                action.accept(ks[i], IntObjectHashMap.<V>unmaskNull(v));
+        }
+        if (vs != values)
+            throw new java.util.ConcurrentModificationException();
+    }
+
+    /**
+     * Returns the keys of this map in a newly allocated array, in table
+     * order.
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int[] ks = keys;
+        Object[] vs = values;
+        for (int i = 0, j = 0; i < vs.length; ++i) {
+            if (vs[i] != null)
+                result[j++] = ks[i];
+        }
+        return result;
+    }
+
+    /**
+     * Doubles the table, re-probing every key into the new arrays.
+     * 表容量扩大一倍，把每个键重新探测放入新数组。
+     */
+    private void resize() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldCap = oldKeys.length;
+        if (oldCap >= MAXIMUM_CAPACITY) {
+            if (size >= MAXIMUM_CAPACITY - 1)
+                throw new IllegalStateException("Capacity exhausted.");
+            return;
+        }
+        allocate(oldCap << 1);
+        int[] ks = keys;
+        Object[] vs = values;
+        int mask = ks.length - 1;
+        for (int j = 0; j < oldCap; ++j) {
+            Object v = oldValues[j];
+            if (v != null) {
+                int k = oldKeys[j];
+                int i = hash(k) & mask;
+                while (vs[i] != null)
+                    i = (i + 1) & mask;
+                ks[i] = k;
+                vs[i] = v;
+            }
+        }
+    }
+
+    /**
+     * Rehash all possibly-colliding entries following a deletion.
+     * This preserves the linear-probe collision properties required
+     * by get, put, etc, without tombstones (the same backward-shift
+     * deletion IdentityHashMap uses).
+     * 删除后把后续可能冲突的条目向前移动，以保持线性探测的性质，无需墓碑标记。
+     */
+    private void closeDeletion(int d) {
+        int[] ks = keys;
+        Object[] vs = values;
+        int mask = ks.length - 1;
+        vs[d] = null;
+        Object v;
+        for (int i = (d + 1) & mask; (v = vs[i]) != null; i = (i + 1) & mask) {
+            int k = ks[i];
+            int r = hash(k) & mask;
+            // move the entry at i into d unless its home slot r lies
+            // cyclically in (d, i]
+            if ((i < r && (r <= d || d <= i)) || (r <= d && d <= i)) {
+                ks[d] = k;
+                vs[d] = v;
+                vs[i] = null;
+                d = i;
+            }
+        }
+    }
+
+    /**
+     * Returns a shallow copy of this map: the values themselves are
+     * not cloned.
+     */
+    @SuppressWarnings("unchecked")
+    public IntObjectHashMap<V> clone() {
+        try {
+            IntObjectHashMap<V> result = (IntObjectHashMap<V>) super.clone();
+            result.keys = keys.clone();
+            result.values = values.clone();
+            return result;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Returns a string representation of this map, in table order.
+     */
+    public String toString() {
+        if (size == 0)
+            return "{}";
+        StringBuilder sb = new StringBuilder().append('{');
+        int[] ks = keys;
+        Object[] vs = values;
+        for (int i = 0; i < vs.length; ++i) {
+            Object v = vs[i];
+            if (v != null) {
+                if (sb.length() > 1)
+                    sb.append(", ");
+                sb.append(ks[i]).append('=').append(unmaskNull(v) == this ? "(this Map)" : unmaskNull(v));
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Save the state of this map to a stream.
+     *
+     * @serialData The capacity (int), the number of mappings (int),
+     *             followed by the key (int) and value (Object) of every
+     *             mapping, in no particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        s.writeInt(keys.length);
+        s.writeInt(size);
+        int[] ks = keys;
+        Object[] vs = values;
+        for (int i = 0; i < vs.length; ++i) {
+            Object v = vs[i];
+            if (v != null) {
+                s.writeInt(ks[i]);
+                s.writeObject(unmaskNull(v));
+            }
+        }
+    }
+
+    /**
+     * Reconstitute the map from a stream (that is, deserialize it).
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new java.io.InvalidObjectException("Illegal load factor: " +
+                                                     loadFactor);
+        s.readInt(); // capacity, recomputed from size below
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new java.io.InvalidObjectException("Illegal mappings count: " +
+                                                     mappings);
+        int cap = HashMap.tableSizeFor((int)Math.min((long)(mappings / loadFactor) + 1,
+                                                     MAXIMUM_CAPACITY));
+        allocate(Math.max(cap, 2));
+        for (int i = 0; i < mappings; i++)
+            put(s.readInt(), (V) s.readObject());
+    }
+
+    /**
+     * Represents an operation that accepts an <tt>int</tt> key and its
+     * mapped value, so that iteration needs neither boxing nor
+     * <tt>Map.Entry</tt> objects.
+     *
+     * @param <V> the type of mapped values
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+}
@@ -0,0 +1,606 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:LinkedHashCache.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午6:20:17  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * A bounded LRU cache: an access-ordered {@link LinkedHashMap} that
+ * evicts its least recently used entries whenever it holds more than
+ * <tt>maximumSize</tt> entries or their total weight exceeds
+ * <tt>maximumWeight</tt>.  Eviction takes the head of the access-order
+ * list, so it costs O(1) per evicted entry.
+ * 有界的LRU缓存：一个访问顺序的LinkedHashMap，当条目数超过maximumSize或条目的总权重超过
+ * maximumWeight时，淘汰最近最少使用的条目。淘汰时取访问顺序链表的头部，所以每淘汰一个条目的代价是O(1)。
+ *
+ * <p>Each entry weighs what the {@link Weigher} says, or 1 without a
+ * weigher.  The weight is taken when the entry is inserted and when its
+ * value is replaced through <tt>put</tt>, <tt>putAll</tt>,
+ * <tt>replaceAll</tt>, the <tt>Map</tt> default methods built on them
+ * or <tt>setValue</tt> on an entry of {@link #entrySet}, and the
+ * entry keeps that weight until it is weighed again, even if its value
+ * changes meanwhile.  An entry heavier than <tt>maximumWeight</tt> is
+ * evicted, by itself, right after it is inserted or re-weighed.
+ * 每个条目的权重由Weigher决定，没有Weigher时为1。在插入条目以及通过put、putAll、replaceAll、
+ * 基于它们的Map默认方法或entrySet中条目的setValue替换值时称重，条目保持这个权重直到再次称重，
+ * 即使期间它的值发生了变化。比maximumWeight还重的条目在插入或重新称重后立刻被单独淘汰。
+ *
+ * <p><tt>get</tt> and <tt>getOrDefault</tt> count hits and misses, and
+ * every eviction is counted and reported to the
+ * {@link EvictionListener}, if one is set.  The bounds replace
+ * {@link #removeEldestEntry}, which is not consulted.
+ * get和getOrDefault统计命中和未命中次数，每次淘汰都会计数，并通知EvictionListener(如果设置了)。
+ * 这些限制取代了removeEldestEntry，它不会被调用。
+ *
+ * <p>Like <tt>LinkedHashMap</tt>, this cache <strong>is not
+ * synchronized</strong>; since <tt>get</tt> reorders entries, even
+ * concurrent readers must synchronize externally.
+ * 与LinkedHashMap一样，此缓存不是同步的；由于get会调整条目顺序，即使只有并发读也必须在外部同步。
+ *
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ *
+ * @see LinkedHashMap#removeEldestEntry
+ */
+public class LinkedHashCache<K,V> extends LinkedHashMap<K,V> {
+
+	/**
+	 * serialVersionUID:
+	 */
+	private static final long serialVersionUID = -6408734526618204158L;
+
+    /** The maximum number of entries. 最大条目数。 */
+    final int maximumSize;
+
+    /** The maximum total weight. 最大总权重。 */
+    final long maximumWeight;
+
+    /** The weigher, or null if every entry weighs 1. 称重函数，为null时每个条目权重为1。 */
+    final Weigher<? super K,? super V> weigher;
+
+    transient EvictionListener<? super K,? super V> listener;
+
+    /** The total weight of the entries. 所有条目的总权重。 */
+    transient long weight;
+
+    /**
+     * The weights of the tree bin nodes, which have no field for it,
+     * while there is a weigher.
+     * 有weigher时树形桶结点的权重，树结点中没有保存权重的字段。
+     */
+    transient IdentityHashMap<Node<K,V>,Integer> treeWeights;
+
+    transient long hitCount;
+    transient long missCount;
+    transient long evictionCount;
+
+    /**
+     * Constructs an empty cache holding at most the given number of
+     * entries.
+     * 构造一个最多保存给定数量条目的空缓存。
+     *
+     * @param  maximumSize the maximum number of entries
+     * @throws IllegalArgumentException if maximumSize is negative
+     */
+    public LinkedHashCache(int maximumSize) {
+        this(maximumSize, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Constructs an empty cache whose entries weigh at most the given
+     * total.
+     * 构造一个条目总权重不超过给定值的空缓存。
+     *
+     * @param  maximumWeight the maximum total weight
+     * @param  weigher the weigher
+     * @throws IllegalArgumentException if maximumWeight is negative
+     * @throws NullPointerException if weigher is null
+     */
+    public LinkedHashCache(long maximumWeight, Weigher<? super K,? super V> weigher) {
+        this(Integer.MAX_VALUE, maximumWeight, weigher);
+        if (weigher == null)
+            throw new NullPointerException();
+    }
+
+    /**
+     * Constructs an empty cache bounded both by entry count and by
+     * total weight.
+     * 构造一个同时按条目数和总权重限制的空缓存。
+     *
+     * @param  maximumSize the maximum number of entries
+     * @param  maximumWeight the maximum total weight
+     * @param  weigher the weigher, or null to weigh every entry as 1
+     * @throws IllegalArgumentException if maximumSize or maximumWeight
+     *         is negative
+     */
+    public LinkedHashCache(int maximumSize, long maximumWeight,
+                           Weigher<? super K,? super V> weigher) {
+        super(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, true);
+        if (maximumSize < 0)
+            throw new IllegalArgumentException("Illegal maximum size: " +
+                                               maximumSize);
+        if (maximumWeight < 0)
+            throw new IllegalArgumentException("Illegal maximum weight: " +
+                                               maximumWeight);
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Sets the listener notified of evictions, or null for none.
+     * 设置淘汰时通知的监听器，为null时不通知。
+     *
+     * @param listener the listener
+     */
+    public void setEvictionListener(EvictionListener<? super K,? super V> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Entry of a cache with a weigher: a LinkedHashMap.Entry that
+     * remembers the weight it was charged, so that removing it or
+     * replacing its value subtracts exactly that weight.
+     * 有weigher的缓存的条目：一个记住自己被计入的权重的LinkedHashMap.Entry，
+     * 这样删除它或替换它的值时减去的恰好是这个权重。
+     */
+    static final class WeightedEntry<K,V> extends LinkedHashMap.Entry<K,V> {
+        int weight;
+        WeightedEntry(int hash, K key, V value, Node<K,V> next) {
+            super(hash, key, value, next);
+        }
+    }
+
+    /**
+     * Returns the weight the entry was charged: 1 without a weigher,
+     * else the stored weight.
+     * 返回条目被计入的权重：没有weigher时为1，否则为保存的权重。
+     */
+    final int weightOf(Node<K,V> e) {
+        if (weigher == null)
+            return 1;
+        if (e instanceof TreeNode) {
+            Integer w = (treeWeights == null) ? null : treeWeights.get(e);
+            return (w == null) ? 0 : w;
+        }
+        return ((WeightedEntry<K,V>)e).weight;
+    }
+
+    /**
+     * Weighs the entry's current value, stores the weight and adjusts the
+     * total by the difference from the weight stored before.
+     * 对条目的当前值称重，保存权重，并按与之前保存的权重之差调整总权重。
+     *
+     * @param charged the weight the entry is counted with now, 0 for a
+     *        new entry
+     * @return the new weight
+     */
+    final int reweigh(Node<K,V> e, int charged) {
+        int w = weigh(e.key, e.value);
+        weight += w - charged;
+        if (weigher != null) {
+            if (e instanceof TreeNode)
+                treeWeights().put(e, w);
+            else
+                ((WeightedEntry<K,V>)e).weight = w;
+        }
+        return w;
+    }
+
+    final IdentityHashMap<Node<K,V>,Integer> treeWeights() {
+        IdentityHashMap<Node<K,V>,Integer> m;
+        if ((m = treeWeights) == null)
+            treeWeights = m = new IdentityHashMap<Node<K,V>,Integer>();
+        return m;
+    }
+
+    final int weigh(K key, V value) {
+        Weigher<? super K,? super V> w;
+        if ((w = weigher) == null)
+            return 1;
+        int wt = w.weigh(key, value);
+        if (wt < 0)
+            throw new IllegalArgumentException("Negative weight: " + wt);
+        return wt;
+    }
+
+    /**
+     * Evicts from the head of the access-order list until the cache is
+     * within its bounds again.
+     * 从访问顺序链表的头部开始淘汰，直到缓存重新满足限制。
+     */
+    final void evictEntries() {
+        LinkedHashMap.Entry<K,V> e;
+        while ((size > maximumSize || weight > maximumWeight) &&
+               (e = head) != null)
+            evict(e);
+    }
+
+    /**
+     * Evicts an entry that has just been inserted or re-weighed with the
+     * given weight if it alone is heavier than maximumWeight, since
+     * evicting other entries could never make room for it; then evicts
+     * from the head as needed.
+     * 如果刚插入或重新称重的条目自身就比maximumWeight还重，就淘汰它本身，因为淘汰其他条目永远腾不出空间；
+     * 然后按需要从头部淘汰。
+     */
+    final void evictEntries(Node<K,V> e, int w) {
+        if (w > maximumWeight)
+            evict(e);
+        evictEntries();
+    }
+
+    /**
+     * Removes an entry, counting the eviction and notifying the listener.
+     * 删除一个条目，统计淘汰次数并通知监听器。
+     */
+    final void evict(Node<K,V> e) {
+        K key = e.key;
+        V value = e.value;
+        removeNode(e.hash, key, null, false, true);
+        ++evictionCount;
+        EvictionListener<? super K,? super V> l;
+        if ((l = listener) != null)
+            l.onEviction(key, value);
+    }
+
+    // overrides of LinkedHashMap hook methods
+    // 覆盖LinkedHashMap的钩子方法，维护总权重；有weigher时结点保存自己的权重
+
+    Node<K,V> newNode(int hash, K key, V value, Node<K,V> e) {
+        if (weigher == null)
+            return super.newNode(hash, key, value, e);
+        WeightedEntry<K,V> p = new WeightedEntry<K,V>(hash, key, value, e);
+        linkNodeLast(p);
+        return p;
+    }
+
+    // p is a tree node
+    Node<K,V> replacementNode(Node<K,V> p, Node<K,V> next) {
+        if (weigher == null)
+            return super.replacementNode(p, next);
+        LinkedHashMap.Entry<K,V> q = (LinkedHashMap.Entry<K,V>)p;
+        WeightedEntry<K,V> t = new WeightedEntry<K,V>(q.hash, q.key, q.value, next);
+        t.weight = weightOf(p);
+        if (treeWeights != null)
+            treeWeights.remove(p);
+        transferLinks(q, t);
+        return t;
+    }
+
+    TreeNode<K,V> replacementTreeNode(Node<K,V> p, Node<K,V> next) {
+        TreeNode<K,V> t = super.replacementTreeNode(p, next);
+        if (weigher != null)
+            treeWeights().put(t, weightOf(p));
+        return t;
+    }
+
+    // the new node is always the tail
+    void afterNodeInsertion(boolean evict) {
+        LinkedHashMap.Entry<K,V> p = tail;
+        int w = reweigh(p, 0);
+        if (evict)
+            evictEntries(p, w);
+    }
+
+    void afterNodeRemoval(Node<K,V> e) {
+        super.afterNodeRemoval(e);
+        weight -= weightOf(e);
+        if (treeWeights != null && e instanceof TreeNode)
+            treeWeights.remove(e);
+    }
+
+    /* ---------------- Map operations -------------- */
+
+    /**
+     * Returns the value to which the specified key is mapped, or null,
+     * counting a hit or a miss and making the entry the most recently
+     * used.
+     * 返回指定键映射的值，不存在时返回null。统计一次命中或未命中，并把条目设为最近使用。
+     */
+    public V get(Object key) {
+        Node<K,V> e;
+        if ((e = getNode(spread(key), key)) == null) {
+            ++missCount;
+            return null;
+        }
+        ++hitCount;
+        afterNodeAccess(e);
+        return e.value;
+    }
+
+    /**
+     * Makes the entry for the key, if any, the most recently used
+     * without counting a hit or a miss.  Used to replay reads that
+     * were served elsewhere, see ConcurrentLinkedHashCache.
+     * 把该键的条目(如果存在)设为最近使用，不统计命中或未命中。用于重放在别处完成的读，
+     * 见ConcurrentLinkedHashCache。
+     */
+    final void touch(int hash, Object key) {
+        Node<K,V> e;
+        if ((e = getNode(hash, key)) != null)
+            afterNodeAccess(e);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 统计一次命中或未命中。
+     */
+    public V getOrDefault(Object key, V defaultValue) {
+        Node<K,V> e;
+        if ((e = getNode(spread(key), key)) == null) {
+            ++missCount;
+            return defaultValue;
+        }
+        ++hitCount;
+        afterNodeAccess(e);
+        return e.value;
+    }
+
+    /**
+     * Associates the value with the key, making the entry the most
+     * recently used, then evicts entries if the cache is over its
+     * bounds.  Replacing a value re-weighs the entry.
+     * 把值与键关联并把条目设为最近使用，如果超出限制则淘汰条目。替换值时重新称重。
+     */
+    public V put(K key, V value) {
+        int hash = spread(key);
+        Node<K,V> e;
+        if ((e = getNode(hash, key)) == null)
+            return putVal(hash, key, value, false, true);
+        V oldValue = e.value;
+        e.value = value;
+        int w = reweigh(e, weightOf(e));
+        afterNodeAccess(e);
+        evictEntries(e, w);
+        return oldValue;
+    }
+
+    /**
+     * Puts each mapping through {@link #put}, so that replaced values
+     * are re-weighed.
+     * 每个映射都经过put，从而重新称重被替换的值。
+     */
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+            put(e.getKey(), e.getValue());
+    }
+
+    /**
+     * Puts each mapping through {@link #put}, so that replaced values
+     * are re-weighed.
+     * 每个映射都经过put，从而重新称重被替换的值。
+     */
+    public void putAll(K[] keys, V[] values) {
+        int k = keys.length;
+        if (values.length != k)
+            throw new IllegalArgumentException("Keys and values differ in length: " +
+                                               k + " != " + values.length);
+        for (int i = 0; i < k; ++i)
+            put(keys[i], values[i]);
+    }
+
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        if (function == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        boolean overweight = false;
+        for (LinkedHashMap.Entry<K,V> e = head; e != null; e = e.after) {
+            e.value = function.apply(e.key, e.value);
+            if (reweigh(e, weightOf(e)) > maximumWeight)
+                overweight = true;
+        }
+        if (modCount != mc)
+            throw new java.util.ConcurrentModificationException();
+        // 先单独淘汰自身就超重的条目，再从头部淘汰
+        for (LinkedHashMap.Entry<K,V> e = head, next; overweight && e != null; e = next) {
+            next = e.after;
+            if (weightOf(e) > maximumWeight)
+                evict(e);
+        }
+        evictEntries();
+    }
+
+    /**
+     * Replaces the value of an entry found through a view, re-weighing
+     * it and evicting entries if the cache is now over its bounds.  The
+     * entry is not made the most recently used, which would reorder
+     * the list being iterated.
+     * 替换通过视图找到的条目的值，重新称重，如果缓存因此超出限制则淘汰条目。
+     * 不把该条目设为最近使用，否则会调整正在迭代的链表的顺序。
+     */
+    V setEntryValue(Node<K,V> e, V value) {
+        V oldValue = e.value;
+        e.value = value;
+        evictEntries(e, reweigh(e, weightOf(e)));
+        return oldValue;
+    }
+
+    public void clear() {
+        super.clear();
+        weight = 0L;
+        treeWeights = null;
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this
+     * cache, in access order.  <tt>setValue</tt> on its entries writes
+     * through {@link #setEntryValue}, so the new value is weighed; if
+     * that puts the cache over its bounds, entries are evicted and an
+     * iteration in progress fails with
+     * {@link ConcurrentModificationException}.
+     * 返回此缓存中映射的Set视图，按访问顺序迭代。其条目的setValue经过setEntryValue，所以新值会被称重；
+     * 如果因此超出限制，则淘汰条目，正在进行的迭代会抛出ConcurrentModificationException。
+     *
+     * @return a set view of the mappings contained in this cache
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) == null ? (entrySet = new CacheEntrySet()) : es;
+    }
+
+    final class CacheEntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public final int size()                 { return size; }
+        public final void clear()               { LinkedHashCache.this.clear(); }
+        public final Iterator<Map.Entry<K,V>> iterator() {
+            return new CacheEntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey();
+            Node<K,V> candidate = getNode(spread(key), key);
+            return candidate != null && candidate.equals(e);
+        }
+        public final boolean remove(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+                Object key = e.getKey();
+                Object value = e.getValue();
+                return removeNode(spread(key), key, value, true, true) != null;
+            }
+            return false;
+        }
+        public final void forEach(Consumer<? super Map.Entry<K,V>> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int mc = modCount;
+            for (LinkedHashMap.Entry<K,V> e = head; e != null && modCount == mc; e = e.after)
+                action.accept(new CacheEntry(e));
+            if (modCount != mc)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    final class CacheEntryIterator extends LinkedHashIterator
+        implements Iterator<Map.Entry<K,V>> {
+        public final Map.Entry<K,V> next() { return new CacheEntry(nextNode()); }
+    }
+
+    /**
+     * An entry of the entry set view, writing values through
+     * setEntryValue.
+     * entrySet视图中的条目，通过setEntryValue写入值。
+     */
+    final class CacheEntry implements Map.Entry<K,V> {
+        final Node<K,V> node;
+
+        CacheEntry(Node<K,V> node) {
+            this.node = node;
+        }
+        public K getKey()        { return node.key; }
+        public V getValue()      { return node.value; }
+        public V setValue(V value) {
+            return setEntryValue(node, value);
+        }
+        public boolean equals(Object o) {
+            return o == this || node.equals(o);
+        }
+        public int hashCode() {
+            return Objects.hashCode(node.key) ^ Objects.hashCode(node.value);
+        }
+        public String toString() { return node.toString(); }
+    }
+
+    void reinitialize() {
+        super.reinitialize();
+        weight = 0L;
+        treeWeights = null;
+        hitCount = missCount = evictionCount = 0L;
+    }
+
+    /* ---------------- Statistics -------------- */
+
+    /** Returns the maximum number of entries. 返回最大条目数。 */
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /** Returns the maximum total weight. 返回最大总权重。 */
+    public long maximumWeight() {
+        return maximumWeight;
+    }
+
+    /** Returns the total weight of the entries. 返回所有条目的总权重。 */
+    public long weight() {
+        return weight;
+    }
+
+    /** Returns the number of lookups that found an entry. 返回命中的查找次数。 */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /** Returns the number of lookups that found no entry. 返回未命中的查找次数。 */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of hits to lookups, or 1.0 if there have been
+     * no lookups.
+     * 返回命中次数与查找次数之比，没有查找时返回1.0。
+     */
+    public double hitRate() {
+        long lookups = hitCount + missCount;
+        return (lookups == 0L) ? 1.0 : (double)hitCount / lookups;
+    }
+
+    /** Returns the number of entries evicted. 返回被淘汰的条目数。 */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Resets the hit, miss and eviction counters to zero.
+     * 把命中、未命中和淘汰计数器清零。
+     */
+    public void resetStatistics() {
+        hitCount = missCount = evictionCount = 0L;
+    }
+
+    /**
+     * Reconstitutes the cache from a stream.  The entries were read by
+     * HashMap before this class's fields, as plain entries of weight 1,
+     * so with a weigher they are inserted again, in access order, as
+     * weighted entries.
+     * 从流中重建缓存。条目在本类的字段之前已由HashMap读入，是权重为1的普通条目，
+     * 所以有weigher时按访问顺序重新插入为带权重的条目。
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (weigher != null && size > 0) {
+            Object[] kvs = new Object[size << 1];
+            int i = 0;
+            for (LinkedHashMap.Entry<K,V> e = head; e != null; e = e.after) {
+                kvs[i++] = e.key;
+                kvs[i++] = e.value;
+            }
+            super.clear();
+            weight = 0L;
+            for (int j = 0; j < i; j += 2) {
+                K key = (K)kvs[j];
+                putVal(spread(key), key, (V)kvs[j + 1], false, false);
+            }
+        }
+        evictEntries();
+    }
+}
@@ -0,0 +1,609 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:LongHashSet.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午10:21:37  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hash set of primitive <tt>long</tt> values.  The elements are kept in
+ * a <tt>long[]</tt> and collisions are resolved by linear probing, so
+ * neither <tt>add</tt> nor <tt>contains</tt> boxes the element or
+ * allocates a node once the table has reached its steady-state size.
+ * 元素为基本类型long的哈希集合。元素保存在long[]中，冲突采用线性探测解决，
+ * 因此在表容量稳定后add和contains既不会装箱元素，也不会分配结点。
+ *
+ * <p>A slot holding 0 is free, so the element 0 itself is kept in a
+ * flag outside the table.  The slot index is computed with the same
+ * spreading function as {@link HashMap#hash} applied to
+ * <tt>Long.hashCode()</tt> of the element, and the table length is
+ * always a power of two, as in {@link IntObjectHashMap}.
+ * 值为0的槽表示空闲，所以元素0本身用表外的一个标志保存。下标计算使用与HashMap.hash()
+ * 相同的扰动函数作用于元素的Long.hashCode()，表长度总是2的幂，与IntObjectHashMap相同。
+ *
+ * <p>Each element costs one <tt>long</tt> divided by the load factor,
+ * compared with a <tt>HashMap.Node</tt>, a boxed <tt>Long</tt> and a
+ * table reference for {@link HashSet}.  The set operations
+ * {@link #addAll(LongHashSet)}, {@link #retainAll(LongHashSet)} and
+ * {@link #removeAll(LongHashSet)} work in place, and
+ * {@link #addAll(long[])} grows the table at most once for the whole
+ * array.
+ * 每个元素只占用一个long(除以负载因子)，而HashSet需要一个Node对象、一个装箱的Long以及一个表引用。
+ * 集合运算addAll(LongHashSet)、retainAll(LongHashSet)和removeAll(LongHashSet)原地进行，
+ * addAll(long[])对整个数组最多扩容一次。
+ *
+ * <p>Iteration order is unspecified.  <strong>Note that this
+ * implementation is not synchronized.</strong>
+ * 迭代顺序不确定。注意，这个实现不是同步的。
+ *
+ * @see IntHashSet
+ * @see IntObjectHashMap
+ */
+public class LongHashSet implements Cloneable, java.io.Serializable {
+
+	/**
+	 * serialVersionUID:
+	 */
+	private static final long serialVersionUID = 6190347726152870395L;
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     * 默认的初始容量-必须是2的幂。
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 1 << 4;
+
+    /**
+     * The maximum capacity.  MUST be a power of two <= 1<<30.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor, as for
+     * IntObjectHashMap.
+     * 构造时未指定时使用的负载因子，与IntObjectHashMap相同。
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * The table; a 0 slot is free.
+     * 哈希表；值为0的槽是空闲的。
+     */
+    transient long[] table;
+
+    /**
+     * Whether the set contains 0, which the table cannot hold.
+     * 集合是否包含0，表中无法保存0。
+     */
+    transient boolean containsZero;
+
+    /**
+     * The number of elements, including 0.
+     * 元素个数，包括0。
+     */
+    transient int size;
+
+    /**
+     * The next size value at which to resize (capacity * load factor).
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * Constructs an empty set able to hold <tt>initialCapacity</tt>
+     * elements without resizing, with the specified load factor.
+     * 构造一个具有指定负载因子、能容纳initialCapacity个元素而不扩容的空集合。
+     *
+     * @param  initialCapacity the expected number of elements
+     * @param  loadFactor      the load factor, in (0, 1)
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not in (0, 1)
+     */
+    public LongHashSet(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(capacityFor(initialCapacity));
+    }
+
+    /**
+     * Constructs an empty set able to hold <tt>initialCapacity</tt>
+     * elements without resizing, using the default load factor (0.5).
+     *
+     * @param  initialCapacity the expected number of elements
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public LongHashSet(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty set with the default initial capacity (16)
+     * and the default load factor (0.5).
+     */
+    public LongHashSet() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        allocate(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Spreads the element the same way {@link HashMap#hash} spreads
+     * <tt>Long.hashCode()</tt>.
+     */
+    static int hash(long e) {
+        int h = (int)(e ^ (e >>> 32));
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the table capacity that holds the given number of
+     * elements without resizing.
+     * 返回能容纳给定数量元素而不扩容的表容量。
+     */
+    private int capacityFor(int expected) {
+        int cap = HashMap.tableSizeFor((int)Math.min((long)(expected / loadFactor) + 1,
+                                                     MAXIMUM_CAPACITY));
+        return Math.max(cap, 2);
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        threshold = (capacity >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY - 1 :
+            Math.min((int)(capacity * loadFactor), capacity - 1);
+    }
+
+    /**
+     * Returns the slot holding the non-zero element, or the bitwise
+     * complement of the free slot where it would be inserted.
+     * 返回非0元素所在的槽位；若不存在，返回应插入的空槽下标的按位取反值。
+     */
+    private int indexOf(long e) {
+        long[] tab = table;
+        int mask = tab.length - 1;
+        for (int i = hash(e) & mask; ; i = (i + 1) & mask) {
+            long k = tab[i];
+            if (k == e)
+                return i;
+            if (k == 0)
+                return ~i;
+        }
+    }
+
+    /**
+     * Returns the number of elements in this set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this set contains no elements.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this set contains the element.
+     * 如果集合包含该元素则返回true。
+     */
+    public boolean contains(long e) {
+        return (e == 0) ? containsZero : indexOf(e) >= 0;
+    }
+
+    /**
+     * Adds the element if it is not already present.
+     * 如果元素不存在则添加它。
+     *
+     * @return <tt>true</tt> if the set did not already contain the element
+     */
+    public boolean add(long e) {
+        if (e == 0) {
+            if (containsZero)
+                return false;
+            containsZero = true;
+            ++size;
+            return true;
+        }
+        int i = indexOf(e);
+        if (i >= 0)
+            return false;
+        table[~i] = e;
+        if (++size > threshold)
+            resize(table.length << 1);
+        return true;
+    }
+
+    /**
+     * Removes the element if it is present.
+     * 如果元素存在则删除它。
+     *
+     * @return <tt>true</tt> if the set contained the element
+     */
+    public boolean remove(long e) {
+        if (e == 0) {
+            if (!containsZero)
+                return false;
+            containsZero = false;
+            --size;
+            return true;
+        }
+        int i = indexOf(e);
+        if (i < 0)
+            return false;
+        --size;
+        closeDeletion(i);
+        return true;
+    }
+
+    /**
+     * Removes all of the elements from this set.  The table keeps its
+     * current capacity.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    /**
+     * Grows the table, if needed, so that it holds the given number of
+     * elements without resizing again.
+     * 必要时扩容，使表能容纳给定数量的元素而不再扩容。
+     *
+     * @param expected the number of elements to make room for
+     */
+    public void ensureCapacity(int expected) {
+        if (expected > threshold) {
+            int cap = capacityFor(expected);
+            if (cap > table.length)
+                resize(cap);
+        }
+    }
+
+    /* ---------------- Bulk operations -------------- */
+
+    /**
+     * Adds every element of the array, first growing the table once for
+     * the case where none of them is present yet.
+     * 添加数组中的每个元素，先按它们都不存在的情况一次性扩容。
+     *
+     * @param  elements the elements to add
+     * @return the number of elements that were not already present
+     */
+    public int addAll(long[] elements) {
+        return addAll(elements, 0, elements.length);
+    }
+
+    /**
+     * Adds the elements <tt>elements[from]</tt> to
+     * <tt>elements[to - 1]</tt>, first growing the table once for the
+     * case where none of them is present yet.  Heavily duplicated input
+     * can leave the table larger than its contents need; add such input
+     * one element at a time, or reserve an estimate with
+     * {@link #ensureCapacity}.
+     * 添加elements[from]到elements[to - 1]的元素，先按它们都不存在的情况一次性扩容。
+     * 重复很多的输入可能使表比内容所需的更大；这样的输入应逐个添加，或者用ensureCapacity预留一个估计值。
+     *
+     * @param  elements the elements to add
+     * @param  from the index of the first element, inclusive
+     * @param  to the index of the last element, exclusive
+     * @return the number of elements that were not already present
+     * @throws ArrayIndexOutOfBoundsException if the range is out of bounds
+     */
+    public int addAll(long[] elements, int from, int to) {
+        if (from < 0 || to > elements.length || from > to)
+            throw new ArrayIndexOutOfBoundsException("Range [" + from + ", " + to +
+                                                     ") out of bounds for length " +
+                                                     elements.length);
+        ensureCapacity((int)Math.min((long)size + (to - from), MAXIMUM_CAPACITY));
+        int s = size;
+        for (int j = from; j < to; ++j) {
+            long e = elements[j];
+            if (e == 0) {
+                if (!containsZero) {
+                    containsZero = true;
+                    ++size;
+                }
+                continue;
+            }
+            int i = indexOf(e);
+            if (i < 0) {
+                table[~i] = e;
+                if (++size > threshold)     // only at MAXIMUM_CAPACITY
+                    resize(table.length << 1);
+            }
+        }
+        return size - s;
+    }
+
+    /**
+     * Adds every element of the other set to this one (union).
+     * 把另一个集合的每个元素加入这个集合(并集)。
+     *
+     * @param  other the set to add
+     * @return <tt>true</tt> if this set changed
+     */
+    public boolean addAll(LongHashSet other) {
+        int s = size;
+        ensureCapacity((int)Math.min((long)size + other.size, MAXIMUM_CAPACITY));
+        if (other.containsZero)
+            add(0);
+        for (long e : other.table) {
+            if (e != 0)
+                add(e);
+        }
+        return size != s;
+    }
+
+    /**
+     * Keeps only the elements that the other set also contains
+     * (intersection).
+     * 只保留另一个集合也包含的元素(交集)。
+     *
+     * @param  other the set to intersect with
+     * @return <tt>true</tt> if this set changed
+     */
+    public boolean retainAll(LongHashSet other) {
+        int s = size;
+        if (other.size == 0) {
+            clear();
+            return s != 0;
+        }
+        if (containsZero && !other.containsZero) {
+            containsZero = false;
+            --size;
+        }
+        long[] tab = table;
+        for (int i = 0; i < tab.length; ) {
+            long e = tab[i];
+            if (e != 0 && !other.contains(e)) {
+                --size;
+                closeDeletion(i);           // refills slot i; examine it again
+            }
+            else
+                ++i;
+        }
+        return size != s;
+    }
+
+    /**
+     * Removes every element that the other set contains (difference).
+     * Probes whichever set is smaller into the other.
+     * 删除另一个集合包含的每个元素(差集)。用较小的集合去探测另一个集合。
+     *
+     * @param  other the set whose elements are removed
+     * @return <tt>true</tt> if this set changed
+     */
+    public boolean removeAll(LongHashSet other) {
+        int s = size;
+        if (other.containsZero && containsZero) {
+            containsZero = false;
+            --size;
+        }
+        if (other.size < size) {
+            for (long e : other.table) {
+                if (e != 0)
+                    remove(e);
+            }
+        }
+        else {
+            long[] tab = table;
+            for (int i = 0; i < tab.length; ) {
+                long e = tab[i];
+                if (e != 0 && other.contains(e)) {
+                    --size;
+                    closeDeletion(i);       // refills slot i; examine it again
+                }
+                else
+                    ++i;
+            }
+        }
+        return size != s;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this set contains every element of the
+     * other set.
+     * 如果这个集合包含另一个集合的每个元素则返回true。
+     */
+    public boolean containsAll(LongHashSet other) {
+        if (other.size > size || (other.containsZero && !containsZero))
+            return false;
+        for (long e : other.table) {
+            if (e != 0 && indexOf(e) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Performs the given action for each element, in table order, with
+     * 0 first if present.
+     * 按表顺序对每个元素执行给定操作，如果包含0则0最先。
+     *
+     * @param action the action to be performed for each element
+     */
+    public void forEach(LongConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        long[] tab = table;
+        if (containsZero)
+            action.accept(0);
+        for (long e : tab) {
+            if (e != 0)
+                action.accept(e);
+        }
+        if (tab != table)
+            throw new java.util.ConcurrentModificationException();
+    }
+
+    /**
+     * Returns the elements of this set in a newly allocated array, in
+     * table order.
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int j = 0;
+        if (containsZero)
+            result[j++] = 0;
+        for (long e : table) {
+            if (e != 0)
+                result[j++] = e;
+        }
+        return result;
+    }
+
+    /**
+     * Rebuilds the table with the given capacity, re-probing every
+     * element into the new array.
+     * 以给定容量重建表，把每个元素重新探测放入新数组。
+     */
+    private void resize(int newCap) {
+        long[] oldTab = table;
+        if (oldTab.length >= MAXIMUM_CAPACITY) {
+            if (size >= MAXIMUM_CAPACITY)
+                throw new IllegalStateException("Capacity exhausted.");
+            return;
+        }
+        allocate(Math.min(newCap, MAXIMUM_CAPACITY));
+        long[] tab = table;
+        int mask = tab.length - 1;
+        for (long e : oldTab) {
+            if (e != 0) {
+                int i = hash(e) & mask;
+                while (tab[i] != 0)
+                    i = (i + 1) & mask;
+                tab[i] = e;
+            }
+        }
+    }
+
+    /**
+     * Backward-shift deletion, as in IntObjectHashMap.closeDeletion.
+     * 后移删除，与IntObjectHashMap.closeDeletion相同。
+     */
+    private void closeDeletion(int d) {
+        long[] tab = table;
+        int mask = tab.length - 1;
+        tab[d] = 0;
+        long k;
+        for (int i = (d + 1) & mask; (k = tab[i]) != 0; i = (i + 1) & mask) {
+            int r = hash(k) & mask;
+            // move the element at i into d unless its home slot r lies
+            // cyclically in (d, i]
+            if ((i < r && (r <= d || d <= i)) || (r <= d && d <= i)) {
+                tab[d] = k;
+                tab[i] = 0;
+                d = i;
+            }
+        }
+    }
+
+    /* ---------------- Object methods -------------- */
+
+    /**
+     * Returns <tt>true</tt> if the object is an <tt>LongHashSet</tt> with
+     * the same elements.
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof LongHashSet))
+            return false;
+        LongHashSet s = (LongHashSet) o;
+        return s.size == size && containsAll(s);
+    }
+
+    /**
+     * Returns the sum of the elements' <tt>Long.hashCode()</tt>, as for
+     * a <tt>Set&lt;Long&gt;</tt> with the same elements.
+     */
+    public int hashCode() {
+        int h = 0;
+        for (long e : table)
+            h += (int)(e ^ (e >>> 32));
+        return h;
+    }
+
+    /**
+     * Returns a copy of this set.
+     */
+    public LongHashSet clone() {
+        try {
+            LongHashSet result = (LongHashSet) super.clone();
+            result.table = table.clone();
+            return result;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Returns a string representation of this set, in table order.
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('[');
+        forEach(e -> {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(e);
+        });
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Save the state of this set to a stream.
+     *
+     * @serialData The capacity (int), the number of elements (int),
+     *             followed by every element (long), in no particular
+     *             order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        s.writeInt(table.length);
+        s.writeInt(size);
+        if (containsZero)
+            s.writeLong(0L);
+        for (long e : table) {
+            if (e != 0)
+                s.writeLong(e);
+        }
+    }
+
+    /**
+     * Reconstitute the set from a stream (that is, deserialize it).
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0 && loadFactor < 1))
+            throw new java.io.InvalidObjectException("Illegal load factor: " +
+                                                     loadFactor);
+        s.readInt(); // capacity, recomputed from size below
+        int elements = s.readInt();
+        if (elements < 0)
+            throw new java.io.InvalidObjectException("Illegal elements count: " +
+                                                     elements);
+        allocate(capacityFor(elements));
+        for (int i = 0; i < elements; i++)
+            add(s.readLong());
+    }
+}
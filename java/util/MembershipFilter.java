@@ -0,0 +1,99 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:MembershipFilter.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午11:26:40  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+/**
+ * A compact, approximate set of 32-bit hashes that can say for sure
+ * that a hash was never added, but only that one probably was.  Placed
+ * in front of a {@link HashMap} or {@link HashSet} with
+ * <tt>attachFilter</tt>, it answers most lookups of absent keys from a
+ * structure a fraction of the size of the table, without walking a
+ * bin.  The map feeds the filter the hashes it stores, so a filter
+ * never sees, or hashes, the keys themselves.
+ * 紧凑的、近似的32位hash集合：能确定地说某个hash从未加入过，但只能说某个hash可能加入过。
+ * 通过attachFilter放在HashMap或HashSet前面，它可以从一个只有表的几分之一大小的结构中回答大部分
+ * 对不存在的键的查找，而不用遍历桶。map把自己保存的hash交给过滤器，所以过滤器不会看到键，也不会计算键的hash。
+ *
+ * <p>A filter must never report a false negative for a hash that was
+ * added and not removed.  If it cannot record a hash, <tt>add</tt>
+ * returns <tt>false</tt> and a map holding it drops it.
+ * 过滤器对于加入过且没有被删除的hash绝不能报告不存在。如果它无法记录某个hash，add返回false，持有它的map会摘除它。
+ *
+ * @see BloomFilter
+ * @see CuckooFilter
+ * @see HashMap#attachFilter
+ */
+public interface MembershipFilter {
+
+    /**
+     * Returns <tt>false</tt> if the hash has definitely not been added
+     * (or has been removed), <tt>true</tt> if it probably has.
+     * 如果该hash一定没有加入过(或已被删除)则返回false，可能加入过则返回true。
+     *
+     * @param hash the hash to test
+     * @return whether the hash might be present
+     */
+    boolean mightContain(int hash);
+
+    /**
+     * Records the hash.
+     * 记录该hash。
+     *
+     * @param hash the hash to add
+     * @return <tt>false</tt> if the filter is full and could not record
+     *         the hash, after which it may report false negatives
+     */
+    boolean add(int hash);
+
+    /**
+     * Removes one occurrence of a hash previously added.  Removing a hash
+     * that was not added may remove another hash's record.
+     * 删除之前加入过的hash的一次出现。删除一个没有加入过的hash可能会删除另一个hash的记录。
+     *
+     * @param hash the hash to remove
+     * @return <tt>true</tt> if a record was removed
+     * @throws UnsupportedOperationException if the filter does not
+     *         support removal
+     */
+    boolean remove(int hash);
+
+    /**
+     * Returns whether {@link #remove} is supported.  A map with a filter
+     * that does not support it leaves the hashes of removed keys in the
+     * filter, which only costs false positives.
+     * 返回是否支持remove。过滤器不支持删除时，map会把已删除键的hash留在过滤器中，这只会增加误判。
+     *
+     * @return whether removal is supported
+     */
+    boolean supportsRemove();
+
+    /**
+     * Removes all hashes.
+     * 删除所有hash。
+     */
+    void clear();
+
+    /**
+     * Returns the false positive rate the filter was sized for, reached
+     * when it holds the expected number of hashes.
+     * 返回过滤器设计的误判率，即保存预期数量的hash时达到的误判率。
+     *
+     * @return the target false positive rate
+     */
+    double falsePositiveRate();
+
+    /**
+     * Returns the size of the filter's bit array.
+     * 返回过滤器位数组的大小。
+     *
+     * @return the number of bits the filter occupies
+     */
+    long bitSize();
+}
@@ -0,0 +1,719 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:OffHeapHashMap.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午2:47:19  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.function.BiConsumer;
+
+/**
+ * A hash table from byte sequences to byte sequences whose table,
+ * hashes, keys and values all live in native memory (direct
+ * {@link ByteBuffer}s), so that a map holding many gigabytes adds
+ * almost nothing to the Java heap and nothing for the garbage collector
+ * to trace.
+ * 一个从字节序列映射到字节序列的哈希表，它的表、hash、键和值都保存在本地内存(直接ByteBuffer)中，
+ * 所以即使map中有几十GB的数据，也几乎不增加Java堆的大小，垃圾收集器也不需要追踪它们。
+ *
+ * <p>The layout mirrors {@link HashMap}: a power-of-two table of bins,
+ * each bin the head of a singly linked list of records, the stored hash
+ * reused on resize, and bins split into lo and hi lists when the table
+ * doubles.  A "reference" is a <tt>long</tt> address: the index of the
+ * arena chunk in the high 32 bits and the offset within it in the low
+ * 32 bits, with 0 as null.  The table is a direct buffer of such
+ * addresses and each record is laid out as
+ * 布局与HashMap相同：2的幂大小的桶表，每个桶是一个记录单链表的头，扩容时复用保存的hash，
+ * 表加倍时把桶拆分成lo和hi两条链。"引用"是一个long地址：高32位是arena块的下标，低32位是块内偏移量，0表示null。
+ * 表是保存这种地址的直接缓冲区，每条记录的布局是
+ *
+ * <pre>
+ *   [hash:int][sizeClass:int][next:long][keyLength:int][valueLength:int][key][value]
+ * </pre>
+ *
+ * <p>Records are carved out of fixed-size chunks with a bump pointer and
+ * rounded up to a size class (powers of two and the midpoints between
+ * them).  A removed record goes on the free list of its size class and
+ * is reused by the next record of that class; a value replaced by one of
+ * the same class is overwritten in place.  Nothing is returned to the
+ * operating system until {@link #close()}.
+ * 记录用移动指针从固定大小的块中分配，大小向上取整到一个大小类(2的幂以及两个2的幂的中点)。
+ * 删除的记录放入所属大小类的空闲链表，由下一个同类记录复用；被同类大小的值替换时原地覆盖。
+ * 在close()之前不会把内存还给操作系统。
+ *
+ * <p>Keys and values are passed as the <i>remaining</i> bytes of a
+ * <tt>ByteBuffer</tt>, whose position is not changed.  {@link
+ * #get(ByteBuffer)} returns a read-only slice over the native value
+ * without copying it, and {@link #get(ByteBuffer, ByteBuffer)} copies
+ * into a caller buffer without allocating at all.  A slice must not be
+ * used after its mapping is removed or replaced, or after the map is
+ * closed.
+ * 键和值以ByteBuffer的剩余字节传入，不改变其position。get(ByteBuffer)返回一个本地内存中值的只读切片，
+ * 不复制数据；get(ByteBuffer, ByteBuffer)把值复制到调用者的缓冲区，完全不分配对象。
+ * 映射被删除或替换之后，或者map关闭之后，不能再使用之前得到的切片。
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * 注意，这个实现不是同步的。
+ *
+ * @see HashMap
+ */
+public class OffHeapHashMap implements Closeable {
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 1 << 4;
+
+    /**
+     * The maximum capacity: the table holds 8-byte addresses and must
+     * fit in a single direct buffer.
+     * 最大容量：表中保存8字节的地址，必须能放进一个直接缓冲区。
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 27;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * The default arena chunk size, 16MB.  A record can be no larger
+     * than a chunk less MIN_RECORD bytes.
+     * 默认的arena块大小，16MB。一条记录不能大于一个块减去MIN_RECORD字节。
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1 << 24;
+
+    // Record layout
+    static final int HASH = 0;
+    static final int SIZE_CLASS = 4;
+    static final int NEXT = 8;
+    static final int KEY_LENGTH = 16;
+    static final int VALUE_LENGTH = 20;
+    static final int HEADER = 24;
+
+    /** The smallest record, and the alignment of all records. */
+    static final int MIN_RECORD = 32;
+
+    /* ---------------- Fields -------------- */
+
+    /** Bin heads, one 8-byte record address per bin. 桶头，每个桶一个8字节的记录地址。 */
+    ByteBuffer table;
+
+    /** Number of bins, a power of two. 桶的数量，2的幂。 */
+    int capacity;
+
+    /** Arena chunks; records never span two. arena块，记录不会跨越两个块。 */
+    final ArrayList<ByteBuffer> chunks = new ArrayList<>();
+
+    /** Bump pointer into the last chunk. 最后一个块中的分配指针。 */
+    int allocOffset;
+
+    /** Free list heads by size class, linked through the next field. 按大小类的空闲链表头，通过next字段链接。 */
+    final long[] freeLists;
+
+    final int chunkSize;
+
+    int size;
+
+    int modCount;
+
+    int threshold;
+
+    final float loadFactor;
+
+    /** Bytes of live records, including their rounding. 存活记录的字节数，包括取整部分。 */
+    long liveBytes;
+
+    boolean closed;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Constructs an empty map.
+     * 构造一个空map。
+     *
+     * @param  initialCapacity the initial number of bins
+     * @param  loadFactor      the load factor
+     * @param  chunkSize       the size of each native arena chunk; the
+     *         largest record (24 bytes plus key and value) is 32 bytes
+     *         less, since the start of the first chunk is reserved
+     * @throws IllegalArgumentException if any argument is out of range
+     */
+    public OffHeapHashMap(int initialCapacity, float loadFactor, int chunkSize) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (loadFactor <= 0 || Float.isNaN(loadFactor))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        if (chunkSize < 4096)
+            throw new IllegalArgumentException("Illegal chunk size: " +
+                                               chunkSize);
+        this.loadFactor = loadFactor;
+        this.chunkSize = chunkSize & ~(MIN_RECORD - 1);
+        this.freeLists = new long[sizeClass(this.chunkSize) + 1];
+        int n = Math.max(DEFAULT_INITIAL_CAPACITY,
+                         Math.min(HashMap.tableSizeFor(initialCapacity), MAXIMUM_CAPACITY));
+        this.table = ByteBuffer.allocateDirect(n << 3); // zeroed: every bin null
+        this.capacity = n;
+        this.threshold = (int)Math.min(n * loadFactor, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs an empty map with the given initial capacity, the
+     * default load factor (0.75) and 16MB chunks.
+     */
+    public OffHeapHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16),
+     * the default load factor (0.75) and 16MB chunks.
+     */
+    public OffHeapHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Returns the number of mappings.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the native memory held by this map: the table plus every
+     * arena chunk.
+     * 返回此map占用的本地内存：表加上所有的arena块。
+     */
+    public long allocatedBytes() {
+        return ((long)capacity << 3) + (long)chunks.size() * chunkSize;
+    }
+
+    /**
+     * Returns the bytes taken by live records, headers and size class
+     * rounding included.
+     * 返回存活记录占用的字节数，包括记录头和大小类取整部分。
+     */
+    public long liveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Hashes the remaining bytes of the key like
+     * <tt>Arrays.hashCode(byte[])</tt>, then spreads the high bits down
+     * as {@link HashMap#hash} does.
+     * 像Arrays.hashCode(byte[])一样计算键剩余字节的hash，再像HashMap.hash那样把高位扰动到低位。
+     */
+    static int hash(ByteBuffer key) {
+        int h = 1;
+        for (int i = key.position(), end = key.limit(); i < end; ++i)
+            h = 31 * h + key.get(i);
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the address of the record for the key, or 0.
+     */
+    final long find(int h, ByteBuffer key) {
+        ensureOpen();
+        for (long p = table.getLong((h & (capacity - 1)) << 3); p != 0; p = next(p)) {
+            if (hashAt(p) == h && keyEquals(p, key))
+                return p;
+        }
+        return 0L;
+    }
+
+    /**
+     * Returns a read-only slice over the value mapped to the key, or
+     * null if there is none.  The value is not copied; the slice is
+     * valid until the mapping is removed or replaced.
+     * 返回键所映射的值的只读切片，不存在则返回null。值不会被复制；切片在映射被删除或替换之前有效。
+     *
+     * @param key the key, as its remaining bytes
+     * @return the value, or null
+     */
+    public ByteBuffer get(ByteBuffer key) {
+        long p = find(hash(key), key);
+        return (p == 0L) ? null : slice(p, HEADER + keyLength(p), valueLength(p));
+    }
+
+    /**
+     * Copies the value mapped to the key into <tt>dst</tt>, advancing
+     * its position, without allocating anything on the heap.
+     * 把键所映射的值复制到dst中并前移其position，不在堆上分配任何对象。
+     *
+     * @param key the key, as its remaining bytes
+     * @param dst the buffer to receive the value
+     * @return the length of the value, or -1 if the key is absent
+     * @throws java.nio.BufferOverflowException if the value does not fit
+     */
+    public int get(ByteBuffer key, ByteBuffer dst) {
+        long p = find(hash(key), key);
+        if (p == 0L)
+            return -1;
+        ByteBuffer c = chunk(p);
+        int off = offset(p), klen = c.getInt(off + KEY_LENGTH), vlen = c.getInt(off + VALUE_LENGTH);
+        if (dst.remaining() < vlen)
+            throw new java.nio.BufferOverflowException();
+        int from = off + HEADER + klen, pos = dst.position(), i = 0;
+        if (dst.order() == c.order()) {
+            for (; i + 8 <= vlen; i += 8)
+                dst.putLong(pos + i, c.getLong(from + i));
+        }
+        for (; i < vlen; ++i)
+            dst.put(pos + i, c.get(from + i));
+        dst.position(pos + vlen);
+        return vlen;
+    }
+
+    /**
+     * Returns a copy of the value mapped to the key, or null.
+     * 返回键所映射的值的副本，不存在则返回null。
+     */
+    public byte[] get(byte[] key) {
+        ByteBuffer v = get(ByteBuffer.wrap(key));
+        if (v == null)
+            return null;
+        byte[] result = new byte[v.remaining()];
+        v.get(result);
+        return result;
+    }
+
+    /**
+     * Returns true if the key is mapped.
+     */
+    public boolean containsKey(ByteBuffer key) {
+        return find(hash(key), key) != 0L;
+    }
+
+    /**
+     * Maps the key to the value, copying both into native memory.
+     * 把键映射到值，二者都复制到本地内存中。
+     *
+     * @param key   the key, as its remaining bytes
+     * @param value the value, as its remaining bytes
+     * @return true if an existing mapping was replaced
+     * @throws IllegalArgumentException if the record would not fit in a
+     *         chunk
+     */
+    public boolean put(ByteBuffer key, ByteBuffer value) {
+        ensureOpen();
+        int h = hash(key);
+        int klen = key.remaining(), vlen = value.remaining();
+        long need = (long)HEADER + klen + vlen;
+        if (need > chunkSize - MIN_RECORD)  // 块0的前MIN_RECORD字节保留
+            throw new IllegalArgumentException("Record of " + need +
+                                               " bytes exceeds chunk size " + chunkSize +
+                                               " less " + MIN_RECORD + " reserved bytes");
+        int bin = (h & (capacity - 1)) << 3;
+        long prev = 0L;
+        for (long p = table.getLong(bin); p != 0; prev = p, p = next(p)) {
+            if (hashAt(p) == h && keyEquals(p, key)) {
+                int c = sizeClass((int)need);
+                ByteBuffer pc = chunk(p);
+                int off = offset(p);
+                if (c == pc.getInt(off + SIZE_CLASS)) {  // 同一大小类：原地覆盖值
+                    pc.putInt(off + VALUE_LENGTH, vlen);
+                    copyIn(pc, off + HEADER + klen, value);
+                }
+                else {
+                    long q = newRecord(c, h, key, value);
+                    setNext(q, next(p));
+                    if (prev == 0L)
+                        table.putLong(bin, q);
+                    else
+                        setNext(prev, q);
+                    free(p);
+                }
+                return true;
+            }
+        }
+        long q = newRecord(sizeClass((int)need), h, key, value);
+        if (prev == 0L)
+            table.putLong(bin, q);
+        else
+            setNext(prev, q);
+        ++modCount;
+        if (++size > threshold)
+            resize();
+        return false;
+    }
+
+    /**
+     * Maps the key to the value.
+     */
+    public boolean put(byte[] key, byte[] value) {
+        return put(ByteBuffer.wrap(key), ByteBuffer.wrap(value));
+    }
+
+    /**
+     * Removes the mapping for the key; its record is kept for reuse by
+     * the next record of the same size class.
+     * 删除键的映射；它的记录被保留，由下一个同一大小类的记录复用。
+     *
+     * @return true if the key was mapped
+     */
+    public boolean remove(ByteBuffer key) {
+        ensureOpen();
+        int h = hash(key);
+        int bin = (h & (capacity - 1)) << 3;
+        long prev = 0L;
+        for (long p = table.getLong(bin); p != 0; prev = p, p = next(p)) {
+            if (hashAt(p) == h && keyEquals(p, key)) {
+                if (prev == 0L)
+                    table.putLong(bin, next(p));
+                else
+                    setNext(prev, next(p));
+                free(p);
+                ++modCount;
+                --size;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean remove(byte[] key) {
+        return remove(ByteBuffer.wrap(key));
+    }
+
+    /**
+     * Removes every mapping.  The table and the first chunk are kept
+     * for reuse; the other chunks are freed.
+     * 删除所有映射。保留表和第一个块以便复用，其他块被释放。
+     */
+    public void clear() {
+        ensureOpen();
+        ++modCount;
+        for (int i = 0; i < capacity; ++i)
+            table.putLong(i << 3, 0L);
+        java.util.Arrays.fill(freeLists, 0L);
+        // 只保留第一个块，并回退分配指针
+        for (int i = chunks.size() - 1; i > 0; --i)
+            freeBuffer(chunks.remove(i));
+        allocOffset = MIN_RECORD;
+        size = 0;
+        liveBytes = 0L;
+    }
+
+    /**
+     * Performs the action for each mapping, passing read-only slices of
+     * the key and value that are valid only during the call.
+     * 对每个映射执行给定动作，传入键和值的只读切片，切片只在调用期间有效。
+     *
+     * @throws ConcurrentModificationException if the action modifies the
+     *         map
+     */
+    public void forEach(BiConsumer<? super ByteBuffer, ? super ByteBuffer> action) {
+        ensureOpen();
+        int mc = modCount;
+        for (int i = 0; i < capacity; ++i) {
+            for (long p = table.getLong(i << 3); p != 0; p = next(p)) {
+                int klen = keyLength(p);
+                action.accept(slice(p, HEADER, klen), slice(p, HEADER + klen, valueLength(p)));
+            }
+            if (modCount != mc)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Frees the table and every chunk.  Further use of the map, or of
+     * any slice it returned, is an error; the map fails with
+     * IllegalStateException, a slice may read freed memory.  Closing
+     * twice has no effect.
+     * 释放表和所有块。此后再使用这个map或它返回的任何切片都是错误的：map会抛出IllegalStateException，
+     * 切片则可能读到已释放的内存。重复关闭没有效果。
+     */
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        freeBuffer(table);
+        table = null;
+        for (ByteBuffer c : chunks)
+            freeBuffer(c);
+        chunks.clear();
+        size = 0;
+        liveBytes = 0L;
+    }
+
+    /* ---------------- Table -------------- */
+
+    /**
+     * Doubles the table.  Each bin is split into a lo list that stays
+     * at index j and a hi list that moves to j + oldCap, using the
+     * stored hashes, exactly as HashMap.resize() does; only the next
+     * fields of the records are rewritten.
+     * 表容量加倍。与HashMap.resize()完全相同，利用保存的hash把每个桶拆分成留在下标j的lo链
+     * 和移动到j + oldCap的hi链；只改写记录的next字段。
+     */
+    final void resize() {
+        int oldCap = capacity;
+        if (oldCap >= MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+        int newCap = oldCap << 1;
+        ByteBuffer oldTab = table;
+        ByteBuffer newTab = ByteBuffer.allocateDirect(newCap << 3);
+        for (int j = 0; j < oldCap; ++j) {
+            long loHead = 0L, loTail = 0L, hiHead = 0L, hiTail = 0L, next;
+            for (long e = oldTab.getLong(j << 3); e != 0; e = next) {
+                next = next(e);
+                if ((hashAt(e) & oldCap) == 0) {
+                    if (loTail == 0L)
+                        loHead = e;
+                    else
+                        setNext(loTail, e);
+                    loTail = e;
+                }
+                else {
+                    if (hiTail == 0L)
+                        hiHead = e;
+                    else
+                        setNext(hiTail, e);
+                    hiTail = e;
+                }
+            }
+            if (loTail != 0L) {
+                setNext(loTail, 0L);
+                newTab.putLong(j << 3, loHead);
+            }
+            if (hiTail != 0L) {
+                setNext(hiTail, 0L);
+                newTab.putLong((j + oldCap) << 3, hiHead);
+            }
+        }
+        table = newTab;
+        capacity = newCap;
+        float ft = newCap * loadFactor;
+        threshold = (ft < (float)Integer.MAX_VALUE) ? (int)ft : Integer.MAX_VALUE;
+        freeBuffer(oldTab);
+    }
+
+    /* ---------------- Arena -------------- */
+
+    /**
+     * Returns the size class for a record of the given number of bytes:
+     * class 0 is 32 bytes, then alternately 1.5 and 2 times a power of
+     * two (48, 64, 96, 128, ...), so rounding wastes at most a third.
+     * 返回给定字节数的记录所属的大小类：第0类是32字节，之后交替为2的幂的1.5倍和2倍(48、64、96、128……)，
+     * 所以取整最多浪费三分之一。
+     */
+    static int sizeClass(int bytes) {
+        if (bytes <= MIN_RECORD)
+            return 0;
+        int k = 31 - Integer.numberOfLeadingZeros(bytes - 1); // 2^k < bytes <= 2^(k+1)
+        return 2 * (k - 5) + (bytes <= (3 << (k - 1)) ? 1 : 2);
+    }
+
+    /**
+     * Returns the number of bytes of records of the given size class.
+     */
+    static int classSize(int c) {
+        if (c == 0)
+            return MIN_RECORD;
+        int k = ((c - 1) >>> 1) + 5;
+        return ((c & 1) != 0) ? 3 << (k - 1) : 2 << k;
+    }
+
+    /**
+     * Returns the number of bytes a record of the given size class
+     * takes: the class size, capped at the largest record so that a
+     * class rounding past the chunk still fits in one.
+     * 返回指定大小类的记录占用的字节数：即类的大小，但不超过最大记录，使取整超过块大小的类仍能放进一个块。
+     */
+    final int recordSize(int c) {
+        return Math.min(classSize(c), chunkSize - MIN_RECORD);
+    }
+
+    /**
+     * Allocates a record of the size class, from its free list if
+     * possible, and fills in everything but next.
+     * 分配一条指定大小类的记录(尽量从空闲链表中取)，并填好除next之外的所有字段。
+     */
+    final long newRecord(int c, int h, ByteBuffer key, ByteBuffer value) {
+        long p = freeLists[c];
+        if (p != 0L)
+            freeLists[c] = next(p);
+        else
+            p = bump(recordSize(c));
+        ByteBuffer pc = chunk(p);
+        int off = offset(p), klen = key.remaining();
+        pc.putInt(off + HASH, h);
+        pc.putInt(off + SIZE_CLASS, c);
+        pc.putLong(off + NEXT, 0L);
+        pc.putInt(off + KEY_LENGTH, klen);
+        pc.putInt(off + VALUE_LENGTH, value.remaining());
+        copyIn(pc, off + HEADER, key);
+        copyIn(pc, off + HEADER + klen, value);
+        liveBytes += recordSize(c);
+        return p;
+    }
+
+    /**
+     * Takes bytes from the last chunk, starting a new chunk when it is
+     * full.  The first 32 bytes of chunk 0 are never handed out, so that
+     * address 0 can mean null.
+     * 从最后一个块中取出字节，块满时开始一个新块。块0的前32字节从不分配，使地址0可以表示null。
+     */
+    private long bump(int bytes) {
+        int n = chunks.size();
+        if (n == 0 || allocOffset + bytes > chunkSize) {
+            chunks.add(ByteBuffer.allocateDirect(chunkSize));
+            allocOffset = (n == 0) ? MIN_RECORD : 0;
+            n++;
+        }
+        long p = ((long)(n - 1) << 32) | allocOffset;
+        allocOffset += bytes;
+        return p;
+    }
+
+    /**
+     * Puts a record on the free list of its size class.
+     */
+    final void free(long p) {
+        int c = chunk(p).getInt(offset(p) + SIZE_CLASS);
+        setNext(p, freeLists[c]);
+        freeLists[c] = p;
+        liveBytes -= recordSize(c);
+    }
+
+    final ByteBuffer chunk(long p) {
+        return chunks.get((int)(p >>> 32));
+    }
+
+    static int offset(long p) {
+        return (int)p;
+    }
+
+    final int hashAt(long p) {
+        return chunk(p).getInt(offset(p) + HASH);
+    }
+
+    final long next(long p) {
+        return chunk(p).getLong(offset(p) + NEXT);
+    }
+
+    final void setNext(long p, long next) {
+        chunk(p).putLong(offset(p) + NEXT, next);
+    }
+
+    final int keyLength(long p) {
+        return chunk(p).getInt(offset(p) + KEY_LENGTH);
+    }
+
+    final int valueLength(long p) {
+        return chunk(p).getInt(offset(p) + VALUE_LENGTH);
+    }
+
+    /**
+     * Compares the key bytes of record p with the remaining bytes of
+     * key, eight at a time while both buffers use the same byte order.
+     * 比较记录p中的键字节和key的剩余字节，两个缓冲区字节序相同时每次比较8个字节。
+     */
+    final boolean keyEquals(long p, ByteBuffer key) {
+        ByteBuffer c = chunk(p);
+        int off = offset(p), klen = c.getInt(off + KEY_LENGTH);
+        if (klen != key.remaining())
+            return false;
+        int from = off + HEADER, kpos = key.position(), i = 0;
+        if (key.order() == c.order()) {
+            for (; i + 8 <= klen; i += 8) {
+                if (c.getLong(from + i) != key.getLong(kpos + i))
+                    return false;
+            }
+        }
+        for (; i < klen; ++i) {
+            if (c.get(from + i) != key.get(kpos + i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copies the remaining bytes of src to dst at index, leaving both
+     * positions unchanged.
+     */
+    static void copyIn(ByteBuffer dst, int index, ByteBuffer src) {
+        ByteBuffer d = dst.duplicate();
+        d.position(index);
+        d.put(src.duplicate());
+    }
+
+    final ByteBuffer slice(long p, int from, int length) {
+        ByteBuffer s = chunk(p).duplicate();
+        int off = offset(p) + from;
+        s.limit(off + length).position(off);
+        return s.slice().asReadOnlyBuffer();
+    }
+
+    final void ensureOpen() {
+        if (closed)
+            throw new IllegalStateException("closed");
+    }
+
+    /* ---------------- Freeing native memory -------------- */
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> k = Class.forName("sun.misc.Unsafe");
+            Field f = k.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            unsafe = f.get(null);
+            invokeCleaner = k.getMethod("invokeCleaner", ByteBuffer.class); // JDK 9+
+        } catch (Exception ignore) {
+            // JDK 8：改用DirectBuffer.cleaner().clean()
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * Releases a direct buffer's native memory now instead of when the
+     * buffer object is collected.  If neither the JDK 9+ nor the JDK 8
+     * mechanism is available, the memory is left to the collector.
+     * 立即释放直接缓冲区的本地内存，而不是等缓冲区对象被回收时。
+     * 如果JDK 9+和JDK 8的机制都不可用，就交给垃圾收集器处理。
+     */
+    static void freeBuffer(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect())
+            return;
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            }
+            else {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null)
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Exception ignore) {
+            // 释放失败时由GC回收
+        }
+    }
+}
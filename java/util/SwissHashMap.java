@@ -0,0 +1,615 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:SwissHashMap.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午5:02:33  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Open-addressing implementation of the <tt>Map</tt> interface in the
+ * style of SwissTable: slots are grouped by eight, and every group has a
+ * control word, one <tt>long</tt> holding one control byte per slot.  A
+ * full slot's control byte is a 7-bit fingerprint of its hash; an empty
+ * or deleted slot has the high bit set.  A lookup loads one control word
+ * and compares all eight fingerprints at once with a few arithmetic
+ * operations (SWAR, "SIMD within a register"), and only dereferences
+ * the keys whose fingerprint matches, about one in 128 of the others.
+ * A miss usually ends after that single word, without touching any key.
+ * SwissTable风格的开放寻址Map实现：槽每8个分为一组，每组有一个控制字，即一个long，
+ * 其中每个槽占一个控制字节。已占用槽的控制字节是其hash的7位指纹；空槽或已删除的槽最高位为1。
+ * 查找时读取一个控制字，用几条算术运算同时比较8个指纹(SWAR，"寄存器内的SIMD")，
+ * 只有指纹匹配的键才会被访问，其他键大约只有1/128会误匹配。未命中的查找通常读完这一个控制字就结束，不访问任何键。
+ *
+ * <p>The hash is {@link HashMap#hash}.  Its low 7 bits are the
+ * fingerprint (h2) and the remaining high bits (h1) choose the first
+ * group; collisions move on to further groups by triangular probing,
+ * which visits every group of a power-of-two table.  A lookup stops at
+ * the first group that has an empty slot.
+ * hash使用HashMap.hash。它的低7位是指纹(h2)，其余的高位(h1)选择第一个组；
+ * 冲突时用三角数探测访问后续的组，它能遍历2的幂大小的表中的每个组。查找在遇到第一个含有空槽的组时停止。
+ *
+ * <p>The table is kept at most 7/8 full.  Removing from a group that
+ * still has an empty slot frees the slot outright; otherwise it leaves a
+ * tombstone, since some probe may have passed through the group, and
+ * tombstones are purged by rehashing in place when they use up the
+ * room for growth.  Keys are rehashed on resize, so <tt>hashCode</tt>
+ * should be cheap or cached.
+ * 表最多保持7/8满。从仍有空槽的组中删除时直接释放该槽；否则留下墓碑，因为某些探测可能经过了这个组。
+ * 墓碑用完增长空间时通过原地重新散列清除。扩容时会重新计算键的hash，所以hashCode应当代价低或已被缓存。
+ *
+ * <p>Like <tt>HashMap</tt>, this map permits <tt>null</tt> keys and
+ * values, has no defined iteration order and fail-fast iterators, and
+ * <strong>is not synchronized.</strong>
+ * 与HashMap一样，允许null键和null值，迭代顺序不确定，迭代器是快速失败的，并且不是同步的。
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see HashMap
+ * @see CompactHashMap
+ */
+public class SwissHashMap<K,V> extends AbstractMap<K,V>
+    implements Map<K,V>, Cloneable, Serializable {
+
+	/**
+	 * serialVersionUID:
+	 */
+	private static final long serialVersionUID = 2546328905723105319L;
+
+    /** Slots per group, one control byte each. 每组的槽数，每个槽一个控制字节。 */
+    static final int GROUP_WIDTH = 8;
+
+    /** The default initial capacity in slots. 默认的初始容量(槽数)。 */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /** The maximum capacity in slots. 最大容量(槽数)。 */
+    static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    // Control bytes
+    static final long EMPTY = 0x80L;
+    static final long DELETED = 0xFEL;
+
+    static final long LSBS = 0x0101010101010101L;
+    static final long MSBS = 0x8080808080808080L;
+
+    /** A control word with every slot empty. 所有槽都为空的控制字。 */
+    static final long ALL_EMPTY = EMPTY * LSBS;
+
+    /** Value representing null keys inside tables. 表示null键的对象。 */
+    static final Object NULL_KEY = new Object();
+
+    /* ---------------- Fields -------------- */
+
+    /** One control word per group. 每组一个控制字。 */
+    transient long[] ctrl;
+
+    /** Keys and values interleaved: slot i at 2*i and 2*i+1. 键值交错：槽i在2*i和2*i+1。 */
+    transient Object[] table;
+
+    transient int size;
+
+    /** Insertions into empty slots left before the table must grow or be purged. 在必须扩容或清理之前，还能向空槽插入的次数。 */
+    transient int growthLeft;
+
+    transient int modCount;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Constructs an empty map able to hold the given number of mappings
+     * without resizing.
+     * 构造一个空map，在不扩容的情况下能容纳给定数量的映射。
+     *
+     * @param  expectedSize the expected number of mappings
+     * @throws IllegalArgumentException if expectedSize is negative
+     */
+    public SwissHashMap(int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               expectedSize);
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Constructs an empty map with the default capacity (16 slots).
+     */
+    public SwissHashMap() {
+        allocate(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs a new map with the same mappings as the specified
+     * <tt>Map</tt>.
+     *
+     * @throws NullPointerException if the specified map is null
+     */
+    public SwissHashMap(Map<? extends K, ? extends V> m) {
+        allocate(capacityFor(m.size()));
+        putAll(m);
+    }
+
+    /**
+     * Slots needed to hold n mappings at most 7/8 full: ceil(8n / 7).
+     */
+    static int capacityFor(int n) {
+        long slots = (long)n + ((long)n + 6) / 7;
+        return Math.max(DEFAULT_INITIAL_CAPACITY,
+                        HashMap.tableSizeFor((int)Math.min(slots, MAXIMUM_CAPACITY)));
+    }
+
+    private void allocate(int capacity) {
+        long[] c = new long[capacity / GROUP_WIDTH];
+        Arrays.fill(c, ALL_EMPTY);
+        ctrl = c;
+        table = new Object[capacity << 1];
+        growthLeft = capacity - (capacity >>> 3) - size;
+    }
+
+    static Object maskNull(Object key) {
+        return (key == null ? NULL_KEY : key);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K> K unmaskNull(Object key) {
+        return (key == NULL_KEY ? null : (K) key);
+    }
+
+    /* ---------------- SWAR -------------- */
+
+    /**
+     * Returns a word with the high bit set in each byte of the control
+     * word equal to the fingerprint h2.  May report a false positive in
+     * a byte following a true match; callers compare keys anyway.
+     * 返回一个字，控制字中等于指纹h2的每个字节在结果中最高位被置1。
+     * 在真正匹配的字节之后可能出现误报；调用者无论如何都会比较键。
+     */
+    static long match(long word, int h2) {
+        long x = word ^ (LSBS * h2);
+        return (x - LSBS) & ~x & MSBS;
+    }
+
+    /**
+     * Returns a word with the high bit set in each EMPTY byte: the only
+     * control byte with the high bit set and bit 1 clear.
+     * 返回一个字，每个EMPTY字节在结果中最高位被置1：EMPTY是唯一最高位为1且第1位为0的控制字节。
+     */
+    static long matchEmpty(long word) {
+        return word & ~(word << 6) & MSBS;
+    }
+
+    /**
+     * Returns a word with the high bit set in each EMPTY or DELETED byte.
+     */
+    static long matchEmptyOrDeleted(long word) {
+        return word & MSBS;
+    }
+
+    /** Slot within the group of the lowest set match bit. 最低的匹配位对应的组内槽位。 */
+    static int lowestSlot(long matches) {
+        return Long.numberOfTrailingZeros(matches) >>> 3;
+    }
+
+    static int h1(int h) {
+        return h >>> 7;
+    }
+
+    static int h2(int h) {
+        return h & 0x7F;
+    }
+
+    final long controlByte(int slot) {
+        return (ctrl[slot >>> 3] >>> ((slot & 7) << 3)) & 0xFF;
+    }
+
+    final void setControl(int slot, long c) {
+        int g = slot >>> 3, shift = (slot & 7) << 3;
+        ctrl[g] = (ctrl[g] & ~(0xFFL << shift)) | (c << shift);
+    }
+
+    /* ---------------- Lookup -------------- */
+
+    /**
+     * Returns the slot holding the (masked) key, or -1.
+     * 返回保存该(已掩码的)键的槽，不存在返回-1。
+     */
+    final int find(int h, Object k) {
+        long[] c = ctrl;
+        Object[] tab = table;
+        int gmask = c.length - 1, h2 = h2(h);
+        for (int g = h1(h) & gmask, step = 0; ; g = (g + ++step) & gmask) {
+            long word = c[g];
+            for (long m = match(word, h2); m != 0; m &= m - 1) {
+                int slot = (g << 3) + lowestSlot(m);
+                Object item = tab[slot << 1];
+                if (item == k || k.equals(item))
+                    return slot;
+            }
+            if (matchEmpty(word) != 0 || step > gmask)
+                return -1;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int slot = find(HashMap.hash(key), maskNull(key));
+        return (slot < 0) ? null : (V) table[(slot << 1) + 1];
+    }
+
+    public boolean containsKey(Object key) {
+        return find(HashMap.hash(key), maskNull(key)) >= 0;
+    }
+
+    public boolean containsValue(Object value) {
+        Object[] tab = table;
+        for (int i = 0; i < tab.length; i += 2) {
+            Object v;
+            if (tab[i] != null &&
+                ((v = tab[i + 1]) == value || (value != null && value.equals(v))))
+                return true;
+        }
+        return false;
+    }
+
+    /* ---------------- Update -------------- */
+
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        int h = HashMap.hash(key);
+        Object k = maskNull(key);
+        int slot = find(h, k);
+        if (slot >= 0) {
+            int vi = (slot << 1) + 1;
+            V oldValue = (V) table[vi];
+            table[vi] = value;
+            return oldValue;
+        }
+        slot = findInsertSlot(h);
+        if (growthLeft == 0 && controlByte(slot) == EMPTY) {
+            rehash();
+            slot = findInsertSlot(h);
+        }
+        if (controlByte(slot) == EMPTY)
+            --growthLeft;
+        setControl(slot, h2(h));
+        table[slot << 1] = k;
+        table[(slot << 1) + 1] = value;
+        ++size;
+        ++modCount;
+        return null;
+    }
+
+    /**
+     * Returns the first empty or deleted slot on the probe sequence of
+     * h.  There always is one, since the table is never full.
+     * 返回h的探测序列上第一个空的或已删除的槽。由于表永远不会满，这样的槽总是存在。
+     */
+    final int findInsertSlot(int h) {
+        long[] c = ctrl;
+        int gmask = c.length - 1;
+        for (int g = h1(h) & gmask, step = 0; ; g = (g + ++step) & gmask) {
+            long m = matchEmptyOrDeleted(c[g]);
+            if (m != 0)
+                return (g << 3) + lowestSlot(m);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int slot = find(HashMap.hash(key), maskNull(key));
+        if (slot < 0)
+            return null;
+        V oldValue = (V) table[(slot << 1) + 1];
+        erase(slot);
+        return oldValue;
+    }
+
+    /**
+     * Removes the key, telling apart a missing key from one mapped to
+     * null, for keySet().remove.
+     * 删除键，并区分键不存在和键映射到null两种情况，供keySet().remove使用。
+     */
+    final boolean removeKey(Object key) {
+        int slot = find(HashMap.hash(key), maskNull(key));
+        if (slot < 0)
+            return false;
+        erase(slot);
+        return true;
+    }
+
+    /**
+     * Empties a full slot.  If its group still has an empty slot, no
+     * probe sequence ever continued past the group, so the slot can
+     * become EMPTY again; otherwise it must become a tombstone.
+     * 清空一个已占用的槽。如果它所在的组仍有空槽，就没有任何探测序列越过这个组继续，
+     * 所以这个槽可以重新变为EMPTY；否则必须变为墓碑。
+     */
+    final void erase(int slot) {
+        if (matchEmpty(ctrl[slot >>> 3]) != 0) {
+            setControl(slot, EMPTY);
+            ++growthLeft;
+        }
+        else
+            setControl(slot, DELETED);
+        table[slot << 1] = null;
+        table[(slot << 1) + 1] = null;
+        --size;
+        ++modCount;
+    }
+
+    public void clear() {
+        ++modCount;
+        Arrays.fill(ctrl, ALL_EMPTY);
+        Arrays.fill(table, null);
+        size = 0;
+        int capacity = ctrl.length * GROUP_WIDTH;
+        growthLeft = capacity - (capacity >>> 3);
+    }
+
+    /**
+     * Called when no room for growth is left: doubles the table, or,
+     * if at least half of the used-up room is tombstones, rebuilds it at
+     * the same capacity to purge them.  Every key is rehashed.
+     * 当增长空间用完时调用：把表扩大一倍；如果用掉的空间中至少一半是墓碑，则以相同容量重建表以清除墓碑。
+     * 每个键都会被重新散列。
+     */
+    final void rehash() {
+        long[] oldCtrl = ctrl;
+        Object[] oldTab = table;
+        int oldCap = oldCtrl.length * GROUP_WIDTH;
+        int newCap = (size <= (oldCap - (oldCap >>> 3)) >>> 1) ? oldCap : oldCap << 1;
+        if (newCap > MAXIMUM_CAPACITY)
+            throw new IllegalStateException("Capacity exhausted.");
+        int n = size;
+        size = 0;
+        allocate(newCap);
+        for (int i = 0; i < oldCap; ++i) {
+            Object k = oldTab[i << 1];
+            if (k != null) {
+                int h = HashMap.hash(unmaskNull(k));
+                int slot = findInsertSlot(h);
+                setControl(slot, h2(h));
+                table[slot << 1] = k;
+                table[(slot << 1) + 1] = oldTab[(i << 1) + 1];
+            }
+        }
+        size = n;
+        growthLeft -= n;
+        ++modCount;
+    }
+
+    /* ---------------- Views -------------- */
+
+    transient Set<Map.Entry<K,V>> entrySet;
+
+    public Set<K> keySet() {
+        Set<K> ks = keySet;
+        if (ks == null) {
+            ks = new AbstractSet<K>() {
+                public Iterator<K> iterator()     { return new KeyIterator(); }
+                public int size()                 { return size; }
+                public boolean contains(Object o) { return containsKey(o); }
+                public boolean remove(Object o)   { return removeKey(o); }
+                public void clear()               { SwissHashMap.this.clear(); }
+            };
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    public Collection<V> values() {
+        Collection<V> vs = values;
+        if (vs == null) {
+            vs = new AbstractCollection<V>() {
+                public Iterator<V> iterator()     { return new ValueIterator(); }
+                public int size()                 { return size; }
+                public boolean contains(Object o) { return containsValue(o); }
+                public void clear()               { SwissHashMap.this.clear(); }
+            };
+            values = vs;
+        }
+        return vs;
+    }
+
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public final int size()                 { return size; }
+        public final void clear()               { SwissHashMap.this.clear(); }
+        public final Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey();
+            int slot = find(HashMap.hash(key), maskNull(key));
+            if (slot < 0)
+                return false;
+            Object v = table[(slot << 1) + 1], ev = e.getValue();
+            return v == ev || (v != null && v.equals(ev));
+        }
+        public final boolean remove(Object o) {
+            if (contains(o)) {
+                SwissHashMap.this.remove(((Map.Entry<?,?>) o).getKey());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Base iterator.  Walks the control words, skipping whole groups
+     * with no full slot.  Removal never moves other entries, so the walk
+     * is unaffected by remove().
+     * 基础迭代器。遍历控制字，整组跳过没有已占用槽的组。删除从不移动其他条目，所以remove()不影响遍历。
+     */
+    abstract class SwissIterator<T> implements Iterator<T> {
+        int group;                 // current group
+        long pending;              // full-slot bits of the current group not yet returned
+        int lastSlot = -1;
+        int expectedModCount = modCount;
+
+        SwissIterator() {
+            pending = full(ctrl[0]);
+        }
+
+        final long full(long word) {
+            return ~word & MSBS;
+        }
+
+        public final boolean hasNext() {
+            while (pending == 0) {
+                if (++group >= ctrl.length) {
+                    group = ctrl.length;
+                    return false;
+                }
+                pending = full(ctrl[group]);
+            }
+            return true;
+        }
+
+        final int nextSlot() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            int slot = (group << 3) + lowestSlot(pending);
+            pending &= pending - 1;
+            return lastSlot = slot;
+        }
+
+        public final void remove() {
+            if (lastSlot < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            erase(lastSlot);
+            lastSlot = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends SwissIterator<K> {
+        public final K next() {
+            return unmaskNull(table[nextSlot() << 1]);
+        }
+    }
+
+    final class ValueIterator extends SwissIterator<V> {
+        @SuppressWarnings("unchecked")
+        public final V next() {
+            return (V) table[(nextSlot() << 1) + 1];
+        }
+    }
+
+    final class EntryIterator extends SwissIterator<Map.Entry<K,V>> {
+        @SuppressWarnings("unchecked")
+        public final Map.Entry<K,V> next() {
+            int slot = nextSlot();
+            return new Entry(SwissHashMap.<K>unmaskNull(table[slot << 1]),
+                             (V) table[(slot << 1) + 1]);
+        }
+    }
+
+    /**
+     * Snapshot entry whose setValue writes through with put.
+     */
+    final class Entry extends AbstractMap.SimpleEntry<K,V> {
+        private static final long serialVersionUID = 1L;
+
+        Entry(K key, V value) {
+            super(key, value);
+        }
+
+        public V setValue(V value) {
+            super.setValue(value);
+            return put(getKey(), value);
+        }
+    }
+
+    /* ---------------- Cloning and serialization -------------- */
+
+    /**
+     * Returns a shallow copy of this map.
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        SwissHashMap<K,V> result;
+        try {
+            result = (SwissHashMap<K,V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+        result.ctrl = ctrl.clone();
+        result.table = table.clone();
+        result.entrySet = null;
+        result.keySet = null;
+        result.values = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    /**
+     * Save the state of this map to a stream.
+     *
+     * @serialData The <i>size</i> (int), followed by the key (Object)
+     *             and value (Object) for each mapping, in no particular
+     *             order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        Object[] tab = table;
+        for (int i = 0; i < tab.length; i += 2) {
+            if (tab[i] != null) {
+                s.writeObject(unmaskNull(tab[i]));
+                s.writeObject(tab[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Reconstitute the map from a stream.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        allocate(capacityFor(mappings));
+        for (int i = 0; i < mappings; i++)
+            put((K) s.readObject(), (V) s.readObject());
+    }
+}
@@ -0,0 +1,37 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:Ticker.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午8:52:14  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+/**
+ * A source of nanosecond time for caches that expire entries.  Only
+ * differences between readings are meaningful, as with
+ * {@link System#nanoTime}.  Tests can pass a ticker they advance by
+ * hand instead of waiting on the wall clock.
+ * 为会过期条目的缓存提供纳秒时间。与System.nanoTime一样，只有两次读数之差有意义。
+ * 测试可以传入一个手动推进的ticker，而不必等待真实时间流逝。
+ *
+ * @see ExpiringLinkedHashCache
+ */
+public interface Ticker {
+
+    /**
+     * Returns the current time in nanoseconds.
+     * 返回当前的纳秒时间。
+     *
+     * @return the current time
+     */
+    long read();
+
+    /**
+     * The ticker backed by {@link System#nanoTime}.
+     * 基于System.nanoTime的ticker。
+     */
+    Ticker SYSTEM = System::nanoTime;
+}
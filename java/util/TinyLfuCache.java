@@ -0,0 +1,318 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:TinyLfuCache.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午8:10:36  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+/**
+ * A bounded cache using the W-TinyLFU policy, which keeps entries that
+ * are used often over entries that were merely used last, so a scan
+ * over many keys that are never used again cannot flush the hot set
+ * the way it flushes an LRU cache.
+ * 使用W-TinyLFU策略的有界缓存，它优先保留经常使用的条目，而不是仅仅最近使用过的条目，
+ * 所以对大量之后不再使用的键的扫描不能像冲刷LRU缓存那样冲掉热点集合。
+ *
+ * <p>The entries are kept in three access-ordered {@link LinkedHashMap}
+ * regions:
+ * <ul>
+ * <li><em>window</em>, about 1% of the capacity: every new entry enters
+ * here, so a burst of new keys only competes for the window;
+ * <li><em>probation</em>: entries admitted from the window but not used
+ * since; the eviction victims come from its LRU end;
+ * <li><em>protected</em>, at most 80% of the main region: entries used
+ * again while in probation.  When it overflows its LRU entry is demoted
+ * back to probation.
+ * </ul>
+ * 条目保存在三个访问顺序的LinkedHashMap区域中：window约占容量的1%，每个新条目都先进入这里，
+ * 所以一批新键只在window中相互竞争；probation保存从window准入但之后没有再被使用的条目，
+ * 淘汰的牺牲者来自它的LRU一端；protected最多占主区域的80%，保存在probation中再次被使用的条目，
+ * 溢出时其LRU条目被降级回probation。
+ *
+ * <p>An entry leaving the window is admitted to the main region only if
+ * the {@link FrequencySketch} estimates it to be used more often than
+ * the victim it would replace; otherwise the candidate itself is
+ * evicted.  Every read and write counts in the sketch, which ages
+ * periodically so that popularity can shift.
+ * 离开window的条目只有在FrequencySketch估计它比将要替换的牺牲者更常用时才进入主区域，
+ * 否则淘汰候选者自己。每次读写都计入sketch，sketch会定期老化，使流行度可以变化。
+ *
+ * <p>Evictions are counted and reported to the
+ * {@link EvictionListener}, and <tt>get</tt> counts hits and misses, as
+ * in {@link LinkedHashCache}.  This cache does not allow <tt>null</tt>
+ * keys or values, and <strong>is not synchronized.</strong>
+ * 与LinkedHashCache一样，淘汰会被计数并通知EvictionListener，get统计命中和未命中。
+ * 此缓存不允许null键和null值，并且不是同步的。
+ *
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ *
+ * @see FrequencySketch
+ * @see LinkedHashCache
+ */
+public class TinyLfuCache<K,V> {
+
+    /** Percentage of the capacity given to the window. window占容量的百分比。 */
+    static final int WINDOW_PERCENT = 1;
+
+    /** Percentage of the main region that may be protected. 主区域中protected最多占的百分比。 */
+    static final int PROTECTED_PERCENT = 80;
+
+    /* ---------------- Fields -------------- */
+
+    final int maximumSize;
+    final int windowMaximum;
+    final int mainMaximum;
+    final int protectedMaximum;
+
+    final LinkedHashMap<K,V> window;
+    final LinkedHashMap<K,V> probation;
+    final LinkedHashMap<K,V> protectedRegion;
+
+    final FrequencySketch<Object> sketch;
+
+    EvictionListener<? super K,? super V> listener;
+
+    long hitCount;
+    long missCount;
+    long evictionCount;
+
+    /**
+     * Constructs an empty cache holding at most the given number of
+     * entries.
+     * 构造一个最多保存给定数量条目的空缓存。
+     *
+     * @param  maximumSize the maximum number of entries
+     * @throws IllegalArgumentException if maximumSize is negative
+     */
+    public TinyLfuCache(int maximumSize) {
+        if (maximumSize < 0)
+            throw new IllegalArgumentException("Illegal maximum size: " +
+                                               maximumSize);
+        this.maximumSize = maximumSize;
+        this.windowMaximum = (maximumSize == 0) ? 0 :
+            Math.max(1, (int)((long)maximumSize * WINDOW_PERCENT / 100));
+        this.mainMaximum = maximumSize - windowMaximum;
+        this.protectedMaximum = (int)((long)mainMaximum * PROTECTED_PERCENT / 100);
+        this.window = new LinkedHashMap<K,V>(16, 0.75f, true);
+        this.probation = new LinkedHashMap<K,V>(16, 0.75f, true);
+        this.protectedRegion = new LinkedHashMap<K,V>(16, 0.75f, true);
+        this.sketch = new FrequencySketch<Object>(maximumSize);
+    }
+
+    /**
+     * Sets the listener notified of evictions, or null for none.
+     * 设置淘汰时通知的监听器，为null时不通知。
+     *
+     * @param listener the listener
+     */
+    public void setEvictionListener(EvictionListener<? super K,? super V> listener) {
+        this.listener = listener;
+    }
+
+    /* ---------------- Cache operations -------------- */
+
+    /**
+     * Returns the value to which the key is mapped, or null, counting
+     * a hit or a miss.  A hit in probation promotes the entry to the
+     * protected region.
+     * 返回键映射的值，不存在时返回null，并统计一次命中或未命中。在probation中命中时把条目提升到protected区域。
+     *
+     * @throws NullPointerException if the key is null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null)
+            throw new NullPointerException();
+        sketch.increment(key);
+        V v;
+        if ((v = window.get(key)) != null || (v = protectedRegion.get(key)) != null) {
+            ++hitCount;
+            return v;
+        }
+        if ((v = probation.remove(key)) != null) {
+            ++hitCount;
+            promote((K)key, v);
+            return v;
+        }
+        ++missCount;
+        return null;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the cache holds the key, without
+     * counting or recording an access.
+     * 如果缓存中有该键则返回true，不统计也不记录访问。
+     */
+    public boolean containsKey(Object key) {
+        return window.containsKey(key) || probation.containsKey(key) ||
+            protectedRegion.containsKey(key);
+    }
+
+    /**
+     * Associates the value with the key.  A new entry enters the
+     * window, and whatever the window pushes out must win admission
+     * against the main region's victim.
+     * 把值与键关联。新条目进入window，被window挤出的条目必须在与主区域牺牲者的比较中胜出才能被准入。
+     *
+     * @return the previous value, or null
+     * @throws NullPointerException if the key or value is null
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        sketch.increment(key);
+        V old;
+        if (window.containsKey(key))
+            return window.put(key, value);
+        if (protectedRegion.containsKey(key))
+            return protectedRegion.put(key, value);
+        if ((old = probation.remove(key)) != null) {
+            promote(key, value);
+            return old;
+        }
+        window.put(key, value);
+        if (window.size() > windowMaximum)
+            evictFromWindow();
+        return null;
+    }
+
+    /**
+     * Removes the mapping for the key, if present.  Explicit removals
+     * are not reported to the eviction listener.
+     * 删除键的映射(如果存在)。显式删除不会通知淘汰监听器。
+     *
+     * @return the removed value, or null
+     */
+    public V remove(Object key) {
+        V v;
+        if ((v = window.remove(key)) == null &&
+            (v = probation.remove(key)) == null)
+            v = protectedRegion.remove(key);
+        return v;
+    }
+
+    /**
+     * Removes all of the mappings.  The frequency sketch is kept.
+     * 删除所有映射。频率sketch保留。
+     */
+    public void clear() {
+        window.clear();
+        probation.clear();
+        protectedRegion.clear();
+    }
+
+    /**
+     * Returns the number of entries.
+     * 返回条目数。
+     */
+    public int size() {
+        return window.size() + probation.size() + protectedRegion.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /* ---------------- Policy -------------- */
+
+    /**
+     * Moves an entry just used in probation to the MRU end of the
+     * protected region, demoting the protected LRU entry to probation
+     * if the region is full.
+     * 把在probation中刚被使用的条目移到protected区域的MRU一端，如果该区域已满，
+     * 则把protected的LRU条目降级到probation。
+     */
+    final void promote(K key, V value) {
+        protectedRegion.put(key, value);
+        LinkedHashMap.Entry<K,V> e;
+        if (protectedRegion.size() > protectedMaximum &&
+            (e = protectedRegion.head) != null) {
+            K k = e.key;
+            V v = e.value;
+            protectedRegion.remove(k);
+            probation.put(k, v);
+        }
+    }
+
+    /**
+     * Moves the window's LRU entry into probation if the main region
+     * has room; otherwise admits it only if it is estimated to be more
+     * frequent than the main region's victim, evicting the loser.
+     * 如果主区域还有空间，把window的LRU条目移到probation；否则只有当它的估计频率高于
+     * 主区域的牺牲者时才准入，并淘汰失败的一方。
+     */
+    final void evictFromWindow() {
+        LinkedHashMap.Entry<K,V> c = window.head;
+        K candidate = c.key;
+        V candidateValue = c.value;
+        window.remove(candidate);
+        if (probation.size() + protectedRegion.size() < mainMaximum) {
+            probation.put(candidate, candidateValue);
+            return;
+        }
+        LinkedHashMap<K,V> region = (probation.head != null) ? probation : protectedRegion;
+        LinkedHashMap.Entry<K,V> victim = region.head;
+        if (victim != null &&
+            sketch.frequency(candidate) > sketch.frequency(victim.key)) {
+            K k = victim.key;
+            V v = victim.value;
+            region.remove(k);
+            probation.put(candidate, candidateValue);
+            evicted(k, v);
+        }
+        else
+            evicted(candidate, candidateValue);
+    }
+
+    final void evicted(K key, V value) {
+        ++evictionCount;
+        EvictionListener<? super K,? super V> l;
+        if ((l = listener) != null)
+            l.onEviction(key, value);
+    }
+
+    /* ---------------- Statistics -------------- */
+
+    /** Returns the maximum number of entries. 返回最大条目数。 */
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /** Returns the number of lookups that found an entry. 返回命中的查找次数。 */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /** Returns the number of lookups that found no entry. 返回未命中的查找次数。 */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of hits to lookups, or 1.0 if there have been
+     * no lookups.
+     * 返回命中次数与查找次数之比，没有查找时返回1.0。
+     */
+    public double hitRate() {
+        long lookups = hitCount + missCount;
+        return (lookups == 0L) ? 1.0 : (double)hitCount / lookups;
+    }
+
+    /** Returns the number of entries evicted. 返回被淘汰的条目数。 */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Resets the hit, miss and eviction counters to zero.
+     * 把命中、未命中和淘汰计数器清零。
+     */
+    public void resetStatistics() {
+        hitCount = missCount = evictionCount = 0L;
+    }
+}
@@ -0,0 +1,37 @@
+/**  
+ * Project Name:collection-source  
+ * File Name:Weigher.java  
+ * Package Name:source.java.util  
+ * Date:2026年10月17日下午6:12:40  
+ * Copyright (c) 2026, linhao@fenla.net All Rights Reserved.  
+ *  
+*/  
+  
+package source.java.util;
+
+/**
+ * Computes the weight of a cache entry, for caches bounded by total
+ * weight rather than entry count, e.g. by the approximate bytes of the
+ * cached rows.  An entry is weighed when it is inserted and whenever
+ * its value is replaced, and the weight is not expected to change while
+ * the entry stays the same.
+ * 计算缓存条目的权重，用于按总权重而不是条目数限制大小的缓存，例如按缓存的行的近似字节数。
+ * 条目在插入时以及每次替换值时被称重，条目不变时其权重也不应改变。
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ *
+ * @see LinkedHashCache
+ */
+public interface Weigher<K,V> {
+
+    /**
+     * Returns the weight of an entry.
+     * 返回条目的权重。
+     *
+     * @param key the key
+     * @param value the value
+     * @return the weight, not negative
+     */
+    int weigh(K key, V value);
+}